@@ -69,25 +69,17 @@ public class JobReportGenerator extends ReportGenerator {
             for (int i = 0; i < jobDataList.length(); i++) {
                 try {
                     JSONObject jobData = jobDataList.getJSONObject(i);
+                    addJobRow(asciiTable, jobData, jobData.optString(JOB_NAME_FIELD, " "));
 
-                    String startTimeStr = formatTimestamp(
-                            jobData.optLong(START_TIME_FIELD, -1));
-                    String completionTimeStr = formatTimestamp(
-                            jobData.optLong(COMPLETION_TIME_FIELD, -1));
-
-                    asciiTable.addRow(
-                            jobData.optString(PIPELINE_NAME_FIELD, " "),
-                            jobData.optInt(RUN_NUMBER_FIELD, -1),
-                            jobData.optString(COMMIT_FIELD, "None"),
-                            jobData.optString(STAGE_NAME_FIELD, " "),
-                            jobData.optString(JOB_NAME_FIELD, " "),
-                            jobData.optString(JOB_STATUS_FIELD, "UNKNOWN"),
-                            jobData.optBoolean(ALLOWS_FAILURE_FIELD,
-                                    false) ? "Yes" : "No",
-                            startTimeStr,
-                            completionTimeStr
-                    );
-                    asciiTable.addRule();
+                    // The jobs of a matrix are listed under their matrix job
+                    JSONArray matrixJobs = jobData.optJSONArray(MATRIX_JOBS_FIELD);
+                    if (matrixJobs != null) {
+                        for (int j = 0; j < matrixJobs.length(); j++) {
+                            JSONObject matrixJob = matrixJobs.getJSONObject(j);
+                            addJobRow(asciiTable, matrixJob,
+                                    "  - " + matrixJob.optString(JOB_NAME_FIELD, " "));
+                        }
+                    }
 
                 } catch (JSONException e) {
                     System.err.println("Error processing job data at index " +
@@ -96,4 +88,32 @@ public class JobReportGenerator extends ReportGenerator {
             }
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Adds the row of a job to the table.
+     *
+     * @param asciiTable The AsciiTable to add the row to.
+     * @param jobData    The details of the job.
+     * @param jobName    The job name to show in the row.
+     */
+    private void addJobRow(AsciiTable asciiTable, JSONObject jobData, String jobName) {
+        String startTimeStr = formatTimestamp(
+                jobData.optLong(START_TIME_FIELD, -1));
+        String completionTimeStr = formatTimestamp(
+                jobData.optLong(COMPLETION_TIME_FIELD, -1));
+
+        asciiTable.addRow(
+                jobData.optString(PIPELINE_NAME_FIELD, " "),
+                jobData.optInt(RUN_NUMBER_FIELD, -1),
+                jobData.optString(COMMIT_FIELD, "None"),
+                jobData.optString(STAGE_NAME_FIELD, " "),
+                jobName,
+                jobData.optString(JOB_STATUS_FIELD, "UNKNOWN"),
+                jobData.optBoolean(ALLOWS_FAILURE_FIELD,
+                        false) ? "Yes" : "No",
+                startTimeStr,
+                completionTimeStr
+        );
+        asciiTable.addRule();
+    }
+}
@@ -65,25 +65,18 @@ public class StageReportGenerator extends ReportGenerator {
             for (int i = 0; i < stageSummaryList.length(); i++) {
                 try {
                     JSONObject stageSummary = stageSummaryList.getJSONObject(i);
+                    addJobRow(asciiTable, stageSummary,
+                            stageSummary.optString(JOB_NAME_FIELD, " "));
 
-                    String startTimeStr = formatTimestamp(
-                            stageSummary.optLong(START_TIME_FIELD, -1));
-                    String completionTimeStr = formatTimestamp(
-                            stageSummary.optLong(COMPLETION_TIME_FIELD, -1));
-
-                    asciiTable.addRow(
-                            stageSummary.optString(PIPELINE_NAME_FIELD, " "),
-                            stageSummary.optInt(RUN_NUMBER_FIELD, -1),
-                            stageSummary.optString(COMMIT_FIELD, "None"),
-                            stageSummary.optString(STAGE_NAME_FIELD, " "),
-                            stageSummary.optString(STAGE_STATUS_FIELD, "UNKNOWN"),
-                            stageSummary.optString(JOB_NAME_FIELD, " "),
-                            stageSummary.optString(JOB_STATUS_FIELD, "UNKNOWN"),
-                            stageSummary.optBoolean(ALLOWS_FAILURE_FIELD, false) ? "Yes" : "No",
-                            startTimeStr,
-                            completionTimeStr
-                    );
-                    asciiTable.addRule();
+                    // The jobs of a matrix are listed under their matrix job
+                    JSONArray matrixJobs = stageSummary.optJSONArray(MATRIX_JOBS_FIELD);
+                    if (matrixJobs != null) {
+                        for (int j = 0; j < matrixJobs.length(); j++) {
+                            JSONObject matrixJob = matrixJobs.getJSONObject(j);
+                            addJobRow(asciiTable, matrixJob,
+                                    "  - " + matrixJob.optString(JOB_NAME_FIELD, " "));
+                        }
+                    }
 
                 } catch (JSONException e) {
                     System.err.println("Error processing stage summary at index " +
@@ -92,4 +85,32 @@ public class StageReportGenerator extends ReportGenerator {
             }
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Adds the row of a job to the table.
+     *
+     * @param asciiTable   The AsciiTable to add the row to.
+     * @param stageSummary The summary of the job.
+     * @param jobName      The job name to show in the row.
+     */
+    private void addJobRow(AsciiTable asciiTable, JSONObject stageSummary, String jobName) {
+        String startTimeStr = formatTimestamp(
+                stageSummary.optLong(START_TIME_FIELD, -1));
+        String completionTimeStr = formatTimestamp(
+                stageSummary.optLong(COMPLETION_TIME_FIELD, -1));
+
+        asciiTable.addRow(
+                stageSummary.optString(PIPELINE_NAME_FIELD, " "),
+                stageSummary.optInt(RUN_NUMBER_FIELD, -1),
+                stageSummary.optString(COMMIT_FIELD, "None"),
+                stageSummary.optString(STAGE_NAME_FIELD, " "),
+                stageSummary.optString(STAGE_STATUS_FIELD, "UNKNOWN"),
+                jobName,
+                stageSummary.optString(JOB_STATUS_FIELD, "UNKNOWN"),
+                stageSummary.optBoolean(ALLOWS_FAILURE_FIELD, false) ? "Yes" : "No",
+                startTimeStr,
+                completionTimeStr
+        );
+        asciiTable.addRule();
+    }
+}
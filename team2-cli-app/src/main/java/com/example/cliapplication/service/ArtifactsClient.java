@@ -0,0 +1,314 @@
+package com.example.cliapplication.service;
+
+import com.example.cliapplication.utils.Constants;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Lists and downloads the artifacts of pipeline runs from the backend.
+ * <p>
+ * Files are downloaded several at a time, each into a {@code .part} file next to its target.
+ * An interrupted download is resumed from the end of its {@code .part} file with a
+ * {@code Range} request. The range is only asked for with an {@code If-Range} naming the version
+ * the partial file was started from, which is the digest of the file or else the {@code ETag}
+ * kept next to it, and a partial file without either is downloaded again from the start. A file
+ * whose digest is known is also checked before it is moved into place, so a resumed file is never
+ * mixed from two versions.
+ * </p>
+ */
+public class ArtifactsClient {
+    private static final String ARTIFACTS_URL = "http://localhost:8080/artifacts";
+    private static final String PART_SUFFIX = ".part";
+    private static final String VALIDATOR_SUFFIX = ".part.etag";
+
+    private final HttpClient httpClient;
+    private final int parallelDownloads;
+
+    /**
+     * Constructs a client that sends its requests with the given HTTP client.
+     *
+     * @param httpClient        The HTTP client used to send requests.
+     * @param parallelDownloads The number of files downloaded at the same time.
+     */
+    public ArtifactsClient(HttpClient httpClient, int parallelDownloads) {
+        this.httpClient = httpClient;
+        this.parallelDownloads = Math.max(1, parallelDownloads);
+    }
+
+    /**
+     * Constructs a client with the default number of parallel downloads.
+     *
+     * @param httpClient The HTTP client used to send requests.
+     */
+    public ArtifactsClient(HttpClient httpClient) {
+        this(httpClient, Constants.DEFAULT_PARALLEL_DOWNLOADS);
+    }
+
+    /**
+     * Lists the artifact files of a pipeline run.
+     *
+     * @param repo         The repository of the run, or {@code null} for the local repo.
+     * @param pipelineName The name of the pipeline.
+     * @param runNumber    The run number of the pipeline.
+     * @param jobName      The job to list the files of, or {@code null} for all jobs.
+     * @return The files, each with its job, path, size and, if known, digest.
+     * @throws IOException          If the request fails or the backend reports an error.
+     * @throws InterruptedException If the request is interrupted.
+     */
+    public JSONArray listArtifacts(String repo, String pipelineName, String runNumber,
+                                   String jobName) throws IOException, InterruptedException {
+        Map<String, String> query = runQuery(repo, pipelineName, runNumber);
+        if (jobName != null) {
+            query.put("job", jobName);
+        }
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(createUri(ARTIFACTS_URL, query))
+                .GET()
+                .header("Accept", "application/json")
+                .build();
+        HttpResponse<String> response = httpClient.send(request,
+                HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            throw new IOException("Failed to list artifacts. Status code: "
+                    + response.statusCode() + " " + response.body());
+        }
+        try {
+            return new JSONArray(response.body());
+        } catch (JSONException e) {
+            throw new IOException("Invalid artifact list: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Downloads artifact files into a directory, as {@code <job>/<path>}, several at a time.
+     * Files that are already complete are skipped, and partial files are resumed.
+     *
+     * @param repo         The repository of the run, or {@code null} for the local repo.
+     * @param pipelineName The name of the pipeline.
+     * @param runNumber    The run number of the pipeline.
+     * @param artifacts    The files to download, as listed by {@link #listArtifacts}.
+     * @param directory    The directory to download into.
+     * @return The number of files that were downloaded or already complete.
+     * @throws IOException          If a file could not be downloaded; the other files are
+     *                              still downloaded.
+     * @throws InterruptedException If the downloads are interrupted.
+     */
+    public int downloadArtifacts(String repo, String pipelineName, String runNumber,
+                                 JSONArray artifacts, Path directory)
+            throws IOException, InterruptedException {
+        Path root = directory.toAbsolutePath().normalize();
+        ExecutorService pool = Executors.newFixedThreadPool(
+                Math.min(parallelDownloads, Math.max(1, artifacts.length())));
+        Map<String, Future<?>> downloads = new LinkedHashMap<>();
+        try {
+            for (int i = 0; i < artifacts.length(); i++) {
+                JSONObject artifact = artifacts.getJSONObject(i);
+                String name = artifact.getString("job") + "/" + artifact.getString("path");
+                downloads.put(name, pool.submit(() -> {
+                    downloadArtifact(repo, pipelineName, runNumber, artifact, root);
+                    return null;
+                }));
+            }
+            List<String> failures = new ArrayList<>();
+            for (Map.Entry<String, Future<?>> download : downloads.entrySet()) {
+                try {
+                    download.getValue().get();
+                } catch (ExecutionException e) {
+                    System.err.println("Failed to download " + download.getKey() + ": "
+                            + e.getCause().getMessage());
+                    failures.add(download.getKey());
+                }
+            }
+            if (!failures.isEmpty()) {
+                throw new IOException("Failed to download " + failures.size() + " of "
+                        + downloads.size() + " artifact files: " + String.join(", ", failures));
+            }
+            return downloads.size();
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Downloads one artifact file, resuming its partial file if there is one.
+     *
+     * @param repo         The repository of the run, or {@code null} for the local repo.
+     * @param pipelineName The name of the pipeline.
+     * @param runNumber    The run number of the pipeline.
+     * @param artifact     The file, as listed.
+     * @param root         The directory to download into.
+     * @throws IOException          If the download fails or the file does not match its digest.
+     * @throws InterruptedException If the download is interrupted.
+     */
+    void downloadArtifact(String repo, String pipelineName, String runNumber,
+                          JSONObject artifact, Path root)
+            throws IOException, InterruptedException {
+        String job = artifact.getString("job");
+        String path = artifact.getString("path");
+        long size = artifact.getLong("size");
+        String digest = artifact.optString("digest", null);
+
+        // The job and path come from the server, so neither may lead out of the directory
+        if (job.isEmpty() || job.equals(".") || job.equals("..") || job.contains("/")
+                || job.contains("\\")) {
+            throw new IOException("Artifact job is not a directory name: " + job);
+        }
+        Path base = root.toAbsolutePath().normalize();
+        Path jobDirectory = base.resolve(job);
+        Path target = jobDirectory.resolve(path).normalize();
+        Path parent = target.getParent();
+        Path fileName = target.getFileName();
+        if (!target.startsWith(base) || !target.startsWith(jobDirectory)
+                || target.equals(jobDirectory) || parent == null || fileName == null) {
+            throw new IOException("Artifact path leaves the download directory: " + path);
+        }
+        if (Files.isRegularFile(target) && Files.size(target) == size
+                && (digest == null || digest.equals(sha256(target)))) {
+            System.out.println("Up to date: " + job + "/" + path);
+            return;
+        }
+        Files.createDirectories(parent);
+        Path part = parent.resolve(fileName + PART_SUFFIX);
+        Path validatorFile = parent.resolve(fileName + VALIDATOR_SUFFIX);
+        String validator = digest != null ? "\"" + digest + "\""
+                : Files.isRegularFile(validatorFile) ? Files.readString(validatorFile).trim()
+                : "";
+        long offset = Files.isRegularFile(part) ? Files.size(part) : 0;
+        // Without a validator the server cannot tell whether the partial file is still current
+        if (offset > size || validator.isEmpty()) {
+            offset = 0;
+        }
+
+        if (offset < size || size == 0) {
+            Map<String, String> query = runQuery(repo, pipelineName, runNumber);
+            query.put("job", job);
+            query.put("path", path);
+            HttpRequest.Builder request = HttpRequest.newBuilder()
+                    .uri(createUri(ARTIFACTS_URL + "/download", query))
+                    .GET();
+            if (offset > 0) {
+                request.header("Range", "bytes=" + offset + "-");
+                request.header("If-Range", validator);
+            }
+            HttpResponse<InputStream> response = httpClient.send(request.build(),
+                    HttpResponse.BodyHandlers.ofInputStream());
+            try (InputStream body = response.body()) {
+                boolean resumed = response.statusCode() == 206;
+                if (!resumed && response.statusCode() != 200) {
+                    throw new IOException("Status code: " + response.statusCode());
+                }
+                if (!resumed) {
+                    // A later resume must name the version this download is started from
+                    String started = response.headers().firstValue("ETag")
+                            .or(() -> response.headers().firstValue("Last-Modified"))
+                            .orElse("");
+                    if (started.isEmpty() || started.startsWith("W/")) {
+                        Files.deleteIfExists(validatorFile);
+                    } else {
+                        Files.writeString(validatorFile, started);
+                    }
+                }
+                // A 200 answer to a range request sends the whole file again
+                try (OutputStream out = Files.newOutputStream(part, StandardOpenOption.CREATE,
+                        StandardOpenOption.WRITE, resumed ? StandardOpenOption.APPEND
+                                : StandardOpenOption.TRUNCATE_EXISTING)) {
+                    body.transferTo(out);
+                }
+                if (resumed) {
+                    System.out.println("Resumed " + job + "/" + path + " at byte " + offset);
+                }
+            }
+        }
+
+        if (Files.size(part) != size || (digest != null && !digest.equals(sha256(part)))) {
+            Files.deleteIfExists(part);
+            Files.deleteIfExists(validatorFile);
+            throw new IOException("Downloaded file does not match the artifact, try again");
+        }
+        Files.move(part, target, StandardCopyOption.REPLACE_EXISTING);
+        Files.deleteIfExists(validatorFile);
+        System.out.println("Downloaded " + job + "/" + path + " (" + size + " bytes)");
+    }
+
+    private static Map<String, String> runQuery(String repo, String pipelineName,
+                                                String runNumber) {
+        Map<String, String> query = new LinkedHashMap<>();
+        if (repo != null) {
+            query.put("repo", repo);
+        }
+        query.put("pipeline", pipelineName);
+        query.put("runNumber", runNumber);
+        return query;
+    }
+
+    /**
+     * Builds a request URI with URL encoded query parameters.
+     *
+     * @param url   The URL of the endpoint.
+     * @param query The query parameters.
+     * @return The request URI.
+     */
+    URI createUri(String url, Map<String, String> query) {
+        StringBuilder uri = new StringBuilder(url);
+        char separator = '?';
+        for (Map.Entry<String, String> parameter : query.entrySet()) {
+            uri.append(separator).append(parameter.getKey()).append('=')
+                    .append(URLEncoder.encode(parameter.getValue(), StandardCharsets.UTF_8));
+            separator = '&';
+        }
+        return URI.create(uri.toString());
+    }
+
+    /**
+     * Computes the hex encoded SHA-256 digest of a file.
+     *
+     * @param file The file.
+     * @return The digest.
+     * @throws IOException If the file cannot be read.
+     */
+    private static String sha256(Path file) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+        byte[] buffer = new byte[64 * 1024];
+        try (InputStream in = Files.newInputStream(file)) {
+            int read;
+            while ((read = in.read(buffer)) >= 0) {
+                digest.update(buffer, 0, read);
+            }
+        }
+        StringBuilder hex = new StringBuilder();
+        for (byte b : digest.digest()) {
+            hex.append(String.format("%02x", b));
+        }
+        return hex.toString();
+    }
+}
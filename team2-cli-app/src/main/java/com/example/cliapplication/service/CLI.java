@@ -9,11 +9,13 @@ import org.json.JSONException;
 import org.json.JSONObject;
 
 import java.io.File;
+import java.io.IOException;
 import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
 import java.util.function.Consumer;
 import java.util.stream.Stream;
 
@@ -73,6 +75,11 @@ public class CLI {
                 return;
             }
 
+            if (hasRawArg("artifacts")) {
+                handleArtifacts(cmd);
+                return;
+            }
+
             String rawCommand = String.join(" ", updateArgsWithLocalDir(cmd));
             URI sseUri = createSseUri(rawCommand);
             HttpRequest sseRequest = createSseRequest(sseUri);
@@ -89,6 +96,52 @@ public class CLI {
         }
     }
 
+    /**
+     * Lists the artifacts of a pipeline run, and downloads them if an output directory is given.
+     * Artifacts are fetched from the artifacts endpoint instead of the SSE command stream.
+     *
+     * @param cmd Parsed command line.
+     * @throws IOException          If listing or downloading fails.
+     * @throws InterruptedException If the requests are interrupted.
+     */
+    private void handleArtifacts(CommandLine cmd) throws IOException, InterruptedException {
+        ArtifactsClient artifactsClient = new ArtifactsClient(httpClient);
+        String repo = cmd.hasOption("local") ? null : cmd.getOptionValue("repo");
+        String pipelineName = cmd.getOptionValue("pipeline");
+        String runNumber = cmd.getOptionValue("runNumber");
+        JSONArray artifacts = artifactsClient.listArtifacts(repo, pipelineName, runNumber,
+                cmd.getOptionValue("job"));
+
+        String path = cmd.getOptionValue("path");
+        if (path != null) {
+            JSONArray matching = new JSONArray();
+            for (int i = 0; i < artifacts.length(); i++) {
+                String artifactPath = artifacts.getJSONObject(i).getString("path");
+                if (artifactPath.equals(path) || artifactPath.startsWith(path + "/")) {
+                    matching.put(artifacts.getJSONObject(i));
+                }
+            }
+            artifacts = matching;
+        }
+
+        if (artifacts.length() == 0) {
+            System.out.println("No artifacts found.");
+            return;
+        }
+        if (!cmd.hasOption("output")) {
+            for (int i = 0; i < artifacts.length(); i++) {
+                JSONObject artifact = artifacts.getJSONObject(i);
+                System.out.printf("%-24s %12d  %s%n", artifact.getString("job"),
+                        artifact.getLong("size"), artifact.getString("path"));
+            }
+            return;
+        }
+        int files = artifactsClient.downloadArtifacts(repo, pipelineName, runNumber, artifacts,
+                Paths.get(cmd.getOptionValue("output")));
+        System.out.println("Downloaded " + files + " artifact files into "
+                + cmd.getOptionValue("output"));
+    }
+
     /**
      * Prints help documentation if the help option is present.
      *
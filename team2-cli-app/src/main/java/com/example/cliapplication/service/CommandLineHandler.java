@@ -12,7 +12,7 @@ import java.util.List;
  * <p>
  * This class defines supported CLI options, parses incoming arguments,
  * and validates commands based on the expected syntax for different operations
- * like `check`, `dry-run`, `run`, `status`, or `report`.
+ * like `check`, `dry-run`, `run`, `status`, `report`, `follow`, `cancel` or `artifacts`.
  */
 public class CommandLineHandler {
     private final Options options = new Options();
@@ -32,6 +32,11 @@ public class CommandLineHandler {
      * Each option may have a short alias, an optional argument, and a help description.
      */
     private void initializeOptions() {
+        options.addOption(Option.builder("a")
+                .longOpt("all")
+                .desc("Check every file in the .pipelines directory")
+                .build());
+
         options.addOption(Option.builder("c")
                 .longOpt("check")
                 .desc("Perform a general file check operation")
@@ -64,6 +69,18 @@ public class CommandLineHandler {
                 .desc("Retrieve pipeline reports for the local repo")
                 .build());
 
+        options.addOption(Option.builder("o")
+                .longOpt("output")
+                .hasArg()
+                .desc("Download the artifacts of a pipeline run into this directory")
+                .build());
+
+        options.addOption(Option.builder("p")
+                .longOpt("path")
+                .hasArg()
+                .desc("Only the artifact files at or under this path")
+                .build());
+
         options.addOption(Option.builder("pipeline")
                 .longOpt("pipeline")
                 .hasArg()
@@ -129,7 +146,8 @@ public class CommandLineHandler {
 
     /**
      * Validates whether the parsed command-line arguments form a valid command
-     * based on supported combinations like `check -f`, `dry-run -f`, or `report --pipeline`.
+     * based on supported combinations like `check -f`, `check --all`, `dry-run -f`, or
+     * `report --pipeline`.
      *
      * @param cmd     The parsed command line.
      * @param args    The raw command-line argument array.
@@ -144,20 +162,32 @@ public class CommandLineHandler {
         boolean hasFilename = hasOption(cmd, "filename", "f");
 
         boolean isCheck = hasOption(cmd, "check", "c");
+        boolean isCheckAll = (isCheck || argsList.contains("check"))
+            && hasOption(cmd, "all", "a");
         boolean isDryRun = hasOption(cmd, "dry-run", "d");
         boolean isRun = argsList.contains("run");
         boolean isStatus = argsList.contains("status");
         boolean isReport = argsList.contains("report") && cmd.hasOption("pipeline");
+        boolean isFollow = argsList.contains("follow") && cmd.hasOption("pipeline")
+            && hasOption(cmd, "runNumber", "rn");
+        boolean isCancel = argsList.contains("cancel") && cmd.hasOption("pipeline")
+            && hasOption(cmd, "runNumber", "rn");
+        boolean isArtifacts = argsList.contains("artifacts") && cmd.hasOption("pipeline")
+            && hasOption(cmd, "runNumber", "rn");
 
         boolean isJustFilename = hasFilename && !(isCheck ||
             isRun || isStatus ||
-            isDryRun || isReport);
+            isDryRun || isReport || isFollow || isCancel || isArtifacts);
 
         if (!( (isCheck && hasFilename)
+            || isCheckAll
             || (isDryRun && hasFilename)
             || (isRun && hasFilename)
             || (isStatus && hasFilename)
             || isReport
+            || isFollow
+            || isCancel
+            || isArtifacts
             || isJustFilename)) {
             suggestValidCommands(args[0], output);
             output.displayError("Invalid command or missing required options.");
@@ -188,7 +218,8 @@ public class CommandLineHandler {
      * @param output The output handler for displaying suggestions.
      */
     public void suggestValidCommands(String userCommand, ConsoleOutput output) {
-        String[] validCommands = {"check", "dry-run", "run", "status", "report", "help"};
+        String[] validCommands = {"check", "dry-run", "run", "status", "report", "follow",
+            "cancel", "artifacts", "help"};
 
         // Find commands that are similar (1-2 characters off)
         List<String> suggestions = new ArrayList<>();
@@ -59,6 +59,11 @@ public class Constants {
      */
     public static final String ALLOWS_FAILURE_FIELD = "allowsFailure";
 
+    /**
+     * Field name for the jobs a matrix job was expanded into.
+     */
+    public static final String MATRIX_JOBS_FIELD = "matrixJobs";
+
     // === Timing Fields ===
 
     /**
@@ -88,6 +93,13 @@ public class Constants {
      */
     public static final String DEFAULT_JSON_KEY = "Report";
 
+    // === Artifact Downloads ===
+
+    /**
+     * Number of artifact files downloaded at the same time.
+     */
+    public static final int DEFAULT_PARALLEL_DOWNLOADS = 4;
+
     /**
      * Private constructor to prevent instantiation of this utility class.
      */
@@ -46,10 +46,12 @@ public class ConsoleOutput {
      */
     public void printHelp(Options options) {
         String header = "\n";
-        String footer = String.format(" %-10s %s%n %-10s %s%n %-10s %s",
+        String footer = String.format(" %-10s %s%n %-10s %s%n %-10s %s%n %-10s %s%n %-10s %s",
                 "report", "Generate reports for pipeline runs",
                 "run", "Executes the pipeline locally",
-                "status", "Display status information for pipeline runs"
+                "status", "Display status information for pipeline runs",
+                "follow", "Stream live progress of a pipeline run",
+                "cancel", "Cancel a queued or running pipeline run"
         );
         formatter.printHelp("java -jar pipeline-tool.jar [options]", header, options, footer);
     }
@@ -0,0 +1,201 @@
+package com.example.cliapplication.service;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class ArtifactsClientTest {
+    private static final String HELLO_DIGEST =
+            "2cf24dba5fb0a30e26e83b2ac5b9e29e1b161e5c1fa7425e73043362938b9824";
+
+    @TempDir
+    Path tempDir;
+    private HttpClient httpClient;
+    private ArtifactsClient client;
+
+    @BeforeEach
+    void setUp() {
+        httpClient = mock(HttpClient.class);
+        client = new ArtifactsClient(httpClient, 2);
+    }
+
+    private void respond(int statusCode, String body) throws Exception {
+        respond(statusCode, null,
+                () -> new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @SuppressWarnings("unchecked")
+    private void respond(int statusCode, String etag, Supplier<InputStream> body)
+            throws Exception {
+        HttpResponse<InputStream> response = mock(HttpResponse.class);
+        when(response.statusCode()).thenReturn(statusCode);
+        when(response.headers()).thenReturn(HttpHeaders.of(
+                etag == null ? Map.of() : Map.of("ETag", List.of(etag)), (name, value) -> true));
+        when(response.body()).thenAnswer(invocation -> body.get());
+        when(httpClient.send(any(), any())).thenAnswer(invocation -> response);
+    }
+
+    private JSONObject artifact(String path) {
+        return new JSONObject().put("job", "build").put("path", path).put("size", 5)
+                .put("digest", HELLO_DIGEST);
+    }
+
+    private HttpRequest sentRequest() throws Exception {
+        ArgumentCaptor<HttpRequest> request = ArgumentCaptor.forClass(HttpRequest.class);
+        verify(httpClient).send(request.capture(), any());
+        return request.getValue();
+    }
+
+    @Test
+    void testDownloadArtifact_resumesThePartialFile() throws Exception {
+        Files.createDirectories(tempDir.resolve("build/target"));
+        Files.writeString(tempDir.resolve("build/target/hello.txt.part"), "hel");
+        respond(206, "lo");
+
+        client.downloadArtifact("repo", "ci", "7", artifact("target/hello.txt"), tempDir);
+
+        assertEquals("hello", Files.readString(tempDir.resolve("build/target/hello.txt")));
+        assertFalse(Files.exists(tempDir.resolve("build/target/hello.txt.part")));
+        ArgumentCaptor<HttpRequest> request = ArgumentCaptor.forClass(HttpRequest.class);
+        verify(httpClient).send(request.capture(), any());
+        assertEquals("bytes=3-", request.getValue().headers().firstValue("Range").orElse(null));
+        assertEquals("\"" + HELLO_DIGEST + "\"",
+                request.getValue().headers().firstValue("If-Range").orElse(null));
+        assertTrue(request.getValue().uri().toString().endsWith(
+                "/artifacts/download?repo=repo&pipeline=ci&runNumber=7&job=build"
+                        + "&path=target%2Fhello.txt"));
+    }
+
+    @Test
+    void testDownloadArtifact_startsOverWhenTheWholeFileIsSent() throws Exception {
+        Files.createDirectories(tempDir.resolve("build"));
+        Files.writeString(tempDir.resolve("build/hello.txt.part"), "xx");
+        respond(200, "hello");
+
+        client.downloadArtifact(null, "ci", "7", artifact("hello.txt"), tempDir);
+
+        assertEquals("hello", Files.readString(tempDir.resolve("build/hello.txt")));
+    }
+
+    @Test
+    void testDownloadArtifact_keepsTheEtagOfAnInterruptedDownload() throws Exception {
+        InputStream interrupted = new InputStream() {
+            private final InputStream sent = new ByteArrayInputStream(
+                    "hel".getBytes(StandardCharsets.UTF_8));
+
+            @Override
+            public int read() throws IOException {
+                int read = sent.read();
+                if (read < 0) {
+                    throw new IOException("Connection reset");
+                }
+                return read;
+            }
+        };
+        respond(200, "\"9f8e\"", () -> interrupted);
+        JSONObject artifact = artifact("hello.txt");
+        artifact.remove("digest");
+
+        assertThrows(IOException.class, () ->
+                client.downloadArtifact(null, "ci", "7", artifact, tempDir));
+        assertEquals("hel", Files.readString(tempDir.resolve("build/hello.txt.part")));
+        assertEquals("\"9f8e\"", Files.readString(tempDir.resolve("build/hello.txt.part.etag")));
+    }
+
+    @Test
+    void testDownloadArtifact_resumesAFileWithoutDigestByItsEtag() throws Exception {
+        Files.createDirectories(tempDir.resolve("build"));
+        Files.writeString(tempDir.resolve("build/hello.txt.part"), "hel");
+        Files.writeString(tempDir.resolve("build/hello.txt.part.etag"), "\"9f8e\"");
+        respond(206, "lo");
+        JSONObject artifact = artifact("hello.txt");
+        artifact.remove("digest");
+
+        client.downloadArtifact(null, "ci", "7", artifact, tempDir);
+
+        assertEquals("hello", Files.readString(tempDir.resolve("build/hello.txt")));
+        assertFalse(Files.exists(tempDir.resolve("build/hello.txt.part.etag")));
+        HttpRequest request = sentRequest();
+        assertEquals("bytes=3-", request.headers().firstValue("Range").orElse(null));
+        assertEquals("\"9f8e\"", request.headers().firstValue("If-Range").orElse(null));
+    }
+
+    @Test
+    void testDownloadArtifact_startsOverWithoutAValidator() throws Exception {
+        Files.createDirectories(tempDir.resolve("build"));
+        Files.writeString(tempDir.resolve("build/hello.txt.part"), "xel");
+        respond(200, "hello");
+        JSONObject artifact = artifact("hello.txt");
+        artifact.remove("digest");
+
+        client.downloadArtifact(null, "ci", "7", artifact, tempDir);
+
+        assertEquals("hello", Files.readString(tempDir.resolve("build/hello.txt")));
+        assertTrue(sentRequest().headers().firstValue("Range").isEmpty());
+    }
+
+    @Test
+    void testDownloadArtifact_rejectsAFileThatDoesNotMatchItsDigest() throws Exception {
+        respond(200, "jello");
+
+        assertThrows(IOException.class, () ->
+                client.downloadArtifact(null, "ci", "7", artifact("hello.txt"), tempDir));
+        assertFalse(Files.exists(tempDir.resolve("build/hello.txt")));
+        assertFalse(Files.exists(tempDir.resolve("build/hello.txt.part")));
+    }
+
+    @Test
+    void testDownloadArtifacts_downloadsInParallelAndSkipsCompleteFiles() throws Exception {
+        Files.createDirectories(tempDir.resolve("build"));
+        Files.writeString(tempDir.resolve("build/a.txt"), "hello");
+        respond(200, "hello");
+        JSONArray artifacts = new JSONArray().put(artifact("a.txt")).put(artifact("b.txt"))
+                .put(artifact("c/d.txt"));
+
+        assertEquals(3, client.downloadArtifacts(null, "ci", "7", artifacts, tempDir));
+
+        assertEquals("hello", Files.readString(tempDir.resolve("build/b.txt")));
+        assertEquals("hello", Files.readString(tempDir.resolve("build/c/d.txt")));
+        verify(httpClient, times(2)).send(any(), any());
+    }
+
+    @Test
+    void testDownloadArtifact_rejectsPathsLeavingTheDirectory() {
+        assertThrows(IOException.class, () ->
+                client.downloadArtifact(null, "ci", "7", artifact("../../escape.txt"), tempDir));
+        verifyNoInteractions(httpClient);
+    }
+
+    @Test
+    void testDownloadArtifact_rejectsJobsLeavingTheDirectory() {
+        for (String job : new String[] {"..", ".", "", "../build", "a/b"}) {
+            JSONObject artifact = artifact("escape.txt").put("job", job);
+            assertThrows(IOException.class, () ->
+                    client.downloadArtifact(null, "ci", "7", artifact, tempDir.resolve("out")),
+                    "Job should be rejected: " + job);
+        }
+        assertFalse(Files.exists(tempDir.resolve("escape.txt")));
+        verifyNoInteractions(httpClient);
+    }
+}
@@ -28,6 +28,13 @@ class CommandLineHandlerTest {
         assertTrue(handler.isValidCommand(cmd, args, handler.getOptions(), output));
     }
 
+    @Test
+    void testValidCheckAllCommand() throws ParseException {
+        String[] args = {"check", "--all"};
+        CommandLine cmd = handler.parse(args);
+        assertTrue(handler.isValidCommand(cmd, args, handler.getOptions(), output));
+    }
+
     @Test
     void testValidRunCommand() throws ParseException {
         String[] args = {"run", "-f", "file.yaml"};
@@ -57,6 +64,27 @@ class CommandLineHandlerTest {
     }
 
 
+    @Test
+    void testValidFollowCommand() throws ParseException {
+        String[] args = {"follow", "--pipeline", "default", "--runNumber", "3"};
+        CommandLine cmd = handler.parse(args);
+        assertTrue(handler.isValidCommand(cmd, args, handler.getOptions(), output));
+    }
+
+    @Test
+    void testInvalidFollowCommand_missingRunNumber() throws ParseException {
+        String[] args = {"follow", "--pipeline", "default"};
+        CommandLine cmd = handler.parse(args);
+        assertFalse(handler.isValidCommand(cmd, args, handler.getOptions(), output));
+    }
+
+    @Test
+    void testValidCancelCommand() throws ParseException {
+        String[] args = {"cancel", "--pipeline", "default", "-rn", "3"};
+        CommandLine cmd = handler.parse(args);
+        assertTrue(handler.isValidCommand(cmd, args, handler.getOptions(), output));
+    }
+
     @Test
     void testJustFilenameCommand() throws ParseException {
         String[] args = {"run", "-f", "file.yaml"};  // fixed
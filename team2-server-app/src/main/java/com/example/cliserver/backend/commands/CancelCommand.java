@@ -0,0 +1,97 @@
+package com.example.cliserver.backend.commands;
+
+import com.example.cliserver.backend.database.mongoDB.PipelineRunsDao;
+import com.example.cliserver.backend.messaging.PipelinePublisher;
+import com.example.cliserver.backend.model.PipelineEvent;
+import com.example.cliserver.backend.model.Status;
+import com.example.cliserver.backend.utils.Constants;
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import org.bson.Document;
+
+/**
+ * Command to cancel a queued or running pipeline run.
+ * <p>
+ * Queued runs cannot be taken back out of the message queue, so they are tombstoned instead:
+ * the run, its stages and its jobs are marked canceled, and the worker that receives the run
+ * skips it. Since no worker reports the end of such a run, it is published here for the
+ * followers of the run. Running runs are stopped by sending a cancel request to the workers.
+ * </p>
+ */
+public class CancelCommand {
+
+    private final PipelineRunsDao pipelineRunsDao;
+    private final PipelinePublisher publisher;
+
+    /**
+     * Constructs a new CancelCommand.
+     *
+     * @param pipelineRunsDao The DAO for looking up and updating pipeline runs
+     * @param publisher       The publisher used to signal the workers
+     */
+    @SuppressFBWarnings("EI_EXPOSE_REP2")
+    public CancelCommand(PipelineRunsDao pipelineRunsDao, PipelinePublisher publisher) {
+        this.pipelineRunsDao = pipelineRunsDao;
+        this.publisher = publisher;
+    }
+
+    /**
+     * Cancels a pipeline run.
+     *
+     * @param repo         The repository of the pipeline run, or null for the local repo
+     * @param pipelineName The name of the pipeline
+     * @param runNumber    The run number of the pipeline
+     * @return A message describing the outcome of the cancellation
+     */
+    public String cancel(String repo, String pipelineName, int runNumber) {
+        repo = repo != null ? repo : Constants.LOCAL_REPO;
+
+        Document run = pipelineRunsDao.getTimeFilteredPipelineRunReports(
+                repo, pipelineName, runNumber
+        ).first();
+        if (run == null) {
+            return "No pipeline run found for " + pipelineName + " run: " + runNumber;
+        }
+
+        String status = run.getString(Constants.PIPELINE_STATUS_FIELD);
+        if (Status.SUCCESS.toString().equals(status)
+                || Status.FAILED.toString().equals(status)
+                || Status.CANCELED.toString().equals(status)) {
+            return pipelineName + " run: " + runNumber
+                    + " has already finished with status: " + status;
+        }
+
+        if (Status.PENDING.toString().equals(status)
+                && cancelQueued(repo, pipelineName, runNumber)) {
+            return "Canceled queued " + pipelineName + " run: " + runNumber;
+        }
+
+        return publisher.publishCancelRequest(repo, pipelineName, runNumber);
+    }
+
+    /**
+     * Cancels a pipeline run that is still queued, and tells its followers that it finished.
+     *
+     * @param repo         The repository of the pipeline run
+     * @param pipelineName The name of the pipeline
+     * @param runNumber    The run number of the pipeline
+     * @return true if the run was canceled, false if a worker has already claimed it
+     */
+    public boolean cancelQueued(String repo, String pipelineName, int runNumber) {
+        long now = System.currentTimeMillis();
+        // A worker claims a run by moving it from pending to running, so if this succeeds
+        // no worker has started the run and it will be skipped when it is received
+        if (!pipelineRunsDao.cancelPendingPipelineRun(repo, pipelineName, runNumber, now)) {
+            return false;
+        }
+        PipelineEvent event = new PipelineEvent();
+        event.setType(PipelineEvent.Type.PIPELINE_FINISHED);
+        event.setRepo(repo);
+        event.setPipelineName(pipelineName);
+        event.setRunNumber(runNumber);
+        event.setStatus(Status.CANCELED);
+        event.setMessage("Pipeline finished: " + Status.CANCELED);
+        event.setTimestamp(now);
+        publisher.publishPipelineEvent(event);
+        return true;
+    }
+}
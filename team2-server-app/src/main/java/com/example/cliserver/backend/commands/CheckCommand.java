@@ -2,6 +2,9 @@ package com.example.cliserver.backend.commands;
 
 import com.example.cliserver.backend.model.ValidationResult;
 import com.example.cliserver.backend.utils.ConfigurationValidator;
+import com.example.cliserver.backend.utils.Constants;
+import java.io.IOException;
+import java.util.Map;
 
 /**
  * Command to validate YAML pipeline configuration files.
@@ -38,4 +41,40 @@ public class CheckCommand {
             return validationResult.getErrorMessage();
         }
     }
+
+    /**
+     * Validates every pipeline configuration file in the pipelines directory and prints the
+     * results, one line per file in file name order, followed by a summary.
+     *
+     * @param repo The repo url to validate or null if local
+     * @param branch The branch to check out for the given repo
+     * @param commit The commit hash to check out for the given repo
+     * @return A string message with the result of every file
+     */
+    public String validateAll(String repo, String branch, String commit) {
+        Map<String, ValidationResult> results;
+        try {
+            results = configurationValidator.validateAll(repo, branch, commit);
+        } catch (IOException e) {
+            return e.getMessage();
+        }
+        if (results.isEmpty()) {
+            return "No pipeline files found in " + Constants.DIRECTORY;
+        }
+        StringBuilder output = new StringBuilder();
+        int invalid = 0;
+        for (Map.Entry<String, ValidationResult> result : results.entrySet()) {
+            if (result.getValue().isValid()) {
+                output.append("The file ").append(Constants.DIRECTORY).append(result.getKey())
+                        .append(" file is valid.");
+            } else {
+                output.append(result.getValue().getErrorMessage());
+                invalid++;
+            }
+            output.append("\n");
+        }
+        output.append(String.format("Validated %d pipeline files: %d valid, %d invalid.",
+                results.size(), results.size() - invalid, invalid));
+        return output.toString();
+    }
 }
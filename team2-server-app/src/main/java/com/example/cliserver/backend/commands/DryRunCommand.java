@@ -5,8 +5,10 @@ import com.example.cliserver.backend.model.PipelineConfig;
 import com.example.cliserver.backend.model.ValidationResult;
 import com.example.cliserver.backend.utils.ConfigurationValidator;
 import com.example.cliserver.backend.utils.PipelineUtils;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 /**
@@ -68,16 +70,15 @@ public class DryRunCommand {
         // Track visited jobs to avoid re-processing
         Set<String> visited = new HashSet<>();
 
+        Map<String, List<Job>> jobsByStage = PipelineUtils.groupJobsByStage(pipeline.getJobs());
+
         // Process each stage in order
         for (String stage : pipeline.getStages()) {
             yaml.append(stage).append(":\n");
 
             // Get topologically sorted jobs for this stage
-            List<Job> stageJobs = pipeline.getJobs().stream()
-                    .filter(job -> job.getStage().equals(stage))
-                    .toList();
-
-            List<Job> sortedJobs = PipelineUtils.getTopologicallySortedJobs(stageJobs);
+            List<Job> sortedJobs = PipelineUtils.getTopologicallySortedJobs(
+                    jobsByStage.getOrDefault(stage, Collections.emptyList()));
 
             // Print jobs in the correct order
             for (Job job : sortedJobs) {
@@ -1,9 +1,10 @@
 package com.example.cliserver.backend.commands;
 
 import com.example.cliserver.backend.utils.Constants;
-import com.example.cliserver.backend.utils.GitUtils;
+import com.example.cliserver.backend.utils.GitPipelineSource;
 
 import java.io.File;
+import java.io.IOException;
 
 /**
  * This class provides functionality to check
@@ -23,24 +24,38 @@ public class FileCommand {
      */
     public static String checkFile(String filename, String repo, String branch,
                                    String commit) {
-        String localDir;
-        String result;
         if (repo != null) {
-            String cloneToDirectory = GitUtils.getRepoDirectoryFromURL(repo);
-            GitUtils.cloneRemoteRepo(cloneToDirectory, repo, branch, commit);
-            localDir = cloneToDirectory + Constants.DIRECTORY;
-        } else {
-            localDir = Constants.DIRECTORY;
+            return checkRemoteFile(filename, repo, branch, commit);
         }
-        File file = new File(localDir, filename);
+        File file = new File(Constants.DIRECTORY, filename);
         if (file.exists()) {
-            result = "\nFile present: " + file.getAbsolutePath();
-        } else {
-            result = "\nFile not found in .pipelines directory.";
+            return "\nFile present: " + file.getAbsolutePath();
         }
-        if (repo != null) {
-            GitUtils.cleanUpRemoteDirectory(repo);
+        return "\nFile not found in .pipelines directory.";
+    }
+
+    /**
+     * Checks if the specified file exists in the `.pipeline` directory of a remote repository.
+     * The directory is read from the repository mirror, so nothing is checked out.
+     *
+     * @param filename The name of the file to check.
+     * @param repo The url of the repository for the file
+     * @param branch The branch to check for the given repo
+     * @param commit The commit hash to check for the given repo
+     * @return A string message indicating whether the file is present or a not
+     */
+    private static String checkRemoteFile(String filename, String repo, String branch,
+                                          String commit) {
+        GitPipelineSource source;
+        try {
+            source = GitPipelineSource.load(repo, branch, commit);
+        } catch (IOException e) {
+            return "\nError reading repo " + repo + ": " + e.getMessage();
+        }
+        if (source.getPipelineFiles().containsKey(filename)) {
+            return "\nFile present: " + repo + " " + Constants.DIRECTORY + filename
+                    + " at commit " + source.getCommitHash();
         }
-        return result;
+        return "\nFile not found in .pipelines directory.";
     }
 }
\ No newline at end of file
@@ -0,0 +1,111 @@
+package com.example.cliserver.backend.commands;
+
+import com.example.cliserver.backend.database.mongoDB.PipelineRunsDao;
+import com.example.cliserver.backend.messaging.PipelineEventSubscriber;
+import com.example.cliserver.backend.model.Status;
+import com.example.cliserver.backend.utils.Constants;
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import org.bson.Document;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+
+/**
+ * Command to follow the progress of a pipeline run as it executes on a worker.
+ * Progress events are streamed to the client until the run finishes, or until
+ * the client disconnects.
+ */
+public class FollowCommand {
+
+    private final PipelineRunsDao pipelineRunsDao;
+    private final PipelineEventSubscriber subscriber;
+
+    /**
+     * Constructs a new FollowCommand.
+     *
+     * @param pipelineRunsDao The DAO for looking up pipeline runs
+     * @param subscriber      The subscriber that relays pipeline events to clients
+     */
+    @SuppressFBWarnings("EI_EXPOSE_REP2")
+    public FollowCommand(PipelineRunsDao pipelineRunsDao, PipelineEventSubscriber subscriber) {
+        this.pipelineRunsDao = pipelineRunsDao;
+        this.subscriber = subscriber;
+    }
+
+    /**
+     * Streams the progress events of a pipeline run to the given emitter. If the run has
+     * already finished, its final status is sent and the emitter is completed immediately.
+     *
+     * @param repo         The repository of the pipeline run, or null for the local repo
+     * @param pipelineName The name of the pipeline
+     * @param runNumber    The run number of the pipeline
+     * @param emitter      The SSE emitter of the client following the run
+     * @throws IOException if the events could not be sent or subscribed to
+     */
+    public void follow(String repo, String pipelineName, int runNumber, SseEmitter emitter)
+            throws IOException {
+        repo = repo != null ? repo : Constants.LOCAL_REPO;
+
+        String status = getPipelineStatus(repo, pipelineName, runNumber);
+        if (status == null) {
+            sendAndComplete(emitter, "No pipeline run found for " + pipelineName
+                    + " run: " + runNumber);
+            return;
+        }
+        if (isFinished(status)) {
+            sendAndComplete(emitter, pipelineName + " run: " + runNumber
+                    + " has already finished with status: " + status);
+            return;
+        }
+
+        emitter.send(SseEmitter.event().data("Following " + pipelineName + " run: " + runNumber
+                + " (" + status + ")"));
+        subscriber.follow(repo, pipelineName, runNumber, emitter);
+
+        // The run may have finished between the status check and the subscription
+        status = getPipelineStatus(repo, pipelineName, runNumber);
+        if (isFinished(status)) {
+            sendAndComplete(emitter, pipelineName + " run: " + runNumber
+                    + " finished with status: " + status);
+        }
+    }
+
+    /**
+     * Looks up the current status of a pipeline run.
+     *
+     * @param repo         The repository of the pipeline run
+     * @param pipelineName The name of the pipeline
+     * @param runNumber    The run number of the pipeline
+     * @return The status of the run, or null if the run does not exist
+     */
+    private String getPipelineStatus(String repo, String pipelineName, int runNumber) {
+        Document run = pipelineRunsDao.getTimeFilteredPipelineRunReports(
+                repo, pipelineName, runNumber
+        ).first();
+        return run == null ? null : run.getString(Constants.PIPELINE_STATUS_FIELD);
+    }
+
+    /**
+     * Checks whether a status marks the end of a pipeline run.
+     *
+     * @param status The status of the run
+     * @return true if the run has finished, else false
+     */
+    private boolean isFinished(String status) {
+        return Status.SUCCESS.toString().equals(status)
+                || Status.FAILED.toString().equals(status)
+                || Status.CANCELED.toString().equals(status);
+    }
+
+    /**
+     * Sends a final message to the emitter and completes it.
+     *
+     * @param emitter The SSE emitter of the client
+     * @param message The message to send
+     * @throws IOException if the message could not be sent
+     */
+    private void sendAndComplete(SseEmitter emitter, String message) throws IOException {
+        emitter.send(SseEmitter.event().data(message));
+        emitter.complete();
+    }
+}
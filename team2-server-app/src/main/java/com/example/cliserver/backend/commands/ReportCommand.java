@@ -2,6 +2,7 @@ package com.example.cliserver.backend.commands;
 
 import com.example.cliserver.backend.database.mongoDB.PipelineRunsDao;
 import com.example.cliserver.backend.model.PipelineRun;
+import com.example.cliserver.backend.model.Status;
 import com.example.cliserver.backend.utils.Constants;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
@@ -10,9 +11,23 @@ import org.json.JSONObject;
 import com.mongodb.client.AggregateIterable;
 import org.bson.Document;
 
+import java.util.HashMap;
+import java.util.Map;
+
+import static com.example.cliserver.backend.utils.Constants.ALLOWS_FAILURE_FIELD;
+import static com.example.cliserver.backend.utils.Constants.ARTIFACTS_LOCATION_FIELD;
+import static com.example.cliserver.backend.utils.Constants.COMPLETION_TIME_FIELD;
+import static com.example.cliserver.backend.utils.Constants.JOB_NAME_FIELD;
+import static com.example.cliserver.backend.utils.Constants.JOB_STATUS_FIELD;
 import static com.example.cliserver.backend.utils.Constants.JSON_DATA_KEY_JOB;
 import static com.example.cliserver.backend.utils.Constants.JSON_DATA_KEY_DEFAULT;
 import static com.example.cliserver.backend.utils.Constants.JSON_DATA_KEY_STAGE;
+import static com.example.cliserver.backend.utils.Constants.MATRIX_JOBS_FIELD;
+import static com.example.cliserver.backend.utils.Constants.MATRIX_PARENT_FIELD;
+import static com.example.cliserver.backend.utils.Constants.MATRIX_VALUES_FIELD;
+import static com.example.cliserver.backend.utils.Constants.RUN_NUMBER_FIELD;
+import static com.example.cliserver.backend.utils.Constants.STAGE_NAME_FIELD;
+import static com.example.cliserver.backend.utils.Constants.START_TIME_FIELD;
 
 public class ReportCommand {
 
@@ -106,14 +121,20 @@ public class ReportCommand {
                                          String stageName, String jobName, String runNumber) {
         AggregateIterable<Document> reports = pipelineRunsDao.getJobSummary(
                 pipelineName, stageName, jobName, runNumber);
-        return buildReportResponse(JSON_DATA_KEY_JOB, reports);
+        JSONObject response = buildReportResponse(JSON_DATA_KEY_JOB, reports);
+        response.put(JSON_DATA_KEY_JOB,
+                groupMatrixJobs(response.getJSONArray(JSON_DATA_KEY_JOB)));
+        return response;
     }
 
     private JSONObject generateStageReport(String pipelineName, 
                                            String stageName, String runNumber) {
         AggregateIterable<Document> reports = pipelineRunsDao.getStageSummary(
                 pipelineName, stageName, runNumber);
-        return buildReportResponse(JSON_DATA_KEY_STAGE, reports);
+        JSONObject response = buildReportResponse(JSON_DATA_KEY_STAGE, reports);
+        response.put(JSON_DATA_KEY_STAGE,
+                groupMatrixJobs(response.getJSONArray(JSON_DATA_KEY_STAGE)));
+        return response;
     }
 
     private JSONObject generateDefaultReport(String pipelineName, String repo, String runNumber) {
@@ -134,4 +155,92 @@ public class ReportCommand {
         result.put(reportTitle, reportsArray);
         return result;
     }
+
+    /**
+     * Groups the jobs a matrix job was expanded into under a row for the matrix job. The row of
+     * the matrix job takes the place of its first job, and has the combined status and time span
+     * of its jobs; the jobs themselves are listed in its {@code matrixJobs}.
+     *
+     * @param jobRows The report rows of single jobs
+     * @return The report rows with the jobs of every matrix grouped
+     */
+    public JSONArray groupMatrixJobs(JSONArray jobRows) {
+        JSONArray grouped = new JSONArray();
+        Map<String, JSONObject> matrixRows = new HashMap<>();
+        for (int i = 0; i < jobRows.length(); i++) {
+            JSONObject jobRow = jobRows.getJSONObject(i);
+            if (!jobRow.has(MATRIX_PARENT_FIELD) || jobRow.isNull(MATRIX_PARENT_FIELD)) {
+                grouped.put(jobRow);
+                continue;
+            }
+            String matrixParent = jobRow.getString(MATRIX_PARENT_FIELD);
+            String key = jobRow.opt(RUN_NUMBER_FIELD) + "\n"
+                    + jobRow.optString(STAGE_NAME_FIELD) + "\n" + matrixParent;
+            JSONObject matrixRow = matrixRows.get(key);
+            if (matrixRow == null) {
+                matrixRow = new JSONObject(jobRow, JSONObject.getNames(jobRow));
+                matrixRow.put(JOB_NAME_FIELD, matrixParent);
+                matrixRow.remove(MATRIX_PARENT_FIELD);
+                matrixRow.remove(MATRIX_VALUES_FIELD);
+                matrixRow.remove(ARTIFACTS_LOCATION_FIELD);
+                matrixRow.put(MATRIX_JOBS_FIELD, new JSONArray());
+                matrixRows.put(key, matrixRow);
+                grouped.put(matrixRow);
+            }
+            matrixRow.getJSONArray(MATRIX_JOBS_FIELD).put(jobRow);
+        }
+        for (JSONObject matrixRow : matrixRows.values()) {
+            summarizeMatrixJobs(matrixRow);
+        }
+        return grouped;
+    }
+
+    /**
+     * Sets the status and time span of a matrix job from the jobs it was expanded into.
+     *
+     * @param matrixRow The report row of the matrix job
+     */
+    private void summarizeMatrixJobs(JSONObject matrixRow) {
+        JSONArray matrixJobs = matrixRow.getJSONArray(MATRIX_JOBS_FIELD);
+        boolean anyFailed = false;
+        boolean anyCanceled = false;
+        boolean anyRunning = false;
+        boolean allPending = true;
+        boolean allFinished = true;
+        long startTime = Long.MAX_VALUE;
+        long completionTime = 0;
+        for (int i = 0; i < matrixJobs.length(); i++) {
+            JSONObject matrixJob = matrixJobs.getJSONObject(i);
+            String status = matrixJob.optString(JOB_STATUS_FIELD);
+            anyFailed |= Status.FAILED.toString().equals(status)
+                    && !matrixJob.optBoolean(ALLOWS_FAILURE_FIELD, false);
+            anyCanceled |= Status.CANCELED.toString().equals(status);
+            anyRunning |= Status.RUNNING.toString().equals(status);
+            allPending &= Status.PENDING.toString().equals(status);
+            allFinished &= !Status.PENDING.toString().equals(status)
+                    && !Status.RUNNING.toString().equals(status);
+            long jobStartTime = matrixJob.optLong(START_TIME_FIELD, 0);
+            if (jobStartTime > 0) {
+                startTime = Math.min(startTime, jobStartTime);
+            }
+            completionTime = Math.max(completionTime,
+                    matrixJob.optLong(COMPLETION_TIME_FIELD, 0));
+        }
+
+        String status;
+        if (anyFailed) {
+            status = Status.FAILED.toString();
+        } else if (anyCanceled) {
+            status = Status.CANCELED.toString();
+        } else if (allPending) {
+            status = Status.PENDING.toString();
+        } else if (anyRunning || !allFinished) {
+            status = Status.RUNNING.toString();
+        } else {
+            status = Status.SUCCESS.toString();
+        }
+        matrixRow.put(JOB_STATUS_FIELD, status);
+        matrixRow.put(START_TIME_FIELD, startTime == Long.MAX_VALUE ? 0 : startTime);
+        matrixRow.put(COMPLETION_TIME_FIELD, allFinished ? completionTime : 0);
+    }
 }
@@ -138,8 +138,11 @@ public class PipelineRunner {
 
                     updatePipelineRunReport(pipelineRunReport);
 
-                    boolean jobResult =
-                            executeJob(job, execution, dockerRegistry, dockerImage);
+                    String artifactsPrefix = ArtifactsUploader.objectPrefix(
+                            pipelineRunReport.getRepo(), pipelineRunReport.getPipelineName(),
+                            pipelineRunReport.getRunNumber(), job.getName());
+                    boolean jobResult = executeJob(job, execution, dockerRegistry, dockerImage,
+                            artifactsPrefix);
 
                     job.setCompletionTime(System.currentTimeMillis());
 
@@ -268,10 +271,12 @@ public class PipelineRunner {
      * @param execution The execution context for tracking status and logging
      * @param dockerImage The docker image to use to execute the job
      * @param dockerRegistry The docker registry to pull the docker image from
+     * @param artifactsPrefix The key prefix to store the artifacts of the job under
      * @return true if the job executed successfully, false if any command failed
      */
     private boolean executeJob(Job job, PipelineExecution execution,
-                               String dockerRegistry, String dockerImage) {
+                               String dockerRegistry, String dockerImage,
+                               String artifactsPrefix) {
         long startTime = System.currentTimeMillis();
 
         execution.log("Starting job: " + job.getName() + " at " + startTime);
@@ -289,7 +294,7 @@ public class PipelineRunner {
             // If the job allows failure, still upload artifacts
             if (job.isAllowFailure()) {
                 execution.log("Job " + job.getName() + " allows failure, uploading artifacts.");
-                uploadArtifacts(job, execution);
+                uploadArtifacts(job, execution, artifactsPrefix);
                 return true;
             }
             return false;
@@ -300,29 +305,31 @@ public class PipelineRunner {
 
         // Upload Artifacts
         if (job.getArtifacts() != null && !job.getArtifacts().isEmpty()) {
-            return uploadArtifacts(job, execution);
+            return uploadArtifacts(job, execution, artifactsPrefix);
         }
         return true;
     }
 
     /**
      * Helper function to upload artifacts associated with a job to a MinIO bucket.
-     * If the upload is successful, it logs the success message and returns true.
+     * If the upload is successful, it logs the success message, records where the artifacts
+     * are stored on the job and returns true.
      * If an error occurs, it logs the failure message and returns false.
 
      * @param job        The job whose artifacts need to be uploaded.
      * @param execution  The pipeline execution instance for logging purposes.
+     * @param artifactsPrefix The key prefix to store the artifacts under.
      * @return           {@code true} if all artifacts are uploaded successfully,
      *                   {@code false} otherwise.
      */
-    private boolean uploadArtifacts(Job job, PipelineExecution execution) {
+    private boolean uploadArtifacts(Job job, PipelineExecution execution,
+                                    String artifactsPrefix) {
         execution.log("Starting to upload artifacts for job: " + job.getName());
         try {
-            String bucketName = "artifacts-" + System.currentTimeMillis() % 100000;
-            execution.log("Created bucket " + bucketName
-                    + " to upload artifacts for job: " + job.getName());
-            this.uploader.uploadArtifacts(bucketName, job.getArtifacts());
-            execution.log("Successfully uploaded artifacts for job: " + job.getName());
+            this.uploader.uploadArtifacts(artifactsPrefix, job.getArtifacts());
+            job.setArtifactsLocation(this.uploader.getBucket() + "/" + artifactsPrefix);
+            execution.log("Successfully uploaded artifacts for job " + job.getName() + " to "
+                    + job.getArtifactsLocation());
             return true;
         } catch (Exception e) {
             execution.log("Failed to upload artifacts for job " +
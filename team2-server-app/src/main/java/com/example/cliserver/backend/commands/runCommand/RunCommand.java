@@ -1,5 +1,6 @@
 package com.example.cliserver.backend.commands.runCommand;
 
+import com.example.cliserver.backend.commands.CancelCommand;
 import com.example.cliserver.backend.database.mongoDB.PipelineRunsDao;
 import com.example.cliserver.backend.messaging.PipelinePublisher;
 import com.example.cliserver.backend.model.*;
@@ -7,8 +8,11 @@ import com.example.cliserver.backend.utils.ConfigurationValidator;
 import com.example.cliserver.backend.utils.Constants;
 import com.example.cliserver.backend.utils.PipelineUtils;
 
+import org.bson.Document;
+
 import java.util.Date;
 import java.util.List;
+import java.util.Objects;
 
 /**
  * Command to execute pipeline configurations.
@@ -60,8 +64,19 @@ public class RunCommand {
 
         pipelineRunReport.setFileName(fileName);
 
+        Concurrency concurrency = config.getPipeline().getConcurrency();
+        if (concurrency != null) {
+            pipelineRunReport.setConcurrencyGroup(concurrency.resolveGroup(
+                    pipelineRunReport.getRepo(), branch, config.getPipeline().getName()));
+        }
+
         initialisePipelineRunReport(pipelineRunReport, config);
 
+        if (concurrency != null) {
+            supersedeOlderRuns(pipelineRunReport, concurrency.isCancelInProgress(),
+                    new PipelinePublisher(this.pipelineRunsDao));
+        }
+
         if(useVerboseLogging) {
             PipelineRunner pipelineRunner = new PipelineRunner(this.pipelineRunsDao);
             // To run pipeline and see logs - run it here itself
@@ -108,6 +123,65 @@ public class RunCommand {
         updatePipelineRunReport(pipelineRunReport);
     }
 
+    /**
+     * Cancels the older runs of the concurrency group of a new run. Queued runs are always
+     * canceled, since they would only do work the new run supersedes. Runs that are already
+     * executing are only canceled if the pipeline asks for it.
+     *
+     * @param pipelineRun      the new pipeline run
+     * @param cancelInProgress whether executing runs of the group are canceled as well
+     * @param publisher        the publisher used to signal the workers
+     * @return the number of older runs that were canceled
+     */
+    int supersedeOlderRuns(PipelineRun pipelineRun, boolean cancelInProgress,
+                           PipelinePublisher publisher) {
+        CancelCommand cancelCommand = new CancelCommand(this.pipelineRunsDao, publisher);
+        int superseded = 0;
+        for (Document run : this.pipelineRunsDao.findUnfinishedRunsInConcurrencyGroup(
+                pipelineRun.getConcurrencyGroup())) {
+            // Only older runs are superseded, so two runs can never cancel each other
+            if (!isOlderRun(run, pipelineRun)) {
+                continue;
+            }
+
+            String repo = run.getString(Constants.REPO_FIELD);
+            String pipelineName = run.getString(Constants.PIPELINE_NAME_FIELD);
+            int runNumber = run.getInteger(Constants.RUN_NUMBER_FIELD);
+            String status = run.getString(Constants.PIPELINE_STATUS_FIELD);
+
+            if (Status.PENDING.toString().equals(status)
+                    && cancelCommand.cancelQueued(repo, pipelineName, runNumber)) {
+                System.out.println("Superseded queued " + pipelineName + " run: " + runNumber);
+                superseded++;
+            } else if (cancelInProgress) {
+                System.out.println(publisher.publishCancelRequest(repo, pipelineName, runNumber));
+                superseded++;
+            }
+        }
+        return superseded;
+    }
+
+    /**
+     * Checks whether a run of a concurrency group is older than a new run. Runs of the same
+     * pipeline are compared by run number, which is allocated in order, so a run that a worker
+     * picked up late is still older. Runs of other pipelines in the group are compared by the
+     * time the server queued them.
+     *
+     * @param run    the run of the group
+     * @param newRun the new pipeline run
+     * @return true if the run is older than the new run
+     */
+    private static boolean isOlderRun(Document run, PipelineRun newRun) {
+        if (Objects.equals(run.getString(Constants.REPO_FIELD), newRun.getRepo())
+                && Objects.equals(run.getString(Constants.PIPELINE_NAME_FIELD),
+                        newRun.getPipelineName())) {
+            Integer runNumber = run.getInteger(Constants.RUN_NUMBER_FIELD);
+            return runNumber != null && runNumber < newRun.getRunNumber();
+        }
+        Long startTime = run.getLong(Constants.START_TIME_FIELD);
+        return startTime != null && startTime < newRun.getStartTime();
+    }
+
     /**
      * Creates a new pipeline run report if it doesn't exist, otherwise updates it.
      *
@@ -0,0 +1,644 @@
+package com.example.cliserver.backend.database.artifactsDB;
+
+import com.example.cliserver.backend.database.mongoDB.PipelineRunsDao;
+import com.example.cliserver.backend.model.Status;
+import com.example.cliserver.backend.utils.Constants;
+import com.example.cliserver.backend.utils.YamlConfigLoader;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import io.minio.GetObjectArgs;
+import io.minio.ListObjectsArgs;
+import io.minio.MinioClient;
+import io.minio.RemoveObjectsArgs;
+import io.minio.Result;
+import io.minio.StatObjectArgs;
+import io.minio.StatObjectResponse;
+import io.minio.errors.ErrorResponseException;
+import io.minio.errors.MinioException;
+import io.minio.messages.DeleteError;
+import io.minio.messages.DeleteObject;
+import io.minio.messages.Item;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.security.InvalidKeyException;
+import java.security.NoSuchAlgorithmException;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiFunction;
+import org.bson.Document;
+
+/**
+ * Deletes the artifacts of expired pipeline runs and the artifact files nothing references.
+ * <p>
+ * A collection lists the artifact bucket once. The runs of every pipeline are matched with
+ * their records in the database and checked against the {@link RetentionPolicy} of the
+ * pipeline. The manifests of the runs that are kept are read to count the references to every
+ * file stored by digest, then the objects of the expired runs are removed, manifests first, and
+ * finally the files with no references are removed.
+ * </p>
+ * <p>
+ * A file is only removed once it has been stored for
+ * {@link Constants#ARTIFACT_GC_BLOB_GRACE_MILLIS}, and workers upload files again instead of
+ * reusing them well before they are that old, so a file an upload in progress has decided to
+ * reference is never removed. Right before every batch of files is removed, the bucket is listed
+ * again: the manifests written since are read, and the files they reference or that were stored
+ * again since are kept. Every file of the batch is then checked once more on its own, since a
+ * worker may store it again while the bucket is listed. Objects are removed in batches, at a
+ * limited rate, so a collection does not compete with uploads. A dry run only reports what would
+ * be removed.
+ * </p>
+ * <p>
+ * Dependency caches are not referenced by runs. A cache is removed once it has not been saved
+ * for the configured number of days, and the next job that needs it saves it again.
+ * </p>
+ */
+public class ArtifactsGarbageCollector {
+    /**
+     * Held while a collection runs, so that only one runs at a time on this server.
+     */
+    private static final ReentrantLock COLLECTING = new ReentrantLock();
+
+    private MinioClient minioClient;
+    private final String bucket;
+    private final PipelineRunsDao pipelineRunsDao;
+    private final BiFunction<String, String, RetentionPolicy> policies;
+    private final int batchSize;
+    private final int maxDeletesPerSecond;
+    private final long cacheMaxAgeMillis;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private long nextDeleteAt;
+
+    /**
+     * Constructs a collector of the configured artifact bucket, with the retention rules and
+     * limits of the configuration file.
+     *
+     * @param pipelineRunsDao the DAO the statuses of the runs are read from
+     */
+    @SuppressFBWarnings("EI_EXPOSE_REP2")
+    public ArtifactsGarbageCollector(PipelineRunsDao pipelineRunsDao) {
+        this.bucket = ArtifactsUploader.readBucket();
+        this.pipelineRunsDao = pipelineRunsDao;
+        this.policies = RetentionPolicy::forPipeline;
+        this.batchSize = readLimit("batch-size", Constants.DEFAULT_ARTIFACT_GC_BATCH_SIZE);
+        this.maxDeletesPerSecond = readLimit("max-deletes-per-second",
+                Constants.DEFAULT_ARTIFACT_GC_MAX_DELETES_PER_SECOND);
+        this.cacheMaxAgeMillis = TimeUnit.DAYS.toMillis(readLimit("cache-max-age-days",
+                Constants.DEFAULT_ARTIFACT_GC_CACHE_MAX_AGE_DAYS));
+        try {
+            this.minioClient = ArtifactsUploader.newMinioClient();
+        } catch (IOException e) {
+            System.err.println("Failed to initialize MinIO client: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Constructs a collector with the given client, bucket, rules and limits.
+     *
+     * @param minioClient         The MinIO client to collect with
+     * @param bucket              The bucket the artifacts are stored in
+     * @param pipelineRunsDao     The DAO the statuses of the runs are read from
+     * @param policies            The retention policy of each repository and pipeline segment
+     * @param batchSize           The number of objects removed with one request
+     * @param maxDeletesPerSecond The number of objects removed per second, at most
+     * @param cacheMaxAgeMillis   The age after which a dependency cache is removed
+     */
+    ArtifactsGarbageCollector(MinioClient minioClient, String bucket,
+                              PipelineRunsDao pipelineRunsDao,
+                              BiFunction<String, String, RetentionPolicy> policies,
+                              int batchSize, int maxDeletesPerSecond, long cacheMaxAgeMillis) {
+        this.minioClient = minioClient;
+        this.bucket = bucket;
+        this.pipelineRunsDao = pipelineRunsDao;
+        this.policies = policies;
+        this.batchSize = batchSize;
+        this.maxDeletesPerSecond = maxDeletesPerSecond;
+        this.cacheMaxAgeMillis = cacheMaxAgeMillis;
+    }
+
+    /**
+     * Reads a positive limit from the {@code artifacts.gc} section of the configuration file.
+     *
+     * @param name         The name of the limit
+     * @param defaultValue The value if none is configured
+     * @return the limit
+     */
+    private static int readLimit(String name, int defaultValue) {
+        try {
+            String configured = YamlConfigLoader.getConfigValue("artifacts", "gc", name);
+            if (configured != null && Integer.parseInt(configured) > 0) {
+                return Integer.parseInt(configured);
+            }
+        } catch (RuntimeException e) {
+            System.err.println("Using the default artifact collection " + name + ": "
+                    + e.getMessage());
+        }
+        return defaultValue;
+    }
+
+    /**
+     * Collects the artifacts of expired runs and the files nothing references.
+     *
+     * @param dryRun true to only report what would be removed
+     * @return what was removed, or would be in a dry run; null if a collection is already
+     *         running on this server
+     * @throws MinioException           if a MinIO-related error occurs
+     * @throws IOException              if a request fails or a manifest cannot be read
+     * @throws NoSuchAlgorithmException if cryptographic algorithm is unavailable
+     * @throws InvalidKeyException      if credentials are invalid
+     */
+    public Report collect(boolean dryRun)
+            throws MinioException, IOException, NoSuchAlgorithmException, InvalidKeyException {
+        if (minioClient == null) {
+            throw new IllegalStateException("MinIO client is not initialized.");
+        }
+        if (!COLLECTING.tryLock()) {
+            return null;
+        }
+        try {
+            return collectLocked(dryRun);
+        } finally {
+            COLLECTING.unlock();
+        }
+    }
+
+    private Report collectLocked(boolean dryRun)
+            throws MinioException, IOException, NoSuchAlgorithmException, InvalidKeyException {
+        long startedAt = System.currentTimeMillis();
+        Report report = new Report(dryRun);
+
+        // List the bucket once: the runs by their prefix, and the files stored by digest
+        Map<String, StoredRun> runs = new TreeMap<>();
+        Map<String, Item> blobs = new HashMap<>();
+        List<Item> caches = new ArrayList<>();
+        for (Result<Item> result : listAll()) {
+            Item item = result.get();
+            String name = item.objectName();
+            if (name.startsWith(Constants.ARTIFACT_BLOB_PREFIX)) {
+                blobs.put(name.substring(Constants.ARTIFACT_BLOB_PREFIX.length()), item);
+                continue;
+            }
+            if (name.startsWith(Constants.JOB_CACHE_PREFIX)) {
+                caches.add(item);
+                continue;
+            }
+            // Other dot segments are not the artifacts of runs
+            String[] segments = name.split("/", 4);
+            if (name.startsWith(".") || segments.length < 4 || !isRunNumber(segments[2])) {
+                continue;
+            }
+            String runPrefix = segments[0] + "/" + segments[1] + "/" + segments[2] + "/";
+            runs.computeIfAbsent(runPrefix, prefix -> new StoredRun(segments[0], segments[1],
+                    Integer.parseInt(segments[2]))).add(item);
+        }
+
+        for (Document summary : pipelineRunsDao.findRunSummaries().into(new ArrayList<>())) {
+            Integer runNumber = summary.getInteger(Constants.RUN_NUMBER_FIELD);
+            String pipelineName = summary.getString(Constants.PIPELINE_NAME_FIELD);
+            if (runNumber == null || pipelineName == null) {
+                continue;
+            }
+            StoredRun run = runs.get(ArtifactsUploader.runPrefix(
+                    summary.getString(Constants.REPO_FIELD), pipelineName, runNumber));
+            if (run != null) {
+                run.status = parseStatus(summary.getString(Constants.PIPELINE_STATUS_FIELD));
+                Object completionTime = summary.get(Constants.COMPLETION_TIME_FIELD);
+                if (completionTime instanceof Number
+                        && ((Number) completionTime).longValue() > 0) {
+                    run.finishedAt = ((Number) completionTime).longValue();
+                }
+            }
+        }
+
+        // Apply the retention policy of every pipeline
+        Map<String, List<StoredRun>> runsByPipeline = new LinkedHashMap<>();
+        for (StoredRun run : runs.values()) {
+            runsByPipeline.computeIfAbsent(run.repo + "/" + run.pipeline,
+                    pipeline -> new ArrayList<>()).add(run);
+        }
+        List<StoredRun> expiredRuns = new ArrayList<>();
+        List<StoredRun> keptRuns = new ArrayList<>();
+        for (List<StoredRun> pipelineRuns : runsByPipeline.values()) {
+            StoredRun first = pipelineRuns.get(0);
+            List<RetentionPolicy.Run> candidates = new ArrayList<>();
+            for (StoredRun run : pipelineRuns) {
+                candidates.add(new RetentionPolicy.Run(run.runNumber, run.status,
+                        run.finishedAt));
+            }
+            Set<Integer> expired = policies.apply(first.repo, first.pipeline)
+                    .selectExpired(candidates, startedAt);
+            for (StoredRun run : pipelineRuns) {
+                (expired.contains(run.runNumber) ? expiredRuns : keptRuns).add(run);
+            }
+        }
+
+        // Count the references of the kept runs before anything is removed
+        Map<String, Integer> references = new HashMap<>();
+        Set<String> readManifests = new HashSet<>();
+        for (StoredRun run : keptRuns) {
+            for (Item item : run.objects) {
+                if (isManifest(item.objectName())) {
+                    countReferences(item.objectName(), references);
+                    readManifests.add(item.objectName());
+                }
+            }
+        }
+        report.keptRuns = keptRuns.size();
+        report.referencedBlobs = references.size();
+
+        for (StoredRun run : expiredRuns) {
+            List<String> manifests = new ArrayList<>();
+            List<String> others = new ArrayList<>();
+            for (Item item : run.objects) {
+                (isManifest(item.objectName()) ? manifests : others).add(item.objectName());
+                report.expiredObjects++;
+                report.expiredBytes += item.size();
+            }
+            report.expiredRuns.add(run.repo + "/" + run.pipeline + "/" + run.runNumber);
+            if (!dryRun) {
+                // Without its manifests a run no longer lists the files it referenced
+                manifests.addAll(others);
+                deleteObjects(manifests);
+            }
+        }
+
+        List<String> expiredCaches = new ArrayList<>();
+        for (Item item : caches) {
+            if (!isWithin(item.lastModified(), startedAt - cacheMaxAgeMillis)) {
+                expiredCaches.add(item.objectName());
+                report.collectedCaches++;
+                report.collectedCacheBytes += item.size();
+            }
+        }
+        if (!dryRun) {
+            deleteObjects(expiredCaches);
+        }
+
+        Map<String, Long> unreferenced = new TreeMap<>();
+        for (Map.Entry<String, Item> blob : blobs.entrySet()) {
+            if (!references.containsKey(blob.getKey()) && !isWithin(
+                    blob.getValue().lastModified(),
+                    startedAt - Constants.ARTIFACT_GC_BLOB_GRACE_MILLIS)) {
+                unreferenced.put(blob.getKey(), blob.getValue().size());
+            }
+        }
+        if (dryRun) {
+            for (long size : unreferenced.values()) {
+                report.collectedBlobs++;
+                report.collectedBytes += size;
+            }
+        } else {
+            // The manifests of expired runs that could not be removed are not read either
+            for (StoredRun run : expiredRuns) {
+                for (Item item : run.objects) {
+                    readManifests.add(item.objectName());
+                }
+            }
+            List<String> digests = new ArrayList<>(unreferenced.keySet());
+            for (int from = 0; from < digests.size(); from += batchSize) {
+                List<String> batch = digests.subList(from,
+                        Math.min(digests.size(), from + batchSize));
+                throttle(batch.size());
+                List<String> names = new ArrayList<>();
+                for (String digest : recheckUnreferenced(batch, readManifests, references)) {
+                    names.add(Constants.ARTIFACT_BLOB_PREFIX + digest);
+                    report.collectedBlobs++;
+                    report.collectedBytes += unreferenced.get(digest);
+                }
+                removeObjects(names);
+            }
+        }
+
+        System.out.println((dryRun ? "Artifact collection dry run: " : "Collected artifacts: ")
+                + report.expiredRuns.size() + " runs, " + report.expiredObjects + " objects ("
+                + report.expiredBytes + " bytes) and " + report.collectedBlobs
+                + " unreferenced files (" + report.collectedBytes + " bytes) and "
+                + report.collectedCaches + " dependency caches (" + report.collectedCacheBytes
+                + " bytes)");
+        return report;
+    }
+
+    /**
+     * Lists every object of the bucket.
+     *
+     * @return the objects
+     */
+    private Iterable<Result<Item>> listAll() {
+        return minioClient.listObjects(ListObjectsArgs.builder()
+                .bucket(bucket)
+                .recursive(true)
+                .build());
+    }
+
+    /**
+     * Checks again, right before a batch of files is removed, which of them nothing references.
+     * The bucket is listed again to read the manifests written since the last check and to see
+     * which files were stored again, then every remaining file is checked on its own.
+     *
+     * @param digests       The digests of the files about to be removed
+     * @param readManifests The manifests already read, which the new ones are added to
+     * @param references    The reference count of every digest, which is added to
+     * @return the digests of the files that may still be removed
+     */
+    private List<String> recheckUnreferenced(List<String> digests, Set<String> readManifests,
+                                             Map<String, Integer> references)
+            throws MinioException, IOException, NoSuchAlgorithmException, InvalidKeyException {
+        long graceStart = System.currentTimeMillis() - Constants.ARTIFACT_GC_BLOB_GRACE_MILLIS;
+        Set<String> candidates = new HashSet<>(digests);
+        Set<String> renewed = new HashSet<>();
+        for (Result<Item> result : listAll()) {
+            Item item = result.get();
+            String name = item.objectName();
+            if (name.startsWith(Constants.ARTIFACT_BLOB_PREFIX)) {
+                String digest = name.substring(Constants.ARTIFACT_BLOB_PREFIX.length());
+                if (candidates.contains(digest) && isWithin(item.lastModified(), graceStart)) {
+                    renewed.add(digest);
+                }
+            } else if (isManifest(name) && readManifests.add(name)) {
+                countReferences(name, references);
+            }
+        }
+        List<String> unreferenced = new ArrayList<>();
+        for (String digest : digests) {
+            if (references.containsKey(digest) || renewed.contains(digest)) {
+                continue;
+            }
+            StatObjectResponse stat;
+            try {
+                stat = minioClient.statObject(StatObjectArgs.builder()
+                        .bucket(bucket)
+                        .object(Constants.ARTIFACT_BLOB_PREFIX + digest)
+                        .build());
+            } catch (ErrorResponseException e) {
+                if ("NoSuchKey".equals(e.errorResponse().code())) {
+                    continue;
+                }
+                throw e;
+            }
+            if (!isWithin(stat.lastModified(), graceStart)) {
+                unreferenced.add(digest);
+            }
+        }
+        return unreferenced;
+    }
+
+    /**
+     * Counts the references of a manifest to the files stored by digest.
+     *
+     * @param objectName The object name of the manifest
+     * @param references The reference count of every digest, which is added to
+     */
+    private void countReferences(String objectName, Map<String, Integer> references)
+            throws MinioException, IOException, NoSuchAlgorithmException, InvalidKeyException {
+        try (InputStream in = minioClient.getObject(GetObjectArgs.builder()
+                .bucket(bucket)
+                .object(objectName)
+                .build())) {
+            for (ArtifactManifest.Entry entry
+                    : objectMapper.readValue(in, ArtifactManifest.class).getFiles()) {
+                references.merge(entry.getDigest(), 1, Integer::sum);
+            }
+        }
+    }
+
+    /**
+     * Removes objects in batches, no faster than the configured rate. Objects that cannot be
+     * removed are logged and left for the next collection.
+     *
+     * @param names The names of the objects
+     */
+    private void deleteObjects(List<String> names)
+            throws MinioException, IOException, NoSuchAlgorithmException, InvalidKeyException {
+        for (int from = 0; from < names.size(); from += batchSize) {
+            List<String> batch = names.subList(from, Math.min(names.size(), from + batchSize));
+            throttle(batch.size());
+            removeObjects(batch);
+        }
+    }
+
+    /**
+     * Removes one batch of objects. Objects that cannot be removed are logged and left for the
+     * next collection.
+     *
+     * @param names The names of the objects
+     */
+    private void removeObjects(List<String> names)
+            throws MinioException, IOException, NoSuchAlgorithmException, InvalidKeyException {
+        if (names.isEmpty()) {
+            return;
+        }
+        List<DeleteObject> objects = new ArrayList<>();
+        for (String name : names) {
+            objects.add(new DeleteObject(name));
+        }
+        // The objects are only removed while the results are read
+        for (Result<DeleteError> result : minioClient.removeObjects(
+                RemoveObjectsArgs.builder().bucket(bucket).objects(objects).build())) {
+            DeleteError error = result.get();
+            System.err.println("Failed to delete artifact object " + error.objectName()
+                    + ": " + error.message());
+        }
+    }
+
+    /**
+     * Waits until the given number of objects may be removed without exceeding the rate limit.
+     *
+     * @param count The number of objects about to be removed
+     * @throws InterruptedIOException if the thread is interrupted while waiting
+     */
+    private void throttle(int count) throws InterruptedIOException {
+        long now = System.nanoTime();
+        if (nextDeleteAt > now) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(nextDeleteAt - now);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Artifact collection interrupted");
+            }
+        }
+        nextDeleteAt = Math.max(now, nextDeleteAt)
+                + count * TimeUnit.SECONDS.toNanos(1) / maxDeletesPerSecond;
+    }
+
+    /**
+     * Checks whether an object was stored after the given time.
+     *
+     * @param lastModified When the object was stored, or null if unknown
+     * @param since        The time in epoch milliseconds
+     * @return true if the object was stored after the time
+     */
+    private static boolean isWithin(ZonedDateTime lastModified, long since) {
+        return lastModified != null && lastModified.toInstant().toEpochMilli() > since;
+    }
+
+    private static boolean isManifest(String objectName) {
+        // A manifest sits directly under the prefix of a job, repo/pipeline/run/job/
+        return objectName.endsWith("/" + Constants.ARTIFACT_MANIFEST_NAME)
+                && objectName.split("/").length == 5;
+    }
+
+    private static boolean isRunNumber(String segment) {
+        return !segment.isEmpty() && segment.length() < 10 && segment.chars()
+                .allMatch(Character::isDigit);
+    }
+
+    private static Status parseStatus(String value) {
+        for (Status status : Status.values()) {
+            if (status.toString().equals(value)) {
+                return status;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * The objects of a run in the bucket, and what is known about the run.
+     */
+    private static final class StoredRun {
+        private final String repo;
+        private final String pipeline;
+        private final int runNumber;
+        private final List<Item> objects = new ArrayList<>();
+        private Status status;
+        private long finishedAt;
+
+        private StoredRun(String repo, String pipeline, int runNumber) {
+            this.repo = repo;
+            this.pipeline = pipeline;
+            this.runNumber = runNumber;
+        }
+
+        /**
+         * Adds an object of the run. Until the record of the run is found, the run counts as
+         * finished when its newest object was stored.
+         *
+         * @param item the object
+         */
+        private void add(Item item) {
+            objects.add(item);
+            if (item.lastModified() != null) {
+                finishedAt = Math.max(finishedAt,
+                        item.lastModified().toInstant().toEpochMilli());
+            }
+        }
+    }
+
+    /**
+     * What a collection removed, or would remove in a dry run.
+     */
+    public static class Report {
+        private final boolean dryRun;
+        private final List<String> expiredRuns = new ArrayList<>();
+        private int keptRuns;
+        private long expiredObjects;
+        private long expiredBytes;
+        private int referencedBlobs;
+        private long collectedBlobs;
+        private long collectedBytes;
+        private long collectedCaches;
+        private long collectedCacheBytes;
+
+        Report(boolean dryRun) {
+            this.dryRun = dryRun;
+        }
+
+        /**
+         * Checks whether the collection was a dry run.
+         *
+         * @return true if nothing was removed
+         */
+        public boolean isDryRun() {
+            return dryRun;
+        }
+
+        /**
+         * Gets the runs whose artifacts expired.
+         *
+         * @return the runs, as {@code repo/pipeline/run} key prefixes
+         */
+        public List<String> getExpiredRuns() {
+            return new ArrayList<>(expiredRuns);
+        }
+
+        /**
+         * Gets the number of runs whose artifacts were kept.
+         *
+         * @return the number of runs
+         */
+        public int getKeptRuns() {
+            return keptRuns;
+        }
+
+        /**
+         * Gets the number of objects of the expired runs.
+         *
+         * @return the number of objects
+         */
+        public long getExpiredObjects() {
+            return expiredObjects;
+        }
+
+        /**
+         * Gets the size of the objects of the expired runs.
+         *
+         * @return the size in bytes
+         */
+        public long getExpiredBytes() {
+            return expiredBytes;
+        }
+
+        /**
+         * Gets the number of files stored by digest that the kept runs reference.
+         *
+         * @return the number of files
+         */
+        public int getReferencedBlobs() {
+            return referencedBlobs;
+        }
+
+        /**
+         * Gets the number of files stored by digest that nothing referenced.
+         *
+         * @return the number of files
+         */
+        public long getCollectedBlobs() {
+            return collectedBlobs;
+        }
+
+        /**
+         * Gets the size of the files stored by digest that nothing referenced.
+         *
+         * @return the size in bytes
+         */
+        public long getCollectedBytes() {
+            return collectedBytes;
+        }
+
+        /**
+         * Gets the number of dependency caches that were not saved within the maximum age.
+         *
+         * @return the number of caches
+         */
+        public long getCollectedCaches() {
+            return collectedCaches;
+        }
+
+        /**
+         * Gets the size of the dependency caches that were not saved within the maximum age.
+         *
+         * @return the size in bytes
+         */
+        public long getCollectedCacheBytes() {
+            return collectedCacheBytes;
+        }
+    }
+}
@@ -0,0 +1,334 @@
+package com.example.cliserver.backend.database.artifactsDB;
+
+import com.example.cliserver.backend.utils.Constants;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.minio.GetObjectArgs;
+import io.minio.ListObjectsArgs;
+import io.minio.MinioClient;
+import io.minio.Result;
+import io.minio.StatObjectArgs;
+import io.minio.StatObjectResponse;
+import io.minio.errors.ErrorResponseException;
+import io.minio.errors.MinioException;
+import io.minio.messages.Item;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.InvalidKeyException;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Reads the artifacts of pipeline runs back out of the artifact bucket.
+ * <p>
+ * The artifacts of a job are the files listed in its manifest, which workers store once by
+ * digest, and every other object under the key prefix of the job, such as the files of local
+ * runs and artifact archives. A download looks its file up directly by the manifest of its job
+ * or its own key, and is read from MinIO as a stream of the requested range, so no object is
+ * ever held in memory as a whole.
+ * </p>
+ */
+public class ArtifactsReader {
+    private MinioClient minioClient;
+    private final String bucket;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    /**
+     * Constructs a reader of the configured artifact bucket. Initializes the MinIO client using
+     * configuration loaded from the YAML file.
+     */
+    public ArtifactsReader() {
+        this.bucket = ArtifactsUploader.readBucket();
+        try {
+            this.minioClient = ArtifactsUploader.newMinioClient();
+        } catch (IOException e) {
+            System.err.println("Failed to initialize MinIO client: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Constructs a reader with the given client and bucket.
+     *
+     * @param minioClient The MinIO client to read with
+     * @param bucket      The bucket the artifacts are stored in
+     */
+    ArtifactsReader(MinioClient minioClient, String bucket) {
+        this.minioClient = minioClient;
+        this.bucket = bucket;
+    }
+
+    /**
+     * Lists the artifact files of a pipeline run, ordered by job.
+     *
+     * @param repo         The repository of the pipeline run
+     * @param pipelineName The name of the pipeline
+     * @param runNumber    The run number of the pipeline
+     * @param jobName      The job to list the files of, or null for all jobs of the run
+     * @return the artifact files
+     * @throws MinioException           if a MinIO-related error occurs
+     * @throws IOException              if a request fails or a manifest cannot be read
+     * @throws NoSuchAlgorithmException if cryptographic algorithm is unavailable
+     * @throws InvalidKeyException      if credentials are invalid
+     */
+    public List<ArtifactFile> listArtifacts(String repo, String pipelineName, int runNumber,
+                                            String jobName)
+            throws MinioException, IOException, NoSuchAlgorithmException, InvalidKeyException {
+        if (minioClient == null) {
+            throw new IllegalStateException("MinIO client is not initialized.");
+        }
+        String runPrefix = ArtifactsUploader.runPrefix(repo, pipelineName, runNumber);
+        String prefix = jobName == null ? runPrefix
+                : ArtifactsUploader.objectPrefix(repo, pipelineName, runNumber, jobName);
+
+        // The first key segment after the run is the job
+        Map<String, List<Item>> objectsByJob = new TreeMap<>();
+        for (Result<Item> result : minioClient.listObjects(ListObjectsArgs.builder()
+                .bucket(bucket)
+                .prefix(prefix)
+                .recursive(true)
+                .build())) {
+            Item item = result.get();
+            String name = item.objectName().substring(runPrefix.length());
+            int slash = name.indexOf('/');
+            if (item.isDir() || slash <= 0 || slash == name.length() - 1) {
+                continue;
+            }
+            objectsByJob.computeIfAbsent(name.substring(0, slash), job -> new ArrayList<>())
+                    .add(item);
+        }
+
+        List<ArtifactFile> files = new ArrayList<>();
+        for (Map.Entry<String, List<Item>> job : objectsByJob.entrySet()) {
+            String jobPrefix = runPrefix + job.getKey() + "/";
+            for (Item item : job.getValue()) {
+                String path = item.objectName().substring(jobPrefix.length());
+                if (path.equals(Constants.ARTIFACT_MANIFEST_NAME)) {
+                    for (ArtifactManifest.Entry entry : readManifest(item.objectName())) {
+                        files.add(new ArtifactFile(job.getKey(), entry.getPath(),
+                                entry.getSize(), entry.getDigest(),
+                                Constants.ARTIFACT_BLOB_PREFIX + entry.getDigest()));
+                    }
+                } else {
+                    files.add(new ArtifactFile(job.getKey(), path, item.size(), null,
+                            item.objectName(), strongEtag(item.etag())));
+                }
+            }
+        }
+        return files;
+    }
+
+    /**
+     * Finds an artifact file of a job of a pipeline run. Only the manifest of the job and the
+     * object of the file are requested, so the run is not listed again for every download.
+     *
+     * @param repo         The repository of the pipeline run
+     * @param pipelineName The name of the pipeline
+     * @param runNumber    The run number of the pipeline
+     * @param jobName      The name of the job
+     * @param path         The path of the file, as listed
+     * @return the artifact file, or null if the job has no such file
+     * @throws MinioException           if a MinIO-related error occurs
+     * @throws IOException              if a request fails or the manifest cannot be read
+     * @throws NoSuchAlgorithmException if cryptographic algorithm is unavailable
+     * @throws InvalidKeyException      if credentials are invalid
+     */
+    public ArtifactFile findArtifact(String repo, String pipelineName, int runNumber,
+                                     String jobName, String path)
+            throws MinioException, IOException, NoSuchAlgorithmException, InvalidKeyException {
+        if (minioClient == null) {
+            throw new IllegalStateException("MinIO client is not initialized.");
+        }
+        String runPrefix = ArtifactsUploader.runPrefix(repo, pipelineName, runNumber);
+        String jobPrefix = ArtifactsUploader.objectPrefix(repo, pipelineName, runNumber, jobName);
+        String job = jobPrefix.substring(runPrefix.length(), jobPrefix.length() - 1);
+
+        List<ArtifactManifest.Entry> manifest;
+        try {
+            manifest = readManifest(jobPrefix + Constants.ARTIFACT_MANIFEST_NAME);
+        } catch (ErrorResponseException e) {
+            if (!"NoSuchKey".equals(e.errorResponse().code())) {
+                throw e;
+            }
+            manifest = List.of();
+        }
+        for (ArtifactManifest.Entry entry : manifest) {
+            if (entry.getPath().equals(path)) {
+                return new ArtifactFile(job, entry.getPath(), entry.getSize(), entry.getDigest(),
+                        Constants.ARTIFACT_BLOB_PREFIX + entry.getDigest());
+            }
+        }
+        if (path.equals(Constants.ARTIFACT_MANIFEST_NAME)) {
+            return null;
+        }
+
+        StatObjectResponse stat;
+        try {
+            stat = minioClient.statObject(StatObjectArgs.builder()
+                    .bucket(bucket)
+                    .object(jobPrefix + path)
+                    .build());
+        } catch (ErrorResponseException e) {
+            if ("NoSuchKey".equals(e.errorResponse().code())) {
+                return null;
+            }
+            throw e;
+        }
+        return new ArtifactFile(job, path, stat.size(), null, stat.object(),
+                strongEtag(stat.etag()));
+    }
+
+    /**
+     * Opens a range of an artifact file as a stream from MinIO.
+     *
+     * @param file   The artifact file
+     * @param offset The position of the first byte to read
+     * @param length The number of bytes to read
+     * @return the stream of the range, which the caller must close
+     * @throws MinioException           if a MinIO-related error occurs
+     * @throws IOException              if the request fails
+     * @throws NoSuchAlgorithmException if cryptographic algorithm is unavailable
+     * @throws InvalidKeyException      if credentials are invalid
+     */
+    public InputStream open(ArtifactFile file, long offset, long length)
+            throws MinioException, IOException, NoSuchAlgorithmException, InvalidKeyException {
+        GetObjectArgs.Builder args = GetObjectArgs.builder()
+                .bucket(bucket)
+                .object(file.getObjectName());
+        if (offset > 0 || length < file.getSize()) {
+            args.offset(offset).length(length);
+        }
+        return minioClient.getObject(args.build());
+    }
+
+    /**
+     * Quotes the entity tag MinIO reports for an object as a strong HTTP entity tag.
+     *
+     * @param etag The entity tag of the object, with or without quotes
+     * @return the quoted entity tag, or null if the object has none
+     */
+    private static String strongEtag(String etag) {
+        if (etag == null || etag.isEmpty()) {
+            return null;
+        }
+        return "\"" + etag.replace("\"", "") + "\"";
+    }
+
+    /**
+     * Reads the files of a manifest.
+     *
+     * @param objectName The object name of the manifest
+     * @return the files of the manifest
+     */
+    private List<ArtifactManifest.Entry> readManifest(String objectName)
+            throws MinioException, IOException, NoSuchAlgorithmException, InvalidKeyException {
+        try (InputStream in = minioClient.getObject(GetObjectArgs.builder()
+                .bucket(bucket)
+                .object(objectName)
+                .build())) {
+            return objectMapper.readValue(in, ArtifactManifest.class).getFiles();
+        }
+    }
+
+    /**
+     * An artifact file of a job, as listed to clients.
+     */
+    public static class ArtifactFile {
+        private final String job;
+        private final String path;
+        private final long size;
+        private final String digest;
+        private final String objectName;
+        private final String etag;
+
+        /**
+         * Creates an artifact file, which is validated by its digest if it has one.
+         *
+         * @param job        the key segment of the job
+         * @param path       the path of the file, relative to the artifacts of the job
+         * @param size       the size of the file in bytes
+         * @param digest     the hex encoded SHA-256 digest of the file, or null if unknown
+         * @param objectName the object the contents of the file are stored in
+         */
+        public ArtifactFile(String job, String path, long size, String digest,
+                            String objectName) {
+            this(job, path, size, digest, objectName,
+                    digest == null ? null : "\"" + digest + "\"");
+        }
+
+        /**
+         * Creates an artifact file with the given entity tag.
+         *
+         * @param job        the key segment of the job
+         * @param path       the path of the file, relative to the artifacts of the job
+         * @param size       the size of the file in bytes
+         * @param digest     the hex encoded SHA-256 digest of the file, or null if unknown
+         * @param objectName the object the contents of the file are stored in
+         * @param etag       the quoted entity tag of the contents, or null if unknown
+         */
+        public ArtifactFile(String job, String path, long size, String digest,
+                            String objectName, String etag) {
+            this.job = job;
+            this.path = path;
+            this.size = size;
+            this.digest = digest;
+            this.objectName = objectName;
+            this.etag = etag;
+        }
+
+        /**
+         * Gets the job of the file.
+         *
+         * @return the key segment of the job
+         */
+        public String getJob() {
+            return job;
+        }
+
+        /**
+         * Gets the path of the file.
+         *
+         * @return the path of the file, relative to the artifacts of the job
+         */
+        public String getPath() {
+            return path;
+        }
+
+        /**
+         * Gets the size of the file.
+         *
+         * @return the size of the file in bytes
+         */
+        public long getSize() {
+            return size;
+        }
+
+        /**
+         * Gets the digest of the file.
+         *
+         * @return the hex encoded SHA-256 digest, or null if the file was not stored by digest
+         */
+        public String getDigest() {
+            return digest;
+        }
+
+        /**
+         * Gets the object the contents of the file are stored in.
+         *
+         * @return the object name
+         */
+        String getObjectName() {
+            return objectName;
+        }
+
+        /**
+         * Gets the entity tag a resumed download of the file is validated with.
+         *
+         * @return the quoted entity tag, or null if the file has none
+         */
+        public String getEtag() {
+            return etag;
+        }
+    }
+}
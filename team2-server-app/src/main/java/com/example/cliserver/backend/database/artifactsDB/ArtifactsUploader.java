@@ -28,15 +28,22 @@ import java.util.Objects;
  * - Single files
  * - Entire directories (recursively)
  * - Wildcard-based file patterns (e.g., *.json)
+ * <p>
+ * All artifacts are stored in one configured bucket, the artifacts of a job under the key
+ * prefix {@code repo/pipeline/run/job/}. The bucket is only checked for on the first upload.
+ * </p>
  */
 public class ArtifactsUploader {
     private MinioClient minioClient;
+    private final String bucket;
+    private volatile boolean bucketReady;
 
     /**
      * Constructs a new {@code ArtifactsUploader} instance.
-     * Initializes the MinIO client using configuration loaded from the YAML file.
+     * Initializes the MinIO client and the bucket using configuration loaded from the YAML file.
      */
     public ArtifactsUploader() {
+        this.bucket = readBucket();
         try {
             initializeMinioClient();
         } catch (IOException e) {
@@ -44,13 +51,96 @@ public class ArtifactsUploader {
         }
     }
 
+    /**
+     * Reads the bucket from the minio section of the configuration file.
+     *
+     * @return the configured bucket, or the default bucket
+     */
+    static String readBucket() {
+        try {
+            String configured = YamlConfigLoader.getConfigValue("minio", "bucket");
+            if (configured != null && !configured.trim().isEmpty()) {
+                return configured.trim();
+            }
+        } catch (RuntimeException e) {
+            System.err.println("Using the default artifact bucket: " + e.getMessage());
+        }
+        return Constants.DEFAULT_ARTIFACT_BUCKET;
+    }
+
+    /**
+     * Gets the bucket all artifacts are stored in.
+     *
+     * @return the name of the bucket
+     */
+    public String getBucket() {
+        return bucket;
+    }
+
+    /**
+     * Builds the key prefix the artifacts of a job are stored under,
+     * {@code repo/pipeline/run/job/}. Every part is reduced to a single key segment that does
+     * not start with a dot, and the scheme and {@code .git} suffix of the repository are
+     * dropped.
+     *
+     * @param repo         The repository of the pipeline run
+     * @param pipelineName The name of the pipeline
+     * @param runNumber    The run number of the pipeline
+     * @param jobName      The name of the job
+     * @return the key prefix, ending in a slash
+     */
+    public static String objectPrefix(String repo, String pipelineName, int runNumber,
+                                      String jobName) {
+        return runPrefix(repo, pipelineName, runNumber) + keySegment(jobName) + "/";
+    }
+
+    /**
+     * Builds the key prefix the artifacts of all jobs of a run are stored under,
+     * {@code repo/pipeline/run/}.
+     *
+     * @param repo         The repository of the pipeline run
+     * @param pipelineName The name of the pipeline
+     * @param runNumber    The run number of the pipeline
+     * @return the key prefix, ending in a slash
+     */
+    public static String runPrefix(String repo, String pipelineName, int runNumber) {
+        String repoName = repo == null ? "" : repo
+                .replaceFirst("^[A-Za-z][A-Za-z0-9+.-]*://", "")
+                .replaceFirst("\\.git/?$", "");
+        return keySegment(repoName) + "/" + keySegment(pipelineName) + "/" + runNumber + "/";
+    }
+
+    /**
+     * Reduces a value to a single key segment of letters, digits, dots, dashes and underscores.
+     *
+     * @param value The value
+     * @return the key segment, never empty and never starting with a dot
+     */
+    static String keySegment(String value) {
+        String segment = value == null ? "" : value.replaceAll("[^A-Za-z0-9._-]", "_");
+        if (segment.isEmpty() || segment.startsWith(".")) {
+            segment = "_" + segment;
+        }
+        return segment;
+    }
+
     /**
      * Initializes the MinIO client using values from the configuration file.
      *
      * @throws IOException if the configuration cannot be read
      */
     private void initializeMinioClient() throws IOException {
-        this.minioClient = MinioClient.builder()
+        this.minioClient = newMinioClient();
+    }
+
+    /**
+     * Creates a MinIO client using values from the configuration file.
+     *
+     * @return the MinIO client
+     * @throws IOException if the configuration cannot be read
+     */
+    static MinioClient newMinioClient() throws IOException {
+        return MinioClient.builder()
                 .endpoint(Objects.requireNonNull(
                         YamlConfigLoader.getConfigValue("minio", "url")))
                 .credentials(
@@ -62,31 +152,28 @@ public class ArtifactsUploader {
     }
 
     /**
-     * Uploads multiple artifact paths to a specified MinIO bucket.
+     * Uploads multiple artifact paths under a key prefix of the artifact bucket.
      *
-     * @param bucketName The bucket where artifacts should be uploaded
-     * @param filePaths  List of relative file or folder paths under LOCAL_ARTIFACTS_DIRECTORY
+     * @param prefix    The key prefix the artifacts are stored under
+     * @param filePaths List of relative file or folder paths under LOCAL_ARTIFACTS_DIRECTORY
      * @throws MinioException           if a MinIO-related error occurs
      * @throws IOException              if file access or path resolution fails
      * @throws NoSuchAlgorithmException if cryptographic algorithm is unavailable
      * @throws InvalidKeyException      if credentials are invalid
      */
-    public void uploadArtifacts(String bucketName, List<String> filePaths)
+    public void uploadArtifacts(String prefix, List<String> filePaths)
             throws MinioException, IOException, NoSuchAlgorithmException, InvalidKeyException {
 
-        if (bucketName == null || bucketName.trim().isEmpty()) {
-            throw new IllegalArgumentException("Bucket name cannot be null or empty.");
+        if (prefix == null || prefix.trim().isEmpty()) {
+            throw new IllegalArgumentException("Key prefix cannot be null or empty.");
         }
+        String keyPrefix = prefix.endsWith("/") ? prefix : prefix + "/";
 
         if (minioClient == null) {
             throw new IllegalStateException("MinIO client is not initialized.");
         }
 
-        boolean isExists = minioClient.bucketExists(
-                BucketExistsArgs.builder().bucket(bucketName).build());
-        if (!isExists) {
-            minioClient.makeBucket(MakeBucketArgs.builder().bucket(bucketName).build());
-        }
+        ensureBucket();
 
         for (String relativePath : filePaths) {
             String fullPath = Constants.LOCAL_ARTIFACTS_DIRECTORY + "/" + relativePath;
@@ -98,11 +185,11 @@ public class ArtifactsUploader {
             }
             try {
                 if (file.isFile()) {
-                    uploadFile(bucketName, file);
+                    uploadFile(keyPrefix, file);
                 } else if (file.isDirectory()) {
-                    uploadDirectory(bucketName, file);
+                    uploadDirectory(keyPrefix, file);
                 } else {
-                    processWildcard(bucketName, fullPath);
+                    processWildcard(keyPrefix, fullPath);
                 }
             } catch (Exception e) {
                 throw new IOException("Failed to upload path: " + fullPath, e);
@@ -111,16 +198,43 @@ public class ArtifactsUploader {
     }
 
     /**
-     * Uploads a single file to the specified MinIO bucket.
+     * Creates the bucket if it does not exist. The bucket is only checked for on the first
+     * upload; it is not expected to be removed while the server runs.
+     *
+     * @throws MinioException           if a MinIO-related error occurs
+     * @throws IOException              if the request fails
+     * @throws NoSuchAlgorithmException if cryptographic algorithm is unavailable
+     * @throws InvalidKeyException      if credentials are invalid
+     */
+    private void ensureBucket()
+            throws MinioException, IOException, NoSuchAlgorithmException, InvalidKeyException {
+        if (bucketReady) {
+            return;
+        }
+        synchronized (this) {
+            if (bucketReady) {
+                return;
+            }
+            boolean isExists = minioClient.bucketExists(
+                    BucketExistsArgs.builder().bucket(bucket).build());
+            if (!isExists) {
+                minioClient.makeBucket(MakeBucketArgs.builder().bucket(bucket).build());
+            }
+            bucketReady = true;
+        }
+    }
+
+    /**
+     * Uploads a single file under a key prefix of the artifact bucket.
      *
-     * @param bucketName The bucket name
-     * @param file       The file to upload
+     * @param keyPrefix The key prefix of the upload
+     * @param file      The file to upload
      * @throws MinioException           if a MinIO-related error occurs
      * @throws IOException              if file access fails
      * @throws NoSuchAlgorithmException if cryptographic algorithm is unavailable
      * @throws InvalidKeyException      if credentials are invalid
      */
-    private void uploadFile(String bucketName, File file)
+    private void uploadFile(String keyPrefix, File file)
             throws MinioException, IOException, NoSuchAlgorithmException, InvalidKeyException {
 
         if (!file.exists() || !file.isFile()) {
@@ -130,20 +244,20 @@ public class ArtifactsUploader {
 
         minioClient.uploadObject(
                 UploadObjectArgs.builder()
-                        .bucket(bucketName)
-                        .object(file.getName())
+                        .bucket(bucket)
+                        .object(keyPrefix + file.getName())
                         .filename(file.getAbsolutePath())
                         .build());
     }
 
     /**
-     * Recursively uploads all files in a directory to the specified MinIO bucket.
+     * Recursively uploads all files in a directory under a key prefix of the artifact bucket.
      *
-     * @param bucketName The bucket name
-     * @param directory  The directory to walk and upload
+     * @param keyPrefix The key prefix of the upload
+     * @param directory The directory to walk and upload
      * @throws IOException if directory traversal or file access fails
      */
-    private void uploadDirectory(String bucketName, File directory) throws IOException {
+    private void uploadDirectory(String keyPrefix, File directory) throws IOException {
         if (!directory.isDirectory()) {
             throw new IllegalArgumentException("Path is not a directory: " +
                     directory.getAbsolutePath());
@@ -153,7 +267,7 @@ public class ArtifactsUploader {
             paths.filter(Files::isRegularFile)
                     .forEach(path -> {
                         try {
-                            uploadFile(bucketName, path.toFile());
+                            uploadFile(keyPrefix, path.toFile());
                         } catch (Exception e) {
                             throw new RuntimeException("Failed to upload file in directory: " +
                                     path, e);
@@ -166,11 +280,11 @@ public class ArtifactsUploader {
     /**
      * Handles wildcard-based file uploads using glob patterns.
      *
-     * @param bucketName The bucket name
-     * @param pattern    The path with wildcard (e.g., artifacts/*.json)
+     * @param keyPrefix The key prefix of the upload
+     * @param pattern   The path with wildcard (e.g., artifacts/*.json)
      * @throws IOException if pattern matching or file access fails
      */
-    private void processWildcard(String bucketName, String pattern) throws IOException {
+    private void processWildcard(String keyPrefix, String pattern) throws IOException {
         int lastSlashIndex = pattern.lastIndexOf(File.separator);
         String baseDir = ".";
         String globPattern = pattern;
@@ -188,7 +302,7 @@ public class ArtifactsUploader {
                     .filter(path -> matcher.matches(basePath.relativize(path)))
                     .forEach(path -> {
                         try {
-                            uploadFile(bucketName, path.toFile());
+                            uploadFile(keyPrefix, path.toFile());
                         } catch (Exception e) {
                             throw new RuntimeException("Wildcard upload failed for file: " +
                                     path, e);
@@ -0,0 +1,209 @@
+package com.example.cliserver.backend.database.artifactsDB;
+
+import com.example.cliserver.backend.model.Status;
+import com.example.cliserver.backend.utils.YamlConfigLoader;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The rules for how long the artifacts of the runs of a pipeline are kept.
+ * <p>
+ * A finished run expires once it is not among the newest {@code keepRuns} runs of its
+ * pipeline, or once it finished more than {@code keepDays} days ago, whichever comes first; a
+ * limit of 0 is no limit. With {@code keepLastSuccessful} the newest successful run is kept
+ * regardless of both limits. Runs that are still pending or running never expire.
+ * </p>
+ * <p>
+ * The rules are read from the {@code artifacts.retention} section of the configuration file.
+ * A pipeline or a whole repository can override them under {@code rules}, keyed by the key
+ * prefix of its artifacts, {@code <repo>/<pipeline>} or {@code <repo>}.
+ * </p>
+ */
+public final class RetentionPolicy {
+    private static final long DAY_MILLIS = 24L * 60 * 60 * 1000;
+
+    private final int keepRuns;
+    private final int keepDays;
+    private final boolean keepLastSuccessful;
+
+    /**
+     * Creates a retention policy.
+     *
+     * @param keepRuns           the number of newest runs to keep, 0 to keep any number
+     * @param keepDays           the number of days to keep a finished run, 0 to keep it for ever
+     * @param keepLastSuccessful whether to always keep the newest successful run
+     */
+    public RetentionPolicy(int keepRuns, int keepDays, boolean keepLastSuccessful) {
+        if (keepRuns < 0 || keepDays < 0) {
+            throw new IllegalArgumentException("Retention limits must not be negative");
+        }
+        this.keepRuns = keepRuns;
+        this.keepDays = keepDays;
+        this.keepLastSuccessful = keepLastSuccessful;
+    }
+
+    /**
+     * Reads the retention policy of a pipeline from the configuration file. Every rule falls
+     * back from the pipeline to its repository, then to the defaults, and then to keeping
+     * everything. Invalid rules keep everything.
+     *
+     * @param repoSegment     the key segment of the repository
+     * @param pipelineSegment the key segment of the pipeline
+     * @return the retention policy of the pipeline
+     */
+    public static RetentionPolicy forPipeline(String repoSegment, String pipelineSegment) {
+        String[] scopes = {repoSegment + "/" + pipelineSegment, repoSegment, null};
+        try {
+            return new RetentionPolicy(
+                    Integer.parseInt(readRule(scopes, "keep-runs", "0")),
+                    Integer.parseInt(readRule(scopes, "keep-days", "0")),
+                    Boolean.parseBoolean(readRule(scopes, "keep-last-successful", "true")));
+        } catch (IllegalArgumentException e) {
+            System.err.println("Invalid artifact retention for " + scopes[0]
+                    + ", keeping all runs: " + e.getMessage());
+            return new RetentionPolicy(0, 0, true);
+        }
+    }
+
+    /**
+     * Reads a rule from the most specific scope that sets it.
+     *
+     * @param scopes       the rule keys to look in, most specific first; null for the defaults
+     * @param name         the name of the rule
+     * @param defaultValue the value if no scope sets it
+     * @return the value of the rule
+     */
+    private static String readRule(String[] scopes, String name, String defaultValue) {
+        for (String scope : scopes) {
+            try {
+                String value = scope == null
+                        ? YamlConfigLoader.getConfigValue("artifacts", "retention", name)
+                        : YamlConfigLoader.getConfigValue("artifacts", "retention", "rules",
+                                scope, name);
+                if (value != null) {
+                    return value;
+                }
+            } catch (RuntimeException e) {
+                System.err.println("Using the default artifact retention: " + e.getMessage());
+                return defaultValue;
+            }
+        }
+        return defaultValue;
+    }
+
+    /**
+     * Selects the runs of a pipeline whose artifacts expire.
+     *
+     * @param runs the runs of one pipeline that have artifacts
+     * @param now  the current time in milliseconds
+     * @return the run numbers of the expired runs
+     */
+    public Set<Integer> selectExpired(List<Run> runs, long now) {
+        List<Run> newestFirst = new ArrayList<>(runs);
+        newestFirst.sort(Comparator.comparingInt(Run::getRunNumber).reversed());
+
+        Run lastSuccessful = null;
+        if (keepLastSuccessful) {
+            for (Run run : newestFirst) {
+                if (run.getStatus() == Status.SUCCESS) {
+                    lastSuccessful = run;
+                    break;
+                }
+            }
+        }
+
+        Set<Integer> expired = new HashSet<>();
+        for (int i = 0; i < newestFirst.size(); i++) {
+            Run run = newestFirst.get(i);
+            if (run == lastSuccessful || run.getStatus() == Status.PENDING
+                    || run.getStatus() == Status.RUNNING) {
+                continue;
+            }
+            boolean beyondCount = keepRuns > 0 && i >= keepRuns;
+            boolean beyondAge = keepDays > 0 && run.getFinishedAt() < now - keepDays * DAY_MILLIS;
+            if (beyondCount || beyondAge) {
+                expired.add(run.getRunNumber());
+            }
+        }
+        return expired;
+    }
+
+    /**
+     * Gets the number of newest runs that are kept.
+     *
+     * @return the number of runs, 0 if any number is kept
+     */
+    public int getKeepRuns() {
+        return keepRuns;
+    }
+
+    /**
+     * Gets the number of days a finished run is kept.
+     *
+     * @return the number of days, 0 if runs are kept for ever
+     */
+    public int getKeepDays() {
+        return keepDays;
+    }
+
+    /**
+     * Checks whether the newest successful run is always kept.
+     *
+     * @return true if the newest successful run is kept, else false
+     */
+    public boolean isKeepLastSuccessful() {
+        return keepLastSuccessful;
+    }
+
+    /**
+     * What a retention policy needs to know about a run.
+     */
+    public static class Run {
+        private final int runNumber;
+        private final Status status;
+        private final long finishedAt;
+
+        /**
+         * Creates a run.
+         *
+         * @param runNumber  the run number
+         * @param status     the status of the run, or null if the run is not recorded
+         * @param finishedAt the time the run finished in milliseconds
+         */
+        public Run(int runNumber, Status status, long finishedAt) {
+            this.runNumber = runNumber;
+            this.status = status;
+            this.finishedAt = finishedAt;
+        }
+
+        /**
+         * Gets the run number.
+         *
+         * @return the run number
+         */
+        public int getRunNumber() {
+            return runNumber;
+        }
+
+        /**
+         * Gets the status of the run.
+         *
+         * @return the status, or null if the run is not recorded
+         */
+        public Status getStatus() {
+            return status;
+        }
+
+        /**
+         * Gets the time the run finished.
+         *
+         * @return the time in milliseconds
+         */
+        public long getFinishedAt() {
+            return finishedAt;
+        }
+    }
+}
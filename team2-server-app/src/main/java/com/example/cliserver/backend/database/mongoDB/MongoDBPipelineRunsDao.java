@@ -10,6 +10,7 @@ import org.bson.conversions.Bson;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
@@ -170,6 +171,10 @@ public class MongoDBPipelineRunsDao implements PipelineRunsDao {
                         Projections.computed(JOB_NAME_FIELD, "$stages.jobs.jobName"),
                         Projections.computed(JOB_STATUS_FIELD, "$stages.jobs.jobStatus"),
                         Projections.computed(ALLOWS_FAILURE_FIELD, "$stages.jobs.allowsFailure"),
+                        Projections.computed(MATRIX_PARENT_FIELD, "$stages.jobs.matrixParent"),
+                        Projections.computed(MATRIX_VALUES_FIELD, "$stages.jobs.matrixValues"),
+                        Projections.computed(ARTIFACTS_LOCATION_FIELD,
+                                "$stages.jobs.artifactsLocation"),
                         Projections.computed(START_TIME_FIELD, "$stages.jobs.startTime"),
                         Projections.computed(COMPLETION_TIME_FIELD, "$stages.jobs.completionTime")
                 ))
@@ -208,13 +213,19 @@ public class MongoDBPipelineRunsDao implements PipelineRunsDao {
                 Aggregates.unwind("$stages"),
                 Aggregates.match(Filters.eq("stages.stageName", stageName)),
                 Aggregates.unwind("$stages.jobs"),
-                Aggregates.match(Filters.eq("stages.jobs.jobName", jobName)),
+                // The job of a matrix job is reported with all the jobs it was expanded into
+                Aggregates.match(Filters.or(Filters.eq("stages.jobs.jobName", jobName),
+                        Filters.eq("stages.jobs.matrixParent", jobName))),
                 Aggregates.project(Projections.fields(
                         Projections.include(PIPELINE_NAME_FIELD, RUN_NUMBER_FIELD, COMMIT_FIELD),
                         Projections.computed(STAGE_NAME_FIELD, "$stages.stageName"),
                         Projections.computed(JOB_NAME_FIELD, "$stages.jobs.jobName"),
                         Projections.computed(JOB_STATUS_FIELD, "$stages.jobs.jobStatus"),
                         Projections.computed(ALLOWS_FAILURE_FIELD, "$stages.jobs.allowsFailure"),
+                        Projections.computed(MATRIX_PARENT_FIELD, "$stages.jobs.matrixParent"),
+                        Projections.computed(MATRIX_VALUES_FIELD, "$stages.jobs.matrixValues"),
+                        Projections.computed(ARTIFACTS_LOCATION_FIELD,
+                                "$stages.jobs.artifactsLocation"),
                         Projections.computed(START_TIME_FIELD, "$stages.jobs.startTime"),
                         Projections.computed(COMPLETION_TIME_FIELD, "$stages.jobs.completionTime")
                 ))
@@ -408,7 +419,8 @@ public class MongoDBPipelineRunsDao implements PipelineRunsDao {
                     .append(START_TIME_FIELD, pipelineRun.getStartTime())
                     .append(COMPLETION_TIME_FIELD, pipelineRun.getCompletionTime())
                     .append(PIPELINE_STATUS_FIELD, pipelineRun.getPipelineStatus().toString())
-                    .append(IS_LOCAL_FIELD, pipelineRun.isLocal());
+                    .append(IS_LOCAL_FIELD, pipelineRun.isLocal())
+                    .append(CONCURRENCY_GROUP_FIELD, pipelineRun.getConcurrencyGroup());
 
             // Add stages to the document
             List<Document> stagesDocuments = pipelineRun.getStages().stream().map(stage -> {
@@ -416,6 +428,10 @@ public class MongoDBPipelineRunsDao implements PipelineRunsDao {
                         new Document(JOB_NAME_FIELD, job.getName())
                                 .append(JOB_STATUS_FIELD, job.getJobStatus().toString())
                                 .append(ALLOWS_FAILURE_FIELD, job.isAllowFailure())
+                                .append(MATRIX_PARENT_FIELD, job.getMatrixParent())
+                                .append(MATRIX_VALUES_FIELD,
+                                        new Document(new LinkedHashMap<>(job.getMatrixValues())))
+                                .append(ARTIFACTS_LOCATION_FIELD, job.getArtifactsLocation())
                                 .append(START_TIME_FIELD, job.getStartTime())
                                 .append(COMPLETION_TIME_FIELD, job.getCompletionTime())
                 ).collect(Collectors.toList());
@@ -435,6 +451,96 @@ public class MongoDBPipelineRunsDao implements PipelineRunsDao {
             System.err.println(e.getMessage());
         }
     }
+    /**
+     * Cancels a queued pipeline run, with its stages and jobs, if it is still pending.
+     *
+     * @param repo           the repository of the pipeline run
+     * @param pipelineName   the name of the pipeline
+     * @param runNumber      the run number of the pipeline
+     * @param completionTime the time the run was canceled at
+     * @return true if the run was canceled, false otherwise
+     */
+    @Override
+    public boolean cancelPendingPipelineRun(String repo, String pipelineName, int runNumber,
+                                            long completionTime) {
+        Bson filter = Filters.and(
+                Filters.eq(REPO_FIELD, repo),
+                Filters.eq(PIPELINE_NAME_FIELD, pipelineName),
+                Filters.eq(RUN_NUMBER_FIELD, runNumber),
+                Filters.eq(PIPELINE_STATUS_FIELD, Status.PENDING.toString()));
+        String canceled = Status.CANCELED.toString();
+        return collection.updateOne(filter, Updates.combine(
+                Updates.set(PIPELINE_STATUS_FIELD, canceled),
+                Updates.set(COMPLETION_TIME_FIELD, completionTime),
+                Updates.set(STAGES_FIELD + ".$[]." + STAGE_STATUS_FIELD, canceled),
+                Updates.set(STAGES_FIELD + ".$[]." + JOBS_FIELD + ".$[]." + JOB_STATUS_FIELD,
+                        canceled))).getModifiedCount() > 0;
+    }
+
+    /**
+     * Finds the runs of a concurrency group that are queued or executing.
+     *
+     * @param concurrencyGroup the resolved concurrency group
+     * @return a FindIterable containing the unfinished runs of the group, oldest first
+     */
+    @Override
+    public FindIterable<Document> findUnfinishedRunsInConcurrencyGroup(String concurrencyGroup) {
+        return collection.find(Filters.and(
+                        Filters.eq(CONCURRENCY_GROUP_FIELD, concurrencyGroup),
+                        Filters.in(PIPELINE_STATUS_FIELD,
+                                Status.PENDING.toString(), Status.RUNNING.toString())))
+                .sort(Sorts.ascending(START_TIME_FIELD));
+    }
+
+    /**
+     * Counts the pipeline runs that currently have the given status.
+     *
+     * @param status the status to count runs for
+     * @return the number of runs with the status
+     */
+    @Override
+    public long countRunsByStatus(Status status) {
+        return collection.countDocuments(Filters.eq(PIPELINE_STATUS_FIELD, status.toString()));
+    }
+
+    /**
+     * Counts the running pipeline runs whose worker still renews its claim on them.
+     *
+     * @param now the current time in milliseconds
+     * @return the number of runs with a live lease
+     */
+    @Override
+    public long countLeasedRuns(long now) {
+        return collection.countDocuments(Filters.and(
+                Filters.eq(PIPELINE_STATUS_FIELD, Status.RUNNING.toString()),
+                Filters.gt(LEASE_EXPIRES_AT_FIELD, now)));
+    }
+
+    /**
+     * Finds the pipeline run with the given status that was started the longest time ago.
+     *
+     * @param status the status of the run
+     * @return the oldest run with the status, or null if there is none
+     */
+    @Override
+    public Document findOldestRunByStatus(Status status) {
+        return collection.find(Filters.eq(PIPELINE_STATUS_FIELD, status.toString()))
+                .sort(Sorts.ascending(START_TIME_FIELD))
+                .first();
+    }
+
+    /**
+     * Finds all pipeline runs, with only the fields needed to apply artifact retention rules.
+     *
+     * @return the summaries of all pipeline runs
+     */
+    @Override
+    public FindIterable<Document> findRunSummaries() {
+        return collection.find().projection(Projections.include(REPO_FIELD,
+                PIPELINE_NAME_FIELD, RUN_NUMBER_FIELD, PIPELINE_STATUS_FIELD,
+                COMPLETION_TIME_FIELD));
+    }
+
     @Override
     public void close() throws Exception {
         // Close any resources if needed, e.g., MongoClient
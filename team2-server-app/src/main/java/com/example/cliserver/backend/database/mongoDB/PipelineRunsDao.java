@@ -1,6 +1,7 @@
 package com.example.cliserver.backend.database.mongoDB;
 
 import com.example.cliserver.backend.model.PipelineRun;
+import com.example.cliserver.backend.model.Status;
 import com.mongodb.client.AggregateIterable;
 import com.mongodb.client.FindIterable;
 import org.bson.Document;
@@ -138,6 +139,61 @@ public interface PipelineRunsDao {
      */
     void updatePipelineRun(PipelineRun pipelineRun);
 
+    /**
+     * Cancels a queued pipeline run: atomically marks the run and all of its stages and jobs
+     * canceled and sets its completion time, but only while it is still pending. A worker
+     * claims a run by moving it from pending to running, so a canceled run is never started.
+     *
+     * @param repo           The repository of the pipeline run
+     * @param pipelineName   The name of the pipeline
+     * @param runNumber      The run number of the pipeline
+     * @param completionTime The time the run was canceled at
+     * @return true if the run was canceled, false if it was no longer pending
+     */
+    boolean cancelPendingPipelineRun(String repo, String pipelineName, int runNumber,
+                                     long completionTime);
+
+    /**
+     * Finds the runs of a concurrency group that are queued or executing.
+     *
+     * @param concurrencyGroup The resolved concurrency group
+     * @return A FindIterable containing the unfinished runs of the group, oldest first
+     */
+    FindIterable<Document> findUnfinishedRunsInConcurrencyGroup(String concurrencyGroup);
+
+    /**
+     * Counts the pipeline runs that currently have the given status.
+     *
+     * @param status The status to count runs for
+     * @return The number of runs with the status
+     */
+    long countRunsByStatus(Status status);
+
+    /**
+     * Counts the running pipeline runs whose worker still renews its claim on them. Runs left
+     * running by a worker that died are not counted once their lease expires.
+     *
+     * @param now The current time in milliseconds
+     * @return The number of runs with a live lease
+     */
+    long countLeasedRuns(long now);
+
+    /**
+     * Finds the pipeline run with the given status that was started the longest time ago.
+     *
+     * @param status The status of the run
+     * @return The oldest run with the status, or null if there is none
+     */
+    Document findOldestRunByStatus(Status status);
+
+    /**
+     * Finds all pipeline runs, with only their repository, pipeline name, run number, status
+     * and completion time, for deciding which artifacts to keep.
+     *
+     * @return A FindIterable containing the summaries of all pipeline runs
+     */
+    FindIterable<Document> findRunSummaries();
+
     /**
      * Closes any resources associated with this DAO.
      * This method should be called when the DAO is no longer needed to release
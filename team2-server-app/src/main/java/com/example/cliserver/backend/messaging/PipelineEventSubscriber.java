@@ -0,0 +1,220 @@
+package com.example.cliserver.backend.messaging;
+
+import static com.example.cliserver.backend.utils.Constants.PIPELINE_EVENTS_EXCHANGE;
+
+import com.example.cliserver.backend.model.PipelineEvent;
+import com.example.cliserver.backend.utils.YamlConfigLoader;
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rabbitmq.client.BuiltinExchangeType;
+import com.rabbitmq.client.Channel;
+import com.rabbitmq.client.Connection;
+import com.rabbitmq.client.ConnectionFactory;
+import com.rabbitmq.client.DeliverCallback;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Subscribes to the pipeline events exchange and relays the progress events of a pipeline run
+ * to every SSE client that is following that run.
+ * <p>
+ * A single exclusive queue is used for the whole server. The queue is only bound to the
+ * routing keys of runs that currently have followers, so events of runs nobody is watching
+ * are dropped by the broker instead of being delivered to the server.
+ * </p>
+ */
+public class PipelineEventSubscriber {
+    private static PipelineEventSubscriber instance;
+
+    private final ConnectionFactory factory;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Followers of each run, keyed by the routing key prefix of the run.
+     */
+    private final Map<String, List<SseEmitter>> followers = new ConcurrentHashMap<>();
+
+    private Connection connection;
+    private Channel channel;
+    private String queueName;
+
+    /**
+     * Creates a subscriber that connects to the RabbitMQ host from the configuration file.
+     */
+    private PipelineEventSubscriber() {
+        this(new ConnectionFactory());
+        this.factory.setHost(YamlConfigLoader.getConfigValue("rabbitmq", "host"));
+    }
+
+    /**
+     * Creates a subscriber that uses the given connection factory.
+     *
+     * @param factory the connection factory for RabbitMQ
+     */
+    @SuppressFBWarnings(value = "SING_SINGLETON_HAS_NONPRIVATE_CONSTRUCTOR",
+            justification = "only tests create subscribers besides the shared instance")
+    PipelineEventSubscriber(ConnectionFactory factory) {
+        this.factory = factory;
+        this.objectMapper = new ObjectMapper();
+    }
+
+    /**
+     * Returns the shared subscriber instance of the server.
+     *
+     * @return the pipeline event subscriber
+     */
+    public static synchronized PipelineEventSubscriber getInstance() {
+        if (instance == null) {
+            instance = new PipelineEventSubscriber();
+        }
+        return instance;
+    }
+
+    /**
+     * Registers an emitter as a follower of a pipeline run. The emitter receives every
+     * progress event of the run and is completed once the run has finished.
+     *
+     * @param repo         the repository of the pipeline run
+     * @param pipelineName the name of the pipeline
+     * @param runNumber    the run number of the pipeline
+     * @param emitter      the SSE emitter of the client following the run
+     * @throws IOException if the subscription could not be set up
+     */
+    public synchronized void follow(String repo, String pipelineName, int runNumber,
+                                    SseEmitter emitter) throws IOException {
+        ensureConnected();
+        String runKey = PipelineEvent.runRoutingKey(repo, pipelineName, runNumber);
+
+        List<SseEmitter> runFollowers = followers.get(runKey);
+        if (runFollowers == null) {
+            channel.queueBind(queueName, PIPELINE_EVENTS_EXCHANGE, runKey + ".*");
+            runFollowers = new CopyOnWriteArrayList<>();
+            followers.put(runKey, runFollowers);
+        }
+        runFollowers.add(emitter);
+
+        emitter.onCompletion(() -> unfollow(runKey, emitter));
+        emitter.onTimeout(() -> unfollow(runKey, emitter));
+        emitter.onError(e -> unfollow(runKey, emitter));
+    }
+
+    /**
+     * Removes an emitter from the followers of a run, and unbinds the run from the queue
+     * once nobody follows it anymore.
+     *
+     * @param runKey  the routing key prefix of the run
+     * @param emitter the emitter to remove
+     */
+    synchronized void unfollow(String runKey, SseEmitter emitter) {
+        List<SseEmitter> runFollowers = followers.get(runKey);
+        if (runFollowers == null) {
+            return;
+        }
+        runFollowers.remove(emitter);
+        if (runFollowers.isEmpty()) {
+            followers.remove(runKey);
+            try {
+                channel.queueUnbind(queueName, PIPELINE_EVENTS_EXCHANGE, runKey + ".*");
+            } catch (IOException e) {
+                System.err.println("Failed to unbind pipeline events for " + runKey + ": "
+                        + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Returns the number of clients following a run.
+     *
+     * @param repo         the repository of the pipeline run
+     * @param pipelineName the name of the pipeline
+     * @param runNumber    the run number of the pipeline
+     * @return the number of followers of the run
+     */
+    public int getFollowerCount(String repo, String pipelineName, int runNumber) {
+        List<SseEmitter> runFollowers =
+                followers.get(PipelineEvent.runRoutingKey(repo, pipelineName, runNumber));
+        return runFollowers == null ? 0 : runFollowers.size();
+    }
+
+    /**
+     * Sends an event to every follower of its run. Followers are completed when the event
+     * marks the end of the run, and dropped if the event cannot be delivered to them.
+     *
+     * @param event the event to dispatch
+     */
+    void dispatch(PipelineEvent event) {
+        String runKey = PipelineEvent.runRoutingKey(event.getRepo(), event.getPipelineName(),
+                event.getRunNumber());
+        List<SseEmitter> runFollowers = followers.get(runKey);
+        if (runFollowers == null) {
+            return;
+        }
+
+        String data = formatEvent(event);
+        boolean finished = event.getType() == PipelineEvent.Type.PIPELINE_FINISHED;
+        for (SseEmitter emitter : runFollowers) {
+            try {
+                emitter.send(SseEmitter.event().data(data));
+                if (finished) {
+                    emitter.complete();
+                }
+            } catch (Exception e) {
+                emitter.completeWithError(e);
+                unfollow(runKey, emitter);
+            }
+        }
+    }
+
+    /**
+     * Formats an event as a single line of output for the CLI.
+     *
+     * @param event the event to format
+     * @return the formatted event
+     */
+    static String formatEvent(PipelineEvent event) {
+        if (event.getType() == PipelineEvent.Type.LOG) {
+            return "[" + event.getStageName() + "/" + event.getJobName() + "] "
+                    + event.getMessage();
+        }
+        return "[" + event.getType() + "] " + event.getMessage();
+    }
+
+    /**
+     * Connects to RabbitMQ and starts consuming pipeline events, unless this has already
+     * been done.
+     *
+     * @throws IOException if the connection or the consumer could not be set up
+     */
+    private void ensureConnected() throws IOException {
+        if (channel != null && channel.isOpen()) {
+            return;
+        }
+        try {
+            connection = factory.newConnection();
+            channel = connection.createChannel();
+            channel.exchangeDeclare(PIPELINE_EVENTS_EXCHANGE, BuiltinExchangeType.TOPIC, true);
+            queueName = channel.queueDeclare().getQueue();
+
+            // Rebind the runs that were followed before the connection was lost
+            for (String runKey : followers.keySet()) {
+                channel.queueBind(queueName, PIPELINE_EVENTS_EXCHANGE, runKey + ".*");
+            }
+
+            DeliverCallback deliverCallback = (consumerTag, delivery) -> {
+                try {
+                    dispatch(objectMapper.readValue(delivery.getBody(), PipelineEvent.class));
+                } catch (Exception e) {
+                    System.err.println("Error processing pipeline event: " + e.getMessage());
+                }
+            };
+            channel.basicConsume(queueName, true, deliverCallback, consumerTag -> {});
+        } catch (Exception e) {
+            throw new IOException("Error subscribing to pipeline events: " + e.getMessage(), e);
+        }
+    }
+}
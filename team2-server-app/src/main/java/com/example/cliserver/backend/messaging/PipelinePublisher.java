@@ -1,8 +1,11 @@
 package com.example.cliserver.backend.messaging;
 
 import com.example.cliserver.backend.database.mongoDB.PipelineRunsDao;
+import com.example.cliserver.backend.model.PipelineEvent;
 import com.example.cliserver.backend.model.PipelineRun;
 import com.example.cliserver.backend.utils.YamlConfigLoader;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rabbitmq.client.BuiltinExchangeType;
 import com.rabbitmq.client.Channel;
 import com.rabbitmq.client.Connection;
 import com.rabbitmq.client.ConnectionFactory;
@@ -67,4 +70,61 @@ public class PipelinePublisher {
         }
 
     }
-}
\ No newline at end of file
+
+    /**
+     * Publishes a request to cancel a running pipeline run. Every worker receives the request,
+     * and the worker that is executing the run stops it.
+     *
+     * @param repo         the repository of the pipeline run
+     * @param pipelineName the name of the pipeline
+     * @param runNumber    the run number of the pipeline
+     * @return a message indicating the request was sent, or an error message
+     */
+    public String publishCancelRequest(String repo, String pipelineName, int runNumber) {
+        try (Connection connection = factory.newConnection();
+             Channel channel = connection.createChannel()) {
+
+            channel.exchangeDeclare(PIPELINE_CONTROL_EXCHANGE, BuiltinExchangeType.FANOUT, true);
+
+            JSONObject message = new JSONObject();
+            message.put(CONTROL_ACTION_KEY, CANCEL_ACTION);
+            message.put(REPO_FIELD, repo);
+            message.put(PIPELINE_NAME_FIELD, pipelineName);
+            message.put(RUN_NUMBER_FIELD, runNumber);
+
+            channel.basicPublish(
+                    PIPELINE_CONTROL_EXCHANGE, "", null,
+                    message.toString().getBytes(StandardCharsets.UTF_8)
+            );
+
+            return "Cancellation requested for " + pipelineName + " run: " + runNumber;
+        } catch (Exception e) {
+            return "Error publishing cancel request: " + e.getMessage();
+        }
+    }
+
+    /**
+     * Publishes a progress event of a pipeline run to its followers. Workers publish the events
+     * of the runs they execute; the server only publishes the end of runs that never reach a
+     * worker, such as queued runs that are canceled.
+     *
+     * @param event the event to publish
+     */
+    public void publishPipelineEvent(PipelineEvent event) {
+        try (Connection connection = factory.newConnection();
+             Channel channel = connection.createChannel()) {
+
+            channel.exchangeDeclare(PIPELINE_EVENTS_EXCHANGE, BuiltinExchangeType.TOPIC, true);
+
+            channel.basicPublish(
+                    PIPELINE_EVENTS_EXCHANGE,
+                    PipelineEvent.routingKey(event.getRepo(), event.getPipelineName(),
+                            event.getRunNumber(), event.getType()),
+                    null,
+                    new ObjectMapper().writeValueAsBytes(event)
+            );
+        } catch (Exception e) {
+            System.err.println("Failed to publish pipeline event: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.cliserver.backend.metrics;
+
+import com.example.cliserver.backend.database.mongoDB.PipelineRunsDao;
+import com.example.cliserver.backend.model.Status;
+import com.example.cliserver.backend.utils.Constants;
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import org.bson.Document;
+
+import java.util.Map;
+
+/**
+ * Collects the server side metrics used to scale the workers: how many runs are waiting in
+ * each lane, how long the oldest of them has been waiting, and how many runs are executing.
+ * <p>
+ * Queue depth comes from the broker, since it also counts messages of runs whose record is
+ * not written yet, while ages and run counts come from the pipeline run records.
+ * </p>
+ */
+public class PipelineMetricsCollector {
+    private final QueueStatsSource queueStatsSource;
+    private final PipelineRunsDao pipelineRunsDao;
+
+    /**
+     * Creates a collector.
+     *
+     * @param queueStatsSource the source of the queue statistics
+     * @param pipelineRunsDao  the DAO for pipeline runs
+     */
+    @SuppressFBWarnings("EI_EXPOSE_REP2")
+    public PipelineMetricsCollector(QueueStatsSource queueStatsSource,
+                                    PipelineRunsDao pipelineRunsDao) {
+        this.queueStatsSource = queueStatsSource;
+        this.pipelineRunsDao = pipelineRunsDao;
+    }
+
+    /**
+     * Collects the current metrics.
+     *
+     * @param now the current time in milliseconds
+     * @return the metrics in the Prometheus text format
+     */
+    public String collect(long now) {
+        PrometheusTextFormat metrics = new PrometheusTextFormat();
+        Map<String, String> lane = Map.of("lane", Constants.QUEUE_NAME);
+
+        boolean queueUp = true;
+        long depth = 0;
+        long consumers = 0;
+        try {
+            depth = queueStatsSource.getMessageCount(Constants.QUEUE_NAME);
+            consumers = queueStatsSource.getConsumerCount(Constants.QUEUE_NAME);
+        } catch (Exception e) {
+            System.err.println("Failed to read queue statistics: " + e.getMessage());
+            queueUp = false;
+        }
+        metrics.gauge("pipeline_queue_up",
+                "Whether the queue statistics could be read from the broker", lane,
+                queueUp ? 1 : 0);
+        if (queueUp) {
+            metrics.gauge("pipeline_queue_depth",
+                    "Number of pipeline runs waiting in the queue", lane, depth);
+            metrics.gauge("pipeline_queue_consumers",
+                    "Number of workers consuming from the queue", lane, consumers);
+        }
+
+        Document oldestPending = pipelineRunsDao.findOldestRunByStatus(Status.PENDING);
+        long oldestAgeMillis = 0;
+        if (oldestPending != null && oldestPending.get(Constants.START_TIME_FIELD) != null) {
+            oldestAgeMillis = Math.max(0,
+                    now - oldestPending.getLong(Constants.START_TIME_FIELD));
+        }
+        metrics.gauge("pipeline_queue_oldest_age_seconds",
+                "Age of the oldest pipeline run that is still waiting for a worker", lane,
+                oldestAgeMillis / 1000.0);
+
+        metrics.family("pipeline_runs", "gauge", "Number of pipeline runs by status")
+                .sample("pipeline_runs", Map.of("status", "pending"),
+                        pipelineRunsDao.countRunsByStatus(Status.PENDING))
+                .sample("pipeline_runs", Map.of("status", "running"),
+                        pipelineRunsDao.countRunsByStatus(Status.RUNNING));
+        metrics.gauge("pipeline_runs_leased",
+                "Number of running pipeline runs whose worker still renews its claim", Map.of(),
+                pipelineRunsDao.countLeasedRuns(now));
+
+        return metrics.toString();
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.cliserver.backend.metrics;
+
+import java.util.Map;
+
+/**
+ * Builds metrics in the Prometheus text exposition format.
+ * <p>
+ * Every metric family is written with its {@code HELP} and {@code TYPE} lines, followed by
+ * one sample line per label set.
+ * </p>
+ */
+public class PrometheusTextFormat {
+
+    /**
+     * The content type of the Prometheus text exposition format.
+     */
+    public static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    private final StringBuilder output = new StringBuilder();
+
+    /**
+     * Writes the header of a metric family.
+     *
+     * @param name the name of the metric
+     * @param type the type of the metric, such as gauge or counter
+     * @param help the description of the metric
+     * @return this builder
+     */
+    public PrometheusTextFormat family(String name, String type, String help) {
+        output.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        output.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+        return this;
+    }
+
+    /**
+     * Writes a sample of a metric.
+     *
+     * @param name   the name of the metric
+     * @param labels the labels of the sample, may be empty
+     * @param value  the value of the sample
+     * @return this builder
+     */
+    public PrometheusTextFormat sample(String name, Map<String, String> labels, double value) {
+        output.append(name);
+        if (labels != null && !labels.isEmpty()) {
+            output.append('{');
+            boolean first = true;
+            for (Map.Entry<String, String> label : labels.entrySet()) {
+                if (!first) {
+                    output.append(',');
+                }
+                output.append(label.getKey()).append("=\"")
+                        .append(escape(label.getValue())).append('"');
+                first = false;
+            }
+            output.append('}');
+        }
+        output.append(' ').append(formatValue(value)).append('\n');
+        return this;
+    }
+
+    /**
+     * Writes a gauge metric family with a single sample.
+     *
+     * @param name   the name of the metric
+     * @param help   the description of the metric
+     * @param labels the labels of the sample, may be empty
+     * @param value  the value of the sample
+     * @return this builder
+     */
+    public PrometheusTextFormat gauge(String name, String help, Map<String, String> labels,
+                                      double value) {
+        return family(name, "gauge", help).sample(name, labels, value);
+    }
+
+    /**
+     * Formats a sample value, writing whole numbers without a fraction.
+     *
+     * @param value the value to format
+     * @return the formatted value
+     */
+    private static String formatValue(double value) {
+        if (value == Math.rint(value) && !Double.isInfinite(value)
+                && Math.abs(value) < 1e15) {
+            return Long.toString((long) value);
+        }
+        return Double.toString(value);
+    }
+
+    /**
+     * Escapes a label value as required by the text format.
+     *
+     * @param value the label value
+     * @return the escaped label value
+     */
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    @Override
+    public String toString() {
+        return output.toString();
+    }
+}
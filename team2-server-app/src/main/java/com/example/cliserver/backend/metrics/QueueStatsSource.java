@@ -0,0 +1,27 @@
+package com.example.cliserver.backend.metrics;
+
+import java.io.IOException;
+
+/**
+ * Source of the current statistics of a message queue.
+ */
+public interface QueueStatsSource {
+
+    /**
+     * Gets the number of messages waiting in a queue.
+     *
+     * @param queueName the name of the queue
+     * @return the number of ready messages in the queue
+     * @throws IOException if the statistics cannot be retrieved
+     */
+    long getMessageCount(String queueName) throws IOException;
+
+    /**
+     * Gets the number of consumers of a queue.
+     *
+     * @param queueName the name of the queue
+     * @return the number of consumers of the queue
+     * @throws IOException if the statistics cannot be retrieved
+     */
+    long getConsumerCount(String queueName) throws IOException;
+}
@@ -0,0 +1,60 @@
+package com.example.cliserver.backend.metrics;
+
+import com.example.cliserver.backend.utils.YamlConfigLoader;
+import com.rabbitmq.client.AMQP;
+import com.rabbitmq.client.Channel;
+import com.rabbitmq.client.Connection;
+import com.rabbitmq.client.ConnectionFactory;
+
+import java.io.IOException;
+
+/**
+ * Reads queue statistics from RabbitMQ with a passive queue declaration, which reports the
+ * message and consumer counts of a queue without modifying it.
+ */
+public class RabbitMqQueueStatsSource implements QueueStatsSource {
+    private final ConnectionFactory factory;
+    private Connection connection;
+
+    /**
+     * Creates a source that connects to the RabbitMQ host from the configuration file.
+     */
+    public RabbitMqQueueStatsSource() {
+        this.factory = new ConnectionFactory();
+        this.factory.setHost(YamlConfigLoader.getConfigValue("rabbitmq", "host"));
+    }
+
+    @Override
+    public long getMessageCount(String queueName) throws IOException {
+        return declarePassive(queueName).getMessageCount();
+    }
+
+    @Override
+    public long getConsumerCount(String queueName) throws IOException {
+        return declarePassive(queueName).getConsumerCount();
+    }
+
+    /**
+     * Passively declares a queue to read its statistics. A failed passive declaration closes
+     * the channel, so every declaration uses a channel of its own on a shared connection.
+     *
+     * @param queueName the name of the queue
+     * @return the result of the declaration
+     * @throws IOException if the queue does not exist or the broker cannot be reached
+     */
+    private synchronized AMQP.Queue.DeclareOk declarePassive(String queueName)
+            throws IOException {
+        try {
+            if (connection == null || !connection.isOpen()) {
+                connection = factory.newConnection();
+            }
+            try (Channel channel = connection.createChannel()) {
+                return channel.queueDeclarePassive(queueName);
+            }
+        } catch (IOException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IOException("Error reading queue statistics: " + e.getMessage(), e);
+        }
+    }
+}
@@ -1,7 +1,10 @@
 package com.example.cliserver.backend.model;
 
+import com.example.cliserver.backend.utils.Constants;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import static com.example.cliserver.backend.utils.PipelineUtils.checkFieldIsString;
 
@@ -35,12 +38,24 @@ public class ConfigJob {
         if (configJob.needs != null) {
             this.needs = configJob.getNeeds();
         }
+        if (configJob.dependencies != null) {
+            this.dependencies = configJob.getDependencies();
+        }
         if (configJob.ports != null) {
             this.ports = configJob.getPorts();
         }
         if(configJob.artifacts != null) {
             this.artifacts = configJob.getArtifacts();
         }
+        if (configJob.matrix != null) {
+            this.matrix = configJob.getMatrix();
+        }
+        this.failFast = configJob.failFast;
+        this.maxParallel = configJob.maxParallel;
+        this.artifactsArchive = configJob.artifactsArchive;
+        if (configJob.cache != null) {
+            this.cache = configJob.getCache();
+        }
     }
 
     /**
@@ -56,9 +71,15 @@ public class ConfigJob {
     private String uploadRepo;
     private List<String> script;
     private List<String> needs;
+    private List<String> dependencies;
     private List<String> ports;
     private boolean allowFailure;
     private List<String> artifacts;
+    private Map<String, List<String>> matrix;
+    private boolean failFast = true;
+    private int maxParallel;
+    private String artifactsArchive;
+    private JobCache cache;
 
     /**
      * Returns an unmodifiable list of artifacts to prevent external modifications.
@@ -281,4 +302,156 @@ public class ConfigJob {
         this.needs = (needs == null) ? new ArrayList<>() : new ArrayList<>(needs);
     }
 
+    /**
+     * Gets the jobs whose artifacts are restored into the workspace before this job runs.
+     *
+     * @return the names of the jobs, all of which this job needs
+     */
+    public List<String> getDependencies() {
+        return dependencies != null ? new ArrayList<>(dependencies) : new ArrayList<>();
+    }
+
+    /**
+     * Sets the jobs whose artifacts are restored into the workspace before this job runs.
+     *
+     * @param dependencies the names of the jobs, all of which this job must also need
+     */
+    public void setDependencies(List<String> dependencies) {
+        this.dependencies = (dependencies == null) ? new ArrayList<>()
+                : new ArrayList<>(dependencies);
+    }
+
+    /**
+     * Gets the matrix of the job: every variable with the values the job is run with. The job
+     * runs once for every combination of values.
+     *
+     * @return the matrix variables and their values, in the order they were declared, or an
+     *         empty map if the job is not a matrix job
+     */
+    public Map<String, List<String>> getMatrix() {
+        Map<String, List<String>> copy = new LinkedHashMap<>();
+        if (matrix != null) {
+            for (Map.Entry<String, List<String>> variable : matrix.entrySet()) {
+                copy.put(variable.getKey(), new ArrayList<>(variable.getValue()));
+            }
+        }
+        return copy;
+    }
+
+    /**
+     * Sets the matrix of the job.
+     *
+     * <p>Validates that every variable has at least one value. Throws an
+     * {@link IllegalArgumentException} if a variable has none.</p>
+     *
+     * @param matrix the matrix variables and their values
+     */
+    public void setMatrix(Map<String, List<String>> matrix) {
+        if (matrix == null) {
+            this.matrix = null;
+            return;
+        }
+        Map<String, List<String>> copy = new LinkedHashMap<>();
+        for (Map.Entry<String, List<String>> variable : matrix.entrySet()) {
+            if (variable.getValue() == null || variable.getValue().isEmpty()) {
+                throw new IllegalArgumentException("jobs: matrix variable '"
+                        + variable.getKey() + "' must have at least one value");
+            }
+            copy.put(variable.getKey(), new ArrayList<>(variable.getValue()));
+        }
+        this.matrix = copy;
+    }
+
+    /**
+     * Checks if the remaining jobs of a matrix are canceled as soon as one of them fails.
+     *
+     * @return true if the matrix fails fast, which is the default, else false
+     */
+    public boolean isFailFast() {
+        return failFast;
+    }
+
+    /**
+     * Sets whether the remaining jobs of a matrix are canceled as soon as one of them fails.
+     *
+     * @param failFast true to cancel the remaining jobs on the first failure
+     */
+    public void setFailFast(boolean failFast) {
+        this.failFast = failFast;
+    }
+
+    /**
+     * Gets the number of jobs of a matrix that may run at the same time.
+     *
+     * @return the limit, or 0 to use the default of the worker
+     */
+    public int getMaxParallel() {
+        return maxParallel;
+    }
+
+    /**
+     * Sets the number of jobs of a matrix that may run at the same time.
+     *
+     * <p>Throws an {@link IllegalArgumentException} if the limit is negative.</p>
+     *
+     * @param maxParallel the limit, or 0 to use the default of the worker
+     */
+    public void setMaxParallel(int maxParallel) {
+        if (maxParallel < 0) {
+            throw new IllegalArgumentException("jobs: maxParallel must not be negative");
+        }
+        this.maxParallel = maxParallel;
+    }
+
+    /**
+     * Gets how the artifacts of the job are uploaded.
+     *
+     * @return the compression of the single archive the artifacts are uploaded as, or null if
+     *         the files are uploaded one by one
+     */
+    public String getArtifactsArchive() {
+        return artifactsArchive;
+    }
+
+    /**
+     * Sets how the artifacts of the job are uploaded.
+     *
+     * <p>Throws an {@link IllegalArgumentException} if the compression is not supported.</p>
+     *
+     * @param artifactsArchive the compression of the archive, {@code gzip}, or null to upload
+     *                         the files one by one
+     */
+    public void setArtifactsArchive(String artifactsArchive) {
+        if (artifactsArchive != null
+                && !Constants.ARTIFACTS_ARCHIVE_GZIP.equals(artifactsArchive)) {
+            throw new IllegalArgumentException("jobs: artifactsArchive must be '"
+                    + Constants.ARTIFACTS_ARCHIVE_GZIP + "', not '" + artifactsArchive + "'");
+        }
+        this.artifactsArchive = artifactsArchive;
+    }
+
+    /**
+     * Gets the dependency cache of the job.
+     *
+     * @return the cache settings, or null if the job has no cache
+     */
+    public JobCache getCache() {
+        return cache == null ? null : new JobCache(cache);
+    }
+
+    /**
+     * Sets the dependency cache of the job.
+     *
+     * <p>Throws an {@link IllegalArgumentException} if the cache has no key or no paths.</p>
+     *
+     * @param cache the cache settings, or null for no cache
+     */
+    public void setCache(JobCache cache) {
+        if (cache != null && (cache.getKey() == null || cache.getKey().isBlank()
+                || cache.getPaths().isEmpty())) {
+            throw new IllegalArgumentException("jobs: cache must define a key and at least "
+                    + "one path");
+        }
+        this.cache = cache == null ? null : new JobCache(cache);
+    }
 }
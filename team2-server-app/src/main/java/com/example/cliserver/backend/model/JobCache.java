@@ -0,0 +1,127 @@
+package com.example.cliserver.backend.model;
+
+import com.fasterxml.jackson.annotation.JsonAlias;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.example.cliserver.backend.utils.PipelineUtils.checkFieldIsString;
+
+/**
+ * Represents the dependency cache of a job.
+ * <p>
+ * The paths of the cache, relative to the workspace, are restored before the job starts and
+ * saved after it succeeds, under a key that is resolved when the job runs. The key may use
+ * {@code ${{ hashFiles('pom.xml', ...) }}}, which is replaced with a digest of the contents of
+ * the given files and directories, so the key changes whenever the dependencies do. If no cache
+ * is stored under the exact key, the most recent cache whose key starts with one of the restore
+ * keys is restored instead, in the order the restore keys are listed.
+ * </p>
+ */
+public class JobCache {
+
+    private String key;
+    private List<String> paths = new ArrayList<>();
+    private List<String> restoreKeys = new ArrayList<>();
+
+    /**
+     * Constructs a new empty JobCache.
+     */
+    public JobCache() {
+    }
+
+    /**
+     * Creates a copy of another JobCache instance.
+     *
+     * @param cache the source JobCache to copy properties from
+     */
+    public JobCache(JobCache cache) {
+        this.key = cache.key;
+        this.paths = cache.getPaths();
+        this.restoreKeys = cache.getRestoreKeys();
+    }
+
+    /**
+     * Gets the key template of the cache.
+     *
+     * @return the key template
+     */
+    public String getKey() {
+        return key;
+    }
+
+    /**
+     * Sets the key template of the cache.
+     *
+     * <p>Validates that the key is of type String. Throws an
+     * {@link IllegalArgumentException} if the value is not a string.</p>
+     *
+     * @param key the key template
+     */
+    public void setKey(Object key) {
+        checkFieldIsString(key, "cache.key");
+        this.key = (String) key;
+    }
+
+    /**
+     * Gets the paths the cache holds.
+     *
+     * @return the paths, relative to the workspace
+     */
+    public List<String> getPaths() {
+        return new ArrayList<>(paths);
+    }
+
+    /**
+     * Sets the paths the cache holds.
+     *
+     * <p>Throws an {@link IllegalArgumentException} if a path is absolute or leaves the
+     * workspace.</p>
+     *
+     * @param paths the paths, relative to the workspace
+     */
+    public void setPaths(List<String> paths) {
+        List<String> copy = new ArrayList<>();
+        if (paths != null) {
+            for (String path : paths) {
+                if (path == null || path.isBlank() || path.startsWith("/")
+                        || path.equals("..") || path.startsWith("../")
+                        || path.contains("/../") || path.endsWith("/..")) {
+                    throw new IllegalArgumentException("cache paths must be relative to the "
+                            + "workspace, not '" + path + "'");
+                }
+                copy.add(path);
+            }
+        }
+        this.paths = copy;
+    }
+
+    /**
+     * Gets the key prefixes to fall back to when no cache is stored under the exact key.
+     *
+     * @return the restore keys, in the order they are tried
+     */
+    public List<String> getRestoreKeys() {
+        return new ArrayList<>(restoreKeys);
+    }
+
+    /**
+     * Sets the key prefixes to fall back to when no cache is stored under the exact key.
+     *
+     * <p>Throws an {@link IllegalArgumentException} if a restore key is empty.</p>
+     *
+     * @param restoreKeys the restore keys, in the order they are tried
+     */
+    @JsonAlias("restore-keys")
+    public void setRestoreKeys(List<String> restoreKeys) {
+        List<String> copy = new ArrayList<>();
+        if (restoreKeys != null) {
+            for (String restoreKey : restoreKeys) {
+                if (restoreKey == null || restoreKey.isBlank()) {
+                    throw new IllegalArgumentException("cache restore-keys must not be empty");
+                }
+                copy.add(restoreKey);
+            }
+        }
+        this.restoreKeys = copy;
+    }
+}
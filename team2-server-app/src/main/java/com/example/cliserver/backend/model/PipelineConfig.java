@@ -32,6 +32,19 @@ public class PipelineConfig {
         return new Pipeline(pipeline);
     }
 
+    /**
+     * Creates a copy of this configuration with another pipeline, for example after its matrix
+     * jobs were expanded. The configuration itself is not changed.
+     *
+     * @param pipeline the {@link Pipeline} object representing the pipeline configuration
+     * @return the new pipeline configuration
+     */
+    public PipelineConfig withPipeline(Pipeline pipeline) {
+        PipelineConfig config = new PipelineConfig();
+        config.pipeline = new Pipeline(pipeline);
+        return config;
+    }
+
     /**
      * Represents a pipeline with its name, stages, and jobs.
      *
@@ -54,7 +67,14 @@ public class PipelineConfig {
             this.image = copy.image;
             this.uploadRepo = copy.uploadRepo;
             this.stages = copy.stages;
-            this.jobs = copy.jobs;
+            // Jobs carry run state, so every copy gets its own
+            if (copy.jobs != null) {
+                this.jobs = new ArrayList<>();
+                for (Job job : copy.jobs) {
+                    this.jobs.add(new Job(job));
+                }
+            }
+            this.concurrency = copy.concurrency;
         }
 
         private String name;
@@ -63,6 +83,7 @@ public class PipelineConfig {
         private String uploadRepo;
         private List<String> stages;
         private List<Job> jobs;
+        private Concurrency concurrency;
 
         /**
          * Gets the name of the pipeline.
@@ -152,6 +173,31 @@ public class PipelineConfig {
             this.uploadRepo = (String) uploadRepo;
         }
 
+        /**
+         * Gets the concurrency settings of the pipeline.
+         *
+         * @return the concurrency settings, or null if runs of the pipeline never supersede
+         *         each other
+         */
+        public Concurrency getConcurrency() {
+            return concurrency == null ? null : new Concurrency(concurrency);
+        }
+
+        /**
+         * Sets the concurrency settings of the pipeline.
+         *
+         * <p>Throws an {@link IllegalArgumentException} if the concurrency group is missing.</p>
+         *
+         * @param concurrency the concurrency settings of the pipeline
+         */
+        public void setConcurrency(Concurrency concurrency) {
+            if (concurrency != null && (concurrency.getGroup() == null
+                    || concurrency.getGroup().isBlank())) {
+                throw new IllegalArgumentException("concurrency must define a group");
+            }
+            this.concurrency = concurrency == null ? null : new Concurrency(concurrency);
+        }
+
         /**
          * Gets the list of stages in the pipeline.
          *
@@ -0,0 +1,106 @@
+package com.example.cliserver.backend.utils;
+
+/**
+ * A range of bytes of a download, as requested in an HTTP {@code Range} header.
+ * <p>
+ * Only single ranges of bytes are supported: {@code bytes=0-99}, {@code bytes=100-} and the
+ * suffix range {@code bytes=-100}. A header asking for several ranges, or for another unit, is
+ * ignored and the whole object is sent, which HTTP allows a server to do.
+ * </p>
+ */
+public final class ByteRange {
+    private static final String UNIT = "bytes=";
+
+    private final long start;
+    private final long end;
+    private final long size;
+
+    private ByteRange(long start, long end, long size) {
+        this.start = start;
+        this.end = end;
+        this.size = size;
+    }
+
+    /**
+     * Parses a {@code Range} header for an object of the given size.
+     *
+     * @param header the value of the header, or null
+     * @param size   the size of the object in bytes
+     * @return the requested range, clamped to the object, or null if the whole object should be
+     *         sent
+     * @throws IllegalArgumentException if the range starts after the end of the object, so that
+     *                                  it cannot be satisfied
+     */
+    public static ByteRange parse(String header, long size) {
+        if (header == null || !header.startsWith(UNIT) || header.indexOf(',') >= 0) {
+            return null;
+        }
+        String spec = header.substring(UNIT.length()).trim();
+        int dash = spec.indexOf('-');
+        if (dash < 0) {
+            return null;
+        }
+        long first;
+        long last;
+        try {
+            if (dash == 0) {
+                long suffix = Long.parseLong(spec.substring(1));
+                if (suffix <= 0) {
+                    throw new IllegalArgumentException("Unsatisfiable range: " + header);
+                }
+                first = Math.max(0, size - suffix);
+                last = size - 1;
+            } else {
+                first = Long.parseLong(spec.substring(0, dash));
+                last = dash == spec.length() - 1 ? size - 1
+                        : Math.min(size - 1, Long.parseLong(spec.substring(dash + 1)));
+                if (last < first && first < size) {
+                    // A last position before the first is a syntax error, not a request
+                    return null;
+                }
+            }
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        if (first < 0 || first >= size) {
+            throw new IllegalArgumentException("Unsatisfiable range: " + header);
+        }
+        return new ByteRange(first, last, size);
+    }
+
+    /**
+     * Gets the position of the first byte of the range.
+     *
+     * @return the position of the first byte
+     */
+    public long getStart() {
+        return start;
+    }
+
+    /**
+     * Gets the position of the last byte of the range.
+     *
+     * @return the position of the last byte, inclusive
+     */
+    public long getEnd() {
+        return end;
+    }
+
+    /**
+     * Gets the number of bytes in the range.
+     *
+     * @return the length of the range
+     */
+    public long getLength() {
+        return end - start + 1;
+    }
+
+    /**
+     * Formats the range as the value of a {@code Content-Range} header.
+     *
+     * @return the content range, such as {@code bytes 0-99/1000}
+     */
+    public String toContentRange() {
+        return "bytes " + start + "-" + end + "/" + size;
+    }
+}
@@ -1,25 +1,28 @@
 package com.example.cliserver.backend.utils;
 
 
-import static com.example.cliserver.backend.utils.PipelineUtils.hasCyclicDependency;
-
 import com.example.cliserver.backend.model.Job;
 import com.example.cliserver.backend.model.PipelineConfig;
 import com.example.cliserver.backend.model.ValidationResult;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.JsonMappingException;
-import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
-import com.fasterxml.jackson.dataformat.yaml.YAMLMapper;
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
 
 /**
  * A utility class for validating YAML pipeline configuration files.
@@ -28,7 +31,8 @@ import java.util.Set;
  * configuration file by deserializing it into a {@link PipelineConfig} object and performing
  * various checks to ensure the validity of the file's structure and content. The validation checks
  * include verifying required fields, ensuring that stages have corresponding jobs, and detecting
- * any cyclical dependencies in job definitions.</p>
+ * any cyclical dependencies in job definitions. Matrix jobs are expanded into their concrete
+ * jobs by {@link MatrixExpander} before they are checked.</p>
  *
  * <p>The main validation method is {@link #validateYaml(String, String, String, String)}, which
  * processes the YAML file and checks for errors in the configuration.
@@ -38,9 +42,36 @@ import java.util.Set;
  */
 public class ConfigurationValidator {
     /**
-     * Constructs a new ConfigurationValidator instance.
+     * The mapper used to read every pipeline file. It is configured once and only used for
+     * reading afterwards, which is thread-safe.
+     */
+    static final ObjectMapper YAML_MAPPER = new ObjectMapper(new YAMLFactory())
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    /**
+     * The pool the files of a bulk validation are parsed on, shared by all requests so that
+     * concurrent bulk validations cannot use more threads than there are processors.
+     */
+    private static final ForkJoinPool VALIDATION_POOL =
+            new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+
+    private final PipelineConfigCache configCache;
+
+    /**
+     * Constructs a new ConfigurationValidator instance that shares the parsed pipelines of
+     * earlier validations.
      */
     public ConfigurationValidator() {
+        this(PipelineConfigCache.getInstance());
+    }
+
+    /**
+     * Constructs a new ConfigurationValidator instance.
+     *
+     * @param configCache the cache of parsed and validated pipeline configurations
+     */
+    public ConfigurationValidator(PipelineConfigCache configCache) {
+        this.configCache = configCache;
     }
 
     /**
@@ -67,41 +98,206 @@ public class ConfigurationValidator {
      */
     public ValidationResult validateYaml(String filename, String repo, String branch,
                                          String commit) {
-        ValidationResult result;
         if (isRemoteRepo(repo)) {
-            String localDir = GitUtils.getRepoDirectoryFromURL(repo);
-            GitUtils.cloneRemoteRepo(localDir, repo, branch, commit);
-            String directoryName = localDir + Constants.DIRECTORY;
+            // Read the pipeline files straight from the repository mirror, without a checkout
+            GitPipelineSource source;
+            try {
+                source = GitPipelineSource.load(repo, branch, commit);
+            } catch (IOException e) {
+                return new ValidationResult(false, "Error in file " + filename + ": "
+                        + e.getMessage());
+            }
+            byte[] content = source.getFile(filename);
+            if (content == null) {
+                return new ValidationResult(false, "Error in file " + filename
+                        + ": file not found in repo " + repo + " at commit "
+                        + source.getCommitHash());
+            }
+            return validatePipeline(PipelineConfigCache.remoteKey(repo, source.getCommitHash(),
+                    new File(filename).getName()), filename, content,
+                    PipelineNameIndex.forCommit(repo, source.getCommitHash(),
+                            source.getPipelineFiles()));
+        }
+        try {
+            byte[] content = readFile(filename);
+            File file = new File(filename);
+            return validatePipeline(PipelineConfigCache.localKey(file.getAbsolutePath(),
+                    file.lastModified(), content), filename, content,
+                    PipelineNameIndex.forDirectory(new File(Constants.DIRECTORY)));
+        } catch (RuntimeException e) {
+            return new ValidationResult(false, "Error in file " + filename + ": "
+                    + e.getMessage());
+        }
+    }
+
+    /**
+     * Validates every pipeline file in the pipelines directory in one pass.
+     *
+     * <p>The files are read once, from the repository mirror for a remote repo or from the
+     * pipelines directory otherwise, and parsed in parallel. The pipeline names of all files are
+     * indexed once up front, so checking that every name is unique is a lookup per file.</p>
+     *
+     * @param repo the url of the remote repo to validate, or null for the local pipelines
+     *             directory
+     * @param branch The branch to checkout for the given repo
+     * @param commit The commit hash to checkout for the given repo
+     * @return the {@link ValidationResult} of every pipeline file, ordered by file name
+     * @throws IOException if the remote repo cannot be fetched or the pipelines directory cannot
+     *                     be read
+     */
+    public Map<String, ValidationResult> validateAll(String repo, String branch, String commit)
+            throws IOException {
+        if (!isRemoteRepo(repo)) {
+            return validateDirectory(new File(Constants.DIRECTORY));
+        }
+        GitPipelineSource source = GitPipelineSource.load(repo, branch, commit);
+        Map<String, byte[]> files = filterPipelineFiles(source.getPipelineFiles());
+        Map<String, String> cacheKeys = new HashMap<>();
+        for (String name : files.keySet()) {
+            cacheKeys.put(name, PipelineConfigCache.remoteKey(repo, source.getCommitHash(),
+                    name));
+        }
+        return validateFiles(files, cacheKeys, PipelineNameIndex.forCommit(repo,
+                source.getCommitHash(), source.getPipelineFiles()));
+    }
 
-            System.out.println("\n\n");
-            System.out.println("Repo: " + repo);
-            System.out.println("localDir: " + localDir);
-            System.out.println("directoryName: " + directoryName);
-            System.out.println("localDirName + filename, dir: " + localDir
-                    + filename + ", " + directoryName);
-            System.out.println("\n\n");
+    /**
+     * Validates every pipeline file in a local pipelines directory in one pass.
+     *
+     * @param directory the pipelines directory
+     * @return the {@link ValidationResult} of every pipeline file, ordered by file name
+     * @throws IOException if the directory cannot be read
+     */
+    Map<String, ValidationResult> validateDirectory(File directory) throws IOException {
+        Map<String, String> cacheKeys = new HashMap<>();
+        Map<String, byte[]> files = readPipelineDirectory(directory, cacheKeys);
+        // Indexed from the contents just read, so every file is checked against the same
+        // snapshot of the directory
+        return validateFiles(files, cacheKeys, PipelineNameIndex.fromFiles(files));
+    }
 
-            result = validateYamlInDirectory(localDir + filename,
-                    directoryName);
-            GitUtils.cleanUpRemoteDirectory(repo);
-            System.out.println("\n\n");
-        } else {
-            result = validateYamlInDirectory(filename, Constants.DIRECTORY);
+    /**
+     * Validates pipeline files in parallel on the validation pool.
+     *
+     * @param files     the contents of the pipeline files, keyed by file name
+     * @param cacheKeys the cache key of every file, keyed by file name
+     * @param nameIndex the pipeline names of the files, used to check that every pipeline name
+     *                  is unique
+     * @return the {@link ValidationResult} of every pipeline file, ordered by file name
+     * @throws IOException if the validation is interrupted
+     */
+    private Map<String, ValidationResult> validateFiles(Map<String, byte[]> files,
+                                                        Map<String, String> cacheKeys,
+                                                        PipelineNameIndex nameIndex)
+            throws IOException {
+        try {
+            return new TreeMap<>(VALIDATION_POOL.submit(() -> files.entrySet().parallelStream()
+                    .collect(Collectors.toConcurrentMap(Map.Entry::getKey,
+                            file -> validatePipeline(cacheKeys.get(file.getKey()),
+                                    Constants.DIRECTORY + file.getKey(), file.getValue(),
+                                    nameIndex)))).get());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Validation of the pipelines directory was interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Error validating the pipelines directory: "
+                    + e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    /**
+     * Reads the pipeline files of a local pipelines directory.
+     *
+     * @param directory the pipelines directory
+     * @param cacheKeys filled with the cache key of every file read, keyed by file name
+     * @return the contents of the pipeline files, keyed by file name
+     * @throws IOException if the directory or one of its files cannot be read
+     */
+    private Map<String, byte[]> readPipelineDirectory(File directory,
+                                                      Map<String, String> cacheKeys)
+            throws IOException {
+        File[] pipelineFiles = directory.listFiles(
+                (dir, name) -> isPipelineFile(name));
+        if (pipelineFiles == null) {
+            throw new IOException("Error reading pipelines directory: " + directory);
+        }
+        Map<String, byte[]> files = new LinkedHashMap<>();
+        for (File file : pipelineFiles) {
+            if (!file.isFile()) {
+                continue;
+            }
+            byte[] content = Files.readAllBytes(file.toPath());
+            files.put(file.getName(), content);
+            cacheKeys.put(file.getName(), PipelineConfigCache.localKey(file.getAbsolutePath(),
+                    file.lastModified(), content));
+        }
+        return files;
+    }
+
+    /**
+     * Keeps only the YAML files of a pipelines directory.
+     *
+     * @param files the contents of the files in the directory, keyed by file name
+     * @return the contents of the pipeline files, keyed by file name
+     */
+    private Map<String, byte[]> filterPipelineFiles(Map<String, byte[]> files) {
+        Map<String, byte[]> pipelineFiles = new LinkedHashMap<>();
+        for (Map.Entry<String, byte[]> file : files.entrySet()) {
+            if (isPipelineFile(file.getKey())) {
+                pipelineFiles.put(file.getKey(), file.getValue());
+            }
+        }
+        return pipelineFiles;
+    }
+
+    /**
+     * Checks whether a file is a YAML file.
+     *
+     * @param fileName the name of the file
+     * @return true if the file is a pipeline file, else false
+     */
+    private static boolean isPipelineFile(String fileName) {
+        return fileName.endsWith(".yml") || fileName.endsWith(".yaml");
+    }
+
+    /**
+     * Helper method to validate the contents of a pipeline configuration file. The file itself
+     * is only parsed and validated if the cache has no result for it yet; the uniqueness of the
+     * pipeline name depends on the other files and is always checked.
+     *
+     * @param cacheKey the key of this version of the file in the pipeline configuration cache
+     * @param filename the name of the file to validate, used in error messages
+     * @param content the contents of the file to validate
+     * @param nameIndex the pipeline names of the files in the pipelines directory, used to
+     *                  check that the pipeline name is unique
+     * @return the {@link ValidationResult} for this file
+     */
+    private ValidationResult validatePipeline(String cacheKey, String filename, byte[] content,
+                                              PipelineNameIndex nameIndex) {
+        ValidationResult result = configCache.get(cacheKey,
+                () -> validatePipelineFile(filename, content));
+        if (!result.isValid()) {
+            return result;
+        }
+        try {
+            checkPipelineNameIsUnique(result.getConfig().getPipeline().getName(), nameIndex);
+        } catch (IllegalArgumentException e) {
+            return new ValidationResult(false, filename + ": syntax error " + e.getMessage());
         }
         return result;
     }
 
     /**
-     * Helper method to validate the yaml file in the given directory
+     * Helper method to parse and validate a pipeline configuration file on its own
      *
-     * @param filename the file to validate
-     * @param directoryName the directory where the file will be stored
+     * @param filename the name of the file to validate, used in error messages
+     * @param content the contents of the file to validate
      * @return the {@link ValidationResult} for this file
      */
-    private ValidationResult validateYamlInDirectory(String filename, String directoryName) {
+    private ValidationResult validatePipelineFile(String filename, byte[] content) {
         PipelineConfig pipelineConfig;
         try {
-            pipelineConfig = loadPipeline(filename);
+            pipelineConfig = loadPipeline(filename, content);
             if (pipelineConfig == null) {
                 String errorMessage = filename + "Failed to load pipeline configuration.";
                 return new ValidationResult(false, errorMessage);
@@ -109,16 +305,19 @@ public class ConfigurationValidator {
             checkRequiredField(pipelineConfig.getPipeline(), "missing key: pipeline");
             PipelineConfig.Pipeline pipeline = pipelineConfig.getPipeline();
             checkRequiredField(pipeline.getName(), "missing key: name");
-            checkPipelineNameIsUnique(pipeline.getName(), directoryName);
             checkRequiredField(pipeline.getJobs(), "missing key: jobs");
+            pipeline.setJobs(new ArrayList<>(MatrixExpander.expand(pipeline.getJobs())));
             validateStagesAndJobs(pipeline);
             for (Job job : pipeline.getJobs()) {
                 validateJob(job);
             }
-            Set<String> jobCycle = hasCyclicDependency(pipeline.getJobs());
+            List<String> jobCycle = new JobGraph(pipeline.getJobs()).findCycle();
             if (!jobCycle.isEmpty()) {
-                throw new IllegalArgumentException("Cycle detected in jobs: " + jobCycle);
+                throw new IllegalArgumentException("Cycle detected in jobs: "
+                        + JobGraph.formatCycle(jobCycle));
             }
+            // Keeps the expanded matrix jobs, and the default stages if none were given
+            pipelineConfig = pipelineConfig.withPipeline(pipeline);
         } catch (IllegalArgumentException e) {
             String errorMessage = filename + ": syntax error " + e.getMessage();
             return new ValidationResult(false, errorMessage);
@@ -129,6 +328,23 @@ public class ConfigurationValidator {
         return new ValidationResult(true, pipelineConfig);
     }
 
+    /**
+     * Reads a local pipeline configuration file.
+     *
+     * @param filename the path to the file
+     * @return the contents of the file
+     * @throws RuntimeException if the file cannot be read
+     */
+    private byte[] readFile(String filename) {
+        try {
+            return Files.readAllBytes(Paths.get(filename));
+        } catch (IOException e) {
+            throw new RuntimeException(
+                    "Error reading YAML file " + filename + ": " + e.getMessage()
+            );
+        }
+    }
+
     /**
      * Returns whether a remote repo has been specified by checked the value passed for repo
      * @param repo the repo value passed
@@ -165,38 +381,44 @@ public class ConfigurationValidator {
      * @param pipeline the {@link PipelineConfig.Pipeline} object containing the stages
      *                 and jobs to validate
      * @throws IllegalArgumentException if a stage has no jobs, a job references an
-     *                                  undefined stage, or a dependency references a non-existent
-     *                                  job
+     *                                  undefined stage, a dependency references a non-existent
+     *                                  job, or a job takes artifacts from a job it does not need
      */
     private void validateStagesAndJobs(PipelineConfig.Pipeline pipeline) {
         // If stages key was missing entirely - default stages still need to be set
         if (pipeline.getStages().isEmpty()) {
             pipeline.setStages(Constants.defaultPipelineStages);
         }
-        Set<String> definedStages = new HashSet<>(pipeline.getStages());
-
-        for (Job job : pipeline.getJobs()) {
-            if (!definedStages.contains(job.getStage())) {
+        // Indexed once, so checking every dependency is a lookup rather than a scan
+        List<String> stages = pipeline.getStages();
+        Map<String, Integer> stageIndexes = new HashMap<>();
+        for (int i = 0; i < stages.size(); i++) {
+            stageIndexes.putIfAbsent(stages.get(i), i);
+        }
+        List<Job> jobs = pipeline.getJobs();
+        Map<String, Job> jobsByName = new HashMap<>();
+        Set<String> stagesWithJobs = new HashSet<>();
+        for (Job job : jobs) {
+            if (!stageIndexes.containsKey(job.getStage())) {
                 throw new IllegalArgumentException("Job '" + job.getName() + "' specifies " +
                         "undefined stage '" + job.getStage() + "'.");
             }
+            jobsByName.put(job.getName(), job);
+            stagesWithJobs.add(job.getStage());
         }
 
-        for (String stage : pipeline.getStages()) {
-            if (pipeline.getJobs().stream().noneMatch(job -> job.getStage().equals(stage))) {
+        for (String stage : stages) {
+            if (!stagesWithJobs.contains(stage)) {
                 throw new IllegalArgumentException("No jobs defined for stage '" + stage + "'");
             }
         }
 
         // Validate that each job's dependencies exist
-        for (Job job : pipeline.getJobs()) {
+        for (Job job : jobs) {
             if (job.getNeeds() != null) {
                 for (String dependency : job.getNeeds()) {
                     // Ensure the dependency exists
-                    Job dependencyJob = pipeline.getJobs().stream()
-                            .filter(j -> j.getName().equals(dependency))
-                            .findFirst()
-                            .orElse(null);
+                    Job dependencyJob = jobsByName.get(dependency);
 
                     if (dependencyJob == null) {
                         throw new IllegalArgumentException(
@@ -207,8 +429,8 @@ public class ConfigurationValidator {
 
                     // Ensure dependency jobs appear in earlier stages (cross-stage allowed if it's
                     // sequential)
-                    int jobStageIndex = pipeline.getStages().indexOf(job.getStage());
-                    int depStageIndex = pipeline.getStages().indexOf(dependencyJob.getStage());
+                    int jobStageIndex = stageIndexes.get(job.getStage());
+                    int depStageIndex = stageIndexes.get(dependencyJob.getStage());
 
                     if (depStageIndex > jobStageIndex) {
                         throw new IllegalArgumentException(
@@ -218,6 +440,27 @@ public class ConfigurationValidator {
                     }
                 }
             }
+
+            // Artifacts can only be restored from jobs that have finished, and that uploaded
+            // them file by file
+            for (String dependency : job.getDependencies()) {
+                if (!job.getNeeds().contains(dependency)) {
+                    throw new IllegalArgumentException(
+                            String.format("Job '%s' takes the artifacts of '%s', so it must " +
+                                    "also need it.", job.getName(), dependency));
+                }
+                Job dependencyJob = jobsByName.get(dependency);
+                if (dependencyJob.getArtifacts().isEmpty()) {
+                    throw new IllegalArgumentException(
+                            String.format("Job '%s' takes the artifacts of '%s', which has no " +
+                                    "artifacts.", job.getName(), dependency));
+                }
+                if (dependencyJob.getArtifactsArchive() != null) {
+                    throw new IllegalArgumentException(
+                            String.format("Job '%s' takes the artifacts of '%s', which uploads " +
+                                    "them as an archive.", job.getName(), dependency));
+                }
+            }
         }
 
     }
@@ -239,22 +482,20 @@ public class ConfigurationValidator {
     /**
      * Loads and parses the pipeline configuration from a YAML file.
      *
-     * <p>This method reads the specified YAML file and deserializes it into
+     * <p>This method deserializes the contents of the specified YAML file into
      * a {@link PipelineConfig} object. If the file cannot be read, or if the
      * YAML content is invalid, it throws a {@link RuntimeException} with a
      * detailed error message indicating the file, line, and column where the
      * error occurred.</p>
      *
-     * @param filename the path to the YAML file containing the pipeline configuration
+     * @param filename the name of the YAML file containing the pipeline configuration
+     * @param content the contents of the YAML file
      * @return a {@link PipelineConfig} object representing the parsed pipeline configuration
-     * @throws RuntimeException if the file cannot be read or the YAML content is invalid
+     * @throws RuntimeException if the YAML content is invalid
      */
-    private PipelineConfig loadPipeline(String filename) {
+    private PipelineConfig loadPipeline(String filename, byte[] content) {
         try {
-            ObjectMapper mapper = new ObjectMapper(new YAMLFactory());
-            mapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
-            File yamlFile = new File(filename);
-            return mapper.readValue(yamlFile, PipelineConfig.class);
+            return YAML_MAPPER.readValue(content, PipelineConfig.class);
         } catch (JsonMappingException e) {
             if (e.getLocation() != null) {
                 throw new RuntimeException(String.format("%s:%d:%d: %s",
@@ -272,32 +513,16 @@ public class ConfigurationValidator {
         }
     }
 
-    private void checkPipelineNameIsUnique(String pipelineNameToCheck, String directory) {
-        File dir = new File(directory);
-        // Map to store pipeline names as keys and list of filenames as values
-        Map<String, List<String>> pipelineNameMap = new HashMap<>();
-        File[] files = dir.listFiles((dir1, name) -> name.endsWith(".yml") ||
-                name.endsWith(".yaml"));
-        if (files == null) {
-            return;
-        }
-        YAMLMapper yamlMapper = new YAMLMapper();
-        for (File file : files) {
-            try {
-                JsonNode rootNode = yamlMapper.readTree(file);
-
-                JsonNode pipelineNode = rootNode.path("pipeline");
-                JsonNode nameNode = pipelineNode.path("name");
-                if (nameNode != null) {
-                    String pipelineName = nameNode.asText();
-                    pipelineNameMap.putIfAbsent(pipelineName, new ArrayList<>());
-                    pipelineNameMap.get(pipelineName).add(file.getName());
-                }
-            } catch (IOException e) {
-                System.out.println("Error reading yaml file: " + file.getName());
-            }
-        }
-        List<String> filesWithPipelineName = pipelineNameMap.get(pipelineNameToCheck);
+    /**
+     * Checks that no other file in the pipelines directory declares the same pipeline name.
+     *
+     * @param pipelineNameToCheck the pipeline name to check
+     * @param nameIndex           the pipeline names of the files in the pipelines directory
+     * @throws IllegalArgumentException if the name is declared by more than one file
+     */
+    private void checkPipelineNameIsUnique(String pipelineNameToCheck,
+                                           PipelineNameIndex nameIndex) {
+        List<String> filesWithPipelineName = nameIndex.getFiles(pipelineNameToCheck);
         if (filesWithPipelineName.size() > 1) {
             StringBuilder errorMessage = new StringBuilder();
             for (String file : filesWithPipelineName) {
@@ -21,6 +21,104 @@ public class Constants {
      */
     public static final String REMOTE_DIRECTORY = "remote/";
 
+    /**
+     * The directory where the bare mirrors of remote repositories are cached when the
+     * MIRROR_CACHE_DIR environment variable is not set, relative to the working directory.
+     */
+    public static final String MIRROR_CACHE_DIRECTORY = REMOTE_DIRECTORY + ".mirrors/";
+
+    /**
+     * The environment variable that names the directory the repository mirrors are cached in.
+     */
+    public static final String MIRROR_CACHE_DIR_VARIABLE = "MIRROR_CACHE_DIR";
+
+    /**
+     * The directory the per-request worktrees of remote repositories are created in.
+     */
+    public static final String WORKTREE_DIRECTORY = REMOTE_DIRECTORY + ".worktrees/";
+
+    /**
+     * The size in megabytes the repository mirrors may take up when none is configured.
+     */
+    public static final long DEFAULT_MIRROR_CACHE_MAX_MB = 2048;
+
+    /**
+     * The number of validated pipeline configurations cached when none is configured.
+     */
+    public static final int DEFAULT_PIPELINE_CONFIG_CACHE_SIZE = 256;
+
+    /**
+     * The bucket all artifacts are stored in when the configuration sets none.
+     */
+    public static final String DEFAULT_ARTIFACT_BUCKET = "artifacts";
+
+    /**
+     * The largest number of jobs a single matrix job may expand into.
+     */
+    public static final int MAX_MATRIX_JOBS = 256;
+
+    /**
+     * The compression of jobs that upload their artifacts as a single archive.
+     */
+    public static final String ARTIFACTS_ARCHIVE_GZIP = "gzip";
+
+    /**
+     * The key prefix of the artifact bucket that artifact files are stored under by digest.
+     */
+    public static final String ARTIFACT_BLOB_PREFIX = ".blobs/sha256/";
+
+    /**
+     * The name of the object that lists the artifact files of a job.
+     */
+    public static final String ARTIFACT_MANIFEST_NAME = "manifest.json";
+
+    /**
+     * The name of the object the artifacts of a job are stored in as a single archive.
+     */
+    public static final String ARTIFACT_ARCHIVE_NAME = "artifacts.tar.gz";
+
+    /**
+     * The size of the buffer an artifact download is copied through, from MinIO to the client.
+     */
+    public static final int ARTIFACT_DOWNLOAD_BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * The time in milliseconds an unreferenced artifact file is kept before it is collected. It
+     * must be longer than the time workers renew and remember stored files for, together.
+     */
+    public static final long ARTIFACT_GC_BLOB_GRACE_MILLIS = 24L * 60 * 60 * 1000;
+
+    /**
+     * The key prefix, in the artifacts bucket, the dependency caches of jobs are stored under.
+     */
+    public static final String JOB_CACHE_PREFIX = ".caches/";
+
+    /**
+     * The days after which a dependency cache that was not saved again is collected when none
+     * is configured.
+     */
+    public static final int DEFAULT_ARTIFACT_GC_CACHE_MAX_AGE_DAYS = 7;
+
+    /**
+     * The number of objects removed with one request when none is configured.
+     */
+    public static final int DEFAULT_ARTIFACT_GC_BATCH_SIZE = 100;
+
+    /**
+     * The number of objects removed per second, at most, when none is configured.
+     */
+    public static final int DEFAULT_ARTIFACT_GC_MAX_DELETES_PER_SECOND = 50;
+
+    /**
+     * The hours between scheduled collections of artifacts when none is configured, 0 for none.
+     */
+    public static final int DEFAULT_ARTIFACT_GC_INTERVAL_HOURS = 0;
+
+    /**
+     * The key of the jobs of a matrix in the report row of their matrix job.
+     */
+    public static final String MATRIX_JOBS_FIELD = "matrixJobs";
+
     /**
      * The field name for the repository in the MongoDB document.
      */
@@ -59,6 +157,11 @@ public class Constants {
      * The field name for the pipeline status in the MongoDB document.
      */
     public static final String PIPELINE_STATUS_FIELD = "pipelineStatus";
+    /**
+     * The field name for the time the claim of the worker on the pipeline run expires, unless
+     * it is renewed, in the MongoDB document.
+     */
+    public static final String LEASE_EXPIRES_AT_FIELD = "leaseExpiresAt";
     /**
      * The field name for the stages array in the MongoDB document.
      */
@@ -88,10 +191,27 @@ public class Constants {
      * The field name for the 'allows failure' flag in the MongoDB document.
      */
     public static final String ALLOWS_FAILURE_FIELD = "allowsFailure";
+    /**
+     * The field name for the name of the matrix job a job was expanded from in the MongoDB
+     * document.
+     */
+    public static final String MATRIX_PARENT_FIELD = "matrixParent";
+    /**
+     * The field name for the values of the matrix variables of a job in the MongoDB document.
+     */
+    public static final String MATRIX_VALUES_FIELD = "matrixValues";
+    /**
+     * The field name for the location of the artifacts of a job in the MongoDB document.
+     */
+    public static final String ARTIFACTS_LOCATION_FIELD = "artifactsLocation";
     /**
      * The field name for the 'is local' flag in the MongoDB document.
      */
     public static final String IS_LOCAL_FIELD = "isLocal";
+    /**
+     * The field name for the concurrency group in the MongoDB document.
+     */
+    public static final String CONCURRENCY_GROUP_FIELD = "concurrencyGroup";
     /**
      * The repo name used for the local working directory
      */
@@ -107,6 +227,26 @@ public class Constants {
      */
     public static final String PIPELINE_RUN_JSON_KEY = "pipelineRun";
 
+    /**
+     * The topic exchange that workers publish pipeline progress events to
+     */
+    public static final String PIPELINE_EVENTS_EXCHANGE = "pipeline-events";
+
+    /**
+     * The fanout exchange that the server publishes run control requests to, such as cancel
+     */
+    public static final String PIPELINE_CONTROL_EXCHANGE = "pipeline-control";
+
+    /**
+     * Key for the requested action in a pipeline control message.
+     */
+    public static final String CONTROL_ACTION_KEY = "action";
+
+    /**
+     * Control action requesting that a running pipeline is canceled.
+     */
+    public static final String CANCEL_ACTION = "cancel";
+
     /**
      * The format field for displaying reports
      */
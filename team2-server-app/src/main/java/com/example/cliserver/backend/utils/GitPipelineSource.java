@@ -0,0 +1,133 @@
+package com.example.cliserver.backend.utils;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.treewalk.TreeWalk;
+
+/**
+ * The pipeline files of a remote repository at one commit, read straight from the Git object
+ * database of the repository mirror.
+ * <p>
+ * Only the blobs in the pipelines directory are read, into memory, so no working tree is
+ * checked out and nothing has to be cleaned up afterwards.
+ * </p>
+ */
+public class GitPipelineSource {
+    private final String commitHash;
+    private final Map<String, byte[]> files;
+
+    /**
+     * Creates a pipeline source from files that have already been read.
+     *
+     * @param commitHash the commit the files were read at
+     * @param files      the contents of the pipeline files, keyed by file name
+     */
+    public GitPipelineSource(String commitHash, Map<String, byte[]> files) {
+        this.commitHash = commitHash;
+        this.files = Collections.unmodifiableMap(new LinkedHashMap<>(files));
+    }
+
+    /**
+     * Loads the pipeline files of a remote repository. The commit is used if given, otherwise
+     * the head of the branch, otherwise the head of the default branch.
+     *
+     * @param repoUrl the URL of the remote repository
+     * @param branch  the branch to read, or null
+     * @param commit  the commit hash to read, or null
+     * @return the pipeline files at the resolved commit
+     * @throws IOException if the repository cannot be fetched, or the branch or commit does not
+     *                     exist
+     */
+    public static GitPipelineSource load(String repoUrl, String branch, String commit)
+            throws IOException {
+        try {
+            return RepoMirrorCache.getInstance().readMirror(repoUrl, commit,
+                    repository -> read(repository, branch, commit));
+        } catch (GitAPIException e) {
+            throw new IOException("Error fetching remote repo: " + repoUrl + ": "
+                    + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Reads the pipeline files of a repository.
+     *
+     * @param repository the repository to read from
+     * @param branch     the branch to read, or null
+     * @param commit     the commit hash to read, or null
+     * @return the pipeline files at the resolved commit
+     * @throws IOException if the branch or commit does not exist, or the files cannot be read
+     */
+    static GitPipelineSource read(Repository repository, String branch, String commit)
+            throws IOException {
+        ObjectId commitId = RepoWorktree.resolveCommit(repository, branch, commit);
+        Map<String, byte[]> files = new LinkedHashMap<>();
+        try (RevWalk revWalk = new RevWalk(repository)) {
+            RevCommit revCommit = revWalk.parseCommit(commitId);
+            try (TreeWalk directoryWalk = TreeWalk.forPath(repository, getPipelineDirectory(),
+                    revCommit.getTree())) {
+                if (directoryWalk != null && directoryWalk.isSubtree()) {
+                    try (TreeWalk fileWalk = new TreeWalk(repository)) {
+                        fileWalk.addTree(directoryWalk.getObjectId(0));
+                        while (fileWalk.next()) {
+                            if (!fileWalk.isSubtree()) {
+                                files.put(fileWalk.getNameString(),
+                                        repository.open(fileWalk.getObjectId(0)).getBytes());
+                            }
+                        }
+                    }
+                }
+            }
+            return new GitPipelineSource(revCommit.getName(), files);
+        }
+    }
+
+    /**
+     * Gets the path of the pipelines directory within the repository.
+     *
+     * @return the path of the pipelines directory, without a trailing slash
+     */
+    private static String getPipelineDirectory() {
+        String directory = Constants.DIRECTORY;
+        return directory.endsWith("/") ? directory.substring(0, directory.length() - 1)
+                : directory;
+    }
+
+    /**
+     * Gets the commit the pipeline files were read at.
+     *
+     * @return the commit hash
+     */
+    public String getCommitHash() {
+        return commitHash;
+    }
+
+    /**
+     * Gets the contents of every file in the pipelines directory.
+     *
+     * @return the file contents, keyed by file name
+     */
+    public Map<String, byte[]> getPipelineFiles() {
+        return files;
+    }
+
+    /**
+     * Gets the contents of a pipeline file.
+     *
+     * @param path the name of the file, optionally prefixed with the pipelines directory
+     * @return the contents of the file, or null if it does not exist
+     */
+    public byte[] getFile(String path) {
+        Path fileName = Paths.get(path).getFileName();
+        return fileName == null ? null : files.get(fileName.toString());
+    }
+}
@@ -0,0 +1,207 @@
+package com.example.cliserver.backend.utils;
+
+import com.example.cliserver.backend.model.Job;
+import com.example.cliserver.backend.model.JobCache;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Expands matrix jobs into the concrete jobs that are run.
+ * <p>
+ * A job with a {@code matrix} runs once for every combination of the values of its matrix
+ * variables. Every combination becomes a job of its own, named after the matrix job and the
+ * values, e.g. {@code test (17, postgres)}, in which every {@code ${{ matrix.<variable> }}} in
+ * the script, image, registry, artifacts, ports and cache is replaced by the value of the
+ * variable.
+ * A job that needs a matrix job needs every job of the matrix, and a job that takes the
+ * artifacts of a matrix job takes those of every job of the matrix.
+ * </p>
+ */
+public final class MatrixExpander {
+    private static final Pattern MATRIX_VARIABLE =
+            Pattern.compile("\\$\\{\\{\\s*matrix\\.([A-Za-z0-9_-]+)\\s*}}");
+
+    private MatrixExpander() {
+    }
+
+    /**
+     * Expands the matrix jobs of a pipeline. Jobs without a matrix are kept as they are, and the
+     * jobs of a matrix take the place of their matrix job, in the order of their combinations.
+     *
+     * @param jobs the jobs of the pipeline
+     * @return the concrete jobs of the pipeline
+     * @throws IllegalArgumentException if a matrix has too many combinations, a job uses an
+     *                                  undefined matrix variable, or two jobs end up with the
+     *                                  same name
+     */
+    public static List<Job> expand(List<Job> jobs) {
+        Map<String, List<String>> matrixGroups = new LinkedHashMap<>();
+        List<Job> expanded = new ArrayList<>();
+        for (Job job : jobs) {
+            Map<String, List<String>> matrix = job.getMatrix();
+            if (matrix.isEmpty()) {
+                expanded.add(new Job(job));
+                continue;
+            }
+            List<String> cellNames = new ArrayList<>();
+            for (Map<String, String> values : combinations(job.getName(), matrix)) {
+                Job cell = expandCell(job, values);
+                cellNames.add(cell.getName());
+                expanded.add(cell);
+            }
+            matrixGroups.put(job.getName(), cellNames);
+        }
+
+        Set<String> names = new HashSet<>();
+        for (Job job : expanded) {
+            if (!names.add(job.getName())) {
+                throw new IllegalArgumentException("Job names must be unique. Name '"
+                        + job.getName() + "' is duplicated.");
+            }
+        }
+
+        if (!matrixGroups.isEmpty()) {
+            for (Job job : expanded) {
+                job.setNeeds(resolveNeeds(job.getNeeds(), matrixGroups));
+                job.setDependencies(resolveNeeds(job.getDependencies(), matrixGroups));
+            }
+        }
+        return expanded;
+    }
+
+    /**
+     * Lists every combination of the values of the matrix variables, the last variable changing
+     * fastest.
+     *
+     * @param jobName the name of the matrix job, used in error messages
+     * @param matrix  the matrix variables and their values
+     * @return the value of every variable, for every combination
+     */
+    private static List<Map<String, String>> combinations(String jobName,
+                                                          Map<String, List<String>> matrix) {
+        long count = 1;
+        for (List<String> values : matrix.values()) {
+            count *= values.size();
+            if (count > Constants.MAX_MATRIX_JOBS) {
+                throw new IllegalArgumentException("Matrix of job '" + jobName
+                        + "' expands into more than " + Constants.MAX_MATRIX_JOBS + " jobs.");
+            }
+        }
+
+        List<Map<String, String>> combinations = new ArrayList<>();
+        combinations.add(new LinkedHashMap<>());
+        for (Map.Entry<String, List<String>> variable : matrix.entrySet()) {
+            List<Map<String, String>> next = new ArrayList<>();
+            for (Map<String, String> combination : combinations) {
+                for (String value : variable.getValue()) {
+                    Map<String, String> extended = new LinkedHashMap<>(combination);
+                    extended.put(variable.getKey(), value);
+                    next.add(extended);
+                }
+            }
+            combinations = next;
+        }
+        return combinations;
+    }
+
+    /**
+     * Creates the job of one combination of a matrix.
+     *
+     * @param job    the matrix job
+     * @param values the value of every matrix variable
+     * @return the concrete job
+     */
+    private static Job expandCell(Job job, Map<String, String> values) {
+        Job cell = new Job(job);
+        cell.setName(job.getName() + " (" + String.join(", ", values.values()) + ")");
+        cell.setMatrix(null);
+        cell.setMatrixParent(job.getName());
+        cell.setMatrixValues(values);
+
+        cell.setScript(substitute(job.getName(), job.getScript(), values));
+        cell.setArtifacts(substitute(job.getName(), job.getArtifacts(), values));
+        cell.setPorts(substitute(job.getName(), job.getPorts(), values));
+        if (job.getImage() != null) {
+            cell.setImage(substitute(job.getName(), job.getImage(), values));
+        }
+        if (job.getRegistry() != null) {
+            cell.setRegistry(substitute(job.getName(), job.getRegistry(), values));
+        }
+        if (job.getCache() != null) {
+            JobCache cache = job.getCache();
+            cache.setKey(substitute(job.getName(), cache.getKey(), values));
+            cache.setPaths(substitute(job.getName(), cache.getPaths(), values));
+            cache.setRestoreKeys(substitute(job.getName(), cache.getRestoreKeys(), values));
+            cell.setCache(cache);
+        }
+        return cell;
+    }
+
+    /**
+     * Replaces the matrix variables in a list of strings.
+     *
+     * @param jobName the name of the matrix job, used in error messages
+     * @param texts   the strings to replace the variables in
+     * @param values  the value of every matrix variable
+     * @return the strings with the variables replaced
+     */
+    private static List<String> substitute(String jobName, List<String> texts,
+                                           Map<String, String> values) {
+        List<String> substituted = new ArrayList<>(texts.size());
+        for (String text : texts) {
+            substituted.add(substitute(jobName, text, values));
+        }
+        return substituted;
+    }
+
+    /**
+     * Replaces the matrix variables in a string.
+     *
+     * @param jobName the name of the matrix job, used in error messages
+     * @param text    the string to replace the variables in
+     * @param values  the value of every matrix variable
+     * @return the string with the variables replaced
+     * @throws IllegalArgumentException if the string uses a variable the matrix does not define
+     */
+    private static String substitute(String jobName, String text, Map<String, String> values) {
+        Matcher matcher = MATRIX_VARIABLE.matcher(text);
+        StringBuilder result = new StringBuilder();
+        while (matcher.find()) {
+            String value = values.get(matcher.group(1));
+            if (value == null) {
+                throw new IllegalArgumentException("Job '" + jobName
+                        + "' uses undefined matrix variable '" + matcher.group(1) + "'.");
+            }
+            matcher.appendReplacement(result, Matcher.quoteReplacement(value));
+        }
+        matcher.appendTail(result);
+        return result.toString();
+    }
+
+    /**
+     * Replaces every dependency on a matrix job by dependencies on all of its jobs.
+     *
+     * @param needs        the dependencies, or artifact dependencies, of a job
+     * @param matrixGroups the names of the jobs of every matrix job
+     * @return the resolved dependencies
+     */
+    private static List<String> resolveNeeds(List<String> needs,
+                                             Map<String, List<String>> matrixGroups) {
+        List<String> resolved = new ArrayList<>();
+        for (String need : needs) {
+            List<String> cells = matrixGroups.get(need);
+            if (cells == null) {
+                resolved.add(need);
+            } else {
+                resolved.addAll(cells);
+            }
+        }
+        return resolved;
+    }
+}
@@ -0,0 +1,153 @@
+package com.example.cliserver.backend.utils;
+
+import com.example.cliserver.backend.model.ValidationResult;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * A bounded cache of parsed and validated pipeline configurations.
+ * <p>
+ * Remote pipeline files are keyed by repository, commit and file, local ones by path,
+ * modification time and a hash of their contents, so a key never refers to two different
+ * versions of a file. A cached result is only handed out as is: the configuration it holds
+ * returns copies from its getters, so it can be shared between requests. When the cache is
+ * full, the least recently used result is dropped.
+ * </p>
+ */
+public class PipelineConfigCache {
+    private static PipelineConfigCache instance;
+
+    private final Map<String, ValidationResult> results;
+
+    /**
+     * Creates a pipeline configuration cache.
+     *
+     * @param maxEntries the number of results to keep
+     */
+    public PipelineConfigCache(int maxEntries) {
+        this.results = new LeastRecentlyUsedMap(maxEntries);
+    }
+
+    /**
+     * A map that drops its least recently used entry once it holds too many.
+     */
+    private static final class LeastRecentlyUsedMap
+            extends LinkedHashMap<String, ValidationResult> {
+        private static final long serialVersionUID = 1L;
+        private final int maxEntries;
+
+        LeastRecentlyUsedMap(int maxEntries) {
+            super(16, 0.75f, true);
+            this.maxEntries = maxEntries;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, ValidationResult> eldest) {
+            return size() > maxEntries;
+        }
+    }
+
+    /**
+     * Returns the shared pipeline configuration cache, sized according to the configuration
+     * file.
+     *
+     * @return the pipeline configuration cache
+     */
+    public static synchronized PipelineConfigCache getInstance() {
+        if (instance == null) {
+            int maxEntries = Constants.DEFAULT_PIPELINE_CONFIG_CACHE_SIZE;
+            try {
+                String configured = YamlConfigLoader.getConfigValue("pipelines",
+                        "config-cache-size");
+                if (configured != null) {
+                    maxEntries = Integer.parseInt(configured);
+                }
+            } catch (RuntimeException e) {
+                System.err.println("Using the default pipeline config cache size: "
+                        + e.getMessage());
+            }
+            instance = new PipelineConfigCache(maxEntries);
+        }
+        return instance;
+    }
+
+    /**
+     * Gets the cached result for a key, or computes and caches it. The result is computed
+     * outside the lock, so a slow parse does not block other requests; if two requests miss
+     * on the same key, both compute it and the first result is kept.
+     *
+     * @param key    the key of the pipeline file
+     * @param loader the function that parses and validates the file
+     * @return the validation result of the file
+     */
+    public ValidationResult get(String key, Supplier<ValidationResult> loader) {
+        synchronized (results) {
+            ValidationResult cached = results.get(key);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        ValidationResult result = loader.get();
+        synchronized (results) {
+            ValidationResult cached = results.putIfAbsent(key, result);
+            return cached != null ? cached : result;
+        }
+    }
+
+    /**
+     * Gets the number of cached results.
+     *
+     * @return the number of cached results
+     */
+    public int size() {
+        synchronized (results) {
+            return results.size();
+        }
+    }
+
+    /**
+     * Builds the key of a pipeline file read from a remote repository.
+     *
+     * @param repo     the URL of the remote repository
+     * @param commit   the full hash of the commit the file was read at
+     * @param filename the name of the file
+     * @return the cache key
+     */
+    public static String remoteKey(String repo, String commit, String filename) {
+        return "remote\n" + repo + "\n" + commit + "\n" + filename;
+    }
+
+    /**
+     * Builds the key of a local pipeline file.
+     *
+     * @param path         the absolute path of the file
+     * @param lastModified the modification time of the file
+     * @param content      the contents of the file
+     * @return the cache key
+     */
+    public static String localKey(String path, long lastModified, byte[] content) {
+        return "local\n" + path + "\n" + lastModified + "\n" + sha256(content);
+    }
+
+    /**
+     * Hashes file contents with SHA-256.
+     *
+     * @param content the contents to hash
+     * @return the hex encoded hash
+     */
+    private static String sha256(byte[] content) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(content);
+            StringBuilder hex = new StringBuilder();
+            for (byte b : digest) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
@@ -0,0 +1,236 @@
+package com.example.cliserver.backend.utils;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * An index from pipeline names to the pipeline files that declare them.
+ * <p>
+ * The index of a remote repository is built once per commit from the files read at that commit.
+ * The index of a local pipelines directory is kept for the lifetime of the server and brought up
+ * to date on every lookup: only files whose modification time or size changed are parsed again,
+ * so checking that a pipeline name is unique no longer parses every file in the directory.
+ * </p>
+ */
+public class PipelineNameIndex {
+    private static final int REMOTE_INDEX_CACHE_SIZE = 64;
+
+    private static final Map<String, PipelineNameIndex> directoryIndexes =
+            new ConcurrentHashMap<>();
+    private static final Map<String, PipelineNameIndex> commitIndexes =
+            new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, PipelineNameIndex> eldest) {
+                    return size() > REMOTE_INDEX_CACHE_SIZE;
+                }
+            };
+
+    /**
+     * The directory the index is kept up to date with, or null for the index of a commit.
+     */
+    private final File directory;
+    private final Map<String, IndexedFile> files = new HashMap<>();
+    private final Map<String, Set<String>> filesByPipelineName = new HashMap<>();
+
+    private PipelineNameIndex(File directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Gets the shared index of a local pipelines directory.
+     *
+     * @param directory the pipelines directory
+     * @return the index of the directory
+     */
+    public static PipelineNameIndex forDirectory(File directory) {
+        return directoryIndexes.computeIfAbsent(directory.getAbsolutePath(),
+                path -> new PipelineNameIndex(new File(path)));
+    }
+
+    /**
+     * Gets the index of the pipelines directory of a remote repository at a commit, building it
+     * from the given files if it is not cached.
+     *
+     * @param repo   the URL of the remote repository
+     * @param commit the full hash of the commit
+     * @param files  the contents of the pipeline files at the commit, keyed by file name
+     * @return the index of the commit
+     */
+    public static PipelineNameIndex forCommit(String repo, String commit,
+                                              Map<String, byte[]> files) {
+        String key = repo + "\n" + commit;
+        synchronized (commitIndexes) {
+            PipelineNameIndex index = commitIndexes.get(key);
+            if (index == null) {
+                index = fromFiles(files);
+                commitIndexes.put(key, index);
+            }
+            return index;
+        }
+    }
+
+    /**
+     * Builds an index from the contents of pipeline files.
+     *
+     * @param files the contents of the pipeline files, keyed by file name
+     * @return the index of the files
+     */
+    static PipelineNameIndex fromFiles(Map<String, byte[]> files) {
+        PipelineNameIndex index = new PipelineNameIndex(null);
+        for (Map.Entry<String, byte[]> file : files.entrySet()) {
+            if (isPipelineFile(file.getKey())) {
+                index.add(file.getKey(), new IndexedFile(0, 0,
+                        readPipelineName(file.getKey(), file.getValue())));
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Gets the files that declare a pipeline name.
+     *
+     * @param pipelineName the name of the pipeline
+     * @return the names of the files, sorted
+     */
+    public synchronized List<String> getFiles(String pipelineName) {
+        if (directory != null) {
+            refresh();
+        }
+        Set<String> names = filesByPipelineName.get(pipelineName);
+        return names == null ? new ArrayList<>() : new ArrayList<>(names);
+    }
+
+    /**
+     * Brings the index of a local directory up to date, parsing only the files that were added
+     * or changed since the last lookup.
+     */
+    private void refresh() {
+        File[] current = directory.listFiles((dir, name) -> isPipelineFile(name));
+        Map<String, File> present = new HashMap<>();
+        if (current != null) {
+            for (File file : current) {
+                present.put(file.getName(), file);
+            }
+        }
+
+        Iterator<Map.Entry<String, IndexedFile>> indexed = files.entrySet().iterator();
+        while (indexed.hasNext()) {
+            Map.Entry<String, IndexedFile> entry = indexed.next();
+            if (!present.containsKey(entry.getKey())) {
+                removeName(entry.getKey(), entry.getValue().pipelineName);
+                indexed.remove();
+            }
+        }
+
+        for (File file : present.values()) {
+            IndexedFile previous = files.get(file.getName());
+            long lastModified = file.lastModified();
+            long size = file.length();
+            if (previous != null && previous.lastModified == lastModified
+                    && previous.size == size) {
+                continue;
+            }
+            String pipelineName;
+            try {
+                pipelineName = readPipelineName(file.getName(),
+                        Files.readAllBytes(file.toPath()));
+            } catch (IOException e) {
+                System.out.println("Error reading yaml file: " + file.getName());
+                pipelineName = null;
+            }
+            if (previous != null) {
+                removeName(file.getName(), previous.pipelineName);
+            }
+            add(file.getName(), new IndexedFile(lastModified, size, pipelineName));
+        }
+    }
+
+    /**
+     * Adds a file to the index.
+     *
+     * @param fileName    the name of the file
+     * @param indexedFile the indexed state of the file
+     */
+    private void add(String fileName, IndexedFile indexedFile) {
+        files.put(fileName, indexedFile);
+        if (indexedFile.pipelineName != null) {
+            filesByPipelineName.computeIfAbsent(indexedFile.pipelineName,
+                    name -> new TreeSet<>()).add(fileName);
+        }
+    }
+
+    /**
+     * Removes a file from the files of a pipeline name.
+     *
+     * @param fileName     the name of the file
+     * @param pipelineName the pipeline name the file declared, or null
+     */
+    private void removeName(String fileName, String pipelineName) {
+        if (pipelineName == null) {
+            return;
+        }
+        Set<String> names = filesByPipelineName.get(pipelineName);
+        if (names != null) {
+            names.remove(fileName);
+            if (names.isEmpty()) {
+                filesByPipelineName.remove(pipelineName);
+            }
+        }
+    }
+
+    /**
+     * Reads the pipeline name a file declares.
+     *
+     * @param fileName the name of the file, used in error messages
+     * @param content  the contents of the file
+     * @return the pipeline name, or null if the file cannot be parsed
+     */
+    private static String readPipelineName(String fileName, byte[] content) {
+        try {
+            JsonNode rootNode = ConfigurationValidator.YAML_MAPPER.readTree(content);
+            if (rootNode == null) {
+                return null;
+            }
+            return rootNode.path("pipeline").path("name").asText();
+        } catch (IOException e) {
+            System.out.println("Error reading yaml file: " + fileName);
+            return null;
+        }
+    }
+
+    /**
+     * Checks whether a file is a YAML file.
+     *
+     * @param fileName the name of the file
+     * @return true if the file is a pipeline file, else false
+     */
+    private static boolean isPipelineFile(String fileName) {
+        return fileName.endsWith(".yml") || fileName.endsWith(".yaml");
+    }
+
+    /**
+     * The state of an indexed file when it was last parsed.
+     */
+    private static final class IndexedFile {
+        private final long lastModified;
+        private final long size;
+        private final String pipelineName;
+
+        private IndexedFile(long lastModified, long size, String pipelineName) {
+            this.lastModified = lastModified;
+            this.size = size;
+            this.pipelineName = pipelineName;
+        }
+    }
+}
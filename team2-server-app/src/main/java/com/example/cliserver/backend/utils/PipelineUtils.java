@@ -10,12 +10,11 @@ import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Date;
-import java.util.HashMap;
-import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.stream.Collectors;
 
 /**
  * Utility class for pipeline-related helper methods.
@@ -69,20 +68,16 @@ public class PipelineUtils {
      */
     public static List<Stage> markAllStagesPending(List<String> stages, List<Job> jobs) {
         // Initialize all stages with Pending status before execution starts
+        Map<String, List<Job>> jobsByStage = groupJobsByStage(jobs);
         List<Stage> pendingStages = new ArrayList<>();
         for (String stageName : stages) {
             Stage stage = new Stage();
             stage.setStageName(stageName);
             stage.setStageStatus(Status.PENDING);
 
-            // Get jobs for this stage
-            List<Job> stageJobs = jobs.stream()
-                    .filter(job -> job.getStage().equals(stageName))
-                    .collect(Collectors.toList());
-
             // Get topologically sorted jobs - same as in executePipeline
-            List<Job> sortedJobs =
-                    PipelineUtils.getTopologicallySortedJobs(stageJobs);
+            List<Job> sortedJobs = PipelineUtils.getTopologicallySortedJobs(
+                    jobsByStage.getOrDefault(stageName, Collections.emptyList()));
 
             for (Job configJob : sortedJobs) {
                 configJob.setJobStatus(Status.PENDING);
@@ -94,6 +89,20 @@ public class PipelineUtils {
         return pendingStages;
     }
 
+    /**
+     * Groups jobs by their stage in a single pass, keeping the order the jobs were declared in.
+     *
+     * @param jobs List of all jobs defined in the pipeline configuration
+     * @return the jobs of every stage, keyed by stage name
+     */
+    public static Map<String, List<Job>> groupJobsByStage(List<Job> jobs) {
+        Map<String, List<Job>> jobsByStage = new LinkedHashMap<>();
+        for (Job job : jobs) {
+            jobsByStage.computeIfAbsent(job.getStage(), stage -> new ArrayList<>()).add(job);
+        }
+        return jobsByStage;
+    }
+
     /**
      * Retrieves jobs sorted topologically based on their dependencies.
      * Used by both `ConfigurationValidator` and `PipelineRunner`.
@@ -102,29 +111,7 @@ public class PipelineUtils {
      * @return list of topologically sorted jobs
      */
     public static List<Job> getTopologicallySortedJobs(List<Job> jobs) {
-        // Build dependency graph
-        Map<String, List<String>> graph = jobs.stream()
-                .collect(Collectors.toMap(
-                        Job::getName,
-                        Job::getNeeds
-                ));
-
-        List<Job> sorted = new ArrayList<>();
-        Set<String> visited = new HashSet<>();
-        Set<String> stack = new HashSet<>();
-        Set<String> cycle = new HashSet<>();
-        Map<String,Job> jobMap = jobs.stream()
-                .collect(Collectors.toMap(Job::getName, job -> job));
-
-        // Traverse jobs with DFS
-        for (Job job : jobs) {
-            if (!visited.contains(job.getName())) {
-                if (dfs(job.getName(), graph, visited, stack, cycle, sorted, jobMap)) {
-                    throw new IllegalArgumentException("Cycle detected in jobs: " + cycle);
-                }
-            }
-        }
-        return sorted;
+        return new JobGraph(jobs).getSortedJobs();
     }
 
     /**
@@ -139,103 +126,15 @@ public class PipelineUtils {
         }
     }
 
-    /**
-     * Helper method that performs a Depth-First Search (DFS) to detect cycles in the job
-     * dependency graph.
-     * It traverses through the graph and checks if a job’s dependencies form a cycle.
-     *
-     * @param jobName the current job being checked
-     * @param graph   the job dependency graph
-     * @param visited a set of already visited jobs
-     * @param stack   a set to track the current stack of jobs being processed
-     * @param cycle   a set to hold the job names forming the cycle
-     * @param sorted  the list of sorted jobs
-     * @param jobMap  map of job names to jobs
-     * @return true if a cycle is detected, false otherwise
-     */
-    static boolean dfs(
-            String jobName,
-            Map<String, List<String>> graph,
-            Set<String> visited,
-            Set<String> stack,
-            Set<String> cycle,
-            List<Job> sorted,
-            Map<String,Job> jobMap
-    ) {
-        stack.add(jobName);
-        cycle.add(jobName);
-
-        for (String dependency : graph.getOrDefault(jobName, Collections.emptyList())) {
-            // Cycle Detection: Dependency already in stack -> cycle found
-            if (stack.contains(dependency)) {
-                cycle.add(dependency);
-                return true;
-            }
-
-            // If dependency not visited, recurse
-            if (!visited.contains(dependency) &&
-                    dfs(dependency, graph, visited, stack, cycle, sorted, jobMap)) {
-                return true;
-            }
-        }
-        visited.add(jobName);
-        stack.remove(jobName);
-
-        // Topological Sort: Add job after processing dependencies
-        Job job = jobMap.get(jobName);
-        if (job != null) {
-            sorted.add(job);
-        }
-
-        return false;
-    }
-
     /**
      * Checks if there are any cyclical dependencies in the job dependency graph.
-     * It uses Depth-First Search (DFS) to traverse the graph and detect cycles.
      *
      * @param jobs a list of jobs to analyze for cyclic dependencies
-     * @return a set of job names that constitute a cycle, or an empty set if no cycle is detected
+     * @return the job names that constitute a cycle, in the order they need each other, or an
+     * empty set if no cycle is detected
      */
     public static Set<String> hasCyclicDependency(List<Job> jobs) {
-        Map<String, List<String>> graph = buildJobGraph(jobs);
-
-        Set<String> visited = new HashSet<>();
-        Set<String> stack = new HashSet<>();
-        Set<String> cycle = new HashSet<>();
-        Map<String,Job> jobMap = jobs.stream()
-                .collect(Collectors.toMap(Job::getName, job -> job));
-
-        // Run DFS for each job
-        for (Job job : jobs) {
-            if (!visited.contains(job.getName())) {
-                if (dfs(job.getName(), graph, visited, stack, cycle, new ArrayList<>(), jobMap)) {
-                    return cycle; // Cycle detected
-                }
-            }
-        }
-
-        return Collections.emptySet(); // No cycle found
-    }
-
-    /**
-     * Builds a job dependency graph where each job is mapped to a list of its dependent jobs.
-     * The graph represents job names as keys and their dependencies as values.
-     *
-     * @param jobs a list of jobs to analyze
-     * @return a map representing the job dependency graph, where keys are job names and values are
-     * lists of dependent job names
-     */
-    static Map<String, List<String>> buildJobGraph(List<Job> jobs) {
-        Map<String, List<String>> graph = new HashMap<>();
-
-        for (Job job : jobs) {
-            String jobName = job.getName();
-            List<String> dependencies = job.getNeeds();
-            graph.put(jobName, dependencies);
-        }
-
-        return graph;
+        return new LinkedHashSet<>(new JobGraph(jobs).findCycle());
     }
 
     /**
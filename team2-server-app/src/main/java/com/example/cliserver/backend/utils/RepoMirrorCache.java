@@ -0,0 +1,338 @@
+package com.example.cliserver.backend.utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import org.apache.commons.io.FileUtils;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Repository;
+
+/**
+ * A persistent cache of bare mirrors of remote Git repositories.
+ * <p>
+ * Every remote repository is mirrored once into its own bare repository. Later uses only fetch
+ * the objects that changed since the last fetch, or nothing at all if the mirror already has
+ * the commit they need, and checkouts are cloned from the local mirror instead of the remote,
+ * so a command against a large remote repository no longer pays for a full clone over the
+ * network.
+ * </p>
+ * <p>
+ * A mirror is locked while it is fetched, cloned from or read, so concurrent commands on the
+ * same repository do not interfere. When the mirrors grow beyond the size limit, the least
+ * recently used ones are evicted, except for mirrors that worktrees still borrow objects from.
+ * </p>
+ */
+public class RepoMirrorCache {
+    private static RepoMirrorCache instance;
+
+    private final File cacheDirectory;
+    private final long maxBytes;
+    private final Map<String, ReentrantLock> locks = new ConcurrentHashMap<>();
+    private final Map<String, AtomicInteger> users = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a mirror cache.
+     *
+     * @param cacheDirectory the directory the mirrors are stored in
+     * @param maxBytes       the size the mirrors may take up before old ones are evicted
+     */
+    public RepoMirrorCache(File cacheDirectory, long maxBytes) {
+        this.cacheDirectory = cacheDirectory;
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Returns the shared mirror cache, sized according to the configuration file. The mirrors
+     * are stored in the directory named by the MIRROR_CACHE_DIR environment variable, so a
+     * deployment can keep them on a volume of their own. The directory is resolved to an
+     * absolute path once, so the mirrors do not move with the working directory.
+     *
+     * @return the repository mirror cache
+     */
+    public static synchronized RepoMirrorCache getInstance() {
+        if (instance == null) {
+            String directory = System.getenv(Constants.MIRROR_CACHE_DIR_VARIABLE);
+            if (directory == null || directory.isBlank()) {
+                directory = Constants.MIRROR_CACHE_DIRECTORY;
+            }
+            long maxMegabytes = Constants.DEFAULT_MIRROR_CACHE_MAX_MB;
+            try {
+                String configured = YamlConfigLoader.getConfigValue("git", "mirror-cache-max-mb");
+                if (configured != null) {
+                    maxMegabytes = Long.parseLong(configured);
+                }
+            } catch (RuntimeException e) {
+                System.err.println("Using the default mirror cache size: " + e.getMessage());
+            }
+            instance = new RepoMirrorCache(new File(directory).getAbsoluteFile(),
+                    maxMegabytes * 1024 * 1024);
+        }
+        return instance;
+    }
+
+    /**
+     * Clones a remote repository into a local directory through its mirror. The mirror is
+     * created on first use and updated with an incremental fetch otherwise, unless it already
+     * contains the requested commit.
+     *
+     * @param remoteRepoUrl the URL of the remote repository
+     * @param commit        the full hash of the commit the clone needs, or null if it needs the
+     *                      latest branches of the remote
+     * @param localDir      the directory to clone into
+     * @return the cloned repository
+     * @throws GitAPIException if the mirror cannot be updated or cloned from
+     * @throws IOException     if the mirror cannot be stored
+     */
+    public Git cloneFromMirror(String remoteRepoUrl, String commit, File localDir)
+            throws GitAPIException, IOException {
+        File mirror = getMirrorDirectory(remoteRepoUrl);
+        ReentrantLock lock = getLock(mirror);
+        Git git;
+        lock.lock();
+        try {
+            updateMirror(remoteRepoUrl, commit, mirror);
+            git = Git.cloneRepository()
+                    .setURI(mirror.toURI().toString())
+                    .setDirectory(localDir)
+                    .call();
+        } finally {
+            lock.unlock();
+        }
+        evictLeastRecentlyUsed();
+        return git;
+    }
+
+    /**
+     * Reads from the mirror of a remote repository, after updating it unless it already
+     * contains the requested commit. The objects are read straight from the mirror, so no
+     * working tree is checked out. The mirror stays locked while it is read, so it is not
+     * fetched into or evicted at the same time.
+     *
+     * @param remoteRepoUrl the URL of the remote repository
+     * @param commit        the full hash of the commit the reader needs, or null if it needs
+     *                      the latest branches of the remote
+     * @param reader        the function that reads from the mirror
+     * @param <T>           the type of the result of the reader
+     * @return the result of the reader
+     * @throws GitAPIException if the mirror cannot be updated
+     * @throws IOException     if the mirror cannot be opened or read
+     */
+    public <T> T readMirror(String remoteRepoUrl, String commit, MirrorReader<T> reader)
+            throws GitAPIException, IOException {
+        File mirror = getMirrorDirectory(remoteRepoUrl);
+        ReentrantLock lock = getLock(mirror);
+        T result;
+        lock.lock();
+        try {
+            updateMirror(remoteRepoUrl, commit, mirror);
+            try (Git git = Git.open(mirror)) {
+                result = reader.read(git.getRepository());
+            }
+        } finally {
+            lock.unlock();
+        }
+        evictLeastRecentlyUsed();
+        return result;
+    }
+
+    /**
+     * Function that reads from the repository of a mirror.
+     *
+     * @param <T> the type of the result
+     */
+    @FunctionalInterface
+    public interface MirrorReader<T> {
+        /**
+         * Reads from the repository of a mirror.
+         *
+         * @param repository the repository of the mirror
+         * @return the result of the read
+         * @throws IOException if the repository cannot be read
+         */
+        T read(Repository repository) throws IOException;
+    }
+
+    /**
+     * Marks the mirror of a remote repository as in use, so it is not evicted while a worktree
+     * reads objects from it. Every call must be matched by a call to {@link #releaseMirror}.
+     *
+     * @param remoteRepoUrl the URL of the remote repository
+     */
+    public void retainMirror(String remoteRepoUrl) {
+        users.computeIfAbsent(getMirrorDirectory(remoteRepoUrl).getName(),
+                key -> new AtomicInteger()).incrementAndGet();
+    }
+
+    /**
+     * Releases a mirror marked as in use by {@link #retainMirror}.
+     *
+     * @param remoteRepoUrl the URL of the remote repository
+     */
+    public void releaseMirror(String remoteRepoUrl) {
+        AtomicInteger count = users.get(getMirrorDirectory(remoteRepoUrl).getName());
+        if (count != null) {
+            count.decrementAndGet();
+        }
+    }
+
+    /**
+     * Checks whether a worktree still reads objects from a mirror.
+     *
+     * @param mirror the directory of the mirror
+     * @return true if the mirror is in use, else false
+     */
+    private boolean isRetained(File mirror) {
+        AtomicInteger count = users.get(mirror.getName());
+        return count != null && count.get() > 0;
+    }
+
+    /**
+     * Gets the lock of a mirror.
+     *
+     * @param mirror the directory of the mirror
+     * @return the lock that guards the mirror
+     */
+    private ReentrantLock getLock(File mirror) {
+        return locks.computeIfAbsent(mirror.getName(), key -> new ReentrantLock());
+    }
+
+    /**
+     * Gets the directory of the mirror of a remote repository. The directory is named after
+     * a hash of the URL, so different URLs never share a mirror.
+     *
+     * @param remoteRepoUrl the URL of the remote repository
+     * @return the directory of the mirror
+     */
+    File getMirrorDirectory(String remoteRepoUrl) {
+        return new File(cacheDirectory, sha1(remoteRepoUrl) + ".git");
+    }
+
+    /**
+     * Creates the mirror of a remote repository, or fetches what changed if it already exists.
+     * A commit the mirror already contains never changes, so the fetch is skipped for it. The
+     * mirror is marked as used, for the eviction of the least recently used mirrors.
+     *
+     * @param remoteRepoUrl the URL of the remote repository
+     * @param commit        the full hash of the commit that is needed, or null
+     * @param mirror        the directory of the mirror
+     * @throws GitAPIException if the remote repository cannot be mirrored or fetched
+     * @throws IOException     if the mirror cannot be opened
+     */
+    private void updateMirror(String remoteRepoUrl, String commit, File mirror)
+            throws GitAPIException, IOException {
+        if (new File(mirror, "HEAD").exists()) {
+            try (Git git = Git.open(mirror)) {
+                if (!containsCommit(git.getRepository(), commit)) {
+                    git.fetch().setRemote("origin").setRemoveDeletedRefs(true).call();
+                }
+            }
+        } else {
+            // A partially written mirror from an interrupted clone cannot be fetched into
+            FileUtils.deleteQuietly(mirror);
+            try (Git git = Git.cloneRepository()
+                    .setURI(remoteRepoUrl)
+                    .setDirectory(mirror)
+                    .setMirror(true)
+                    .call()) {
+                System.out.println("Created mirror of " + remoteRepoUrl);
+            } catch (GitAPIException e) {
+                FileUtils.deleteQuietly(mirror);
+                throw e;
+            }
+        }
+        if (!mirror.setLastModified(System.currentTimeMillis())) {
+            System.err.println("Failed to mark mirror as used: " + mirror.getName());
+        }
+    }
+
+    /**
+     * Checks whether a repository contains a commit. Only full hashes are looked up, since an
+     * abbreviated hash or a name may resolve to something else once the remote is fetched.
+     *
+     * @param repository the repository of the mirror
+     * @param commit     the full hash of the commit, or null
+     * @return true if the commit is in the repository, else false
+     * @throws IOException if the repository cannot be read
+     */
+    private static boolean containsCommit(Repository repository, String commit)
+            throws IOException {
+        if (commit == null || !ObjectId.isId(commit)) {
+            return false;
+        }
+        return repository.getObjectDatabase().has(ObjectId.fromString(commit));
+    }
+
+    /**
+     * Deletes the least recently used mirrors until the cache fits its size limit. Mirrors
+     * that are locked or retained by a worktree are skipped.
+     */
+    void evictLeastRecentlyUsed() {
+        File[] mirrors = cacheDirectory.listFiles(File::isDirectory);
+        if (mirrors == null) {
+            return;
+        }
+
+        long totalBytes = 0;
+        List<File> candidates = new ArrayList<>();
+        for (File mirror : mirrors) {
+            totalBytes += FileUtils.sizeOfDirectory(mirror);
+            candidates.add(mirror);
+        }
+        candidates.sort(Comparator.comparingLong(File::lastModified));
+
+        for (File mirror : candidates) {
+            if (totalBytes <= maxBytes) {
+                return;
+            }
+            ReentrantLock lock = getLock(mirror);
+            if (!lock.tryLock()) {
+                continue;
+            }
+            try {
+                if (isRetained(mirror)) {
+                    continue;
+                }
+                long size = FileUtils.sizeOfDirectory(mirror);
+                FileUtils.deleteDirectory(mirror);
+                totalBytes -= size;
+                System.out.println("Evicted repository mirror: " + mirror.getName());
+            } catch (IOException e) {
+                System.err.println("Error evicting repository mirror: " + mirror.getName()
+                        + ": " + e.getMessage());
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Hashes a string with SHA-1.
+     *
+     * @param value the string to hash
+     * @return the hex encoded hash
+     */
+    private static String sha1(String value) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-1")
+                    .digest(value.getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder();
+            for (byte b : digest) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-1 is not available", e);
+        }
+    }
+}
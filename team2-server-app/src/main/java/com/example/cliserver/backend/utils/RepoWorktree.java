@@ -0,0 +1,227 @@
+package com.example.cliserver.backend.utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import org.apache.commons.io.FileUtils;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.dircache.DirCacheCheckout;
+import org.eclipse.jgit.errors.IncorrectObjectTypeException;
+import org.eclipse.jgit.errors.MissingObjectException;
+import org.eclipse.jgit.errors.RevisionSyntaxException;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Ref;
+import org.eclipse.jgit.lib.RefUpdate;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
+
+/**
+ * A checkout of a remote repository that belongs to a single request.
+ * <p>
+ * Every worktree gets its own, uniquely named directory, so concurrent requests for different
+ * branches of the same repository never write into each other's checkout. The worktree does not
+ * copy any objects: its repository borrows them from the repository mirror through
+ * {@code objects/info/alternates}, and only the files of the requested commit are written. The
+ * mirror is retained for as long as the worktree is open, and closing the worktree deletes its
+ * directory.
+ * </p>
+ */
+public class RepoWorktree implements AutoCloseable {
+    private final RepoMirrorCache mirrorCache;
+    private final String repoUrl;
+    private final File directory;
+    private final String commitHash;
+    private boolean closed;
+
+    private RepoWorktree(RepoMirrorCache mirrorCache, String repoUrl, File directory,
+                         String commitHash) {
+        this.mirrorCache = mirrorCache;
+        this.repoUrl = repoUrl;
+        this.directory = directory;
+        this.commitHash = commitHash;
+    }
+
+    /**
+     * Creates a worktree of a remote repository from the shared mirror cache. The commit is
+     * checked out if given, otherwise the head of the branch, otherwise the head of the
+     * default branch.
+     *
+     * @param repoUrl the URL of the remote repository
+     * @param branch  the branch to check out, or null
+     * @param commit  the commit hash to check out, or null
+     * @return the worktree, which must be closed when the request completes
+     * @throws IOException if the repository cannot be fetched, the branch or commit does not
+     *                     exist, or the files cannot be written
+     */
+    public static RepoWorktree create(String repoUrl, String branch, String commit)
+            throws IOException {
+        return create(RepoMirrorCache.getInstance(), new File(Constants.WORKTREE_DIRECTORY),
+                repoUrl, branch, commit);
+    }
+
+    /**
+     * Creates a worktree of a remote repository.
+     *
+     * @param mirrorCache     the mirror cache to borrow the objects from
+     * @param parentDirectory the directory to create the worktree in
+     * @param repoUrl         the URL of the remote repository
+     * @param branch          the branch to check out, or null
+     * @param commit          the commit hash to check out, or null
+     * @return the worktree, which must be closed when the request completes
+     * @throws IOException if the repository cannot be fetched, the branch or commit does not
+     *                     exist, or the files cannot be written
+     */
+    static RepoWorktree create(RepoMirrorCache mirrorCache, File parentDirectory,
+                               String repoUrl, String branch, String commit)
+            throws IOException {
+        Files.createDirectories(parentDirectory.toPath());
+        File directory = Files.createTempDirectory(parentDirectory.toPath(), "worktree-")
+                .toFile();
+        // Retained before the mirror is read, so it cannot be evicted before the worktree is
+        // closed
+        mirrorCache.retainMirror(repoUrl);
+        try {
+            String commitHash = mirrorCache.readMirror(repoUrl, commit,
+                    mirror -> checkout(mirror, directory, branch, commit));
+            return new RepoWorktree(mirrorCache, repoUrl, directory, commitHash);
+        } catch (GitAPIException e) {
+            discard(mirrorCache, repoUrl, directory);
+            throw new IOException("Error fetching remote repo: " + repoUrl + ": "
+                    + e.getMessage(), e);
+        } catch (IOException | RuntimeException e) {
+            discard(mirrorCache, repoUrl, directory);
+            throw e;
+        }
+    }
+
+    /**
+     * Cleans up after a worktree that could not be created.
+     *
+     * @param mirrorCache the mirror cache the worktree retained a mirror of
+     * @param repoUrl     the URL of the remote repository
+     * @param directory   the directory of the worktree
+     */
+    private static void discard(RepoMirrorCache mirrorCache, String repoUrl, File directory) {
+        mirrorCache.releaseMirror(repoUrl);
+        FileUtils.deleteQuietly(directory);
+    }
+
+    /**
+     * Checks out a commit of a mirror into an empty directory, with a repository that borrows
+     * its objects from the mirror.
+     *
+     * @param mirror    the repository of the mirror
+     * @param directory the directory to check out into
+     * @param branch    the branch to check out, or null
+     * @param commit    the commit hash to check out, or null
+     * @return the hash of the commit that was checked out
+     * @throws IOException if the branch or commit does not exist, or the files cannot be written
+     */
+    private static String checkout(Repository mirror, File directory, String branch,
+                                   String commit) throws IOException {
+        ObjectId commitId = resolveCommit(mirror, branch, commit);
+        try (Git git = Git.init().setDirectory(directory).call()) {
+            File alternates = new File(git.getRepository().getDirectory(),
+                    "objects/info/alternates");
+            FileUtils.writeStringToFile(alternates,
+                    new File(mirror.getDirectory(), "objects").getAbsolutePath() + "\n",
+                    StandardCharsets.UTF_8);
+        } catch (GitAPIException e) {
+            throw new IOException("Error creating worktree: " + e.getMessage(), e);
+        }
+
+        // Reopened, so the repository picks up the alternates written above
+        try (Git git = Git.open(directory);
+             RevWalk revWalk = new RevWalk(git.getRepository())) {
+            Repository repository = git.getRepository();
+            RevCommit revCommit = revWalk.parseCommit(commitId);
+            DirCacheCheckout checkout = new DirCacheCheckout(repository,
+                    repository.lockDirCache(), revCommit.getTree());
+            checkout.setFailOnConflict(true);
+            checkout.checkout();
+
+            RefUpdate head = repository.updateRef(org.eclipse.jgit.lib.Constants.HEAD, true);
+            head.setNewObjectId(revCommit);
+            head.forceUpdate();
+            return revCommit.getName();
+        }
+    }
+
+    /**
+     * Resolves the commit a request refers to. The commit is used if given, otherwise the head
+     * of the branch, otherwise the head of the default branch. If both are given, the commit
+     * must still exist, and the branch too.
+     *
+     * @param repository the repository to resolve in
+     * @param branch     the branch, or null
+     * @param commit     the commit hash, or null
+     * @return the id of the commit
+     * @throws IOException if the branch or commit does not exist
+     */
+    static ObjectId resolveCommit(Repository repository, String branch, String commit)
+            throws IOException {
+        if (branch != null) {
+            Ref ref = repository.exactRef(org.eclipse.jgit.lib.Constants.R_HEADS + branch);
+            if (ref == null) {
+                throw new IOException("Invalid branch name: " + branch);
+            }
+            if (commit == null) {
+                return ref.getObjectId();
+            }
+        }
+        String revision = commit != null ? commit : org.eclipse.jgit.lib.Constants.HEAD;
+        ObjectId commitId;
+        try {
+            commitId = repository.resolve(revision + "^{commit}");
+        } catch (RevisionSyntaxException | MissingObjectException
+                 | IncorrectObjectTypeException e) {
+            commitId = null;
+        }
+        if (commitId == null) {
+            throw new IOException(commit != null ? "Invalid commit hash: " + commit
+                    : "Repository has no commits");
+        }
+        return commitId;
+    }
+
+    /**
+     * Gets the directory of the worktree.
+     *
+     * @return the directory the commit is checked out in
+     */
+    public File getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Gets the commit that is checked out.
+     *
+     * @return the commit hash
+     */
+    public String getCommitHash() {
+        return commitHash;
+    }
+
+    /**
+     * Deletes the worktree and releases the mirror it borrowed its objects from. Closing it more
+     * than once has no effect.
+     */
+    @Override
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            FileUtils.deleteDirectory(directory);
+        } catch (IOException e) {
+            System.err.println("Error cleaning up worktree: " + directory + " for repo: "
+                    + repoUrl + ": " + e.getMessage());
+        } finally {
+            mirrorCache.releaseMirror(repoUrl);
+        }
+    }
+}
@@ -53,6 +53,11 @@ public class CommandLineHandler {
         this.pipelineService = new DefaultPipelineService();
         this.formatter = new HelpFormatter();
 
+        options.addOption(Option.builder("a")
+                .longOpt("all")
+                .desc("Check every file in the .pipelines directory")
+                .build());
+
         options.addOption(Option.builder("branch")
                 .longOpt("branch")
                 .hasArg()
@@ -148,10 +153,12 @@ public class CommandLineHandler {
      */
     public void printHelpFormatter() {
         String header = "\n";
-        String footer = String.format(" %-29s%s%n %-29s%s%n %-29s%s",
+        String footer = String.format(" %-29s%s%n %-29s%s%n %-29s%s%n %-29s%s%n %-29s%s",
                 "report", "Generate reports for pipeline runs",
                 "run", "Executes the pipeline locally",
-                "status", "Display status information for pipeline runs"
+                "status", "Display status information for pipeline runs",
+                "follow", "Stream live progress of a pipeline run",
+                "cancel", "Cancel a queued or running pipeline run"
         );
         formatter.printHelp(
                 "java -jar pipeline-tool.jar [options]",
@@ -166,11 +173,17 @@ public class CommandLineHandler {
      * - If `-h` | `--help` is provided, it displays help information.
      * - If `-f` | `--filename` is provided, it checks for the existence of the file.
      * - If `-c` | `--check` is provided, it validates the configuration file.
+     * - If `-c` | `--check` and `-a` | `--all` are provided, it validates every configuration
+     * file in the pipelines directory.
      * - If 'run' is provided, it runs the pipeline locally
      * * --f must be passed to specify the filename of the pipeline to run
      * * --repo (optional) can be passed to specify the repository where the pipeline is located
      * * --vv (optional) can be passed to enable verbose logging output in the terminal while
      * executing the pipeline
+     * - If 'follow' and `--pipeline` and `--runNumber` are provided, it streams the live
+     * progress of that pipeline run until it finishes
+     * - If 'cancel' and `--pipeline` and `--runNumber` are provided, it cancels that pipeline
+     * run, whether it is still queued or already running
      * - If 'status' is provided, it displays the current status of pipeline runs.
      * - If `-d` | `--dry-run` is provided with `-f`, it executes the pipeline in dry run mode.
      * - If `report` and `--pipeline` and (`--stage` or `--job` or `--repo` or '--runNumber' or
@@ -187,7 +200,12 @@ public class CommandLineHandler {
                 return;
             }
 
-            if (cmd.hasOption("c") && (cmd.hasOption("f"))) {
+            if ((cmd.hasOption("c") || Arrays.asList(args).contains("check"))
+                    && cmd.hasOption("a")) {
+                SseController.sendEventAndComplete(
+                    emitter, pipelineService.validateAllConfigurations(params)
+                );
+            } else if (cmd.hasOption("c") && (cmd.hasOption("f"))) {
                 SseController.sendEventAndComplete(
                     emitter, pipelineService.validateConfiguration(params)
                 );
@@ -197,6 +215,16 @@ public class CommandLineHandler {
                     emitter,
                     pipelineService.runPipelineLocally(params)
                 );
+            } else if (Arrays.asList(args).contains("follow") &&
+                    cmd.hasOption("pipeline") && cmd.hasOption("runNumber")) {
+                // The emitter stays open and is completed once the run finishes
+                pipelineService.followPipelineRun(params, emitter);
+            } else if (Arrays.asList(args).contains("cancel") &&
+                    cmd.hasOption("pipeline") && cmd.hasOption("runNumber")) {
+                SseController.sendEventAndComplete(
+                    emitter,
+                    pipelineService.cancelPipelineRun(params)
+                );
             } else if (Arrays.asList(args).contains("status")) {
                 SseController.sendEventAndComplete(
                     emitter,
@@ -0,0 +1,223 @@
+package com.example.cliserver.controller;
+
+import com.example.cliserver.backend.database.artifactsDB.ArtifactsGarbageCollector;
+import com.example.cliserver.backend.database.artifactsDB.ArtifactsReader;
+import com.example.cliserver.backend.database.artifactsDB.ArtifactsReader.ArtifactFile;
+import com.example.cliserver.backend.database.mongoDB.PipelineRunsDaoFactory;
+import com.example.cliserver.backend.utils.ByteRange;
+import com.example.cliserver.backend.utils.Constants;
+import java.io.InputStream;
+import java.io.IOException;
+import java.util.List;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+/**
+ * Lists the artifacts of pipeline runs and streams their files from the artifact bucket.
+ * <p>
+ * A download is copied from MinIO to the client through one fixed buffer, and honours a single
+ * {@code Range}, so an interrupted download can be resumed. Files stored by digest are sent with
+ * their digest as a strong {@code ETag}, other files with the one MinIO keeps for them, and a
+ * range is only sent if {@code If-Range} names it.
+ * </p>
+ */
+@RestController
+public class ArtifactsController {
+    private ArtifactsReader reader;
+    private ArtifactsGarbageCollector collector;
+
+    /**
+     * Lists the artifact files of a pipeline run.
+     *
+     * @param repo         the repository of the run, or null for the local repo
+     * @param pipelineName the name of the pipeline
+     * @param runNumber    the run number of the pipeline
+     * @param jobName      the job to list the files of, or null for all jobs
+     * @return a JSON array of the files, with their job, path, size and digest
+     */
+    @GetMapping(value = "/artifacts", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<String> listArtifacts(
+            @RequestParam(value = "repo", required = false) String repo,
+            @RequestParam("pipeline") String pipelineName,
+            @RequestParam("runNumber") int runNumber,
+            @RequestParam(value = "job", required = false) String jobName) {
+        List<ArtifactFile> files;
+        try {
+            files = getReader().listArtifacts(repoOrLocal(repo), pipelineName, runNumber,
+                    jobName);
+        } catch (Exception e) {
+            System.err.println("Failed to list artifacts: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_GATEWAY)
+                    .body("Failed to list artifacts: " + e.getMessage());
+        }
+        JSONArray array = new JSONArray();
+        for (ArtifactFile file : files) {
+            JSONObject object = new JSONObject();
+            object.put("job", file.getJob());
+            object.put("path", file.getPath());
+            object.put("size", file.getSize());
+            if (file.getDigest() != null) {
+                object.put("digest", file.getDigest());
+            }
+            array.put(object);
+        }
+        return ResponseEntity.ok(array.toString());
+    }
+
+    /**
+     * Streams an artifact file, or the requested range of it.
+     *
+     * @param repo         the repository of the run, or null for the local repo
+     * @param pipelineName the name of the pipeline
+     * @param runNumber    the run number of the pipeline
+     * @param jobName      the job of the file
+     * @param path         the path of the file, as listed
+     * @param range        the {@code Range} header, or null for the whole file
+     * @param ifRange      the {@code If-Range} header, or null
+     * @return the file, the requested range of it, or an error status
+     */
+    @GetMapping("/artifacts/download")
+    public ResponseEntity<StreamingResponseBody> downloadArtifact(
+            @RequestParam(value = "repo", required = false) String repo,
+            @RequestParam("pipeline") String pipelineName,
+            @RequestParam("runNumber") int runNumber,
+            @RequestParam("job") String jobName,
+            @RequestParam("path") String path,
+            @RequestHeader(value = HttpHeaders.RANGE, required = false) String range,
+            @RequestHeader(value = HttpHeaders.IF_RANGE, required = false) String ifRange) {
+        ArtifactsReader artifacts = getReader();
+        ArtifactFile file;
+        try {
+            file = artifacts.findArtifact(repoOrLocal(repo), pipelineName, runNumber, jobName,
+                    path);
+        } catch (Exception e) {
+            System.err.println("Failed to find artifact " + path + ": " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_GATEWAY).build();
+        }
+        if (file == null) {
+            return ResponseEntity.notFound().build();
+        }
+
+        String etag = file.getEtag();
+        ByteRange byteRange = null;
+        // A range of another version of the file would corrupt the copy being resumed
+        if (range != null && (ifRange == null || ifRange.equals(etag))) {
+            try {
+                byteRange = ByteRange.parse(range, file.getSize());
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.status(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE)
+                        .header(HttpHeaders.CONTENT_RANGE, "bytes */" + file.getSize())
+                        .build();
+            }
+        }
+        long offset = byteRange == null ? 0 : byteRange.getStart();
+        long length = byteRange == null ? file.getSize() : byteRange.getLength();
+
+        StreamingResponseBody body = out -> {
+            try (InputStream in = artifacts.open(file, offset, length)) {
+                byte[] buffer = new byte[Constants.ARTIFACT_DOWNLOAD_BUFFER_SIZE];
+                int read;
+                while ((read = in.read(buffer)) >= 0) {
+                    out.write(buffer, 0, read);
+                }
+            } catch (IOException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new IOException("Failed to read artifact " + path + ": "
+                        + e.getMessage(), e);
+            }
+        };
+
+        String fileName = path.substring(path.lastIndexOf('/') + 1);
+        ResponseEntity.BodyBuilder response = ResponseEntity
+                .status(byteRange == null ? HttpStatus.OK : HttpStatus.PARTIAL_CONTENT)
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .contentLength(length)
+                .header(HttpHeaders.ACCEPT_RANGES, "bytes")
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        ContentDisposition.attachment().filename(fileName).build().toString());
+        if (etag != null) {
+            response.eTag(etag);
+        }
+        if (byteRange != null) {
+            response.header(HttpHeaders.CONTENT_RANGE, byteRange.toContentRange());
+        }
+        return response.body(body);
+    }
+
+    /**
+     * Collects the artifacts of expired runs and the artifact files nothing references.
+     *
+     * @param dryRun true to only report what would be removed, which is the default
+     * @return a JSON report of what was removed, or would be in a dry run, or a conflict if a
+     *         collection is already running
+     */
+    @PostMapping(value = "/artifacts/gc", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<String> collectArtifacts(
+            @RequestParam(value = "dryRun", defaultValue = "true") boolean dryRun) {
+        ArtifactsGarbageCollector.Report report;
+        try {
+            report = getCollector().collect(dryRun);
+        } catch (Exception e) {
+            System.err.println("Failed to collect artifacts: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_GATEWAY)
+                    .body("Failed to collect artifacts: " + e.getMessage());
+        }
+        if (report == null) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body("A collection of artifacts is already running");
+        }
+        JSONObject object = new JSONObject();
+        object.put("dryRun", report.isDryRun());
+        object.put("expiredRuns", new JSONArray(report.getExpiredRuns()));
+        object.put("keptRuns", report.getKeptRuns());
+        object.put("expiredObjects", report.getExpiredObjects());
+        object.put("expiredBytes", report.getExpiredBytes());
+        object.put("referencedBlobs", report.getReferencedBlobs());
+        object.put("collectedBlobs", report.getCollectedBlobs());
+        object.put("collectedBytes", report.getCollectedBytes());
+        object.put("collectedCaches", report.getCollectedCaches());
+        object.put("collectedCacheBytes", report.getCollectedCacheBytes());
+        return ResponseEntity.ok(object.toString());
+    }
+
+    private static String repoOrLocal(String repo) {
+        return repo != null ? repo : Constants.LOCAL_REPO;
+    }
+
+    /**
+     * Creates the reader on first use, so the server starts even if MinIO is not reachable yet.
+     *
+     * @return the artifacts reader
+     */
+    private synchronized ArtifactsReader getReader() {
+        if (reader == null) {
+            reader = new ArtifactsReader();
+        }
+        return reader;
+    }
+
+    /**
+     * Creates the collector on first use, so the server starts even if MinIO or the database
+     * are not reachable yet.
+     *
+     * @return the artifacts garbage collector
+     */
+    private synchronized ArtifactsGarbageCollector getCollector() {
+        if (collector == null) {
+            collector = new ArtifactsGarbageCollector(PipelineRunsDaoFactory.getInstance());
+        }
+        return collector;
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.cliserver.controller;
+
+import com.example.cliserver.backend.database.mongoDB.PipelineRunsDaoFactory;
+import com.example.cliserver.backend.metrics.PipelineMetricsCollector;
+import com.example.cliserver.backend.metrics.PrometheusTextFormat;
+import com.example.cliserver.backend.metrics.RabbitMqQueueStatsSource;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Serves the server side pipeline metrics in the Prometheus text format, so that the number
+ * of workers can be scaled on queue depth and age.
+ */
+@RestController
+public class MetricsController {
+    private PipelineMetricsCollector collector;
+
+    /**
+     * Returns the current pipeline metrics.
+     *
+     * @return the metrics in the Prometheus text format
+     */
+    @GetMapping("/metrics")
+    public ResponseEntity<String> metrics() {
+        return ResponseEntity.ok()
+                .header("Content-Type", PrometheusTextFormat.CONTENT_TYPE)
+                .body(getCollector().collect(System.currentTimeMillis()));
+    }
+
+    /**
+     * Creates the collector on first use, so the server starts even if the broker or the
+     * database are not reachable yet.
+     *
+     * @return the metrics collector
+     */
+    private synchronized PipelineMetricsCollector getCollector() {
+        if (collector == null) {
+            collector = new PipelineMetricsCollector(new RabbitMqQueueStatsSource(),
+                    PipelineRunsDaoFactory.getInstance());
+        }
+        return collector;
+    }
+}
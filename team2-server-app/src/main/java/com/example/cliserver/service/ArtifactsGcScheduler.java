@@ -0,0 +1,73 @@
+package com.example.cliserver.service;
+
+import com.example.cliserver.backend.database.artifactsDB.ArtifactsGarbageCollector;
+import com.example.cliserver.backend.database.mongoDB.PipelineRunsDaoFactory;
+import com.example.cliserver.backend.utils.Constants;
+import com.example.cliserver.backend.utils.YamlConfigLoader;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.springframework.stereotype.Component;
+
+/**
+ * Collects expired artifacts every {@code artifacts.gc.interval-hours} hours, on one background
+ * thread. No collection is scheduled if the interval is 0.
+ */
+@Component
+public class ArtifactsGcScheduler {
+    private ScheduledExecutorService executor;
+    private ArtifactsGarbageCollector collector;
+
+    /**
+     * Schedules the collections, the first one interval after the server starts.
+     */
+    @PostConstruct
+    public void start() {
+        int intervalHours = Constants.DEFAULT_ARTIFACT_GC_INTERVAL_HOURS;
+        try {
+            String configured = YamlConfigLoader.getConfigValue("artifacts", "gc",
+                    "interval-hours");
+            if (configured != null) {
+                intervalHours = Integer.parseInt(configured);
+            }
+        } catch (RuntimeException e) {
+            System.err.println("Using the default artifact collection interval: "
+                    + e.getMessage());
+        }
+        if (intervalHours <= 0) {
+            return;
+        }
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "artifacts-gc");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(this::collect, intervalHours, intervalHours,
+                TimeUnit.HOURS);
+    }
+
+    /**
+     * Stops the scheduled collections, interrupting one that is running.
+     */
+    @PreDestroy
+    public void stop() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    private void collect() {
+        try {
+            // Created on first use, so the server starts even if the database is not reachable
+            if (collector == null) {
+                collector = new ArtifactsGarbageCollector(PipelineRunsDaoFactory.getInstance());
+            }
+            collector.collect(false);
+        } catch (Exception e) {
+            // A failed collection must not cancel the ones scheduled after it
+            System.err.println("Scheduled artifact collection failed: " + e.getMessage());
+        }
+    }
+}
@@ -4,9 +4,14 @@ import com.example.cliserver.backend.commands.*;
 import com.example.cliserver.backend.commands.runCommand.RunCommand;
 import com.example.cliserver.backend.database.mongoDB.PipelineRunsDao;
 import com.example.cliserver.backend.database.mongoDB.PipelineRunsDaoFactory;
+import com.example.cliserver.backend.messaging.PipelineEventSubscriber;
+import com.example.cliserver.backend.messaging.PipelinePublisher;
 import com.example.cliserver.backend.model.PipelineRequestParameters;
 import com.example.cliserver.backend.utils.Constants;
 import org.json.JSONObject;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
 
 /**
  * Default implementation of the PipelineService interface.
@@ -38,6 +43,15 @@ public class DefaultPipelineService implements PipelineService {
                 commit);
     }
 
+    @Override
+    public String validateAllConfigurations(PipelineRequestParameters params) {
+        String repo = params.getRepo();
+        String branch = params.getBranch();
+        String commit = params.getCommit();
+        CheckCommand checkCommand = new CheckCommand();
+        return checkCommand.validateAll(repo, branch, commit);
+    }
+
     @Override
     public String runPipelineLocally(PipelineRequestParameters params) {
         String filename = params.getFilename();
@@ -101,4 +115,28 @@ public class DefaultPipelineService implements PipelineService {
             params.getRepo(), branch, commit, filePath, runNumber
         );
     }
+
+    @Override
+    public void followPipelineRun(PipelineRequestParameters params, SseEmitter emitter)
+            throws IOException {
+        FollowCommand followCommand =
+                new FollowCommand(pipelineRunsDao, PipelineEventSubscriber.getInstance());
+        followCommand.follow(
+                params.getRepo(),
+                params.getPipelineName(),
+                Integer.parseInt(params.getRunNumber()),
+                emitter
+        );
+    }
+
+    @Override
+    public String cancelPipelineRun(PipelineRequestParameters params) {
+        CancelCommand cancelCommand =
+                new CancelCommand(pipelineRunsDao, new PipelinePublisher(pipelineRunsDao));
+        return cancelCommand.cancel(
+                params.getRepo(),
+                params.getPipelineName(),
+                Integer.parseInt(params.getRunNumber())
+        );
+    }
 }
\ No newline at end of file
@@ -2,6 +2,7 @@ package com.example.cliserver.service;
 
 import com.example.cliserver.backend.model.PipelineRequestParameters;
 import org.json.JSONObject;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.io.IOException;
 
@@ -17,6 +18,14 @@ public interface PipelineService {
      */
     String validateConfiguration(PipelineRequestParameters params) throws IOException;
 
+    /**
+     * Validates every pipeline configuration file in the pipelines directory in one pass.
+     *
+     * @param params Request parameters
+     * @return The validation result of every file, ordered by file name
+     */
+    String validateAllConfigurations(PipelineRequestParameters params);
+
     /**
      * Runs a pipeline locally.
      *
@@ -57,4 +66,22 @@ public interface PipelineService {
      */
     String printPipelineStatus(PipelineRequestParameters params);
 
+    /**
+     * Streams the progress events of a running pipeline to the given emitter until the run
+     * finishes.
+     *
+     * @param params  Request parameters
+     * @param emitter The SSE emitter of the client following the run
+     * @throws IOException if the events could not be streamed
+     */
+    void followPipelineRun(PipelineRequestParameters params, SseEmitter emitter)
+            throws IOException;
+
+    /**
+     * Cancels a queued or running pipeline run.
+     *
+     * @param params Request parameters
+     * @return A message describing the outcome of the cancellation
+     */
+    String cancelPipelineRun(PipelineRequestParameters params);
 }
\ No newline at end of file
@@ -76,6 +76,19 @@ public class CommandLineHandlerTest {
         }
     }
 
+    @Test
+    void testCheckAllOption() throws Exception {
+        String[] args = {"check", "--all"};
+        SseEmitter emitter = new SseEmitter();
+        CommandLineHandler handler = new CommandLineHandler(args, emitter);
+        injectDummyPipelineService(handler);
+        try (MockedStatic<SseController> sseMock = Mockito.mockStatic(SseController.class)) {
+            handler.run();
+            sseMock.verify(() -> SseController.sendEventAndComplete(emitter, "Validated All"),
+                    Mockito.times(1));
+        }
+    }
+
     @Test
     void testRunOption() throws Exception {
         String[] args = {"run", "-f", "pipeline.yaml"};
@@ -211,6 +224,11 @@ public class CommandLineHandlerTest {
             return "Validated";
         }
 
+        @Override
+        public String validateAllConfigurations(PipelineRequestParameters params) {
+            return "Validated All";
+        }
+
         @Override
         public String runPipelineLocally(PipelineRequestParameters params) {
             return "Run Locally";
@@ -235,6 +253,15 @@ public class CommandLineHandlerTest {
         public JSONObject generateReport(PipelineRequestParameters params) {
             return new JSONObject("Report Generated");
         }
+
+        @Override
+        public void followPipelineRun(PipelineRequestParameters params, SseEmitter emitter) {
+        }
+
+        @Override
+        public String cancelPipelineRun(PipelineRequestParameters params) {
+            return "Cancelled";
+        }
     }
 
     private void injectDummyPipelineService(CommandLineHandler handler) throws Exception {
@@ -0,0 +1,118 @@
+package com.example.cliserver.backend.commands;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.example.cliserver.backend.database.mongoDB.PipelineRunsDao;
+import com.example.cliserver.backend.messaging.PipelinePublisher;
+import com.example.cliserver.backend.model.PipelineEvent;
+import com.example.cliserver.backend.model.Status;
+import com.example.cliserver.backend.utils.Constants;
+import com.mongodb.client.FindIterable;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+public class CancelCommandTest {
+
+    @Mock
+    private PipelineRunsDao pipelineRunsDao;
+
+    @Mock
+    private PipelinePublisher publisher;
+
+    @Mock
+    private FindIterable<Document> findIterable;
+
+    private CancelCommand cancelCommand;
+
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+        cancelCommand = new CancelCommand(pipelineRunsDao, publisher);
+        when(pipelineRunsDao.getTimeFilteredPipelineRunReports(
+                Constants.LOCAL_REPO, "test-pipeline", 3)).thenReturn(findIterable);
+    }
+
+    private Document createRun(Status status) {
+        return new Document(Constants.PIPELINE_NAME_FIELD, "test-pipeline")
+                .append(Constants.RUN_NUMBER_FIELD, 3)
+                .append(Constants.PIPELINE_STATUS_FIELD, status.toString());
+    }
+
+    @Test
+    public void testCancelMissingRun() {
+        when(findIterable.first()).thenReturn(null);
+
+        String result = cancelCommand.cancel(null, "test-pipeline", 3);
+
+        assertEquals("No pipeline run found for test-pipeline run: 3", result);
+    }
+
+    @Test
+    public void testCancelFinishedRun() {
+        when(findIterable.first()).thenReturn(createRun(Status.SUCCESS));
+
+        String result = cancelCommand.cancel(null, "test-pipeline", 3);
+
+        assertTrue(result.contains("has already finished"));
+        verify(pipelineRunsDao, never()).cancelPendingPipelineRun(
+                anyString(), anyString(), anyInt(), anyLong());
+        verify(publisher, never()).publishCancelRequest(anyString(), anyString(), anyInt());
+    }
+
+    @Test
+    public void testCancelQueuedRunIsTombstoned() {
+        when(findIterable.first()).thenReturn(createRun(Status.PENDING));
+        when(pipelineRunsDao.cancelPendingPipelineRun(eq(Constants.LOCAL_REPO),
+                eq("test-pipeline"), eq(3), anyLong())).thenReturn(true);
+
+        String result = cancelCommand.cancel(null, "test-pipeline", 3);
+
+        assertEquals("Canceled queued test-pipeline run: 3", result);
+        verify(publisher, never()).publishCancelRequest(anyString(), anyString(), anyInt());
+        // Followers of the run are told it is over, since no worker will execute it
+        ArgumentCaptor<PipelineEvent> event = ArgumentCaptor.forClass(PipelineEvent.class);
+        verify(publisher).publishPipelineEvent(event.capture());
+        assertEquals(PipelineEvent.Type.PIPELINE_FINISHED, event.getValue().getType());
+        assertEquals(Status.CANCELED, event.getValue().getStatus());
+        assertEquals(Constants.LOCAL_REPO, event.getValue().getRepo());
+        assertEquals(3, event.getValue().getRunNumber());
+    }
+
+    @Test
+    public void testCancelQueuedRunThatJustStartedSignalsWorkers() {
+        when(findIterable.first()).thenReturn(createRun(Status.PENDING));
+        when(pipelineRunsDao.cancelPendingPipelineRun(eq(Constants.LOCAL_REPO),
+                eq("test-pipeline"), eq(3), anyLong())).thenReturn(false);
+        when(publisher.publishCancelRequest(Constants.LOCAL_REPO, "test-pipeline", 3))
+                .thenReturn("Cancellation requested for test-pipeline run: 3");
+
+        String result = cancelCommand.cancel(null, "test-pipeline", 3);
+
+        assertEquals("Cancellation requested for test-pipeline run: 3", result);
+    }
+
+    @Test
+    public void testCancelRunningRunSignalsWorkers() {
+        when(findIterable.first()).thenReturn(createRun(Status.RUNNING));
+        when(publisher.publishCancelRequest(Constants.LOCAL_REPO, "test-pipeline", 3))
+                .thenReturn("Cancellation requested for test-pipeline run: 3");
+
+        String result = cancelCommand.cancel(null, "test-pipeline", 3);
+
+        assertEquals("Cancellation requested for test-pipeline run: 3", result);
+        verify(pipelineRunsDao, never()).cancelPendingPipelineRun(
+                anyString(), anyString(), anyInt(), anyLong());
+    }
+}
@@ -6,7 +6,10 @@ import com.example.cliserver.backend.utils.ConfigurationValidator;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.io.IOException;
 import java.lang.reflect.Field;
+import java.util.Map;
+import java.util.TreeMap;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.Mockito.*;
@@ -60,4 +63,25 @@ public class CheckCommandTest {
         assertEquals(errorMessage, result);
         verify(mockValidator, times(1)).validateYaml(filename, repo, branch, commit);
     }
+
+    @Test
+    public void testValidateAll() throws Exception {
+        Map<String, ValidationResult> results = new TreeMap<>();
+        results.put("a.yaml", new ValidationResult(true, (PipelineConfig) null));
+        results.put("b.yaml", new ValidationResult(false, "b.yaml: syntax error missing key: jobs"));
+        when(mockValidator.validateAll(null, null, null)).thenReturn(results);
+
+        String result = checkCommand.validateAll(null, null, null);
+        assertEquals("The file .pipelines/a.yaml file is valid.\n"
+                + "b.yaml: syntax error missing key: jobs\n"
+                + "Validated 2 pipeline files: 1 valid, 1 invalid.", result);
+    }
+
+    @Test
+    public void testValidateAll_FetchFails() throws Exception {
+        when(mockValidator.validateAll("repo", null, null))
+                .thenThrow(new IOException("Error fetching remote repo: repo"));
+
+        assertEquals("Error fetching remote repo: repo", checkCommand.validateAll("repo", null, null));
+    }
 }
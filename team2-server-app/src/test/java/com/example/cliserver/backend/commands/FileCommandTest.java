@@ -1,7 +1,7 @@
 package com.example.cliserver.backend.commands;
 
 import com.example.cliserver.backend.utils.Constants;
-import com.example.cliserver.backend.utils.GitUtils;
+import com.example.cliserver.backend.utils.GitPipelineSource;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -10,8 +10,11 @@ import org.mockito.MockedStatic;
 import org.mockito.Mockito;
 
 import java.io.File;
+import java.io.IOException;
 import java.lang.reflect.Field;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
@@ -65,29 +68,25 @@ public class FileCommandTest {
     }
 
     @Test
-    public void testCheckFileRemoteExists() throws Exception {
+    public void testCheckFileRemoteExists() {
         String filename = "remote.yaml";
         String repo = "http://example.com/repo.git";
         String branch = "master";
         String commit = "commitHash";
+        GitPipelineSource source = new GitPipelineSource("abc123",
+                Map.of(filename, "pipeline:".getBytes(StandardCharsets.UTF_8)));
 
-        try (MockedStatic<GitUtils> gitUtilsMock = Mockito.mockStatic(GitUtils.class)) {
-            gitUtilsMock.when(() -> GitUtils.getRepoDirectoryFromURL(repo)).thenReturn("");
-            gitUtilsMock.when(() -> GitUtils.cloneRemoteRepo("", repo, branch, commit)).thenAnswer(invocation -> null);
-            gitUtilsMock.when(() -> GitUtils.cleanUpRemoteDirectory(repo)).thenAnswer(invocation -> null);
-
-            File file = new File(tempDir.toFile(), filename);
-            boolean created = file.createNewFile();
-            if (!created) {
-                throw new Exception("Failed to create test file: " + file.getAbsolutePath());
-            }
+        try (MockedStatic<GitPipelineSource> sourceMock =
+                     Mockito.mockStatic(GitPipelineSource.class)) {
+            sourceMock.when(() -> GitPipelineSource.load(repo, branch, commit))
+                    .thenReturn(source);
 
             String result = FileCommand.checkFile(filename, repo, branch, commit);
             assertTrue(result.contains("File present:"), "Expected a file present message for remote case");
-            assertTrue(result.contains(file.getAbsolutePath()), "Expected the message to contain the file absolute path");
+            assertTrue(result.contains(filename), "Expected the message to contain the file name");
+            assertTrue(result.contains("abc123"), "Expected the message to contain the commit");
 
-            gitUtilsMock.verify(() -> GitUtils.cloneRemoteRepo("", repo, branch, commit), times(1));
-            gitUtilsMock.verify(() -> GitUtils.cleanUpRemoteDirectory(repo), times(1));
+            sourceMock.verify(() -> GitPipelineSource.load(repo, branch, commit), times(1));
         }
     }
 
@@ -98,21 +97,29 @@ public class FileCommandTest {
         String branch = "master";
         String commit = "commitHash";
 
-        try (MockedStatic<GitUtils> gitUtilsMock = Mockito.mockStatic(GitUtils.class)) {
-            gitUtilsMock.when(() -> GitUtils.getRepoDirectoryFromURL(repo)).thenReturn("");
-            gitUtilsMock.when(() -> GitUtils.cloneRemoteRepo("", repo, branch, commit)).thenAnswer(invocation -> null);
-            gitUtilsMock.when(() -> GitUtils.cleanUpRemoteDirectory(repo)).thenAnswer(invocation -> null);
-
-            File file = new File(tempDir.toFile(), filename);
-            if (file.exists()) {
-                file.delete();
-            }
+        try (MockedStatic<GitPipelineSource> sourceMock =
+                     Mockito.mockStatic(GitPipelineSource.class)) {
+            sourceMock.when(() -> GitPipelineSource.load(repo, branch, commit))
+                    .thenReturn(new GitPipelineSource("abc123", Map.of()));
 
             String result = FileCommand.checkFile(filename, repo, branch, commit);
             assertEquals("\nFile not found in .pipelines directory.", result);
 
-            gitUtilsMock.verify(() -> GitUtils.cloneRemoteRepo("", repo, branch, commit), times(1));
-            gitUtilsMock.verify(() -> GitUtils.cleanUpRemoteDirectory(repo), times(1));
+            sourceMock.verify(() -> GitPipelineSource.load(repo, branch, commit), times(1));
+        }
+    }
+
+    @Test
+    public void testCheckFileRemoteInvalidBranch() {
+        String repo = "http://example.com/repo.git";
+
+        try (MockedStatic<GitPipelineSource> sourceMock =
+                     Mockito.mockStatic(GitPipelineSource.class)) {
+            sourceMock.when(() -> GitPipelineSource.load(repo, "missing", null))
+                    .thenThrow(new IOException("Invalid branch name: missing"));
+
+            String result = FileCommand.checkFile("remote.yaml", repo, "missing", null);
+            assertTrue(result.contains("Invalid branch name: missing"));
         }
     }
 }
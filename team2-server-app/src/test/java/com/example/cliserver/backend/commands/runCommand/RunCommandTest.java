@@ -9,6 +9,9 @@ import com.example.cliserver.backend.messaging.PipelinePublisher;
 import com.example.cliserver.backend.model.*;
 import com.example.cliserver.backend.utils.ConfigurationValidator;
 import com.example.cliserver.backend.utils.Constants;
+import com.mongodb.client.FindIterable;
+import com.mongodb.client.MongoCursor;
+import org.bson.Document;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
@@ -338,6 +341,86 @@ public class RunCommandTest {
         return pipeline;
     }
 
+    @Test
+    public void testSupersedeOlderRuns() {
+        PipelineRun newRun = new PipelineRun();
+        newRun.setRepo("repo");
+        newRun.setPipelineName("test-pipeline");
+        newRun.setRunNumber(3);
+        newRun.setConcurrencyGroup("repo-main");
+        newRun.setStartTime(2000L);
+
+        Document pendingRun = new Document(Constants.REPO_FIELD, "repo")
+            .append(Constants.PIPELINE_NAME_FIELD, "test-pipeline")
+            .append(Constants.RUN_NUMBER_FIELD, 1)
+            .append(Constants.START_TIME_FIELD, 1000L)
+            .append(Constants.PIPELINE_STATUS_FIELD, Status.PENDING.toString());
+        // Runs of the same pipeline are ordered by run number, whatever their start times
+        Document runningRun = new Document(Constants.REPO_FIELD, "repo")
+            .append(Constants.PIPELINE_NAME_FIELD, "test-pipeline")
+            .append(Constants.RUN_NUMBER_FIELD, 2)
+            .append(Constants.START_TIME_FIELD, 2600L)
+            .append(Constants.PIPELINE_STATUS_FIELD, Status.RUNNING.toString());
+        Document newerRun = new Document(Constants.REPO_FIELD, "repo")
+            .append(Constants.PIPELINE_NAME_FIELD, "test-pipeline")
+            .append(Constants.RUN_NUMBER_FIELD, 4)
+            .append(Constants.START_TIME_FIELD, 1800L)
+            .append(Constants.PIPELINE_STATUS_FIELD, Status.PENDING.toString());
+
+        FindIterable<Document> runs =
+            mock(FindIterable.class);
+        MongoCursor<Document> cursor =
+            mock(MongoCursor.class);
+        when(pipelineRunsDao.findUnfinishedRunsInConcurrencyGroup("repo-main")).thenReturn(runs);
+        when(runs.iterator()).thenReturn(cursor);
+        when(cursor.hasNext()).thenReturn(true, true, true, false);
+        when(cursor.next()).thenReturn(pendingRun, runningRun, newerRun);
+        when(pipelineRunsDao.cancelPendingPipelineRun(eq("repo"), eq("test-pipeline"), eq(1),
+            anyLong())).thenReturn(true);
+
+        PipelinePublisher publisher = mock(PipelinePublisher.class);
+        int superseded = runCommand.supersedeOlderRuns(newRun, true, publisher);
+
+        assertEquals(2, superseded);
+        verify(publisher).publishCancelRequest("repo", "test-pipeline", 2);
+        verify(pipelineRunsDao, never()).cancelPendingPipelineRun(eq("repo"),
+            eq("test-pipeline"), eq(4), anyLong());
+        verify(publisher).publishPipelineEvent(argThat(event ->
+            event.getRunNumber() == 1 && event.getStatus() == Status.CANCELED
+                && event.getType() == PipelineEvent.Type.PIPELINE_FINISHED));
+    }
+
+    @Test
+    public void testSupersedeOlderRunsKeepsRunningRunsByDefault() {
+        PipelineRun newRun = new PipelineRun();
+        newRun.setRepo("repo");
+        newRun.setPipelineName("test-pipeline");
+        newRun.setRunNumber(3);
+        newRun.setConcurrencyGroup("repo-main");
+        newRun.setStartTime(2000L);
+
+        Document runningRun = new Document(Constants.REPO_FIELD, "repo")
+            .append(Constants.PIPELINE_NAME_FIELD, "test-pipeline")
+            .append(Constants.RUN_NUMBER_FIELD, 2)
+            .append(Constants.START_TIME_FIELD, 1500L)
+            .append(Constants.PIPELINE_STATUS_FIELD, Status.RUNNING.toString());
+
+        FindIterable<Document> runs =
+            mock(FindIterable.class);
+        MongoCursor<Document> cursor =
+            mock(MongoCursor.class);
+        when(pipelineRunsDao.findUnfinishedRunsInConcurrencyGroup("repo-main")).thenReturn(runs);
+        when(runs.iterator()).thenReturn(cursor);
+        when(cursor.hasNext()).thenReturn(true, false);
+        when(cursor.next()).thenReturn(runningRun);
+
+        PipelinePublisher publisher = mock(PipelinePublisher.class);
+        int superseded = runCommand.supersedeOlderRuns(newRun, false, publisher);
+
+        assertEquals(0, superseded);
+        verify(publisher, never()).publishCancelRequest(anyString(), anyString(), anyInt());
+    }
+
     private String createValidYaml() {
         return "pipeline:\n" +
             "  name: test-pipeline\n" +
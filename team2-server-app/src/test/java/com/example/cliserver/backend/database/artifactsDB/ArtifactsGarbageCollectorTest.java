@@ -0,0 +1,177 @@
+package com.example.cliserver.backend.database.artifactsDB;
+
+import com.example.cliserver.backend.database.mongoDB.PipelineRunsDao;
+import com.mongodb.client.FindIterable;
+import io.minio.GetObjectArgs;
+import io.minio.GetObjectResponse;
+import io.minio.MinioClient;
+import io.minio.RemoveObjectsArgs;
+import io.minio.Result;
+import io.minio.StatObjectResponse;
+import io.minio.messages.Item;
+import okhttp3.Headers;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class ArtifactsGarbageCollectorTest {
+    private static final String PREFIX = "github.com_org_app/ci/";
+    private static final long CACHE_MAX_AGE = TimeUnit.DAYS.toMillis(7);
+
+    private MinioClient mockMinio;
+    private PipelineRunsDao mockDao;
+    private ArtifactsGarbageCollector collector;
+    private final Map<String, String> manifests = new HashMap<>();
+    private List<Result<Item>> objects;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() throws Exception {
+        mockMinio = mock(MinioClient.class);
+        mockDao = mock(PipelineRunsDao.class);
+        // Keep the newest run, and the newest successful one
+        collector = new ArtifactsGarbageCollector(mockMinio, "artifacts", mockDao,
+                (repo, pipeline) -> new RetentionPolicy(1, 0, true), 2, 1000, CACHE_MAX_AGE);
+
+        manifests.put(PREFIX + "1/build/manifest.json", manifest("old"));
+        manifests.put(PREFIX + "2/build/manifest.json", manifest("shared"));
+        manifests.put(PREFIX + "3/build/manifest.json", manifest("shared"));
+        objects = List.of(
+                new Result<>(item(".blobs/sha256/old", 100, 3)),
+                new Result<>(item(".blobs/sha256/shared", 200, 3)),
+                new Result<>(item(".blobs/sha256/fresh", 300, 0)),
+                new Result<>(item(".caches/build/deps.tar.gz", 400, 30)),
+                new Result<>(item(".caches/build/tools.tar.gz", 500, 1)),
+                new Result<>(item(PREFIX + "1/build/manifest.json", 10, 3)),
+                new Result<>(item(PREFIX + "2/build/manifest.json", 10, 2)),
+                new Result<>(item(PREFIX + "2/package/artifacts.tar.gz", 50, 2)),
+                new Result<>(item(PREFIX + "3/build/manifest.json", 10, 1)));
+        when(mockMinio.listObjects(any())).thenAnswer(invocation -> objects);
+        when(mockMinio.getObject(any())).thenAnswer(invocation -> {
+            String name = ((GetObjectArgs) invocation.getArgument(0)).object();
+            return new GetObjectResponse(Headers.of(), "artifacts", null, name,
+                    new ByteArrayInputStream(manifests.get(name)
+                            .getBytes(StandardCharsets.UTF_8)));
+        });
+        when(mockMinio.removeObjects(any())).thenReturn(List.of());
+        StatObjectResponse stat = mock(StatObjectResponse.class);
+        when(stat.lastModified()).thenReturn(ZonedDateTime.now().minusDays(3));
+        when(mockMinio.statObject(any())).thenReturn(stat);
+
+        FindIterable<Document> summaries = mock(FindIterable.class);
+        when(summaries.into(any())).thenAnswer(invocation -> {
+            Collection<Document> target = invocation.getArgument(0);
+            target.add(summary(1, "Success"));
+            target.add(summary(2, "Failed"));
+            target.add(summary(3, "Failed"));
+            return target;
+        });
+        when(mockDao.findRunSummaries()).thenReturn(summaries);
+    }
+
+    private static String manifest(String digest) {
+        return "{\"version\":1,\"files\":[{\"path\":\"target/app.jar\",\"digest\":\""
+                + digest + "\",\"size\":3}]}";
+    }
+
+    private static Item item(String objectName, long size, int daysOld) {
+        Item item = mock(Item.class);
+        when(item.objectName()).thenReturn(objectName);
+        when(item.size()).thenReturn(size);
+        when(item.lastModified()).thenReturn(ZonedDateTime.now().minusDays(daysOld));
+        return item;
+    }
+
+    private static Document summary(int runNumber, String status) {
+        return new Document("repo", "https://github.com/org/app.git")
+                .append("pipelineName", "ci")
+                .append("runNumber", runNumber)
+                .append("pipelineStatus", status)
+                .append("completionTime", 0L);
+    }
+
+    @Test
+    void testCollect_dryRunReportsWithoutRemoving() throws Exception {
+        ArtifactsGarbageCollector.Report report = collector.collect(true);
+
+        assertTrue(report.isDryRun());
+        assertEquals(List.of("github.com_org_app/ci/2"), report.getExpiredRuns());
+        assertEquals(2, report.getKeptRuns());
+        assertEquals(2, report.getExpiredObjects());
+        assertEquals(60, report.getExpiredBytes());
+        assertEquals(2, report.getReferencedBlobs());
+        // The fresh file is within the grace period
+        assertEquals(0, report.getCollectedBlobs());
+        assertEquals(1, report.getCollectedCaches());
+        assertEquals(400, report.getCollectedCacheBytes());
+        verify(mockMinio, never()).removeObjects(any());
+    }
+
+    @Test
+    void testCollect_removesExpiredRunsAndUnreferencedFilesInBatches() throws Exception {
+        manifests.put(PREFIX + "1/build/manifest.json", manifest("shared"));
+
+        ArtifactsGarbageCollector.Report report = collector.collect(false);
+
+        assertFalse(report.isDryRun());
+        assertEquals(1, report.getCollectedBlobs());
+        assertEquals(100, report.getCollectedBytes());
+        // One batch for the expired run, one for the old cache, one for the unreferenced file
+        verify(mockMinio, times(3)).removeObjects(any(RemoveObjectsArgs.class));
+    }
+
+    @Test
+    void testCollect_keepsFilesReferencedByManifestsWrittenDuringCollection() throws Exception {
+        manifests.put(PREFIX + "1/build/manifest.json", manifest("shared"));
+        List<Result<Item>> listed = objects;
+        List<Result<Item>> relisted = new ArrayList<>(objects);
+        relisted.add(new Result<>(item(PREFIX + "4/build/manifest.json", 10, 0)));
+        manifests.put(PREFIX + "4/build/manifest.json", manifest("old"));
+        when(mockMinio.listObjects(any())).thenReturn(listed, relisted);
+
+        ArtifactsGarbageCollector.Report report = collector.collect(false);
+
+        assertEquals(0, report.getCollectedBlobs());
+        verify(mockMinio, times(2)).removeObjects(any(RemoveObjectsArgs.class));
+    }
+
+    @Test
+    void testCollect_keepsFilesStoredAgainOrReferencedWhileEarlierBatchesAreRemoved()
+            throws Exception {
+        collector = new ArtifactsGarbageCollector(mockMinio, "artifacts", mockDao,
+                (repo, pipeline) -> new RetentionPolicy(1, 0, true), 1, 1000, CACHE_MAX_AGE);
+        manifests.put(PREFIX + "1/build/manifest.json", manifest("shared"));
+        List<Result<Item>> listed = new ArrayList<>(objects);
+        listed.add(new Result<>(item(".blobs/sha256/other", 100, 3)));
+        // A worker stores "old" again after the bucket was listed, and references "other" from
+        // a manifest it writes while "old" is checked
+        StatObjectResponse stored = mock(StatObjectResponse.class);
+        when(stored.lastModified()).thenReturn(ZonedDateTime.now());
+        when(mockMinio.statObject(any())).thenReturn(stored);
+        List<Result<Item>> relisted = new ArrayList<>(listed);
+        relisted.add(new Result<>(item(PREFIX + "4/build/manifest.json", 10, 0)));
+        manifests.put(PREFIX + "4/build/manifest.json", manifest("other"));
+        when(mockMinio.listObjects(any())).thenReturn(listed, listed, relisted);
+
+        ArtifactsGarbageCollector.Report report = collector.collect(false);
+
+        assertEquals(0, report.getCollectedBlobs());
+        // Only the objects of the expired run and the old cache are removed, one at a time
+        verify(mockMinio, times(3)).removeObjects(any(RemoveObjectsArgs.class));
+        verify(mockMinio, times(1)).statObject(any());
+    }
+}
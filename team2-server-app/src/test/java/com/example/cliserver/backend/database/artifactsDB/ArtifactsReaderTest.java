@@ -0,0 +1,150 @@
+package com.example.cliserver.backend.database.artifactsDB;
+
+import com.example.cliserver.backend.database.artifactsDB.ArtifactsReader.ArtifactFile;
+import io.minio.GetObjectArgs;
+import io.minio.GetObjectResponse;
+import io.minio.ListObjectsArgs;
+import io.minio.MinioClient;
+import io.minio.Result;
+import io.minio.StatObjectArgs;
+import io.minio.StatObjectResponse;
+import io.minio.errors.ErrorResponseException;
+import io.minio.messages.ErrorResponse;
+import io.minio.messages.Item;
+import okhttp3.Headers;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class ArtifactsReaderTest {
+    private static final String MANIFEST = "{\"version\":1,\"files\":["
+            + "{\"path\":\"target/app.jar\",\"digest\":\"ab12\",\"size\":3}]}";
+
+    private MinioClient mockMinio;
+    private ArtifactsReader reader;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        mockMinio = mock(MinioClient.class);
+        reader = new ArtifactsReader(mockMinio, "artifacts");
+        // The items are stubbed before listObjects is, since stubbings cannot be nested
+        Item manifest = item("github.com_org_app/ci/7/build/manifest.json", 90);
+        Item archive = item("github.com_org_app/ci/7/package/artifacts.tar.gz", 512);
+        when(mockMinio.listObjects(any())).thenReturn(List.of(
+                new Result<>(manifest), new Result<>(archive)));
+        when(mockMinio.getObject(any())).thenAnswer(invocation ->
+                new GetObjectResponse(Headers.of(), "artifacts", null,
+                        "github.com_org_app/ci/7/build/manifest.json",
+                        new ByteArrayInputStream(MANIFEST.getBytes(StandardCharsets.UTF_8))));
+        when(mockMinio.statObject(any())).thenAnswer(invocation -> {
+            StatObjectArgs args = invocation.getArgument(0);
+            throw noSuchKey(args.object());
+        });
+    }
+
+    private static ErrorResponseException noSuchKey(String objectName) {
+        return new ErrorResponseException(new ErrorResponse("NoSuchKey", "Object does not exist",
+                "artifacts", objectName, null, null, null), null, null);
+    }
+
+    private static Item item(String objectName, long size) {
+        Item item = mock(Item.class);
+        when(item.objectName()).thenReturn(objectName);
+        when(item.size()).thenReturn(size);
+        return item;
+    }
+
+    @Test
+    void testListArtifacts_manifestFilesAndOtherObjects() throws Exception {
+        List<ArtifactFile> files = reader.listArtifacts("https://github.com/org/app.git", "ci", 7,
+                null);
+
+        assertEquals(2, files.size());
+        assertEquals("build", files.get(0).getJob());
+        assertEquals("target/app.jar", files.get(0).getPath());
+        assertEquals(3, files.get(0).getSize());
+        assertEquals("ab12", files.get(0).getDigest());
+        assertEquals(".blobs/sha256/ab12", files.get(0).getObjectName());
+        assertEquals("package", files.get(1).getJob());
+        assertEquals("artifacts.tar.gz", files.get(1).getPath());
+        assertEquals(512, files.get(1).getSize());
+        assertNull(files.get(1).getDigest());
+
+        ArgumentCaptor<ListObjectsArgs> args = ArgumentCaptor.forClass(ListObjectsArgs.class);
+        verify(mockMinio).listObjects(args.capture());
+        assertEquals("github.com_org_app/ci/7/", args.getValue().prefix());
+    }
+
+    @Test
+    void testFindArtifact_missingPath() throws Exception {
+        assertNull(reader.findArtifact("https://github.com/org/app.git", "ci", 7, "build",
+                "target/missing.jar"));
+        assertNull(reader.findArtifact("https://github.com/org/app.git", "ci", 7, "build",
+                "manifest.json"));
+    }
+
+    @Test
+    void testFindArtifact_readsOnlyTheManifestOfTheJob() throws Exception {
+        ArtifactFile file = reader.findArtifact("https://github.com/org/app.git", "ci", 7,
+                "build", "target/app.jar");
+
+        assertNotNull(file);
+        assertEquals("build", file.getJob());
+        assertEquals(3, file.getSize());
+        assertEquals(".blobs/sha256/ab12", file.getObjectName());
+        assertEquals("\"ab12\"", file.getEtag());
+        ArgumentCaptor<GetObjectArgs> args = ArgumentCaptor.forClass(GetObjectArgs.class);
+        verify(mockMinio).getObject(args.capture());
+        assertEquals("github.com_org_app/ci/7/build/manifest.json", args.getValue().object());
+        verify(mockMinio, never()).listObjects(any());
+        verify(mockMinio, never()).statObject(any());
+    }
+
+    @Test
+    void testFindArtifact_objectWithoutManifestIsValidatedByItsEtag() throws Exception {
+        when(mockMinio.getObject(any())).thenAnswer(invocation -> {
+            GetObjectArgs args = invocation.getArgument(0);
+            throw noSuchKey(args.object());
+        });
+        StatObjectResponse stat = mock(StatObjectResponse.class);
+        when(stat.size()).thenReturn(512L);
+        when(stat.object()).thenReturn("github.com_org_app/ci/7/package/artifacts.tar.gz");
+        when(stat.etag()).thenReturn("9f8e");
+        doReturn(stat).when(mockMinio).statObject(any());
+
+        ArtifactFile file = reader.findArtifact("https://github.com/org/app.git", "ci", 7,
+                "package", "artifacts.tar.gz");
+
+        assertNotNull(file);
+        assertEquals(512, file.getSize());
+        assertNull(file.getDigest());
+        assertEquals("github.com_org_app/ci/7/package/artifacts.tar.gz", file.getObjectName());
+        assertEquals("\"9f8e\"", file.getEtag());
+        verify(mockMinio, never()).listObjects(any());
+    }
+
+    @Test
+    void testOpen_readsOnlyTheRequestedRange() throws Exception {
+        ArtifactFile file = new ArtifactFile("build", "target/app.jar", 100, "ab12",
+                ".blobs/sha256/ab12");
+
+        try (InputStream in = reader.open(file, 40, 60)) {
+            assertNotNull(in);
+        }
+
+        ArgumentCaptor<GetObjectArgs> args = ArgumentCaptor.forClass(GetObjectArgs.class);
+        verify(mockMinio).getObject(args.capture());
+        assertEquals(".blobs/sha256/ab12", args.getValue().object());
+        assertEquals(40L, (long) args.getValue().offset());
+        assertEquals(60L, (long) args.getValue().length());
+    }
+}
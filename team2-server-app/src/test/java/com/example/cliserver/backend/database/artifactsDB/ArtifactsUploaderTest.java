@@ -44,11 +44,12 @@ class ArtifactsUploaderTest {
 
         when(mockMinio.bucketExists(any())).thenReturn(true);
 
-        uploader.uploadArtifacts("test-bucket", List.of("single.txt"));
+        uploader.uploadArtifacts("local/pipe/1/build/", List.of("single.txt"));
 
         verify(mockMinio).uploadObject(argThat(args ->
                 args instanceof UploadObjectArgs &&
-                        (args).object().equals("single.txt")
+                        args.bucket().equals(uploader.getBucket()) &&
+                        (args).object().equals("local/pipe/1/build/single.txt")
         ));
     }
 
@@ -65,14 +66,14 @@ class ArtifactsUploaderTest {
 
 
     @Test
-    void testUploadArtifacts_nullBucketName() {
+    void testUploadArtifacts_nullPrefix() {
         List<String> filePaths = Collections.singletonList("test.txt");
         assertThrows(IllegalArgumentException.class, () ->
                 uploader.uploadArtifacts(null, filePaths));
     }
 
     @Test
-    void testUploadArtifacts_emptyBucketName() {
+    void testUploadArtifacts_emptyPrefix() {
         List<String> filePaths = Collections.singletonList("test.txt");
         assertThrows(IllegalArgumentException.class, () ->
                 uploader.uploadArtifacts("", filePaths));
@@ -152,18 +153,40 @@ class ArtifactsUploaderTest {
 
         when(mockMinio.bucketExists(any())).thenReturn(false);
 
-        uploader.uploadArtifacts("new-bucket", List.of("createBucket.txt"));
+        uploader.uploadArtifacts("local/pipe/1/build", List.of("createBucket.txt"));
 
         verify(mockMinio).makeBucket(argThat(args ->
-                args != null && args.bucket().equals("new-bucket")
+                args != null && args.bucket().equals(uploader.getBucket())
         ));
 
         verify(mockMinio).uploadObject(argThat(args ->
                 args instanceof UploadObjectArgs &&
-                        (args).object().equals("createBucket.txt")
+                        (args).object().equals("local/pipe/1/build/createBucket.txt")
         ));
     }
 
+    @Test
+    void testBucketCheckedOnlyOnce() throws Exception {
+        File file = new File(tempDir.toFile(), "twice.txt");
+        assertTrue(file.createNewFile());
+        when(mockMinio.bucketExists(any())).thenReturn(true);
+
+        uploader.uploadArtifacts("local/pipe/1/build/", List.of("twice.txt"));
+        uploader.uploadArtifacts("local/pipe/2/build/", List.of("twice.txt"));
+
+        verify(mockMinio, times(1)).bucketExists(any());
+        verify(mockMinio, times(2)).uploadObject(any());
+    }
+
+    @Test
+    void testObjectPrefix() {
+        assertEquals("github.com_org_repo/build/7/unit_tests/",
+                ArtifactsUploader.objectPrefix("https://github.com/org/repo.git", "build", 7,
+                        "unit tests"));
+        assertEquals("local/_.hidden/1/_/",
+                ArtifactsUploader.objectPrefix("local", ".hidden", 1, null));
+    }
+
     @Test
     void testUploadArtifacts_withInvalidWildcardPath() throws ServerException, InsufficientDataException, ErrorResponseException, IOException, NoSuchAlgorithmException, InvalidKeyException, InvalidResponseException, XmlParserException, InternalException {
         when(mockMinio.bucketExists(any())).thenReturn(true);
@@ -0,0 +1,69 @@
+package com.example.cliserver.backend.database.artifactsDB;
+
+import com.example.cliserver.backend.model.Status;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RetentionPolicyTest {
+    private static final long DAY = 24L * 60 * 60 * 1000;
+    private static final long NOW = 100 * DAY;
+
+    private static RetentionPolicy.Run run(int runNumber, Status status, long finishedAt) {
+        return new RetentionPolicy.Run(runNumber, status, finishedAt);
+    }
+
+    @Test
+    void testSelectExpired_keepsNewestRuns() {
+        RetentionPolicy policy = new RetentionPolicy(2, 0, false);
+
+        Set<Integer> expired = policy.selectExpired(List.of(
+                run(1, Status.FAILED, NOW),
+                run(3, Status.FAILED, NOW),
+                run(2, Status.SUCCESS, NOW)), NOW);
+
+        assertEquals(Set.of(1), expired);
+    }
+
+    @Test
+    void testSelectExpired_expiresRunsOlderThanKeepDays() {
+        RetentionPolicy policy = new RetentionPolicy(0, 7, false);
+
+        Set<Integer> expired = policy.selectExpired(List.of(
+                run(1, Status.SUCCESS, NOW - 8 * DAY),
+                run(2, Status.FAILED, NOW - 6 * DAY)), NOW);
+
+        assertEquals(Set.of(1), expired);
+    }
+
+    @Test
+    void testSelectExpired_keepsLastSuccessfulAndUnfinishedRuns() {
+        RetentionPolicy policy = new RetentionPolicy(1, 0, true);
+
+        Set<Integer> expired = policy.selectExpired(List.of(
+                run(1, Status.SUCCESS, NOW),
+                run(2, Status.SUCCESS, NOW),
+                run(3, Status.FAILED, NOW),
+                run(4, Status.RUNNING, NOW),
+                run(5, Status.CANCELED, NOW)), NOW);
+
+        assertEquals(Set.of(1, 3), expired);
+    }
+
+    @Test
+    void testSelectExpired_noLimitsKeepsEverything() {
+        RetentionPolicy policy = new RetentionPolicy(0, 0, false);
+
+        assertTrue(policy.selectExpired(List.of(
+                run(1, Status.FAILED, 0),
+                run(2, Status.FAILED, 0)), NOW).isEmpty());
+    }
+
+    @Test
+    void testConstructor_negativeLimit() {
+        assertThrows(IllegalArgumentException.class, () -> new RetentionPolicy(-1, 0, true));
+    }
+}
@@ -3,6 +3,7 @@ package com.example.cliserver.backend.database.mongoDB;
 import com.example.cliserver.backend.model.PipelineRun;
 import com.example.cliserver.backend.utils.Constants;
 import com.mongodb.client.*;
+import com.mongodb.client.result.UpdateResult;
 import org.bson.Document;
 import org.bson.conversions.Bson;
 import org.junit.jupiter.api.BeforeEach;
@@ -78,6 +79,35 @@ class MongoDBPipelineRunsDaoTest {
 
         verify(mockCollection).replaceOne((Bson) any(), any(), any());
     }
+    @Test
+    void testCancelPendingPipelineRun_cancelsStagesAndJobsOnlyWhilePending() {
+        ArgumentCaptor<Bson> filter = ArgumentCaptor.forClass(Bson.class);
+        ArgumentCaptor<Bson> update = ArgumentCaptor.forClass(Bson.class);
+        when(mockCollection.updateOne(filter.capture(), update.capture()))
+                .thenReturn(UpdateResult.acknowledged(1, 1L, null),
+                        UpdateResult.acknowledged(0, 0L, null));
+
+        assertTrue(dao.cancelPendingPipelineRun("repo", "pipe", 3, 1000L));
+        assertFalse(dao.cancelPendingPipelineRun("repo", "pipe", 3, 1000L));
+
+        assertTrue(filter.getValue().toBsonDocument().toJson().contains("\"Pending\""));
+        String updated = update.getValue().toBsonDocument().toJson();
+        assertTrue(updated.contains("stages.$[].jobs.$[].jobStatus"));
+        assertTrue(updated.contains("\"completionTime\": 1000"));
+    }
+
+    @Test
+    void testCountLeasedRuns_countsOnlyRunningRunsWithUnexpiredLeases() {
+        ArgumentCaptor<Bson> filter = ArgumentCaptor.forClass(Bson.class);
+        when(mockCollection.countDocuments(filter.capture())).thenReturn(2L);
+
+        assertEquals(2L, dao.countLeasedRuns(5000L));
+
+        String json = filter.getValue().toBsonDocument().toJson();
+        assertTrue(json.contains("\"Running\""));
+        assertTrue(json.contains("\"leaseExpiresAt\": {\"$gt\": 5000}"));
+    }
+
     @Test
     void testGetByPipelineName_nullOrEmpty_shouldThrow() {
         assertThrows(IllegalArgumentException.class, () -> dao.getByPipelineName(null));
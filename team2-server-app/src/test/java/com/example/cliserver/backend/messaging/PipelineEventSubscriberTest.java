@@ -0,0 +1,154 @@
+package com.example.cliserver.backend.messaging;
+
+import com.example.cliserver.backend.model.PipelineEvent;
+import com.example.cliserver.backend.model.Status;
+import com.rabbitmq.client.AMQP;
+import com.rabbitmq.client.CancelCallback;
+import com.rabbitmq.client.Channel;
+import com.rabbitmq.client.Connection;
+import com.rabbitmq.client.ConnectionFactory;
+import com.rabbitmq.client.DeliverCallback;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import static com.example.cliserver.backend.utils.Constants.PIPELINE_EVENTS_EXCHANGE;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class PipelineEventSubscriberTest {
+    private static final String REPO = "https://github.com/org/app.git";
+
+    @Mock
+    private ConnectionFactory connectionFactory;
+
+    @Mock
+    private Connection connection;
+
+    @Mock
+    private Channel channel;
+
+    @Mock
+    private AMQP.Queue.DeclareOk declareOk;
+
+    private PipelineEventSubscriber subscriber;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        lenient().when(connectionFactory.newConnection()).thenReturn(connection);
+        lenient().when(connection.createChannel()).thenReturn(channel);
+        lenient().when(channel.queueDeclare()).thenReturn(declareOk);
+        lenient().when(channel.isOpen()).thenReturn(true);
+        lenient().when(declareOk.getQueue()).thenReturn("events-queue");
+        subscriber = new PipelineEventSubscriber(connectionFactory);
+    }
+
+    private PipelineEvent createEvent(PipelineEvent.Type type, String message) {
+        PipelineEvent event = new PipelineEvent();
+        event.setType(type);
+        event.setRepo(REPO);
+        event.setPipelineName("test-pipeline");
+        event.setRunNumber(7);
+        event.setStageName("build");
+        event.setJobName("compile");
+        event.setStatus(Status.RUNNING);
+        event.setMessage(message);
+        return event;
+    }
+
+    @Test
+    void testFollow_BindsRunOnlyOnce() throws Exception {
+        subscriber.follow(REPO, "test-pipeline", 7, mock(SseEmitter.class));
+        subscriber.follow(REPO, "test-pipeline", 7, mock(SseEmitter.class));
+
+        verify(channel, times(1)).queueBind("events-queue", PIPELINE_EVENTS_EXCHANGE,
+                "https://github_com/org/app_git.test-pipeline.7.*");
+        verify(channel, times(1)).basicConsume(eq("events-queue"), anyBoolean(),
+                any(DeliverCallback.class), any(CancelCallback.class));
+        assertEquals(2, subscriber.getFollowerCount(REPO, "test-pipeline", 7));
+    }
+
+    @Test
+    void testDispatch_SendsEventToFollowers() throws Exception {
+        SseEmitter emitter = mock(SseEmitter.class);
+        subscriber.follow(REPO, "test-pipeline", 7, emitter);
+
+        subscriber.dispatch(createEvent(PipelineEvent.Type.LOG, "compiling"));
+
+        verify(emitter).send(any(SseEmitter.SseEventBuilder.class));
+        verify(emitter, never()).complete();
+    }
+
+    @Test
+    void testDispatch_CompletesFollowersWhenRunFinishes() throws Exception {
+        SseEmitter emitter = mock(SseEmitter.class);
+        subscriber.follow(REPO, "test-pipeline", 7, emitter);
+
+        subscriber.dispatch(createEvent(PipelineEvent.Type.PIPELINE_FINISHED, "done"));
+
+        verify(emitter).complete();
+    }
+
+    @Test
+    void testDispatch_IgnoresRunsWithoutFollowers() throws Exception {
+        SseEmitter emitter = mock(SseEmitter.class);
+        subscriber.follow(REPO, "other-pipeline", 1, emitter);
+
+        subscriber.dispatch(createEvent(PipelineEvent.Type.LOG, "compiling"));
+
+        verify(emitter, never()).send(any(SseEmitter.SseEventBuilder.class));
+    }
+
+    @Test
+    void testUnfollow_UnbindsWhenLastFollowerLeaves() throws Exception {
+        SseEmitter emitter = mock(SseEmitter.class);
+        subscriber.follow(REPO, "test-pipeline", 7, emitter);
+
+        subscriber.unfollow(PipelineEvent.runRoutingKey(REPO, "test-pipeline", 7), emitter);
+
+        verify(channel).queueUnbind("events-queue", PIPELINE_EVENTS_EXCHANGE,
+                "https://github_com/org/app_git.test-pipeline.7.*");
+        assertEquals(0, subscriber.getFollowerCount(REPO, "test-pipeline", 7));
+    }
+
+    @Test
+    void testFormatEvent() {
+        assertEquals("[build/compile] compiling",
+                PipelineEventSubscriber.formatEvent(
+                        createEvent(PipelineEvent.Type.LOG, "compiling")));
+        assertEquals("[STAGE_STARTED] Stage build started",
+                PipelineEventSubscriber.formatEvent(
+                        createEvent(PipelineEvent.Type.STAGE_STARTED, "Stage build started")));
+    }
+
+    @Test
+    void testDispatch_IgnoresRunsOfOtherReposWithTheSamePipeline() throws Exception {
+        SseEmitter emitter = mock(SseEmitter.class);
+        subscriber.follow("https://github.com/org/other.git", "test-pipeline", 7, emitter);
+
+        subscriber.dispatch(createEvent(PipelineEvent.Type.LOG, "compiling"));
+
+        verify(emitter, never()).send(any(SseEmitter.SseEventBuilder.class));
+    }
+
+    @Test
+    void testRunRoutingKey_ReplacesReservedCharacters() {
+        assertEquals("local.my_pipeline_v1.3",
+                PipelineEvent.runRoutingKey("local", "my.pipeline*v1", 3));
+        assertEquals("local.my_pipeline_v1.3.log",
+                PipelineEvent.routingKey("local", "my.pipeline#v1", 3, PipelineEvent.Type.LOG));
+        assertEquals("https://github_com/org/app_git.ci.3",
+                PipelineEvent.runRoutingKey(REPO, "ci", 3));
+    }
+}
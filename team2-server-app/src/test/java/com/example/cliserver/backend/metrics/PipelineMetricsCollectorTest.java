@@ -0,0 +1,91 @@
+package com.example.cliserver.backend.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+
+import com.example.cliserver.backend.database.mongoDB.PipelineRunsDao;
+import com.example.cliserver.backend.model.Status;
+import com.example.cliserver.backend.utils.Constants;
+import java.io.IOException;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+public class PipelineMetricsCollectorTest {
+
+    @Mock
+    private PipelineRunsDao pipelineRunsDao;
+
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(pipelineRunsDao.countRunsByStatus(Status.PENDING)).thenReturn(4L);
+        when(pipelineRunsDao.countRunsByStatus(Status.RUNNING)).thenReturn(2L);
+        when(pipelineRunsDao.countLeasedRuns(40_000L)).thenReturn(1L);
+    }
+
+    /**
+     * Queue statistics source that returns fixed numbers, or fails when the broker is down.
+     */
+    private static QueueStatsSource queueStats(long messages, long consumers, boolean up) {
+        return new QueueStatsSource() {
+            @Override
+            public long getMessageCount(String queueName) throws IOException {
+                if (!up) {
+                    throw new IOException("broker unreachable");
+                }
+                return messages;
+            }
+
+            @Override
+            public long getConsumerCount(String queueName) throws IOException {
+                return consumers;
+            }
+        };
+    }
+
+    @Test
+    public void testCollectReportsQueueDepthAndRuns() {
+        when(pipelineRunsDao.findOldestRunByStatus(Status.PENDING)).thenReturn(
+                new Document(Constants.START_TIME_FIELD, 10_000L));
+
+        String metrics = new PipelineMetricsCollector(queueStats(5, 3, true), pipelineRunsDao)
+                .collect(40_000L);
+
+        assertTrue(metrics.contains("pipeline_queue_up{lane=\"pipeline-jobs\"} 1\n"));
+        assertTrue(metrics.contains("pipeline_queue_depth{lane=\"pipeline-jobs\"} 5\n"));
+        assertTrue(metrics.contains("pipeline_queue_consumers{lane=\"pipeline-jobs\"} 3\n"));
+        assertTrue(metrics.contains(
+                "pipeline_queue_oldest_age_seconds{lane=\"pipeline-jobs\"} 30\n"));
+        assertTrue(metrics.contains("pipeline_runs{status=\"pending\"} 4\n"));
+        assertTrue(metrics.contains("pipeline_runs{status=\"running\"} 2\n"));
+        assertTrue(metrics.contains("pipeline_runs_leased 1\n"));
+        assertTrue(metrics.contains("# TYPE pipeline_queue_depth gauge\n"));
+    }
+
+    @Test
+    public void testCollectWithoutPendingRuns() {
+        when(pipelineRunsDao.findOldestRunByStatus(Status.PENDING)).thenReturn(null);
+
+        String metrics = new PipelineMetricsCollector(queueStats(0, 1, true), pipelineRunsDao)
+                .collect(40_000L);
+
+        assertTrue(metrics.contains(
+                "pipeline_queue_oldest_age_seconds{lane=\"pipeline-jobs\"} 0\n"));
+    }
+
+    @Test
+    public void testCollectWhenBrokerIsUnreachable() {
+        when(pipelineRunsDao.findOldestRunByStatus(Status.PENDING)).thenReturn(null);
+
+        String metrics = new PipelineMetricsCollector(queueStats(5, 3, false), pipelineRunsDao)
+                .collect(40_000L);
+
+        assertTrue(metrics.contains("pipeline_queue_up{lane=\"pipeline-jobs\"} 0\n"));
+        assertFalse(metrics.contains("pipeline_queue_depth{"));
+        assertTrue(metrics.contains("pipeline_runs{status=\"pending\"} 4\n"));
+    }
+}
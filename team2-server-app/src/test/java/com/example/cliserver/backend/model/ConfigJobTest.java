@@ -198,6 +198,21 @@ class ConfigJobTest {
         assertNotSame(needs, job.getNeeds());
     }
 
+    @Test
+    void testSetDependencies() {
+        ConfigJob job = new ConfigJob();
+        assertTrue(job.getDependencies().isEmpty());
+
+        List<String> dependencies = new ArrayList<>(Arrays.asList("build"));
+        job.setDependencies(dependencies);
+        dependencies.add("lint");
+        assertEquals(List.of("build"), job.getDependencies());
+        assertEquals(List.of("build"), new ConfigJob(job).getDependencies());
+
+        job.setDependencies(null);
+        assertTrue(job.getDependencies().isEmpty());
+    }
+
     @Test
     void testSetNeeds_NullInput() {
         ConfigJob job = new ConfigJob();
@@ -296,4 +311,40 @@ class ConfigJobTest {
         assertNotNull(job.getArtifacts());
         assertTrue(job.getArtifacts().isEmpty());
     }
-}
\ No newline at end of file
+
+    @Test
+    void testSetArtifactsArchive() {
+        ConfigJob job = new ConfigJob();
+        assertNull(job.getArtifactsArchive());
+        job.setArtifactsArchive("gzip");
+        assertEquals("gzip", job.getArtifactsArchive());
+        assertEquals("gzip", new ConfigJob(job).getArtifactsArchive());
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () ->
+                job.setArtifactsArchive("zstd"));
+        assertEquals("jobs: artifactsArchive must be 'gzip', not 'zstd'", e.getMessage());
+    }
+
+    @Test
+    void testSetCache() {
+        ConfigJob job = new ConfigJob();
+        assertNull(job.getCache());
+        JobCache cache = new JobCache();
+        cache.setKey("maven-${{ hashFiles('pom.xml') }}");
+        cache.setPaths(List.of(".m2/repository"));
+        cache.setRestoreKeys(List.of("maven-"));
+        job.setCache(cache);
+
+        JobCache copy = new ConfigJob(job).getCache();
+        assertNotSame(cache, copy);
+        assertEquals("maven-${{ hashFiles('pom.xml') }}", copy.getKey());
+        assertEquals(List.of(".m2/repository"), copy.getPaths());
+        assertEquals(List.of("maven-"), copy.getRestoreKeys());
+
+        assertThrows(IllegalArgumentException.class, () ->
+                job.setCache(new JobCache()));
+        assertThrows(IllegalArgumentException.class, () ->
+                cache.setPaths(List.of("../outside")));
+        assertThrows(IllegalArgumentException.class, () ->
+                cache.setPaths(List.of("/root/.m2")));
+    }
+}
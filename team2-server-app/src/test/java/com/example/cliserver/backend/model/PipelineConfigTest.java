@@ -244,4 +244,27 @@ public class PipelineConfigTest {
             assertEquals(originalJobs.get(i).getName(), copiedJobs.get(i).getName());
         }
     }
+
+    @Test
+    public void testSetAndGetConcurrency() {
+        PipelineConfig.Pipeline pipeline = createPipelineInstance();
+        Concurrency concurrency = new Concurrency();
+        concurrency.setGroup("${repo}-${branch}");
+        concurrency.setCancelInProgress(true);
+        pipeline.setConcurrency(concurrency);
+
+        assertEquals("${repo}-${branch}", pipeline.getConcurrency().getGroup());
+        assertTrue(pipeline.getConcurrency().isCancelInProgress());
+        assertEquals("https://github.com/a/b.git-main",
+                pipeline.getConcurrency().resolveGroup("https://github.com/a/b.git", "main",
+                        "build"));
+    }
+
+    @Test
+    public void testSetConcurrencyWithoutGroup() {
+        PipelineConfig.Pipeline pipeline = createPipelineInstance();
+        assertThrows(IllegalArgumentException.class, () -> {
+            pipeline.setConcurrency(new Concurrency());
+        });
+    }
 }
@@ -0,0 +1,41 @@
+package com.example.cliserver.backend.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+
+class ByteRangeTest {
+
+    @Test
+    void testParse_singleRanges() {
+        ByteRange range = ByteRange.parse("bytes=0-99", 1000);
+        assertEquals(0, range.getStart());
+        assertEquals(99, range.getEnd());
+        assertEquals(100, range.getLength());
+        assertEquals("bytes 0-99/1000", range.toContentRange());
+
+        assertEquals("bytes 400-999/1000", ByteRange.parse("bytes=400-", 1000).toContentRange());
+        assertEquals("bytes 900-999/1000", ByteRange.parse("bytes=-100", 1000).toContentRange());
+        assertEquals("bytes 0-999/1000", ByteRange.parse("bytes=-5000", 1000).toContentRange());
+        assertEquals("bytes 990-999/1000",
+                ByteRange.parse("bytes=990-2000", 1000).toContentRange());
+    }
+
+    @Test
+    void testParse_ignoredHeadersSendTheWholeObject() {
+        assertNull(ByteRange.parse(null, 1000));
+        assertNull(ByteRange.parse("items=0-1", 1000));
+        assertNull(ByteRange.parse("bytes=0-1,5-6", 1000));
+        assertNull(ByteRange.parse("bytes=abc-", 1000));
+        assertNull(ByteRange.parse("bytes=10-5", 1000));
+    }
+
+    @Test
+    void testParse_unsatisfiableRanges() {
+        assertThrows(IllegalArgumentException.class, () -> ByteRange.parse("bytes=1000-", 1000));
+        assertThrows(IllegalArgumentException.class, () -> ByteRange.parse("bytes=-0", 1000));
+        assertThrows(IllegalArgumentException.class, () -> ByteRange.parse("bytes=0-", 0));
+    }
+}
@@ -3,8 +3,11 @@ package com.example.cliserver.backend.utils;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import com.example.cliserver.backend.model.Job;
 import com.example.cliserver.backend.model.ValidationResult;
 import java.io.File;
 import java.io.IOException;
@@ -12,6 +15,10 @@ import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
@@ -44,6 +51,57 @@ public class ConfigurationValidatorTest {
         assertEquals("test-pipeline", result.getConfig().getPipeline().getName());
     }
 
+    @Test
+    public void testValidateYaml_UnchangedFile_UsesCachedConfig() throws Exception {
+        validator = new ConfigurationValidator(new PipelineConfigCache(10));
+        pipelineFile = tempDir.resolve("cached-pipeline.yaml");
+        Files.write(pipelineFile, createValidYaml().getBytes());
+
+        ValidationResult first = validator.validateYaml(pipelineFile.toString(), Constants.LOCAL_REPO, null, null);
+        ValidationResult second = validator.validateYaml(pipelineFile.toString(), Constants.LOCAL_REPO, null, null);
+        assertSame(first.getConfig(), second.getConfig());
+
+        Files.write(pipelineFile, createValidYaml().replace("test-pipeline", "renamed").getBytes());
+        ValidationResult changed = validator.validateYaml(pipelineFile.toString(), Constants.LOCAL_REPO, null, null);
+        assertNotSame(first.getConfig(), changed.getConfig());
+        assertEquals("renamed", changed.getConfig().getPipeline().getName());
+    }
+
+    @Test
+    public void testValidateDirectory_ValidatesEveryFileInOrder() throws Exception {
+        validator = new ConfigurationValidator(new PipelineConfigCache(10));
+        Files.write(directoryPath.resolve("c.yaml"), createValidYaml().getBytes());
+        Files.write(directoryPath.resolve("a.yml"), createValidYaml().getBytes());
+        Files.write(directoryPath.resolve("b.yaml"),
+                createValidYaml().replace("test-pipeline", "other").replace("needs: [test-job]",
+                        "needs: [missing-job]").getBytes());
+        Files.write(directoryPath.resolve("notes.txt"), "not a pipeline".getBytes());
+
+        Map<String, ValidationResult> results = validator.validateDirectory(directoryPath.toFile());
+
+        assertEquals(Arrays.asList("a.yml", "b.yaml", "c.yaml"), new ArrayList<>(results.keySet()));
+        assertFalse(results.get("a.yml").isValid());
+        assertTrue(results.get("a.yml").getErrorMessage().contains("is not unique"));
+        assertFalse(results.get("b.yaml").isValid());
+        assertTrue(results.get("b.yaml").getErrorMessage().contains("missing-job"));
+        assertFalse(results.get("c.yaml").isValid());
+    }
+
+    @Test
+    public void testValidateDirectory_UniqueNames_AllValid() throws Exception {
+        for (int i = 0; i < 20; i++) {
+            Files.write(directoryPath.resolve("pipeline-" + i + ".yaml"),
+                    createValidYaml().replace("test-pipeline", "pipeline-" + i).getBytes());
+        }
+
+        Map<String, ValidationResult> results = validator.validateDirectory(directoryPath.toFile());
+
+        assertEquals(20, results.size());
+        for (ValidationResult result : results.values()) {
+            assertTrue(result.isValid());
+        }
+    }
+
     @Test
     public void testValidateYaml_MissingPipeline_ReturnsError() throws Exception {
         String invalidYaml = "name: test-pipeline\njobs: []";
@@ -125,6 +183,44 @@ public class ConfigurationValidatorTest {
         assertTrue(result.getErrorMessage().contains("Cycle detected in jobs"));
     }
 
+    @Test
+    public void testValidateYaml_MatrixJob_ExpandedIntoJobs() throws Exception {
+        String matrixYaml = "pipeline:\n  name: test-pipeline\n  stages: [test, deploy]\n  jobs:\n    - name: test\n      stage: test\n      image: eclipse-temurin:${{ matrix.java }}\n      script: [echo testing]\n      matrix:\n        java: [17, 21]\n      maxParallel: 1\n    - name: deploy\n      stage: deploy\n      script: [echo deploying]\n      needs: [test]";
+        pipelineFile = tempDir.resolve("matrix.yaml");
+        Files.write(pipelineFile, matrixYaml.getBytes());
+        ValidationResult result = validator.validateYaml(pipelineFile.toString(), Constants.LOCAL_REPO, null, null);
+        assertTrue(result.isValid(), result.getErrorMessage());
+
+        List<Job> jobs = result.getConfig().getPipeline().getJobs();
+        assertEquals(3, jobs.size());
+        assertEquals("test (17)", jobs.get(0).getName());
+        assertEquals("eclipse-temurin:21", jobs.get(1).getImage());
+        assertEquals("test", jobs.get(1).getMatrixParent());
+        assertEquals(1, jobs.get(1).getMaxParallel());
+        assertEquals(List.of("test (17)", "test (21)"), jobs.get(2).getNeeds());
+    }
+
+    @Test
+    public void testValidateYaml_ArtifactDependencies() throws Exception {
+        String yaml = "pipeline:\n  name: test-pipeline\n  stages: [build, test]\n  jobs:\n    - name: compile\n      stage: build\n      script: [echo compiling]\n      artifacts: [target]\n      matrix:\n        java: [17, 21]\n    - name: test\n      stage: test\n      script: [echo testing]\n      needs: [compile]\n      dependencies: [compile]";
+        pipelineFile = tempDir.resolve("artifact-dependencies.yaml");
+        Files.write(pipelineFile, yaml.getBytes());
+        ValidationResult result = validator.validateYaml(pipelineFile.toString(), Constants.LOCAL_REPO, null, null);
+        assertTrue(result.isValid(), result.getErrorMessage());
+        assertEquals(List.of("compile (17)", "compile (21)"),
+                result.getConfig().getPipeline().getJobs().get(2).getDependencies());
+
+        Files.write(pipelineFile, yaml.replace("      needs: [compile]\n", "").getBytes());
+        result = validator.validateYaml(pipelineFile.toString(), Constants.LOCAL_REPO, null, null);
+        assertFalse(result.isValid());
+        assertTrue(result.getErrorMessage().contains("so it must also need it"));
+
+        Files.write(pipelineFile, yaml.replace("      artifacts: [target]\n", "").getBytes());
+        result = validator.validateYaml(pipelineFile.toString(), Constants.LOCAL_REPO, null, null);
+        assertFalse(result.isValid());
+        assertTrue(result.getErrorMessage().contains("which has no artifacts"));
+    }
+
     @Test
     public void testValidateYaml_InvalidSyntax_ReturnsError() throws Exception {
         String invalidYaml = "::: not a valid yaml :::";
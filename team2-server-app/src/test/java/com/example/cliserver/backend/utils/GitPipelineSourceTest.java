@@ -0,0 +1,95 @@
+package com.example.cliserver.backend.utils;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class GitPipelineSourceTest {
+
+    @TempDir
+    Path tempDir;
+
+    private Git git;
+    private RevCommit firstCommit;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        git = Git.init().setDirectory(tempDir.toFile()).setInitialBranch("main").call();
+        firstCommit = commitFile(".pipelines/build.yaml", "pipeline:\n  name: build\n");
+        commitFile("README.md", "readme");
+        git.branchCreate().setName("feature").call();
+        git.checkout().setName("feature").call();
+        commitFile(".pipelines/deploy.yaml", "pipeline:\n  name: deploy\n");
+        git.checkout().setName("main").call();
+    }
+
+    @AfterEach
+    void tearDown() {
+        git.close();
+    }
+
+    private RevCommit commitFile(String path, String content) throws Exception {
+        File file = tempDir.resolve(path).toFile();
+        Files.createDirectories(file.getParentFile().toPath());
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+        git.add().addFilepattern(path).call();
+        return git.commit().setMessage("Add " + path).call();
+    }
+
+    @Test
+    void testRead_defaultBranchOnlyContainsPipelineFiles() throws IOException {
+        GitPipelineSource source = GitPipelineSource.read(git.getRepository(), null, null);
+
+        assertEquals(1, source.getPipelineFiles().size());
+        assertArrayEquals("pipeline:\n  name: build\n".getBytes(StandardCharsets.UTF_8),
+                source.getFile(".pipelines/build.yaml"));
+        assertNull(source.getFile("deploy.yaml"));
+    }
+
+    @Test
+    void testRead_branch() throws IOException {
+        GitPipelineSource source = GitPipelineSource.read(git.getRepository(), "feature", null);
+
+        assertTrue(source.getPipelineFiles().containsKey("deploy.yaml"));
+        assertTrue(source.getPipelineFiles().containsKey("build.yaml"));
+    }
+
+    @Test
+    void testRead_commit() throws IOException {
+        GitPipelineSource source =
+                GitPipelineSource.read(git.getRepository(), null, firstCommit.getName());
+
+        assertEquals(firstCommit.getName(), source.getCommitHash());
+        assertTrue(source.getPipelineFiles().containsKey("build.yaml"));
+    }
+
+    @Test
+    void testRead_invalidBranch() {
+        IOException e = assertThrows(IOException.class,
+                () -> GitPipelineSource.read(git.getRepository(), "nonexistent", null));
+        assertEquals("Invalid branch name: nonexistent", e.getMessage());
+    }
+
+    @Test
+    void testRead_invalidCommit() {
+        IOException e = assertThrows(IOException.class,
+                () -> GitPipelineSource.read(git.getRepository(), null,
+                        "abcdef1234567890abcdef1234567890abcdef12"));
+        assertEquals("Invalid commit hash: abcdef1234567890abcdef1234567890abcdef12",
+                e.getMessage());
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.cliserver.backend.utils;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.example.cliserver.backend.model.Job;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class JobGraphTest {
+
+    private Job createJob(String name, String... needs) {
+        Job job = new Job();
+        job.setName(name);
+        job.setNeeds(Arrays.asList(needs));
+        return job;
+    }
+
+    @Test
+    void testTopologicalOrder_dependenciesFirstAndDeclarationOrderKept() {
+        JobGraph graph = new JobGraph(List.of(
+                createJob("deploy", "test", "lint"),
+                createJob("lint"),
+                createJob("test", "build"),
+                createJob("build")));
+
+        assertArrayEquals(new int[] {1, 3, 2, 0}, graph.topologicalOrder());
+        assertEquals(0, graph.getId("deploy"));
+        assertEquals(-1, graph.getId("missing"));
+    }
+
+    @Test
+    void testTopologicalOrder_ignoresJobsOutsideTheGraph() {
+        JobGraph graph = new JobGraph(List.of(createJob("test", "build-in-earlier-stage")));
+
+        assertEquals("test", graph.getSortedJobs().get(0).getName());
+        assertTrue(graph.findCycle().isEmpty());
+    }
+
+    @Test
+    void testFindCycle_reportsPath() {
+        JobGraph graph = new JobGraph(List.of(
+                createJob("build"),
+                createJob("a", "build", "c"),
+                createJob("b", "a"),
+                createJob("c", "b"),
+                createJob("after-cycle", "c")));
+
+        assertNull(graph.topologicalOrder());
+        assertEquals(List.of("a", "c", "b"), graph.findCycle());
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                graph::getSortedJobs);
+        assertEquals("Cycle detected in jobs: a -> c -> b -> a", e.getMessage());
+    }
+
+    @Test
+    void testFindCycle_selfDependency() {
+        JobGraph graph = new JobGraph(List.of(createJob("job1", "job1")));
+
+        assertEquals(List.of("job1"), graph.findCycle());
+    }
+
+    @Test
+    void testDuplicateJobNames() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new JobGraph(List.of(createJob("job1"), createJob("job1"))));
+    }
+
+    @Test
+    void testLongChain_doesNotOverflowStack() {
+        // Declared in reverse, so every job needs the one declared after it
+        int size = 100_000;
+        List<Job> jobs = new ArrayList<>(size);
+        for (int i = size - 1; i > 0; i--) {
+            jobs.add(createJob("job" + i, "job" + (i - 1)));
+        }
+        jobs.add(createJob("job0"));
+
+        List<Job> sorted = new JobGraph(jobs).getSortedJobs();
+        assertEquals("job0", sorted.get(0).getName());
+        assertEquals("job" + (size - 1), sorted.get(size - 1).getName());
+
+        jobs.set(jobs.size() - 1, createJob("job0", "job" + (size - 1)));
+        assertEquals(size, new JobGraph(jobs).findCycle().size());
+    }
+}
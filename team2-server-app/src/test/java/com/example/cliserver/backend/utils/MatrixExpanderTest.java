@@ -0,0 +1,136 @@
+package com.example.cliserver.backend.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.example.cliserver.backend.model.Job;
+import com.example.cliserver.backend.model.JobCache;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+class MatrixExpanderTest {
+
+    private Job createJob(String name, String... needs) {
+        Job job = new Job();
+        job.setName(name);
+        job.setStage("build");
+        job.setScript(List.of("echo " + name));
+        job.setNeeds(Arrays.asList(needs));
+        return job;
+    }
+
+    private List<String> names(List<Job> jobs) {
+        List<String> names = new ArrayList<>();
+        for (Job job : jobs) {
+            names.add(job.getName());
+        }
+        return names;
+    }
+
+    @Test
+    void testExpand_jobsWithoutMatrixUnchanged() {
+        List<Job> expanded = MatrixExpander.expand(List.of(createJob("build"),
+                createJob("test", "build")));
+
+        assertEquals(List.of("build", "test"), names(expanded));
+        assertEquals(List.of("build"), expanded.get(1).getNeeds());
+        assertNull(expanded.get(0).getMatrixParent());
+    }
+
+    @Test
+    void testExpand_everyCombinationLastVariableFastest() {
+        Job test = createJob("test");
+        Map<String, List<String>> matrix = new LinkedHashMap<>();
+        matrix.put("java", List.of("17", "21"));
+        matrix.put("db", List.of("postgres", "mysql"));
+        test.setMatrix(matrix);
+        test.setImage("eclipse-temurin:${{ matrix.java }}");
+        test.setScript(List.of("./gradlew test -Ddb=${{matrix.db}}"));
+
+        List<Job> expanded = MatrixExpander.expand(List.of(test));
+
+        assertEquals(List.of("test (17, postgres)", "test (17, mysql)",
+                "test (21, postgres)", "test (21, mysql)"), names(expanded));
+        Job cell = expanded.get(2);
+        assertEquals("test", cell.getMatrixParent());
+        assertEquals(Map.of("java", "21", "db", "postgres"), cell.getMatrixValues());
+        assertEquals("eclipse-temurin:21", cell.getImage());
+        assertEquals(List.of("./gradlew test -Ddb=postgres"), cell.getScript());
+        assertTrue(cell.getMatrix().isEmpty());
+    }
+
+    @Test
+    void testExpand_cacheKeyPerJob() {
+        Job test = createJob("test");
+        test.setMatrix(Map.of("java", List.of("17", "21")));
+        JobCache cache = new JobCache();
+        cache.setKey("maven-${{ matrix.java }}-${{ hashFiles('pom.xml') }}");
+        cache.setPaths(List.of(".m2/repository"));
+        cache.setRestoreKeys(List.of("maven-${{ matrix.java }}-"));
+        test.setCache(cache);
+
+        JobCache cellCache = MatrixExpander.expand(List.of(test)).get(1).getCache();
+
+        assertEquals("maven-21-${{ hashFiles('pom.xml') }}", cellCache.getKey());
+        assertEquals(List.of("maven-21-"), cellCache.getRestoreKeys());
+    }
+
+    @Test
+    void testExpand_needsOnMatrixResolvedToEveryJob() {
+        Job test = createJob("test", "build");
+        test.setMatrix(Map.of("os", List.of("linux", "windows")));
+
+        List<Job> expanded = MatrixExpander.expand(List.of(createJob("build"), test,
+                createJob("deploy", "test", "build")));
+
+        assertEquals(List.of("build"), expanded.get(1).getNeeds());
+        assertEquals(List.of("test (linux)", "test (windows)", "build"),
+                expanded.get(3).getNeeds());
+    }
+
+    @Test
+    void testExpand_undefinedVariable() {
+        Job test = createJob("test");
+        test.setMatrix(Map.of("os", List.of("linux")));
+        test.setScript(List.of("echo ${{ matrix.arch }}"));
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> MatrixExpander.expand(List.of(test)));
+        assertEquals("Job 'test' uses undefined matrix variable 'arch'.", e.getMessage());
+    }
+
+    @Test
+    void testExpand_tooManyCombinations() {
+        Job test = createJob("test");
+        List<String> values = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            values.add(String.valueOf(i));
+        }
+        Map<String, List<String>> matrix = new LinkedHashMap<>();
+        matrix.put("a", values);
+        matrix.put("b", values);
+        test.setMatrix(matrix);
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> MatrixExpander.expand(List.of(test)));
+        assertEquals("Matrix of job 'test' expands into more than "
+                + Constants.MAX_MATRIX_JOBS + " jobs.", e.getMessage());
+    }
+
+    @Test
+    void testExpand_duplicateNameAfterExpansion() {
+        Job test = createJob("test");
+        test.setMatrix(Map.of("os", List.of("linux")));
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> MatrixExpander.expand(List.of(test, createJob("test (linux)"))));
+        assertEquals("Job names must be unique. Name 'test (linux)' is duplicated.",
+                e.getMessage());
+    }
+}
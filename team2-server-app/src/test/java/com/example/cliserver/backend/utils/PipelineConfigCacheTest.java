@@ -0,0 +1,59 @@
+package com.example.cliserver.backend.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import com.example.cliserver.backend.model.ValidationResult;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+class PipelineConfigCacheTest {
+
+    @Test
+    void testGet_loadsEachKeyOnce() {
+        PipelineConfigCache cache = new PipelineConfigCache(10);
+        AtomicInteger loads = new AtomicInteger();
+
+        ValidationResult first = cache.get("key", () -> {
+            loads.incrementAndGet();
+            return new ValidationResult(false, "error");
+        });
+        ValidationResult second = cache.get("key", () -> {
+            loads.incrementAndGet();
+            return new ValidationResult(false, "other error");
+        });
+
+        assertSame(first, second);
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void testGet_evictsLeastRecentlyUsed() {
+        PipelineConfigCache cache = new PipelineConfigCache(2);
+        AtomicInteger loads = new AtomicInteger();
+        cache.get("a", () -> new ValidationResult(false, "a"));
+        cache.get("b", () -> new ValidationResult(false, "b"));
+        cache.get("a", () -> new ValidationResult(false, "a again"));
+        cache.get("c", () -> new ValidationResult(false, "c"));
+
+        assertEquals(2, cache.size());
+        assertEquals("a", cache.get("a", () -> new ValidationResult(false, "reloaded"))
+                .getErrorMessage());
+        cache.get("b", () -> {
+            loads.incrementAndGet();
+            return new ValidationResult(false, "b");
+        });
+        assertEquals(1, loads.get(), "Least recently used key should have been evicted");
+    }
+
+    @Test
+    void testLocalKey_changesWithContent() {
+        assertEquals(PipelineConfigCache.localKey("/p.yaml", 1L, "a".getBytes()),
+                PipelineConfigCache.localKey("/p.yaml", 1L, "a".getBytes()));
+        assertNotEquals(PipelineConfigCache.localKey("/p.yaml", 1L, "a".getBytes()),
+                PipelineConfigCache.localKey("/p.yaml", 1L, "b".getBytes()));
+        assertNotEquals(PipelineConfigCache.localKey("/p.yaml", 1L, "a".getBytes()),
+                PipelineConfigCache.localKey("/p.yaml", 2L, "a".getBytes()));
+    }
+}
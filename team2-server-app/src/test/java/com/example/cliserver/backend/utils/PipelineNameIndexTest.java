@@ -0,0 +1,75 @@
+package com.example.cliserver.backend.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class PipelineNameIndexTest {
+
+    @TempDir
+    Path tempDir;
+
+    private void writePipeline(String fileName, String pipelineName) throws IOException {
+        Files.writeString(tempDir.resolve(fileName), "pipeline:\n  name: " + pipelineName + "\n");
+    }
+
+    @Test
+    void testForDirectory_findsFilesWithSameName() throws IOException {
+        writePipeline("a.yaml", "build");
+        writePipeline("b.yml", "build");
+        writePipeline("c.yaml", "deploy");
+        Files.writeString(tempDir.resolve("notes.txt"), "pipeline:\n  name: build\n");
+
+        PipelineNameIndex index = PipelineNameIndex.forDirectory(tempDir.toFile());
+
+        assertEquals(List.of("a.yaml", "b.yml"), index.getFiles("build"));
+        assertEquals(List.of("c.yaml"), index.getFiles("deploy"));
+        assertTrue(index.getFiles("missing").isEmpty());
+    }
+
+    @Test
+    void testForDirectory_picksUpChangedAndRemovedFiles() throws IOException {
+        writePipeline("a.yaml", "build");
+        writePipeline("b.yaml", "build");
+        PipelineNameIndex index = PipelineNameIndex.forDirectory(tempDir.toFile());
+        assertEquals(2, index.getFiles("build").size());
+
+        writePipeline("b.yaml", "renamed-pipeline");
+        assertTrue(new File(tempDir.toFile(), "b.yaml").setLastModified(1_000L));
+        assertEquals(List.of("a.yaml"), index.getFiles("build"));
+        assertEquals(List.of("b.yaml"), index.getFiles("renamed-pipeline"));
+
+        Files.delete(tempDir.resolve("a.yaml"));
+        writePipeline("c.yaml", "build");
+        assertEquals(List.of("c.yaml"), index.getFiles("build"));
+    }
+
+    @Test
+    void testForDirectory_sharesIndexPerDirectory() {
+        assertSame(PipelineNameIndex.forDirectory(tempDir.toFile()),
+                PipelineNameIndex.forDirectory(tempDir.toFile()));
+    }
+
+    @Test
+    void testForCommit_buildsIndexOnce() {
+        Map<String, byte[]> files = Map.of(
+                "a.yaml", "pipeline:\n  name: build\n".getBytes(),
+                "b.yaml", "pipeline:\n  name: build\n".getBytes());
+
+        PipelineNameIndex index = PipelineNameIndex.forCommit("https://github.com/u/r.git",
+                "abc123", files);
+
+        assertEquals(List.of("a.yaml", "b.yaml"), index.getFiles("build"));
+        assertSame(index, PipelineNameIndex.forCommit("https://github.com/u/r.git", "abc123",
+                Map.of()));
+    }
+}
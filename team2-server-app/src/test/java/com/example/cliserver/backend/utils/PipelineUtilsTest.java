@@ -289,85 +289,6 @@ public class PipelineUtilsTest {
         assertTrue(cycle.contains("job1"));
     }
 
-    @Test
-    public void testBuildJobGraph() {
-        // Test building the job dependency graph
-        Map<String, List<String>> graph = PipelineUtils.buildJobGraph(sampleJobs);
-
-        // Verify graph structure
-        assertEquals(3, graph.size());
-        assertTrue(graph.containsKey("job1"));
-        assertTrue(graph.containsKey("job2"));
-        assertTrue(graph.containsKey("job3"));
-
-        assertTrue(graph.get("job1").isEmpty());
-        assertEquals(1, graph.get("job2").size());
-        assertEquals("job1", graph.get("job2").get(0));
-        assertEquals(1, graph.get("job3").size());
-        assertEquals("job2", graph.get("job3").get(0));
-    }
-
-    @Test
-    public void testDfs_NoCycle() {
-        // Test DFS with no cycle
-        Map<String, List<String>> graph = PipelineUtils.buildJobGraph(sampleJobs);
-
-        Set<String> visited = new HashSet<>();
-        Set<String> stack = new HashSet<>();
-        Set<String> cycle = new HashSet<>();
-        List<Job> sorted = new ArrayList<>();
-
-        Map<String, Job> jobMap = new HashMap<>();
-        for (Job job : sampleJobs) {
-            jobMap.put(job.getName(), job);
-        }
-
-        // Run DFS starting from job3
-        boolean hasCycle = PipelineUtils.dfs("job3", graph, visited, stack, cycle, sorted, jobMap);
-
-        // Verify no cycle was detected
-        assertFalse(hasCycle);
-        assertEquals(3, sorted.size()); // All jobs should be added to sorted list
-    }
-
-    @Test
-    public void testDfs_WithCycle() {
-        // Create jobs with a cyclic dependency
-        Job job1 = new Job();
-        job1.setName("job1");
-        job1.setNeeds(Arrays.asList("job3"));
-
-        Job job2 = new Job();
-        job2.setName("job2");
-        job2.setNeeds(Arrays.asList("job1"));
-
-        Job job3 = new Job();
-        job3.setName("job3");
-        job3.setNeeds(Arrays.asList("job2"));
-
-        List<Job> cycleJobs = Arrays.asList(job1, job2, job3);
-        Map<String, List<String>> graph = PipelineUtils.buildJobGraph(cycleJobs);
-
-        Set<String> visited = new HashSet<>();
-        Set<String> stack = new HashSet<>();
-        Set<String> cycle = new HashSet<>();
-        List<Job> sorted = new ArrayList<>();
-
-        Map<String, Job> jobMap = new HashMap<>();
-        for (Job job : cycleJobs) {
-            jobMap.put(job.getName(), job);
-        }
-
-        // Run DFS starting from job1
-        boolean hasCycle = PipelineUtils.dfs("job1", graph, visited, stack, cycle, sorted, jobMap);
-
-        // Verify cycle was detected
-        assertTrue(hasCycle);
-        assertTrue(cycle.contains("job1"));
-        assertTrue(cycle.contains("job2"));
-        assertTrue(cycle.contains("job3"));
-    }
-
     @Test
     public void testDeleteFile() throws IOException {
         // Create a temporary directory structure
@@ -0,0 +1,109 @@
+package com.example.cliserver.backend.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.file.Path;
+import org.apache.commons.io.FileUtils;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class RepoMirrorCacheTest {
+
+    private RevCommit commitFile(Git git, String name, String content) throws Exception {
+        File file = new File(git.getRepository().getWorkTree(), name);
+        try (FileWriter writer = new FileWriter(file)) {
+            writer.write(content);
+        }
+        git.add().addFilepattern(name).call();
+        return git.commit().setMessage("Add " + name).call();
+    }
+
+    @Test
+    void testCloneFromMirror_reusesMirrorAndFetchesNewCommits(@TempDir Path tempDir)
+            throws Exception {
+        try (Git remote = Git.init().setDirectory(tempDir.resolve("remote").toFile()).call()) {
+            commitFile(remote, "first.txt", "first");
+            String remoteUri = remote.getRepository().getWorkTree().toURI().toString();
+            RepoMirrorCache cache =
+                    new RepoMirrorCache(tempDir.resolve("mirrors").toFile(), Long.MAX_VALUE);
+
+            try (Git clone = cache.cloneFromMirror(remoteUri, null,
+                    tempDir.resolve("clone1").toFile())) {
+                assertTrue(new File(clone.getRepository().getWorkTree(), "first.txt").exists());
+            }
+            File mirror = cache.getMirrorDirectory(remoteUri);
+            assertTrue(new File(mirror, "HEAD").exists());
+
+            RevCommit second = commitFile(remote, "second.txt", "second");
+            try (Git clone = cache.cloneFromMirror(remoteUri, null,
+                    tempDir.resolve("clone2").toFile())) {
+                assertEquals(second.getName(),
+                        clone.getRepository().resolve("HEAD").getName());
+            }
+        }
+    }
+
+    @Test
+    void testCloneFromMirror_skipsFetchForKnownCommit(@TempDir Path tempDir) throws Exception {
+        File remoteDir = tempDir.resolve("remote").toFile();
+        String remoteUri = remoteDir.toURI().toString();
+        RevCommit first;
+        try (Git remote = Git.init().setDirectory(remoteDir).call()) {
+            first = commitFile(remote, "first.txt", "first");
+        }
+        RepoMirrorCache cache =
+                new RepoMirrorCache(tempDir.resolve("mirrors").toFile(), Long.MAX_VALUE);
+        cache.cloneFromMirror(remoteUri, null, tempDir.resolve("clone1").toFile()).close();
+
+        // Without the remote, only a commit the mirror already has can be cloned
+        FileUtils.deleteDirectory(remoteDir);
+        try (Git clone = cache.cloneFromMirror(remoteUri, first.getName(),
+                tempDir.resolve("clone2").toFile())) {
+            assertTrue(new File(clone.getRepository().getWorkTree(), "first.txt").exists());
+        }
+        assertThrows(GitAPIException.class, () -> cache.readMirror(remoteUri,
+                "0123456789012345678901234567890123456789", repository -> null));
+        assertThrows(GitAPIException.class, () -> cache.readMirror(remoteUri, null,
+                repository -> null));
+    }
+
+    @Test
+    void testGetMirrorDirectory_differsPerUrl(@TempDir Path tempDir) {
+        RepoMirrorCache cache = new RepoMirrorCache(tempDir.toFile(), Long.MAX_VALUE);
+        assertNotEquals(cache.getMirrorDirectory("https://github.com/user/repo.git"),
+                cache.getMirrorDirectory("https://github.com/user/other.git"));
+    }
+
+    @Test
+    void testEvictLeastRecentlyUsed(@TempDir Path tempDir) throws IOException {
+        File cacheDir = tempDir.resolve("mirrors").toFile();
+        File older = createMirror(cacheDir, "older.git", 1_000L);
+        File newer = createMirror(cacheDir, "newer.git", 2_000L);
+
+        // Room for only one of the two mirrors
+        new RepoMirrorCache(cacheDir, 150).evictLeastRecentlyUsed();
+
+        assertFalse(older.exists(), "Least recently used mirror should be evicted");
+        assertTrue(newer.exists(), "Most recently used mirror should be kept");
+    }
+
+    private File createMirror(File cacheDir, String name, long lastUsed) throws IOException {
+        File mirror = new File(cacheDir, name);
+        assertTrue(mirror.mkdirs());
+        try (FileWriter writer = new FileWriter(new File(mirror, "pack"))) {
+            writer.write("x".repeat(100));
+        }
+        assertTrue(mirror.setLastModified(lastUsed));
+        return mirror;
+    }
+}
@@ -0,0 +1,143 @@
+package com.example.cliserver.backend.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class RepoWorktreeTest {
+
+    @TempDir
+    Path tempDir;
+
+    private Git remote;
+    private String remoteUri;
+    private File worktreeDir;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        remote = Git.init().setDirectory(tempDir.resolve("remote").toFile())
+                .setInitialBranch("main").call();
+        remoteUri = remote.getRepository().getWorkTree().toURI().toString();
+        worktreeDir = tempDir.resolve("worktrees").toFile();
+    }
+
+    @AfterEach
+    void tearDown() {
+        remote.close();
+    }
+
+    private RevCommit commitFile(String name, String content) throws Exception {
+        File file = new File(remote.getRepository().getWorkTree(), name);
+        try (FileWriter writer = new FileWriter(file)) {
+            writer.write(content);
+        }
+        remote.add().addFilepattern(name).call();
+        return remote.commit().setMessage("Update " + name).call();
+    }
+
+    private String readFile(RepoWorktree worktree, String name) throws IOException {
+        return Files.readString(new File(worktree.getDirectory(), name).toPath(),
+                StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void testCreate_branchesGetSeparateWorktrees() throws Exception {
+        RevCommit mainCommit = commitFile("pipeline.yaml", "main");
+        remote.checkout().setCreateBranch(true).setName("feature").call();
+        RevCommit featureCommit = commitFile("pipeline.yaml", "feature");
+        RepoMirrorCache cache =
+                new RepoMirrorCache(tempDir.resolve("mirrors").toFile(), Long.MAX_VALUE);
+
+        try (RepoWorktree main = RepoWorktree.create(cache, worktreeDir, remoteUri, "main", null);
+             RepoWorktree feature = RepoWorktree.create(cache, worktreeDir, remoteUri,
+                     "feature", null)) {
+            assertNotEquals(main.getDirectory(), feature.getDirectory());
+            assertEquals("main", readFile(main, "pipeline.yaml"));
+            assertEquals("feature", readFile(feature, "pipeline.yaml"));
+            assertEquals(mainCommit.getName(), main.getCommitHash());
+            assertEquals(featureCommit.getName(), feature.getCommitHash());
+            try (Git git = Git.open(feature.getDirectory())) {
+                assertEquals(featureCommit.getName(),
+                        git.getRepository().resolve("HEAD").getName());
+            }
+        }
+    }
+
+    @Test
+    void testCreate_borrowsObjectsFromMirror() throws Exception {
+        commitFile("pipeline.yaml", "main");
+        RepoMirrorCache cache =
+                new RepoMirrorCache(tempDir.resolve("mirrors").toFile(), Long.MAX_VALUE);
+
+        try (RepoWorktree worktree = RepoWorktree.create(cache, worktreeDir, remoteUri,
+                null, null)) {
+            File objects = new File(worktree.getDirectory(), ".git/objects");
+            assertTrue(new File(objects, "info/alternates").exists());
+            String[] packs = new File(objects, "pack").list();
+            assertTrue(packs == null || packs.length == 0,
+                    "Objects should not be copied into the worktree");
+        }
+    }
+
+    @Test
+    void testClose_deletesOnlyThisWorktree() throws Exception {
+        commitFile("pipeline.yaml", "main");
+        RepoMirrorCache cache =
+                new RepoMirrorCache(tempDir.resolve("mirrors").toFile(), Long.MAX_VALUE);
+
+        RepoWorktree first = RepoWorktree.create(cache, worktreeDir, remoteUri, "main", null);
+        try (RepoWorktree second = RepoWorktree.create(cache, worktreeDir, remoteUri,
+                "main", null)) {
+            first.close();
+            first.close();
+            assertFalse(first.getDirectory().exists());
+            assertEquals("main", readFile(second, "pipeline.yaml"));
+        }
+    }
+
+    @Test
+    void testCreate_invalidBranchAndCommit() throws Exception {
+        commitFile("pipeline.yaml", "main");
+        RepoMirrorCache cache =
+                new RepoMirrorCache(tempDir.resolve("mirrors").toFile(), Long.MAX_VALUE);
+
+        IOException branchError = assertThrows(IOException.class,
+                () -> RepoWorktree.create(cache, worktreeDir, remoteUri, "nonexistent", null));
+        assertEquals("Invalid branch name: nonexistent", branchError.getMessage());
+        IOException commitError = assertThrows(IOException.class,
+                () -> RepoWorktree.create(cache, worktreeDir, remoteUri, null, "abcdef1234"));
+        assertEquals("Invalid commit hash: abcdef1234", commitError.getMessage());
+        assertEquals(0, worktreeDir.list().length, "Failed worktrees should be removed");
+    }
+
+    @Test
+    void testOpenWorktree_keepsMirrorFromEviction() throws Exception {
+        commitFile("pipeline.yaml", "main");
+        // Too small to keep any mirror that is not in use
+        RepoMirrorCache cache = new RepoMirrorCache(tempDir.resolve("mirrors").toFile(), 0);
+
+        RepoWorktree worktree = RepoWorktree.create(cache, worktreeDir, remoteUri, null, null);
+        File mirror = cache.getMirrorDirectory(remoteUri);
+        cache.evictLeastRecentlyUsed();
+        assertTrue(mirror.exists(), "Mirror should be kept while a worktree uses it");
+
+        worktree.close();
+        cache.evictLeastRecentlyUsed();
+        assertFalse(mirror.exists(), "Mirror should be evicted once no worktree uses it");
+    }
+}
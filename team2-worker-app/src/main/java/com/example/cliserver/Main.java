@@ -29,14 +29,18 @@ public class Main {
             PipelineConsumer consumer = new PipelineConsumer();
             consumer.start();
 
+            // Drain on SIGTERM, so in-flight runs finish or go back to the queue on shutdown
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                consumer.drain();
+                consumer.shutdownExecutor();
+            }, "worker-shutdown"));
+
             // Keep the main thread alive
             try {
                 System.out.println("Worker is running. Press Ctrl+C to exit.");
                 Thread.currentThread().join();
             } catch (InterruptedException e) {
                 Thread.currentThread().interrupt();
-            } finally {
-                consumer.shutdownExecutor();
             }
 
         } catch (Exception e) {
@@ -0,0 +1,218 @@
+package com.example.cliserver.backend.database.artifactsDB;
+
+import com.example.cliserver.backend.utils.Constants;
+import com.example.cliserver.backend.utils.YamlConfigLoader;
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A node-local cache of artifact files, stored once per SHA-256 digest of their contents.
+ * <p>
+ * Jobs that other jobs take artifacts from put their files in the cache when they upload them,
+ * so jobs on the same node restore those artifacts with a local copy instead of a download.
+ * Files downloaded on a miss are cached as well. When the files grow beyond the size limit,
+ * the least recently used ones are evicted. The cache outlives runs and worker restarts; files
+ * found on startup are used from the oldest to the most recently modified.
+ * </p>
+ * <p>
+ * Files are copied into and out of the cache, never linked, so a job that modifies a restored
+ * file in place cannot change the cached contents.
+ * </p>
+ */
+public class ArtifactCache {
+    private static final String PARTIAL_SUFFIX = ".part";
+
+    private static ArtifactCache instance;
+
+    private final File directory;
+    private final long maxBytes;
+    /**
+     * The size of every cached file, keyed by digest, least recently used first.
+     */
+    private final Map<String, Long> sizes = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalBytes;
+
+    /**
+     * Creates an artifact cache, indexing the files already in its directory.
+     *
+     * @param directory the directory the files are stored in
+     * @param maxBytes  the size the files may take up before old ones are evicted
+     */
+    public ArtifactCache(File directory, long maxBytes) {
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+        File[] files = directory.listFiles();
+        if (files != null) {
+            Arrays.sort(files, Comparator.comparingLong(File::lastModified));
+            for (File file : files) {
+                if (file.getName().endsWith(PARTIAL_SUFFIX)) {
+                    // Left behind by a copy that was interrupted
+                    if (!file.delete()) {
+                        System.err.println("Failed to delete partial cache file: " + file);
+                    }
+                } else if (file.isFile()) {
+                    sizes.put(file.getName(), file.length());
+                    totalBytes += file.length();
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the shared artifact cache, sized according to the configuration file.
+     *
+     * @return the artifact cache
+     */
+    @SuppressFBWarnings(value = "MS_EXPOSE_REP",
+            justification = "the cache is shared by every download on this node")
+    public static synchronized ArtifactCache getInstance() {
+        if (instance == null) {
+            long maxMegabytes = Constants.DEFAULT_ARTIFACT_CACHE_MAX_MB;
+            try {
+                String configured =
+                        YamlConfigLoader.getConfigValue("worker", "artifact-cache-max-mb");
+                if (configured != null) {
+                    maxMegabytes = Long.parseLong(configured);
+                }
+            } catch (RuntimeException e) {
+                System.err.println("Using the default artifact cache size: " + e.getMessage());
+            }
+            instance = new ArtifactCache(new File(Constants.ARTIFACT_CACHE_DIRECTORY),
+                    maxMegabytes * 1024 * 1024);
+        }
+        return instance;
+    }
+
+    /**
+     * Copies cached contents to a file.
+     *
+     * @param digest The digest of the contents
+     * @param target The file to copy the contents to, which is replaced if it exists
+     * @return true if the contents were cached and copied, false if they are not cached
+     * @throws IOException if the contents cannot be copied
+     */
+    public boolean copyTo(String digest, Path target) throws IOException {
+        synchronized (this) {
+            if (sizes.get(digest) == null) {
+                return false;
+            }
+        }
+        try {
+            Files.copy(new File(directory, digest).toPath(), target,
+                    StandardCopyOption.REPLACE_EXISTING);
+            return true;
+        } catch (NoSuchFileException e) {
+            // Evicted, or deleted from the disk, since it was looked up
+            forget(digest);
+            return false;
+        }
+    }
+
+    /**
+     * Opens cached contents for reading. The contents stay readable even if they are evicted
+     * while the stream is open.
+     *
+     * @param digest The digest of the contents
+     * @return a stream of the contents, or null if they are not cached
+     * @throws IOException if the contents cannot be opened
+     */
+    public InputStream open(String digest) throws IOException {
+        synchronized (this) {
+            if (sizes.get(digest) == null) {
+                return null;
+            }
+        }
+        try {
+            return Files.newInputStream(new File(directory, digest).toPath());
+        } catch (NoSuchFileException e) {
+            forget(digest);
+            return null;
+        }
+    }
+
+    /**
+     * Caches the contents of a file, unless they are already cached or larger than the whole
+     * cache. The contents are copied to a partial file first, so a file in the cache is always
+     * complete.
+     *
+     * @param digest The digest of the contents of the file
+     * @param source The file to cache
+     * @throws IOException if the file cannot be copied
+     */
+    public void put(String digest, Path source) throws IOException {
+        long size = Files.size(source);
+        synchronized (this) {
+            if (size > maxBytes || sizes.get(digest) != null) {
+                return;
+            }
+        }
+        Files.createDirectories(directory.toPath());
+        Path partial = Files.createTempFile(directory.toPath(), digest, PARTIAL_SUFFIX);
+        try {
+            Files.copy(source, partial, StandardCopyOption.REPLACE_EXISTING);
+            Files.move(partial, new File(directory, digest).toPath(),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(partial);
+        }
+        List<String> evicted;
+        synchronized (this) {
+            if (sizes.put(digest, size) == null) {
+                totalBytes += size;
+            }
+            evicted = evictLeastRecentlyUsed();
+        }
+        for (String evictedDigest : evicted) {
+            if (!new File(directory, evictedDigest).delete()) {
+                System.err.println("Failed to evict cached artifact: " + evictedDigest);
+            }
+        }
+    }
+
+    /**
+     * Removes the least recently used files from the index until the cache fits its size
+     * limit. The caller deletes them outside the lock.
+     *
+     * @return the digests of the evicted files
+     */
+    private List<String> evictLeastRecentlyUsed() {
+        List<String> evicted = new ArrayList<>();
+        Iterator<Map.Entry<String, Long>> entries = sizes.entrySet().iterator();
+        while (totalBytes > maxBytes && entries.hasNext()) {
+            Map.Entry<String, Long> entry = entries.next();
+            totalBytes -= entry.getValue();
+            evicted.add(entry.getKey());
+            entries.remove();
+        }
+        return evicted;
+    }
+
+    private synchronized void forget(String digest) {
+        Long size = sizes.remove(digest);
+        if (size != null) {
+            totalBytes -= size;
+        }
+    }
+
+    /**
+     * Gets the size of the cached files.
+     *
+     * @return the size of the cached files in bytes
+     */
+    public synchronized long getTotalBytes() {
+        return totalBytes;
+    }
+}
@@ -0,0 +1,137 @@
+package com.example.cliserver.backend.database.artifactsDB;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The artifacts of one upload: the path of every file and the digest its contents are stored
+ * under in the blob bucket.
+ * <p>
+ * Files are stored once per digest, so the manifest is all an upload writes for files that were
+ * already uploaded before, by this or any other run.
+ * </p>
+ */
+public class ArtifactManifest {
+    private int version = 1;
+    private List<Entry> files = new ArrayList<>();
+
+    /**
+     * Gets the version of the manifest format.
+     *
+     * @return the version of the manifest format
+     */
+    public int getVersion() {
+        return version;
+    }
+
+    /**
+     * Sets the version of the manifest format.
+     *
+     * @param version the version of the manifest format
+     */
+    public void setVersion(int version) {
+        this.version = version;
+    }
+
+    /**
+     * Gets the files of the upload.
+     *
+     * @return a copy of the files, in the order they were found
+     */
+    public List<Entry> getFiles() {
+        return new ArrayList<>(files);
+    }
+
+    /**
+     * Sets the files of the upload.
+     *
+     * @param files the files of the upload
+     */
+    public void setFiles(List<Entry> files) {
+        this.files = files != null ? new ArrayList<>(files) : new ArrayList<>();
+    }
+
+    /**
+     * A file of an upload.
+     */
+    public static class Entry {
+        private String path;
+        private String digest;
+        private long size;
+
+        /**
+         * Creates an empty entry, for deserialization.
+         */
+        public Entry() {
+        }
+
+        /**
+         * Creates an entry.
+         *
+         * @param path   the path of the file, relative to the directory the artifacts were
+         *               uploaded from
+         * @param digest the hex encoded SHA-256 digest of the contents of the file
+         * @param size   the size of the file in bytes
+         */
+        public Entry(String path, String digest, long size) {
+            this.path = path;
+            this.digest = digest;
+            this.size = size;
+        }
+
+        /**
+         * Gets the path of the file.
+         *
+         * @return the path of the file, relative to the directory the artifacts were uploaded
+         *         from
+         */
+        public String getPath() {
+            return path;
+        }
+
+        /**
+         * Sets the path of the file.
+         *
+         * @param path the path of the file
+         */
+        public void setPath(String path) {
+            this.path = path;
+        }
+
+        /**
+         * Gets the digest of the contents of the file.
+         *
+         * @return the hex encoded SHA-256 digest
+         */
+        public String getDigest() {
+            return digest;
+        }
+
+        /**
+         * Sets the digest of the contents of the file.
+         *
+         * @param digest the hex encoded SHA-256 digest
+         */
+        public void setDigest(String digest) {
+            this.digest = digest;
+        }
+
+        /**
+         * Gets the size of the file.
+         *
+         * @return the size of the file in bytes
+         */
+        public long getSize() {
+            return size;
+        }
+
+        /**
+         * Sets the size of the file.
+         *
+         * @param size the size of the file in bytes
+         */
+        public void setSize(long size) {
+            this.size = size;
+        }
+    }
+}
@@ -0,0 +1,228 @@
+package com.example.cliserver.backend.database.artifactsDB;
+
+import com.example.cliserver.backend.utils.Constants;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import io.minio.GetObjectArgs;
+import io.minio.MinioClient;
+import io.minio.errors.MinioException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.InvalidKeyException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+
+/**
+ * Restores the artifacts of a job into a workspace, so that jobs can use the artifacts of the
+ * jobs they need.
+ * <p>
+ * The manifest of the upload is read from MinIO, and every file it lists is restored in
+ * parallel. A file whose contents are already in the workspace is left alone, a file in the
+ * node-local {@link ArtifactCache} is copied from it, and only the other files are downloaded,
+ * checked against their digest and added to the cache.
+ * </p>
+ */
+public class ArtifactsDownloader {
+    private static final ObjectMapper MANIFEST_MAPPER = new ObjectMapper();
+    private static final Pattern DIGEST = Pattern.compile("[0-9a-f]{64}");
+
+    private MinioClient minioClient;
+    private final ArtifactCache cache;
+
+    /**
+     * Constructs a downloader that caches files in the given cache. Initializes the MinIO
+     * client using configuration loaded from the YAML file.
+     *
+     * @param cache The cache of artifact files on this node
+     */
+    @SuppressFBWarnings("EI_EXPOSE_REP2")
+    public ArtifactsDownloader(ArtifactCache cache) {
+        this.cache = cache;
+        try {
+            this.minioClient = ArtifactsUploader.newMinioClient();
+        } catch (IOException e) {
+            System.err.println("Failed to initialize MinIO client: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Constructs a downloader with the given client and cache.
+     *
+     * @param minioClient The MinIO client to download with
+     * @param cache       The cache of artifact files on this node
+     */
+    ArtifactsDownloader(MinioClient minioClient, ArtifactCache cache) {
+        this.minioClient = minioClient;
+        this.cache = cache;
+    }
+
+    /**
+     * Restores the artifacts stored at a location into a directory, under the paths they were
+     * uploaded from.
+     *
+     * @param location        The location of the artifacts, {@code bucket/prefix/}, as recorded
+     *                        on the job that uploaded them
+     * @param targetDirectory The directory to restore the artifacts into
+     * @param progress        Receives a summary of the restored files
+     * @return the number of restored files
+     * @throws MinioException           if a MinIO-related error occurs
+     * @throws IOException              if the manifest is malformed, or a file cannot be
+     *                                  downloaded or written
+     * @throws NoSuchAlgorithmException if cryptographic algorithm is unavailable
+     * @throws InvalidKeyException      if credentials are invalid
+     */
+    public int downloadArtifacts(String location, File targetDirectory,
+                                 Consumer<String> progress)
+            throws MinioException, IOException, NoSuchAlgorithmException, InvalidKeyException {
+        if (minioClient == null) {
+            throw new IllegalStateException("MinIO client is not initialized.");
+        }
+        int slash = location == null ? -1 : location.indexOf('/');
+        if (slash <= 0) {
+            throw new IllegalArgumentException("Invalid artifacts location: " + location);
+        }
+        String bucket = location.substring(0, slash);
+        String prefix = location.substring(slash + 1);
+
+        ArtifactManifest manifest;
+        try (InputStream in = minioClient.getObject(GetObjectArgs.builder()
+                .bucket(bucket)
+                .object(prefix + Constants.ARTIFACT_MANIFEST_NAME)
+                .build())) {
+            manifest = MANIFEST_MAPPER.readValue(in, ArtifactManifest.class);
+        }
+
+        // Every path is checked before anything is written
+        Path root = targetDirectory.toPath().toAbsolutePath().normalize();
+        List<ArtifactManifest.Entry> entries = manifest.getFiles();
+        List<Path> targets = new ArrayList<>();
+        for (ArtifactManifest.Entry entry : entries) {
+            if (entry.getDigest() == null || !DIGEST.matcher(entry.getDigest()).matches()) {
+                throw new IOException("Invalid digest in artifact manifest: "
+                        + entry.getDigest());
+            }
+            Path target = entry.getPath() == null ? null
+                    : root.resolve(entry.getPath()).normalize();
+            if (target == null || !target.startsWith(root) || target.equals(root)) {
+                throw new IOException("Artifact path is outside the workspace: "
+                        + entry.getPath());
+            }
+            targets.add(target);
+        }
+        if (entries.isEmpty()) {
+            return 0;
+        }
+
+        AtomicInteger cached = new AtomicInteger();
+        AtomicInteger downloaded = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(
+                Math.min(Constants.ARTIFACT_DOWNLOAD_THREADS, entries.size()));
+        try {
+            List<Future<?>> restores = new ArrayList<>();
+            for (int i = 0; i < entries.size(); i++) {
+                ArtifactManifest.Entry entry = entries.get(i);
+                Path target = targets.get(i);
+                restores.add(pool.submit(() -> {
+                    restoreFile(bucket, entry, target, cached, downloaded);
+                    return null;
+                }));
+            }
+            for (Future<?> restore : restores) {
+                restore.get();
+            }
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof MinioException) {
+                throw (MinioException) cause;
+            }
+            throw new IOException("Failed to restore artifacts from " + location, cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Restoring artifacts from " + location + " was interrupted",
+                    e);
+        } finally {
+            pool.shutdownNow();
+        }
+        progress.accept("Restored " + entries.size() + " artifact files from " + location + " ("
+                + cached.get() + " from the node cache, " + downloaded.get() + " downloaded, "
+                + (entries.size() - cached.get() - downloaded.get())
+                + " already in the workspace)");
+        return entries.size();
+    }
+
+    /**
+     * Restores a single file, from the workspace, the cache or MinIO, in that order.
+     *
+     * @param bucket     The bucket the contents are stored in
+     * @param entry      The manifest entry of the file
+     * @param target     The file to restore
+     * @param cached     Counts the files copied from the cache
+     * @param downloaded Counts the files downloaded from MinIO
+     * @throws Exception if the file cannot be restored
+     */
+    private void restoreFile(String bucket, ArtifactManifest.Entry entry, Path target,
+                             AtomicInteger cached, AtomicInteger downloaded) throws Exception {
+        String digest = entry.getDigest();
+        if (Files.isRegularFile(target) && Files.size(target) == entry.getSize()
+                && digest.equals(ArtifactsUploader.sha256(target.toFile()))) {
+            return;
+        }
+        Path parent = target.getParent();
+        if (parent == null) {
+            throw new IOException("Artifact file has no parent directory: " + target);
+        }
+        Files.createDirectories(parent);
+        if (cache.copyTo(digest, target)) {
+            cached.incrementAndGet();
+            return;
+        }
+
+        Path partial = Files.createTempFile(parent, ".artifact", ".part");
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            try (InputStream in = new DigestInputStream(minioClient.getObject(
+                    GetObjectArgs.builder()
+                            .bucket(bucket)
+                            .object(Constants.ARTIFACT_BLOB_PREFIX + digest)
+                            .build()), sha256)) {
+                Files.copy(in, partial, StandardCopyOption.REPLACE_EXISTING);
+            }
+            if (!digest.equals(ArtifactsUploader.hex(sha256.digest()))) {
+                throw new IOException("Downloaded artifact does not match its digest: "
+                        + entry.getPath());
+            }
+            Files.move(partial, target, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(partial);
+        }
+        downloaded.incrementAndGet();
+        cache.put(digest, target);
+    }
+
+    /**
+     * Manually sets a custom MinIO client (for testing or reconfiguration).
+     *
+     * @param minioClient The custom {@link MinioClient} to use.
+     */
+    @SuppressFBWarnings("EI_EXPOSE_REP2")
+    public void setMinioClient(MinioClient minioClient) {
+        this.minioClient = minioClient;
+    }
+}
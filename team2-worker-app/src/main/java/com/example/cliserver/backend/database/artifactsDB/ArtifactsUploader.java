@@ -1,24 +1,52 @@
 package com.example.cliserver.backend.database.artifactsDB;
 
 import com.example.cliserver.backend.utils.Constants;
+import com.example.cliserver.backend.utils.GlobMatcher;
 import com.example.cliserver.backend.utils.YamlConfigLoader;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 import io.minio.BucketExistsArgs;
 import io.minio.MakeBucketArgs;
 import io.minio.MinioClient;
+import io.minio.PutObjectArgs;
+import io.minio.StatObjectArgs;
+import io.minio.StatObjectResponse;
 import io.minio.UploadObjectArgs;
+import io.minio.errors.ErrorResponseException;
 import io.minio.errors.MinioException;
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
-import java.nio.file.FileSystems;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.PathMatcher;
 import java.nio.file.Paths;
+import java.security.DigestInputStream;
 import java.security.InvalidKeyException;
+import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.zip.GZIPOutputStream;
 
 
 /**
@@ -28,15 +56,68 @@ import java.util.Objects;
  * - Single files
  * - Entire directories (recursively)
  * - Wildcard-based file patterns (e.g., *.json)
+ * <p>
+ * All artifacts are stored in one configured bucket. The artifacts of a job are stored under
+ * the key prefix {@code repo/pipeline/run/job/}, so the artifacts of a run are listed with a
+ * single prefix query, and the bucket is checked for once per uploader.
+ * </p>
+ * <p>
+ * Artifact files are content addressed: every file is stored once under the SHA-256 digest of
+ * its contents, and every upload writes a manifest under its prefix that maps the paths of its
+ * files to their digests. A file whose digest is already stored, such as
+ * an unchanged dependency jar, is not uploaded again. The digests known to be stored are
+ * remembered for a while, so most of them are not even looked up. A stored file that has not
+ * been renewed for {@link Constants#ARTIFACT_BLOB_REFRESH_MILLIS} is uploaded again rather than
+ * reused, so the server never collects a file that an upload has just decided to reference.
+ * </p>
+ * <p>
+ * All files of a call are collected first and then hashed and uploaded in parallel, a bounded
+ * number at a time. The uploads also share a budget of bytes in flight, so a few large files
+ * cannot flood the network while many small files are never held back by round-trips. Large
+ * files are uploaded in large parts. If any file fails, no further files are started and no
+ * manifest is written, so a failed upload leaves no partial set of artifacts behind; the files
+ * it stored are only reachable by their digest, for later uploads of the same contents.
+ * </p>
  */
-public class ArtifactsUploader {
+public final class ArtifactsUploader implements AutoCloseable {
+    private static final ObjectMapper MANIFEST_MAPPER = new ObjectMapper();
+
     private MinioClient minioClient;
+    private final String bucket;
+    private final int uploadThreads;
+    /**
+     * The budget of bytes in flight, in kilobytes, shared by all calls on this uploader.
+     */
+    private final int maxInFlightKilobytes;
+    private final Semaphore inFlightKilobytes;
+    /**
+     * The threads files are hashed and stored on, shared by all calls on this uploader. Idle
+     * threads exit, so an uploader that is not uploading holds no threads.
+     */
+    private final ThreadPoolExecutor uploadPool;
+    /**
+     * The digests known to be stored, with the time they were last known to be stored, least
+     * recently used first.
+     */
+    private final Map<String, Long> storedBlobs =
+            new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+                    return size() > Constants.ARTIFACT_BLOB_INDEX_SIZE;
+                }
+            };
+    private volatile boolean bucketReady;
 
     /**
      * Constructs a new {@code ArtifactsUploader} instance.
-     * Initializes the MinIO client using configuration loaded from the YAML file.
+     * Initializes the MinIO client, the bucket and the upload limits using configuration loaded
+     * from the YAML file.
      */
     public ArtifactsUploader() {
+        this(null, readSetting("bucket", Constants.DEFAULT_ARTIFACT_BUCKET),
+                readLimit("upload-threads", Constants.DEFAULT_ARTIFACT_UPLOAD_THREADS),
+                readLimit("upload-max-in-flight-mb",
+                        Constants.DEFAULT_ARTIFACT_UPLOAD_MAX_IN_FLIGHT_MB) * 1024 * 1024);
         try {
             initializeMinioClient();
         } catch (IOException e) {
@@ -44,13 +125,157 @@ public class ArtifactsUploader {
         }
     }
 
+    /**
+     * Constructs an uploader with the given client, bucket and upload limits.
+     *
+     * @param minioClient      The MinIO client to upload with
+     * @param bucket           The bucket to store all artifacts in
+     * @param uploadThreads    The number of files uploaded at the same time
+     * @param maxInFlightBytes The number of bytes being uploaded at any time
+     */
+    ArtifactsUploader(MinioClient minioClient, String bucket, long uploadThreads,
+                      long maxInFlightBytes) {
+        if (bucket == null || bucket.trim().isEmpty()) {
+            throw new IllegalArgumentException("Bucket name cannot be null or empty.");
+        }
+        if (uploadThreads < 1 || maxInFlightBytes < 1024) {
+            throw new IllegalArgumentException("Upload limits must allow at least one thread "
+                    + "and one kilobyte in flight.");
+        }
+        this.minioClient = minioClient;
+        this.bucket = bucket;
+        this.uploadThreads = (int) Math.min(uploadThreads, 256);
+        this.maxInFlightKilobytes = (int) Math.min(maxInFlightBytes / 1024, Integer.MAX_VALUE);
+        this.inFlightKilobytes = new Semaphore(maxInFlightKilobytes);
+        this.uploadPool = new ThreadPoolExecutor(this.uploadThreads, this.uploadThreads,
+                Constants.ARTIFACT_UPLOAD_THREAD_IDLE_SECONDS, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), runnable -> {
+                    Thread thread = new Thread(runnable, "artifact-upload");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.uploadPool.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Stops the threads of this uploader once the uploads in progress are done. Uploads
+     * started afterwards fail.
+     */
+    @Override
+    public void close() {
+        uploadPool.shutdown();
+    }
+
+    /**
+     * Reads an upload limit from the minio section of the configuration file.
+     *
+     * @param key          The key of the limit
+     * @param defaultValue The value to use if the limit is not configured
+     * @return the configured limit, or the default value
+     */
+    private static long readLimit(String key, long defaultValue) {
+        try {
+            String configured = YamlConfigLoader.getConfigValue("minio", key);
+            if (configured != null) {
+                return Long.parseLong(configured);
+            }
+        } catch (RuntimeException e) {
+            System.err.println("Using the default artifact " + key + ": " + e.getMessage());
+        }
+        return defaultValue;
+    }
+
+    /**
+     * Reads a setting from the minio section of the configuration file.
+     *
+     * @param key          The key of the setting
+     * @param defaultValue The value to use if the setting is not configured
+     * @return the configured value, or the default value
+     */
+    private static String readSetting(String key, String defaultValue) {
+        try {
+            String configured = YamlConfigLoader.getConfigValue("minio", key);
+            if (configured != null && !configured.trim().isEmpty()) {
+                return configured.trim();
+            }
+        } catch (RuntimeException e) {
+            System.err.println("Using the default artifact " + key + ": " + e.getMessage());
+        }
+        return defaultValue;
+    }
+
+    /**
+     * Gets the bucket all artifacts are stored in.
+     *
+     * @return the name of the bucket
+     */
+    public String getBucket() {
+        return bucket;
+    }
+
+    /**
+     * Builds the key prefix the artifacts of a job are stored under,
+     * {@code repo/pipeline/run/job/}. Every part is reduced to a single key segment that does
+     * not start with a dot, and the scheme and {@code .git} suffix of the repository are
+     * dropped.
+     *
+     * @param repo         The repository of the pipeline run
+     * @param pipelineName The name of the pipeline
+     * @param runNumber    The run number of the pipeline
+     * @param jobName      The name of the job
+     * @return the key prefix, ending in a slash
+     */
+    public static String objectPrefix(String repo, String pipelineName, int runNumber,
+                                      String jobName) {
+        return repoSegment(repo) + "/" + keySegment(pipelineName) + "/" + runNumber + "/"
+                + keySegment(jobName) + "/";
+    }
+
+    /**
+     * Reduces a repository to a single key segment, without its scheme and {@code .git}
+     * suffix.
+     *
+     * @param repo The repository
+     * @return the key segment
+     */
+    static String repoSegment(String repo) {
+        String repoName = repo == null ? "" : repo
+                .replaceFirst("^[A-Za-z][A-Za-z0-9+.-]*://", "")
+                .replaceFirst("\\.git/?$", "");
+        return keySegment(repoName);
+    }
+
+    /**
+     * Reduces a value to a single key segment of letters, digits, dots, dashes and underscores.
+     *
+     * @param value The value
+     * @return the key segment, never empty and never starting with a dot
+     */
+    static String keySegment(String value) {
+        String segment = value == null ? "" : value.replaceAll("[^A-Za-z0-9._-]", "_");
+        if (segment.isEmpty() || segment.startsWith(".")) {
+            segment = "_" + segment;
+        }
+        return segment;
+    }
+
     /**
      * Initializes the MinIO client using values from the configuration file.
      *
      * @throws IOException if the configuration cannot be read
      */
     private void initializeMinioClient() throws IOException {
-        this.minioClient = MinioClient.builder()
+        this.minioClient = newMinioClient();
+    }
+
+    /**
+     * Creates a MinIO client using values from the configuration file.
+     *
+     * @return the MinIO client
+     * @throws IOException if the configuration cannot be read
+     */
+    static MinioClient newMinioClient() throws IOException {
+        return MinioClient.builder()
                 .endpoint(Objects.requireNonNull(
                         YamlConfigLoader.getConfigValue("minio", "url")))
                 .credentials(
@@ -62,34 +287,70 @@ public class ArtifactsUploader {
     }
 
     /**
-     * Uploads multiple artifact paths to a specified MinIO bucket.
+     * Uploads multiple artifact paths under a key prefix.
      *
-     * @param bucketName The bucket where artifacts should be uploaded
-     * @param filePaths  List of relative file or folder paths under LOCAL_ARTIFACTS_DIRECTORY
+     * @param prefix    The key prefix the artifacts are stored under
+     * @param filePaths List of relative file or folder paths under LOCAL_ARTIFACTS_DIRECTORY
      * @throws MinioException           if a MinIO-related error occurs
      * @throws IOException              if file access or path resolution fails
      * @throws NoSuchAlgorithmException if cryptographic algorithm is unavailable
      * @throws InvalidKeyException      if credentials are invalid
      */
-    public void uploadArtifacts(String bucketName, List<String> filePaths)
+    public void uploadArtifacts(String prefix, List<String> filePaths)
             throws MinioException, IOException, NoSuchAlgorithmException, InvalidKeyException {
+        uploadArtifacts(prefix, Constants.LOCAL_ARTIFACTS_DIRECTORY, filePaths);
+    }
 
-        if (bucketName == null || bucketName.trim().isEmpty()) {
-            throw new IllegalArgumentException("Bucket name cannot be null or empty.");
-        }
+    /**
+     * Uploads multiple artifact paths under a base directory under a key prefix.
+     *
+     * @param prefix        The key prefix the artifacts are stored under
+     * @param baseDirectory The directory the artifact paths are relative to
+     * @param filePaths     List of relative file or folder paths under the base directory
+     * @throws MinioException           if a MinIO-related error occurs
+     * @throws IOException              if file access or path resolution fails
+     * @throws NoSuchAlgorithmException if cryptographic algorithm is unavailable
+     * @throws InvalidKeyException      if credentials are invalid
+     */
+    public void uploadArtifacts(String prefix, String baseDirectory, List<String> filePaths)
+            throws MinioException, IOException, NoSuchAlgorithmException, InvalidKeyException {
+        uploadArtifacts(prefix, baseDirectory, filePaths, message -> { });
+    }
+
+    /**
+     * Uploads multiple artifact paths under a base directory, reporting every file. The files
+     * are stored under their digests, and their manifest under the given key prefix.
+     *
+     * @param prefix        The key prefix the manifest of the artifacts is written under
+     * @param baseDirectory The directory the artifact paths are relative to
+     * @param filePaths     List of relative file or folder paths under the base directory
+     * @param progress      Receives a message for every file, from the upload threads
+     * @return the manifest that was written
+     * @throws MinioException           if a MinIO-related error occurs
+     * @throws IOException              if file access, path resolution or an upload fails
+     * @throws NoSuchAlgorithmException if cryptographic algorithm is unavailable
+     * @throws InvalidKeyException      if credentials are invalid
+     */
+    public ArtifactManifest uploadArtifacts(String prefix, String baseDirectory,
+                                            List<String> filePaths, Consumer<String> progress)
+            throws MinioException, IOException, NoSuchAlgorithmException, InvalidKeyException {
+        String keyPrefix = normalizePrefix(prefix);
 
         if (minioClient == null) {
             throw new IllegalStateException("MinIO client is not initialized.");
         }
 
-        boolean isExists = minioClient.bucketExists(
-                BucketExistsArgs.builder().bucket(bucketName).build());
-        if (!isExists) {
-            minioClient.makeBucket(MakeBucketArgs.builder().bucket(bucketName).build());
-        }
+        ensureBucket();
 
+        // Resolve every path before uploading anything, so a missing path uploads nothing
+        List<String> excludes = excludePatterns(filePaths);
+        List<String> wildcards = new ArrayList<>();
+        List<UploadTask> tasks = new ArrayList<>();
         for (String relativePath : filePaths) {
-            String fullPath = Constants.LOCAL_ARTIFACTS_DIRECTORY + "/" + relativePath;
+            if (relativePath.startsWith("!")) {
+                continue;
+            }
+            String fullPath = baseDirectory + "/" + relativePath;
 
             File file = new File(fullPath);
 
@@ -98,29 +359,345 @@ public class ArtifactsUploader {
             }
             try {
                 if (file.isFile()) {
-                    uploadFile(bucketName, file);
+                    if (!isExcluded(relativePath, excludes)) {
+                        tasks.add(new UploadTask(file, fullPath, null));
+                    }
                 } else if (file.isDirectory()) {
-                    uploadDirectory(bucketName, file);
+                    collectDirectory(baseDirectory, relativePath, excludes, tasks);
                 } else {
-                    processWildcard(bucketName, fullPath);
+                    wildcards.add(relativePath);
                 }
             } catch (Exception e) {
                 throw new IOException("Failed to upload path: " + fullPath, e);
             }
         }
+        if (!wildcards.isEmpty()) {
+            try {
+                processWildcards(baseDirectory, wildcards, excludes, tasks);
+            } catch (Exception e) {
+                throw new IOException("Failed to upload path: " + baseDirectory + "/"
+                        + String.join(", ", wildcards), e);
+            }
+        }
+
+        Path basePath = Paths.get(baseDirectory).toAbsolutePath().normalize();
+        ArtifactManifest manifest = new ArtifactManifest();
+        manifest.setFiles(uploadAll(basePath, tasks, progress));
+        writeManifest(keyPrefix, manifest);
+        return manifest;
+    }
+
+    /**
+     * Checks that a key prefix is set, and makes it end in a slash.
+     *
+     * @param prefix The key prefix of an upload
+     * @return the key prefix, ending in a slash
+     */
+    private static String normalizePrefix(String prefix) {
+        if (prefix == null || prefix.trim().isEmpty()) {
+            throw new IllegalArgumentException("Key prefix cannot be null or empty.");
+        }
+        return prefix.endsWith("/") ? prefix : prefix + "/";
+    }
+
+    /**
+     * Creates the bucket if it does not exist. The bucket is only checked for on the first
+     * upload; it is not expected to be removed while the worker runs.
+     *
+     * @throws MinioException           if a MinIO-related error occurs
+     * @throws IOException              if the request fails
+     * @throws NoSuchAlgorithmException if cryptographic algorithm is unavailable
+     * @throws InvalidKeyException      if credentials are invalid
+     */
+    void ensureBucket()
+            throws MinioException, IOException, NoSuchAlgorithmException, InvalidKeyException {
+        if (bucketReady) {
+            return;
+        }
+        synchronized (this) {
+            if (bucketReady) {
+                return;
+            }
+            boolean isExists = minioClient.bucketExists(
+                    BucketExistsArgs.builder().bucket(bucket).build());
+            if (!isExists) {
+                minioClient.makeBucket(MakeBucketArgs.builder().bucket(bucket).build());
+            }
+            bucketReady = true;
+        }
+    }
+
+    /**
+     * Writes the manifest of an upload under its key prefix.
+     *
+     * @param keyPrefix The key prefix of the upload
+     * @param manifest  The manifest of the upload
+     * @throws MinioException           if a MinIO-related error occurs
+     * @throws IOException              if the request fails
+     * @throws NoSuchAlgorithmException if cryptographic algorithm is unavailable
+     * @throws InvalidKeyException      if credentials are invalid
+     */
+    private void writeManifest(String keyPrefix, ArtifactManifest manifest)
+            throws MinioException, IOException, NoSuchAlgorithmException, InvalidKeyException {
+        byte[] content = MANIFEST_MAPPER.writeValueAsBytes(manifest);
+        minioClient.putObject(PutObjectArgs.builder()
+                .bucket(bucket)
+                .object(keyPrefix + Constants.ARTIFACT_MANIFEST_NAME)
+                .stream(new ByteArrayInputStream(content), content.length, -1)
+                .contentType("application/json")
+                .build());
+    }
+
+    /**
+     * Stores files in parallel on the threads of this uploader, at most {@code uploadThreads}
+     * at a time across all calls and within the budget of bytes in flight. A file takes its
+     * size from the budget before it is started and gives it back when it is done; a file
+     * larger than the whole budget waits for all of it.
+     *
+     * @param basePath The directory the manifest paths are relative to
+     * @param tasks    The files to store
+     * @param progress Receives a message for every file
+     * @return the manifest entries of the files, in the order of the tasks
+     * @throws IOException if a file fails to upload
+     */
+    private List<ArtifactManifest.Entry> uploadAll(Path basePath, List<UploadTask> tasks,
+                                                   Consumer<String> progress)
+            throws IOException {
+        if (tasks.isEmpty()) {
+            return new ArrayList<>();
+        }
+        ArtifactManifest.Entry[] entries = new ArtifactManifest.Entry[tasks.size()];
+        List<Future<?>> uploads = new ArrayList<>();
+        AtomicReference<UploadTask> failedTask = new AtomicReference<>();
+        AtomicReference<Exception> failure = new AtomicReference<>();
+        AtomicInteger completed = new AtomicInteger();
+        AtomicInteger uploadedFiles = new AtomicInteger();
+        AtomicLong uploadedBytes = new AtomicLong();
+        try {
+            for (int i = 0; i < tasks.size(); i++) {
+                if (failure.get() != null) {
+                    break;
+                }
+                UploadTask task = tasks.get(i);
+                int index = i;
+                int kilobytes = (int) Math.min(maxInFlightKilobytes,
+                        Math.max(1, (task.file.length() + 1023) / 1024));
+                inFlightKilobytes.acquire(kilobytes);
+                Runnable upload = () -> {
+                    try {
+                        if (failure.get() != null) {
+                            return;
+                        }
+                        long size = task.file.length();
+                        String digest = sha256(task.file);
+                        boolean uploaded = storeBlob(task.file, digest);
+                        entries[index] = new ArtifactManifest.Entry(
+                                manifestPath(basePath, task.file), digest, size);
+                        if (uploaded) {
+                            uploadedFiles.incrementAndGet();
+                            uploadedBytes.addAndGet(size);
+                        }
+                        progress.accept((uploaded ? "Uploaded artifact " : "Artifact ")
+                                + task.file.getPath() + (uploaded ? "" : " unchanged") + " ("
+                                + size + " bytes, " + completed.incrementAndGet() + "/"
+                                + tasks.size() + ")");
+                    } catch (Exception e) {
+                        if (failure.compareAndSet(null, e)) {
+                            failedTask.set(task);
+                        }
+                    } finally {
+                        inFlightKilobytes.release(kilobytes);
+                    }
+                };
+                try {
+                    uploads.add(uploadPool.submit(upload));
+                } catch (RejectedExecutionException e) {
+                    inFlightKilobytes.release(kilobytes);
+                    failure.compareAndSet(null,
+                            new IOException("The artifact uploader is closed", e));
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            failure.compareAndSet(null, e);
+        } finally {
+            awaitUploads(uploads);
+        }
+
+        Exception cause = failure.get();
+        if (cause != null) {
+            UploadTask task = failedTask.get();
+            if (cause instanceof IOException && task == null) {
+                throw (IOException) cause;
+            }
+            if (task == null) {
+                throw new IOException("Artifact upload was interrupted", cause);
+            }
+            throw new IOException("Failed to upload path: " + task.fullPath,
+                    task.failureMessage == null ? cause
+                            : new RuntimeException(task.failureMessage + task.file.toPath(),
+                                    cause));
+        }
+        progress.accept("Uploaded " + uploadedFiles.get() + " of " + tasks.size()
+                + " artifact files (" + uploadedBytes.get() + " bytes), the others were "
+                + "already stored");
+        return Arrays.asList(entries);
+    }
+
+    /**
+     * Waits for the uploads that were started to finish. Uploads are not interrupted, as
+     * an interrupted upload could leave an incomplete object behind.
+     *
+     * @param uploads The uploads that were started
+     */
+    private static void awaitUploads(List<Future<?>> uploads) {
+        boolean interrupted = false;
+        for (Future<?> upload : uploads) {
+            while (!upload.isDone()) {
+                try {
+                    upload.get();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                } catch (ExecutionException e) {
+                    // The uploads record their own failures
+                    break;
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Stores a file under its digest, unless its contents are already stored.
+     *
+     * @param file   The file to store
+     * @param digest The digest of the contents of the file
+     * @return true if the file was uploaded, false if its contents were already stored
+     * @throws MinioException           if a MinIO-related error occurs
+     * @throws IOException              if file access fails
+     * @throws NoSuchAlgorithmException if cryptographic algorithm is unavailable
+     * @throws InvalidKeyException      if credentials are invalid
+     */
+    private boolean storeBlob(File file, String digest)
+            throws MinioException, IOException, NoSuchAlgorithmException, InvalidKeyException {
+        if (isBlobStored(digest)) {
+            return false;
+        }
+        uploadFile(bucket, Constants.ARTIFACT_BLOB_PREFIX + digest, file);
+        synchronized (storedBlobs) {
+            storedBlobs.put(digest, System.currentTimeMillis());
+        }
+        return true;
+    }
+
+    /**
+     * Checks whether contents are stored under their digest, asking MinIO only for digests
+     * that have not been known to be stored recently. Contents that were stored too long ago
+     * count as not stored, so that they are uploaded again and renewed.
+     *
+     * @param digest The digest of the contents
+     * @return true if the contents are stored and may be reused, else false
+     * @throws MinioException           if a MinIO-related error occurs
+     * @throws IOException              if the request fails
+     * @throws NoSuchAlgorithmException if cryptographic algorithm is unavailable
+     * @throws InvalidKeyException      if credentials are invalid
+     */
+    private boolean isBlobStored(String digest)
+            throws MinioException, IOException, NoSuchAlgorithmException, InvalidKeyException {
+        long now = System.currentTimeMillis();
+        synchronized (storedBlobs) {
+            Long knownAt = storedBlobs.get(digest);
+            if (knownAt != null && now - knownAt < Constants.ARTIFACT_BLOB_INDEX_TTL_MILLIS) {
+                return true;
+            }
+        }
+        StatObjectResponse stat;
+        try {
+            stat = minioClient.statObject(StatObjectArgs.builder()
+                    .bucket(bucket)
+                    .object(Constants.ARTIFACT_BLOB_PREFIX + digest)
+                    .build());
+        } catch (ErrorResponseException e) {
+            if ("NoSuchKey".equals(e.errorResponse().code())) {
+                return false;
+            }
+            throw e;
+        }
+        if (stat != null && stat.lastModified() != null && now
+                - stat.lastModified().toInstant().toEpochMilli()
+                >= Constants.ARTIFACT_BLOB_REFRESH_MILLIS) {
+            return false;
+        }
+        synchronized (storedBlobs) {
+            storedBlobs.put(digest, now);
+        }
+        return true;
+    }
+
+    /**
+     * Hashes the contents of a file with SHA-256, reading it in a single pass.
+     *
+     * @param file The file to hash
+     * @return the hex encoded digest
+     * @throws IOException if the file cannot be read
+     */
+    static String sha256(File file) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+        try (InputStream in = new DigestInputStream(Files.newInputStream(file.toPath()),
+                digest)) {
+            in.transferTo(OutputStream.nullOutputStream());
+        }
+        return hex(digest.digest());
     }
 
     /**
-     * Uploads a single file to the specified MinIO bucket.
+     * Encodes a digest as lower case hex.
+     *
+     * @param digest The digest
+     * @return the hex encoded digest
+     */
+    static String hex(byte[] digest) {
+        StringBuilder hex = new StringBuilder();
+        for (byte b : digest) {
+            hex.append(String.format("%02x", b));
+        }
+        return hex.toString();
+    }
+
+    /**
+     * Gets the path a file is listed under in the manifest.
+     *
+     * @param basePath The directory the artifact paths are relative to
+     * @param file     The file
+     * @return the path of the file relative to the directory, with forward slashes
+     */
+    private static String manifestPath(Path basePath, File file) {
+        Path path = file.toPath().toAbsolutePath().normalize();
+        Path relative = path.startsWith(basePath) ? basePath.relativize(path) : path;
+        return relative.toString().replace(File.separatorChar, '/');
+    }
+
+    /**
+     * Uploads a single file to the specified MinIO bucket. Files of at least
+     * {@link Constants#ARTIFACT_MULTIPART_THRESHOLD} bytes are uploaded in parts of
+     * {@link Constants#ARTIFACT_UPLOAD_PART_SIZE} bytes.
      *
      * @param bucketName The bucket name
+     * @param objectName The name of the object to upload the file as
      * @param file       The file to upload
      * @throws MinioException           if a MinIO-related error occurs
      * @throws IOException              if file access fails
      * @throws NoSuchAlgorithmException if cryptographic algorithm is unavailable
      * @throws InvalidKeyException      if credentials are invalid
      */
-    private void uploadFile(String bucketName, File file)
+    private void uploadFile(String bucketName, String objectName, File file)
             throws MinioException, IOException, NoSuchAlgorithmException, InvalidKeyException {
 
         if (!file.exists() || !file.isFile()) {
@@ -128,78 +705,317 @@ public class ArtifactsUploader {
                     file.getAbsolutePath());
         }
 
-        minioClient.uploadObject(
-                UploadObjectArgs.builder()
-                        .bucket(bucketName)
-                        .object(file.getName())
-                        .filename(file.getAbsolutePath())
-                        .build());
+        UploadObjectArgs.Builder args = UploadObjectArgs.builder()
+                .bucket(bucketName)
+                .object(objectName);
+        if (file.length() >= Constants.ARTIFACT_MULTIPART_THRESHOLD) {
+            args.filename(file.getAbsolutePath(), Constants.ARTIFACT_UPLOAD_PART_SIZE);
+        } else {
+            args.filename(file.getAbsolutePath());
+        }
+        minioClient.uploadObject(args.build());
     }
 
     /**
-     * Recursively uploads all files in a directory to the specified MinIO bucket.
+     * Gets the negated artifact paths, without their {@code !}.
      *
-     * @param bucketName The bucket name
-     * @param directory  The directory to walk and upload
-     * @throws IOException if directory traversal or file access fails
-     */
-    private void uploadDirectory(String bucketName, File directory) throws IOException {
-        if (!directory.isDirectory()) {
-            throw new IllegalArgumentException("Path is not a directory: " +
-                    directory.getAbsolutePath());
-        }
-
-        try (var paths = Files.walk(directory.toPath())) {
-            paths.filter(Files::isRegularFile)
-                    .forEach(path -> {
-                        try {
-                            uploadFile(bucketName, path.toFile());
-                        } catch (Exception e) {
-                            throw new RuntimeException("Failed to upload file in directory: " +
-                                    path, e);
-                        }
-                    });
+     * @param filePaths The artifact paths
+     * @return the patterns of the files to leave out, prefixed with {@code !} for
+     *         {@link GlobMatcher}
+     */
+    private static List<String> excludePatterns(List<String> filePaths) {
+        List<String> excludes = new ArrayList<>();
+        for (String filePath : filePaths) {
+            if (filePath.startsWith("!")) {
+                excludes.add(filePath);
+            }
         }
+        return excludes;
     }
 
+    /**
+     * Checks if a path is left out by a negated artifact path.
+     *
+     * @param relativePath The path, relative to the base directory
+     * @param excludes     The negated artifact paths
+     * @return {@code true} if a negated path matches the path or a directory above it
+     */
+    private static boolean isExcluded(String relativePath, List<String> excludes) {
+        if (excludes.isEmpty()) {
+            return false;
+        }
+        List<String> patterns = new ArrayList<>(excludes);
+        patterns.add(0, "**");
+        return !GlobMatcher.compile(patterns).matches(relativePath);
+    }
 
     /**
-     * Handles wildcard-based file uploads using glob patterns.
+     * Collects all files in a directory, recursively, in path order, leaving out the files of
+     * the negated artifact paths.
      *
-     * @param bucketName The bucket name
-     * @param pattern    The path with wildcard (e.g., artifacts/*.json)
-     * @throws IOException if pattern matching or file access fails
-     */
-    private void processWildcard(String bucketName, String pattern) throws IOException {
-        int lastSlashIndex = pattern.lastIndexOf(File.separator);
-        String baseDir = ".";
-        String globPattern = pattern;
-
-        if (lastSlashIndex != -1) {
-            baseDir = pattern.substring(0, lastSlashIndex);
-            globPattern = pattern.substring(lastSlashIndex + 1);
-        }
-
-        Path basePath = Paths.get(baseDir);
-        PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + globPattern);
-
-        try (var paths = Files.walk(basePath)) {
-            paths.filter(Files::isRegularFile)
-                    .filter(path -> matcher.matches(basePath.relativize(path)))
-                    .forEach(path -> {
-                        try {
-                            uploadFile(bucketName, path.toFile());
-                        } catch (Exception e) {
-                            throw new RuntimeException("Wildcard upload failed for file: " +
-                                    path, e);
-                        }
-                    });
+     * @param baseDirectory The directory the artifact paths are relative to
+     * @param relativePath  The artifact path of the directory
+     * @param excludes      The negated artifact paths
+     * @param tasks         The list to add the files to
+     * @throws IOException if directory traversal fails
+     */
+    private void collectDirectory(String baseDirectory, String relativePath,
+                                  List<String> excludes, List<UploadTask> tasks)
+            throws IOException {
+        List<String> patterns = new ArrayList<>(excludes);
+        patterns.add(0, relativePath + "/**");
+        String fullPath = baseDirectory + "/" + relativePath;
+        for (Path path : GlobMatcher.compile(patterns).walk(Paths.get(baseDirectory))) {
+            tasks.add(new UploadTask(path.toFile(), fullPath,
+                    "Failed to upload file in directory: "));
+        }
+    }
+
+    /**
+     * Collects the files matching the wildcard artifact paths in a single walk, in path order.
+     * Only the directories a pattern can match below are walked, so {@code build/**}{@code
+     * /reports/*.xml} lists the directories under {@code build} but nothing else.
+     *
+     * @param baseDirectory The directory the artifact paths are relative to
+     * @param wildcards     The paths with wildcards (e.g., artifacts/*.json)
+     * @param excludes      The negated artifact paths
+     * @param tasks         The list to add the files to
+     * @throws IOException if the directory a pattern starts in does not exist, or walking fails
+     */
+    private void processWildcards(String baseDirectory, List<String> wildcards,
+                                  List<String> excludes, List<UploadTask> tasks)
+            throws IOException {
+        Path basePath = Paths.get(baseDirectory);
+        for (String wildcard : wildcards) {
+            Path directory = basePath.resolve(literalDirectory(wildcard));
+            if (!Files.isDirectory(directory)) {
+                throw new IOException("Failed to walk through wildcard path: "
+                        + baseDirectory + "/" + wildcard);
+            }
+        }
+
+        List<String> patterns = new ArrayList<>(wildcards);
+        patterns.addAll(excludes);
+        List<Path> matches;
+        try {
+            matches = GlobMatcher.compile(patterns).walk(basePath);
         } catch (IOException e) {
-            throw new IOException("Failed to walk through wildcard path: " +
-                    basePath + "/" + globPattern, e);
+            throw new IOException("Failed to walk through wildcard path: " + baseDirectory
+                    + "/" + String.join(", ", wildcards), e);
+        }
+        for (Path path : matches) {
+            String relative = basePath.relativize(path).toString().replace(File.separatorChar, '/');
+            // Failures are reported against the first pattern the file matches
+            String pattern = wildcards.get(0);
+            for (String wildcard : wildcards) {
+                if (GlobMatcher.compile(List.of(wildcard)).matches(relative)) {
+                    pattern = wildcard;
+                    break;
+                }
+            }
+            tasks.add(new UploadTask(path.toFile(), baseDirectory + "/" + pattern,
+                    "Wildcard upload failed for file: "));
         }
     }
 
+    /**
+     * Gets the directories of a wildcard path before its first wildcard segment.
+     *
+     * @param wildcard The path with wildcard
+     * @return the directories, joined with slashes, or an empty string
+     */
+    private String literalDirectory(String wildcard) {
+        String[] segments = wildcard.split("/");
+        int first = 0;
+        while (first < segments.length && !containsWildcard(segments[first])) {
+            first++;
+        }
+        return String.join("/", Arrays.copyOfRange(segments, 0, first));
+    }
+
+    /**
+     * Uploads the artifacts of a job as a single gzip compressed tar archive, streamed from
+     * their source straight into a multipart upload without touching the disk. Every artifact
+     * path is archived under its last path component, as {@code docker cp} does; a wildcard
+     * path archives the matching entries of the directory it starts in.
+     *
+     * @param prefix    The key prefix to upload the archive under, as {@code artifacts.tar.gz}
+     * @param filePaths The artifact paths of the job
+     * @param source    Opens an artifact path, or the directory of a wildcard path, as a tar
+     *                  stream
+     * @param progress  Receives a message for every archived path
+     * @throws MinioException           if a MinIO-related error occurs
+     * @throws IOException              if an artifact path cannot be archived or the upload
+     *                                  fails, in which case no archive is stored
+     * @throws NoSuchAlgorithmException if cryptographic algorithm is unavailable
+     * @throws InvalidKeyException      if credentials are invalid
+     */
+    public void uploadArchive(String prefix, List<String> filePaths, ArchiveSource source,
+                              Consumer<String> progress)
+            throws MinioException, IOException, NoSuchAlgorithmException, InvalidKeyException {
+        String archiveKey = normalizePrefix(prefix) + Constants.ARTIFACT_ARCHIVE_NAME;
+
+        if (minioClient == null) {
+            throw new IllegalStateException("MinIO client is not initialized.");
+        }
+
+        ensureBucket();
+
+        PipedInputStream compressed = new PipedInputStream(Constants.ARTIFACT_ARCHIVE_PIPE_SIZE);
+        PipedOutputStream archiveOut = new PipedOutputStream(compressed);
+        AtomicReference<Exception> archiveFailure = new AtomicReference<>();
+        Thread archiver = new Thread(() -> {
+            try (OutputStream gzip = new GZIPOutputStream(archiveOut, 64 * 1024)) {
+                List<String> excludes = excludePatterns(filePaths);
+                for (String filePath : filePaths) {
+                    if (filePath.startsWith("!")) {
+                        continue;
+                    }
+                    int files = archivePath(filePath, excludes, source, gzip);
+                    progress.accept("Archived artifact " + filePath + " (" + files + " files)");
+                }
+                TarStreams.finish(gzip);
+            } catch (Exception e) {
+                archiveFailure.set(e);
+            } finally {
+                try {
+                    archiveOut.close();
+                } catch (IOException e) {
+                    archiveFailure.compareAndSet(null, e);
+                }
+            }
+        }, "artifact-archiver");
+        archiver.setDaemon(true);
+        archiver.start();
+
+        // The upload fails, and is aborted, if archiving fails, instead of storing a truncated
+        // archive
+        InputStream upload = new InputStream() {
+            private long uploaded;
+
+            @Override
+            public int read() throws IOException {
+                byte[] single = new byte[1];
+                return read(single, 0, 1) < 0 ? -1 : single[0] & 0xff;
+            }
+
+            @Override
+            public int read(byte[] bytes, int offset, int length) throws IOException {
+                int read = compressed.read(bytes, offset, length);
+                if (read < 0) {
+                    waitFor(archiver);
+                    if (archiveFailure.get() != null) {
+                        throw new IOException("Failed to archive artifacts: "
+                                + archiveFailure.get().getMessage(), archiveFailure.get());
+                    }
+                    progress.accept("Uploaded artifact archive " + bucket + "/" + archiveKey
+                            + " (" + uploaded + " bytes)");
+                } else {
+                    uploaded += read;
+                }
+                return read;
+            }
+        };
+        try {
+            minioClient.putObject(PutObjectArgs.builder()
+                    .bucket(bucket)
+                    .object(archiveKey)
+                    .stream(upload, -1, Constants.ARTIFACT_UPLOAD_PART_SIZE)
+                    .contentType("application/gzip")
+                    .build());
+        } finally {
+            // Unblocks the archiver if the upload stopped reading
+            compressed.close();
+            waitFor(archiver);
+        }
+        if (archiveFailure.get() != null) {
+            throw new IOException("Failed to archive artifacts: "
+                    + archiveFailure.get().getMessage(), archiveFailure.get());
+        }
+    }
+
+    /**
+     * Copies the entries of an artifact path into an archive.
+     *
+     * @param filePath The artifact path, relative to the workspace
+     * @param excludes The negated artifact paths
+     * @param source   Opens paths as tar streams
+     * @param out      The archive to write to
+     * @return the number of archived files
+     * @throws IOException if the path cannot be read
+     */
+    private int archivePath(String filePath, List<String> excludes, ArchiveSource source,
+                            OutputStream out) throws IOException {
+        if (!containsWildcard(filePath)) {
+            AtomicInteger entries = new AtomicInteger();
+            String parent = parentOf(filePath);
+            int files;
+            try (InputStream tar = source.open(filePath)) {
+                files = TarStreams.copyEntries(tar, out, name -> entries.incrementAndGet() > 0
+                        && !isExcluded(parent + name, excludes));
+            }
+            if (entries.get() == 0) {
+                throw new IOException("File or directory not found: " + filePath);
+            }
+            return files;
+        }
+
+        // Entries are named after the last component of the directory the wildcard starts in,
+        // so the pattern is matched against the rest of their names
+        String directory = literalDirectory(filePath);
+        String glob = directory.isEmpty() ? filePath : filePath.substring(directory.length() + 1);
+        GlobMatcher matcher = GlobMatcher.compile(List.of(glob));
+        String parent = parentOf(directory);
+        Predicate<String> include = name -> {
+            int slash = name.indexOf('/');
+            String relative = slash < 0 ? "" : name.substring(slash + 1);
+            return !relative.isEmpty() && !relative.endsWith("/")
+                    && matcher.matches(relative) && !isExcluded(parent + name, excludes);
+        };
+        try (InputStream tar = source.open(directory)) {
+            return TarStreams.copyEntries(tar, out, include);
+        }
+    }
+
+    /**
+     * Gets the directory of a path, the prefix the tar entries of the path are relative to.
+     *
+     * @param path The path, relative to the workspace
+     * @return the directory, ending in a slash, or an empty string
+     */
+    private static String parentOf(String path) {
+        int slash = path.lastIndexOf('/');
+        return slash < 0 ? "" : path.substring(0, slash + 1);
+    }
+
+    /**
+     * Waits for a thread to finish, keeping the interrupt status of the current thread.
+     *
+     * @param thread The thread to wait for
+     */
+    private static void waitFor(Thread thread) {
+        boolean interrupted = false;
+        while (thread.isAlive()) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Gets the MinIO client the uploader stores objects with.
+     *
+     * @return the MinIO client, or null if it could not be initialized
+     */
+    MinioClient getMinioClient() {
+        return minioClient;
+    }
+
     /**
      * Manually sets a custom MinIO client (for testing or reconfiguration).
      *
@@ -215,9 +1031,43 @@ public class ArtifactsUploader {
      * Utility method to check if a given path contains wildcard characters.
      *
      * @param path The path to inspect
-     * @return {@code true} if the path includes '*' or '?', otherwise {@code false}
+     * @return {@code true} if the path includes glob syntax, otherwise {@code false}
      */
     private boolean containsWildcard(String path) {
-        return path.contains("*") || path.contains("?");
+        return GlobMatcher.isGlob(path);
+    }
+
+    /**
+     * Opens artifact paths as tar streams, such as the archives Docker makes of the paths in a
+     * container.
+     */
+    @FunctionalInterface
+    public interface ArchiveSource {
+        /**
+         * Opens a path as a tar stream.
+         *
+         * @param path The path, relative to the workspace, or empty for the workspace itself
+         * @return the tar stream of the path, named after its last component
+         * @throws IOException if the path cannot be read
+         */
+        InputStream open(String path) throws IOException;
+    }
+
+    /**
+     * A file to upload, with the artifact path it was found under.
+     */
+    private static final class UploadTask {
+        private final File file;
+        private final String fullPath;
+        /**
+         * The message the failure of the file is wrapped in, or null to report it as is.
+         */
+        private final String failureMessage;
+
+        private UploadTask(File file, String fullPath, String failureMessage) {
+            this.file = file;
+            this.fullPath = fullPath;
+            this.failureMessage = failureMessage;
+        }
     }
 }
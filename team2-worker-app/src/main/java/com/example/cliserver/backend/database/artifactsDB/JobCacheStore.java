@@ -0,0 +1,353 @@
+package com.example.cliserver.backend.database.artifactsDB;
+
+import com.example.cliserver.backend.utils.Constants;
+import com.example.cliserver.backend.utils.YamlConfigLoader;
+import io.minio.GetObjectArgs;
+import io.minio.ListObjectsArgs;
+import io.minio.MinioClient;
+import io.minio.Result;
+import io.minio.UploadObjectArgs;
+import io.minio.errors.ErrorResponseException;
+import io.minio.errors.MinioException;
+import io.minio.messages.Item;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.InvalidKeyException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Restores and saves the dependency caches of jobs, such as a local Maven repository, so that
+ * repeated builds do not download their dependencies again.
+ * <p>
+ * A cache is a gzip compressed tar archive of paths in the workspace, stored in the artifacts
+ * bucket under {@code .caches/<repo>/<key>.tar.gz}, so caches are shared by the pipelines of a
+ * repository. Archives restored or saved on this node are also kept in a node-local
+ * {@link ArtifactCache}, under the digest of their object name, so a cache hit on the same node
+ * never reaches MinIO. A key is only ever saved once, so a kept archive never goes stale.
+ * </p>
+ */
+public class JobCacheStore {
+    private static final Pattern HASH_FILES =
+            Pattern.compile("\\$\\{\\{\\s*hashFiles\\(([^)]*)\\)\\s*}}");
+
+    private final ArtifactsUploader uploader;
+    private final ArtifactCache localCopies;
+
+    /**
+     * Constructs a store that saves caches in the bucket of the given uploader, keeping local
+     * copies in a node-local cache sized according to the configuration file.
+     *
+     * @param uploader The uploader whose client and bucket caches are stored with
+     */
+    public JobCacheStore(ArtifactsUploader uploader) {
+        this(uploader, new ArtifactCache(new File(Constants.JOB_CACHE_DIRECTORY),
+                readMaxMegabytes() * 1024 * 1024));
+    }
+
+    /**
+     * Constructs a store with the given uploader and local copies.
+     *
+     * @param uploader    The uploader whose client and bucket caches are stored with
+     * @param localCopies The cache the archives are kept in on this node
+     */
+    JobCacheStore(ArtifactsUploader uploader, ArtifactCache localCopies) {
+        this.uploader = uploader;
+        this.localCopies = localCopies;
+    }
+
+    private static long readMaxMegabytes() {
+        try {
+            String configured = YamlConfigLoader.getConfigValue("worker", "job-cache-max-mb");
+            if (configured != null) {
+                return Long.parseLong(configured);
+            }
+        } catch (RuntimeException e) {
+            System.err.println("Using the default job cache size: " + e.getMessage());
+        }
+        return Constants.DEFAULT_JOB_CACHE_MAX_MB;
+    }
+
+    /**
+     * Resolves a cache key template, replacing every {@code ${{ hashFiles('a', 'b') }}} with
+     * the SHA-256 digest of the paths and contents of the given files, and of all files under
+     * the given directories. Missing paths are ignored, and if none exists the expression is
+     * replaced with nothing.
+     *
+     * @param template  The key template
+     * @param directory The workspace the paths are relative to
+     * @return the resolved key
+     * @throws IOException if a file cannot be read
+     */
+    public static String resolveKey(String template, Path directory) throws IOException {
+        Path root = directory.toAbsolutePath().normalize();
+        Matcher matcher = HASH_FILES.matcher(template);
+        StringBuilder key = new StringBuilder();
+        while (matcher.find()) {
+            List<Path> files = new ArrayList<>();
+            for (String argument : matcher.group(1).split(",")) {
+                String path = argument.trim().replaceAll("^['\"]|['\"]$", "");
+                if (!path.isEmpty()) {
+                    files.addAll(collectFiles(root, path));
+                }
+            }
+            String digest = "";
+            if (!files.isEmpty()) {
+                MessageDigest sha256 = newSha256();
+                for (Path file : files) {
+                    sha256.update(relativeName(root, file).getBytes(StandardCharsets.UTF_8));
+                    sha256.update((byte) 0);
+                    sha256.update(ArtifactsUploader.sha256(file.toFile())
+                            .getBytes(StandardCharsets.US_ASCII));
+                }
+                digest = ArtifactsUploader.hex(sha256.digest());
+            }
+            matcher.appendReplacement(key, digest);
+        }
+        matcher.appendTail(key);
+        return key.toString();
+    }
+
+    /**
+     * Restores the cache stored under a key into a workspace. If no cache is stored under the
+     * exact key, the most recent cache whose key starts with one of the restore keys is
+     * restored, trying the restore keys in order.
+     *
+     * @param repo        The repository the cache belongs to
+     * @param key         The resolved key of the cache
+     * @param restoreKeys The key prefixes to fall back to
+     * @param directory   The workspace to restore the cache into
+     * @param progress    Receives a message about the restored cache
+     * @return true if the cache of the exact key was restored, false if another cache, or
+     *         none, was restored
+     * @throws MinioException           if a MinIO-related error occurs
+     * @throws IOException              if the cache cannot be downloaded or extracted
+     * @throws NoSuchAlgorithmException if cryptographic algorithm is unavailable
+     * @throws InvalidKeyException      if credentials are invalid
+     */
+    public boolean restore(String repo, String key, List<String> restoreKeys, File directory,
+                           Consumer<String> progress)
+            throws MinioException, IOException, NoSuchAlgorithmException, InvalidKeyException {
+        if (restoreObject(objectName(repo, key), directory, progress)) {
+            progress.accept("Restored job cache " + key);
+            return true;
+        }
+        for (String restoreKey : restoreKeys) {
+            String newest = newestObject(Constants.JOB_CACHE_PREFIX
+                    + ArtifactsUploader.repoSegment(repo) + "/"
+                    + ArtifactsUploader.keySegment(restoreKey));
+            if (newest != null && restoreObject(newest, directory, progress)) {
+                progress.accept("Restored job cache " + newest + " for restore key "
+                        + restoreKey);
+                return false;
+            }
+        }
+        progress.accept("No job cache found for key " + key);
+        return false;
+    }
+
+    /**
+     * Saves paths of a workspace as the cache of a key. Paths that do not exist are skipped,
+     * and if none exists nothing is saved. Symbolic links are not saved.
+     *
+     * @param repo      The repository the cache belongs to
+     * @param key       The resolved key of the cache
+     * @param paths     The paths to save, relative to the workspace
+     * @param directory The workspace
+     * @param progress  Receives a message about the saved cache
+     * @throws MinioException           if a MinIO-related error occurs
+     * @throws IOException              if the paths cannot be archived or uploaded
+     * @throws NoSuchAlgorithmException if cryptographic algorithm is unavailable
+     * @throws InvalidKeyException      if credentials are invalid
+     */
+    public void save(String repo, String key, List<String> paths, File directory,
+                     Consumer<String> progress)
+            throws MinioException, IOException, NoSuchAlgorithmException, InvalidKeyException {
+        MinioClient minioClient = client();
+        Path root = directory.toPath().toAbsolutePath().normalize();
+        List<Path> files = new ArrayList<>();
+        for (String path : paths) {
+            files.addAll(collectFiles(root, path));
+        }
+        if (files.isEmpty()) {
+            progress.accept("No files to save in job cache " + key);
+            return;
+        }
+
+        String objectName = objectName(repo, key);
+        Path archive = Files.createTempFile("job-cache", ".tar.gz");
+        try {
+            try (OutputStream out = new GZIPOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(archive)), 64 * 1024)) {
+                for (Path file : files) {
+                    TarStreams.writeFile(out, relativeName(root, file), file);
+                }
+                TarStreams.finish(out);
+            }
+            uploader.ensureBucket();
+            minioClient.uploadObject(UploadObjectArgs.builder()
+                    .bucket(uploader.getBucket())
+                    .object(objectName)
+                    .filename(archive.toString())
+                    .build());
+            localCopies.put(localName(objectName), archive);
+            progress.accept("Saved job cache " + key + " (" + files.size() + " files, "
+                    + Files.size(archive) + " bytes compressed)");
+        } finally {
+            Files.deleteIfExists(archive);
+        }
+    }
+
+    /**
+     * Extracts a stored cache into a workspace, from the local copy if there is one.
+     *
+     * @param objectName The object the cache is stored as
+     * @param directory  The workspace
+     * @param progress   Receives a message about where the cache came from
+     * @return false if the cache is not stored
+     */
+    private boolean restoreObject(String objectName, File directory, Consumer<String> progress)
+            throws MinioException, IOException, NoSuchAlgorithmException, InvalidKeyException {
+        String localName = localName(objectName);
+        InputStream local = localCopies.open(localName);
+        if (local != null) {
+            int files = extract(local, directory);
+            progress.accept("Extracted " + files + " cached files from the node copy");
+            return true;
+        }
+
+        Path archive = Files.createTempFile("job-cache", ".tar.gz");
+        try {
+            try (InputStream in = client().getObject(GetObjectArgs.builder()
+                    .bucket(uploader.getBucket())
+                    .object(objectName)
+                    .build())) {
+                Files.copy(in, archive, StandardCopyOption.REPLACE_EXISTING);
+            } catch (ErrorResponseException e) {
+                if ("NoSuchKey".equals(e.errorResponse().code())) {
+                    return false;
+                }
+                throw e;
+            }
+            localCopies.put(localName, archive);
+            int files = extract(Files.newInputStream(archive), directory);
+            progress.accept("Extracted " + files + " cached files downloaded from MinIO");
+            return true;
+        } finally {
+            Files.deleteIfExists(archive);
+        }
+    }
+
+    /**
+     * Finds the most recently stored cache with a key prefix.
+     *
+     * @param prefix The object name prefix
+     * @return the object name of the cache, or null if none is stored
+     */
+    private String newestObject(String prefix)
+            throws MinioException, IOException, NoSuchAlgorithmException, InvalidKeyException {
+        Item newest = null;
+        for (Result<Item> result : client().listObjects(ListObjectsArgs.builder()
+                .bucket(uploader.getBucket())
+                .prefix(prefix)
+                .recursive(true)
+                .build())) {
+            Item item = result.get();
+            if (!item.isDir() && (newest == null
+                    || item.lastModified().isAfter(newest.lastModified()))) {
+                newest = item;
+            }
+        }
+        return newest == null ? null : newest.objectName();
+    }
+
+    private static int extract(InputStream archive, File directory) throws IOException {
+        try (InputStream in = new GZIPInputStream(new BufferedInputStream(archive),
+                64 * 1024)) {
+            return TarStreams.extractEntries(in, directory.toPath());
+        }
+    }
+
+    /**
+     * Collects the regular files of a path in the workspace, in name order, without following
+     * symbolic links.
+     *
+     * @param root The workspace
+     * @param path The path, relative to the workspace
+     * @return the files, or an empty list if the path does not exist or is a symbolic link
+     * @throws IOException if the path leaves the workspace or cannot be walked
+     */
+    private static List<Path> collectFiles(Path root, String path) throws IOException {
+        Path start = root.resolve(path).normalize();
+        if (!start.startsWith(root)) {
+            throw new IOException("Cache path is outside the workspace: " + path);
+        }
+        if (!Files.exists(start, LinkOption.NOFOLLOW_LINKS) || Files.isSymbolicLink(start)) {
+            return new ArrayList<>();
+        }
+        // A symbolic link among the parents of the path could lead out of the workspace
+        if (!start.toRealPath().startsWith(root.toRealPath())) {
+            throw new IOException("Cache path is outside the workspace: " + path);
+        }
+        try (Stream<Path> walk = Files.walk(start)) {
+            return walk.filter(file -> Files.isRegularFile(file, LinkOption.NOFOLLOW_LINKS))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+
+    private static String relativeName(Path root, Path file) {
+        return root.relativize(file).toString().replace(File.separatorChar, '/');
+    }
+
+    /**
+     * Builds the object name a cache is stored as.
+     *
+     * @param repo The repository the cache belongs to
+     * @param key  The resolved key of the cache
+     * @return the object name
+     */
+    static String objectName(String repo, String key) {
+        return Constants.JOB_CACHE_PREFIX + ArtifactsUploader.repoSegment(repo) + "/"
+                + ArtifactsUploader.keySegment(key) + ".tar.gz";
+    }
+
+    private static String localName(String objectName) {
+        MessageDigest sha256 = newSha256();
+        return ArtifactsUploader.hex(sha256.digest(objectName.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static MessageDigest newSha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private MinioClient client() {
+        MinioClient minioClient = uploader.getMinioClient();
+        if (minioClient == null) {
+            throw new IllegalStateException("MinIO client is not initialized.");
+        }
+        return minioClient;
+    }
+}
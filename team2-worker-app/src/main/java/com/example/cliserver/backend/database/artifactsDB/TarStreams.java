@@ -0,0 +1,466 @@
+package com.example.cliserver.backend.database.artifactsDB;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.function.Predicate;
+
+/**
+ * Copies the entries of tar streams into a single tar stream, without unpacking them.
+ * <p>
+ * Headers and contents are copied block by block as they are read, so archives of any size pass
+ * through a fixed amount of memory. The end-of-archive marker of every source is dropped, and
+ * written once when the combined archive is finished. Long names in PAX and GNU headers are
+ * understood, so entries can be filtered by their full name.
+ * </p>
+ * <p>
+ * Regular files can also be written as entries, and the regular files and directories of a tar
+ * stream extracted into a directory, which is how job caches are packed and unpacked.
+ * </p>
+ */
+final class TarStreams {
+    private static final int BLOCK_SIZE = 512;
+    private static final byte TYPE_PAX_HEADER = 'x';
+    private static final byte TYPE_GNU_LONG_NAME = 'L';
+    private static final byte TYPE_GNU_LONG_LINK = 'K';
+    private static final byte TYPE_DIRECTORY = '5';
+    private static final byte TYPE_FILE = '0';
+    private static final long MAX_OCTAL_SIZE = 077777777777L;
+
+    private TarStreams() {
+    }
+
+    /**
+     * Copies the entries of a tar stream that a filter accepts.
+     *
+     * @param tar     The tar stream to read
+     * @param out     The stream to write the entries to
+     * @param include Accepts the names of the entries to copy, directories ending in a slash
+     * @return the number of copied entries that are not directories
+     * @throws IOException if the tar stream cannot be read or is malformed
+     */
+    static int copyEntries(InputStream tar, OutputStream out, Predicate<String> include)
+            throws IOException {
+        byte[] header = new byte[BLOCK_SIZE];
+        byte[] buffer = new byte[64 * BLOCK_SIZE];
+        // Extended headers belong to the entry that follows them
+        ByteArrayOutputStream pending = new ByteArrayOutputStream();
+        String longName = null;
+        int copied = 0;
+        while (readBlock(tar, header)) {
+            if (isZeroBlock(header)) {
+                break;
+            }
+            byte type = header[156];
+            long size = parseSize(header);
+            if (type == TYPE_PAX_HEADER || type == TYPE_GNU_LONG_NAME
+                    || type == TYPE_GNU_LONG_LINK) {
+                if (size > 1024 * 1024) {
+                    throw new IOException("Tar extended header is too large: " + size);
+                }
+                byte[] data = new byte[(int) padded(size)];
+                readFully(tar, data);
+                pending.write(header);
+                pending.write(data);
+                if (type == TYPE_PAX_HEADER) {
+                    String path = parsePaxPath(data, (int) size);
+                    longName = path != null ? path : longName;
+                } else if (type == TYPE_GNU_LONG_NAME) {
+                    longName = trimNul(data, 0, (int) size);
+                }
+                continue;
+            }
+
+            String name = longName != null ? longName : parseName(header);
+            if (include.test(name)) {
+                pending.writeTo(out);
+                out.write(header);
+                copyData(tar, out, padded(size), buffer);
+                if (type != TYPE_DIRECTORY) {
+                    copied++;
+                }
+            } else {
+                skipData(tar, padded(size), buffer);
+            }
+            pending.reset();
+            longName = null;
+        }
+        return copied;
+    }
+
+    /**
+     * Writes the end-of-archive marker, two zero blocks.
+     *
+     * @param out The stream the entries were written to
+     * @throws IOException if the marker cannot be written
+     */
+    static void finish(OutputStream out) throws IOException {
+        out.write(new byte[2 * BLOCK_SIZE]);
+    }
+
+    /**
+     * Writes a regular file as an entry, preceded by a PAX header if its name does not fit in a
+     * ustar header. Only the executable bit of the permissions is kept.
+     *
+     * @param out  The stream to write the entry to
+     * @param name The name of the entry, with forward slashes
+     * @param file The file to write
+     * @throws IOException if the file cannot be read or the entry cannot be written
+     */
+    static void writeFile(OutputStream out, String name, Path file) throws IOException {
+        long size = Files.size(file);
+        byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+        if (nameBytes.length > 100) {
+            byte[] record = paxRecord("path", name);
+            out.write(header("PaxHeader", TYPE_PAX_HEADER, record.length, 0644));
+            out.write(record);
+            out.write(new byte[(int) (padded(record.length) - record.length)]);
+        }
+        out.write(header(name, TYPE_FILE, size, Files.isExecutable(file) ? 0755 : 0644));
+        try (InputStream in = Files.newInputStream(file)) {
+            if (in.transferTo(out) != size) {
+                throw new IOException("File changed while it was archived: " + file);
+            }
+        }
+        out.write(new byte[(int) (padded(size) - size)]);
+    }
+
+    /**
+     * Extracts the regular files and directories of a tar stream into a directory, replacing
+     * files that exist. Other entries, such as links, are skipped. Entries are never written
+     * through a symbolic link that is already in the directory, which could point outside it.
+     *
+     * @param tar       The tar stream to read
+     * @param directory The directory to extract into
+     * @return the number of extracted files
+     * @throws IOException if the tar stream is malformed, an entry would be extracted outside
+     *                     the directory or through a symbolic link, or a file cannot be written
+     */
+    static int extractEntries(InputStream tar, Path directory) throws IOException {
+        Path root = directory.toAbsolutePath().normalize();
+        byte[] header = new byte[BLOCK_SIZE];
+        byte[] buffer = new byte[64 * BLOCK_SIZE];
+        String longName = null;
+        int extracted = 0;
+        while (readBlock(tar, header)) {
+            if (isZeroBlock(header)) {
+                break;
+            }
+            byte type = header[156];
+            long size = parseSize(header);
+            if (type == TYPE_PAX_HEADER || type == TYPE_GNU_LONG_NAME
+                    || type == TYPE_GNU_LONG_LINK) {
+                if (size > 1024 * 1024) {
+                    throw new IOException("Tar extended header is too large: " + size);
+                }
+                byte[] data = new byte[(int) padded(size)];
+                readFully(tar, data);
+                if (type == TYPE_PAX_HEADER) {
+                    String path = parsePaxPath(data, (int) size);
+                    longName = path != null ? path : longName;
+                } else if (type == TYPE_GNU_LONG_NAME) {
+                    longName = trimNul(data, 0, (int) size);
+                }
+                continue;
+            }
+
+            String name = longName != null ? longName : parseName(header);
+            longName = null;
+            if (type != TYPE_FILE && type != 0 && type != TYPE_DIRECTORY) {
+                skipData(tar, padded(size), buffer);
+                continue;
+            }
+            Path target = root.resolve(name).normalize();
+            if (!target.startsWith(root)) {
+                throw new IOException("Tar entry is outside the directory: " + name);
+            }
+            if (type == TYPE_DIRECTORY || target.equals(root)) {
+                createDirectories(root, target);
+                skipData(tar, padded(size), buffer);
+                continue;
+            }
+            Path parent = target.getParent();
+            if (parent == null) {
+                throw new IOException("Tar entry has no parent directory: " + name);
+            }
+            createDirectories(root, parent);
+            Path partial = Files.createTempFile(parent, ".extract", ".part");
+            try {
+                try (OutputStream file = Files.newOutputStream(partial)) {
+                    copyData(tar, file, size, buffer);
+                }
+                if (((parseOctal(header, 100, 8)) & 0100) != 0
+                        && !partial.toFile().setExecutable(true)) {
+                    throw new IOException("Failed to make file executable: " + target);
+                }
+                Files.move(partial, target, StandardCopyOption.REPLACE_EXISTING);
+            } finally {
+                Files.deleteIfExists(partial);
+            }
+            skipData(tar, padded(size) - size, buffer);
+            extracted++;
+        }
+        return extracted;
+    }
+
+    /**
+     * Creates a directory and its missing parents below a root directory, refusing to go
+     * through a symbolic link, whose target could be anywhere.
+     *
+     * @param root      The root directory, which is created if missing
+     * @param directory The directory to create, below or equal to the root
+     * @throws IOException if a parent of the directory is a symbolic link or not a directory,
+     *                     or a directory cannot be created
+     */
+    private static void createDirectories(Path root, Path directory) throws IOException {
+        Files.createDirectories(root);
+        Path current = root;
+        for (Path segment : root.relativize(directory)) {
+            if (segment.toString().isEmpty()) {
+                continue;
+            }
+            current = current.resolve(segment);
+            if (Files.isSymbolicLink(current)) {
+                throw new IOException("Tar entry is below a symbolic link: " + current);
+            }
+            if (!Files.isDirectory(current, LinkOption.NOFOLLOW_LINKS)) {
+                Files.createDirectory(current);
+            }
+        }
+    }
+
+    /**
+     * Builds a ustar header. Names longer than the name field are truncated, for a PAX header
+     * to carry in full.
+     *
+     * @param name The name of the entry
+     * @param type The type of the entry
+     * @param size The size of the contents of the entry
+     * @param mode The permissions of the entry
+     * @return the header block
+     */
+    private static byte[] header(String name, byte type, long size, int mode) {
+        byte[] header = new byte[BLOCK_SIZE];
+        byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+        System.arraycopy(nameBytes, 0, header, 0, Math.min(100, nameBytes.length));
+        putOctal(header, 100, 8, mode);
+        putOctal(header, 108, 8, 0);
+        putOctal(header, 116, 8, 0);
+        if (size <= MAX_OCTAL_SIZE) {
+            putOctal(header, 124, 12, size);
+        } else {
+            header[124] = (byte) 0x80;
+            for (int i = 135; i > 124; i--) {
+                header[i] = (byte) ((size >>> (8 * (135 - i))) & 0xff);
+            }
+        }
+        putOctal(header, 136, 12, System.currentTimeMillis() / 1000);
+        header[156] = type;
+        System.arraycopy("ustar\0".getBytes(StandardCharsets.US_ASCII), 0, header, 257, 6);
+        header[263] = '0';
+        header[264] = '0';
+
+        // The checksum is computed with its own field filled with spaces
+        for (int i = 148; i < 156; i++) {
+            header[i] = ' ';
+        }
+        long checksum = 0;
+        for (byte b : header) {
+            checksum += b & 0xff;
+        }
+        putOctal(header, 148, 7, checksum);
+        return header;
+    }
+
+    /**
+     * Builds a PAX record, {@code <length> key=value\n}, whose length counts its own digits.
+     *
+     * @param key   The key of the record
+     * @param value The value of the record
+     * @return the record
+     */
+    private static byte[] paxRecord(String key, String value) {
+        String body = " " + key + "=" + value + "\n";
+        int bodyLength = body.getBytes(StandardCharsets.UTF_8).length;
+        int length = bodyLength + String.valueOf(bodyLength).length();
+        if (String.valueOf(length).length() > String.valueOf(bodyLength).length()) {
+            length++;
+        }
+        return (length + body).getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Writes a NUL terminated octal field.
+     *
+     * @param header The header block
+     * @param offset The start of the field
+     * @param length The length of the field, including the NUL
+     * @param value  The value
+     */
+    private static void putOctal(byte[] header, int offset, int length, long value) {
+        String octal = String.format("%0" + (length - 1) + "o", value);
+        System.arraycopy(octal.getBytes(StandardCharsets.US_ASCII), 0, header, offset,
+                length - 1);
+        header[offset + length - 1] = 0;
+    }
+
+    private static long parseOctal(byte[] header, int offset, int length) {
+        String octal = trimNul(header, offset, length).trim();
+        try {
+            return octal.isEmpty() ? 0 : Long.parseLong(octal, 8);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Gets the name of an entry from a ustar header, joined with its prefix.
+     *
+     * @param header The header block
+     * @return the name of the entry
+     */
+    private static String parseName(byte[] header) {
+        String name = trimNul(header, 0, 100);
+        boolean ustar = header[257] == 'u' && header[258] == 's' && header[259] == 't'
+                && header[260] == 'a' && header[261] == 'r';
+        if (ustar) {
+            String prefix = trimNul(header, 345, 155);
+            if (!prefix.isEmpty()) {
+                return prefix + "/" + name;
+            }
+        }
+        return name;
+    }
+
+    /**
+     * Gets the size of the contents of an entry, in octal or, for large sizes, base-256.
+     *
+     * @param header The header block
+     * @return the size in bytes
+     * @throws IOException if the size is malformed
+     */
+    private static long parseSize(byte[] header) throws IOException {
+        if ((header[124] & 0x80) != 0) {
+            long size = 0;
+            for (int i = 125; i < 136; i++) {
+                size = (size << 8) | (header[i] & 0xff);
+            }
+            return size;
+        }
+        String octal = trimNul(header, 124, 12).trim();
+        if (octal.isEmpty()) {
+            return 0;
+        }
+        try {
+            return Long.parseLong(octal, 8);
+        } catch (NumberFormatException e) {
+            throw new IOException("Malformed tar entry size: " + octal, e);
+        }
+    }
+
+    /**
+     * Gets the path record of a PAX extended header, made of records {@code <length> key=value}.
+     *
+     * @param data The contents of the extended header
+     * @param size The number of bytes of contents, without padding
+     * @return the path, or null if the header sets none
+     */
+    private static String parsePaxPath(byte[] data, int size) {
+        String records = new String(data, 0, size, StandardCharsets.UTF_8);
+        String path = null;
+        for (String record : records.split("\n")) {
+            int space = record.indexOf(' ');
+            if (space >= 0 && record.startsWith("path=", space + 1)) {
+                path = record.substring(space + 1 + "path=".length());
+            }
+        }
+        return path;
+    }
+
+    /**
+     * Decodes a NUL terminated field.
+     *
+     * @param bytes  The bytes holding the field
+     * @param offset The start of the field
+     * @param length The length of the field
+     * @return the field up to its first NUL
+     */
+    private static String trimNul(byte[] bytes, int offset, int length) {
+        int end = offset;
+        while (end < offset + length && bytes[end] != 0) {
+            end++;
+        }
+        return new String(bytes, offset, end - offset, StandardCharsets.UTF_8);
+    }
+
+    private static long padded(long size) {
+        return (size + BLOCK_SIZE - 1) / BLOCK_SIZE * BLOCK_SIZE;
+    }
+
+    private static boolean isZeroBlock(byte[] block) {
+        for (byte b : block) {
+            if (b != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Reads the next block of a tar stream.
+     *
+     * @param in    The tar stream
+     * @param block The block to fill
+     * @return false if the stream ended before the block, which is accepted in place of an
+     *         end-of-archive marker
+     * @throws IOException if the stream ends in the middle of the block
+     */
+    private static boolean readBlock(InputStream in, byte[] block) throws IOException {
+        int read = in.readNBytes(block, 0, block.length);
+        if (read == 0) {
+            return false;
+        }
+        if (read < block.length) {
+            throw new EOFException("Tar stream ends in the middle of a header");
+        }
+        return true;
+    }
+
+    private static void readFully(InputStream in, byte[] data) throws IOException {
+        if (in.readNBytes(data, 0, data.length) < data.length) {
+            throw new EOFException("Tar stream ends in the middle of an entry");
+        }
+    }
+
+    private static void copyData(InputStream in, OutputStream out, long length, byte[] buffer)
+            throws IOException {
+        long remaining = length;
+        while (remaining > 0) {
+            int read = in.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+            if (read < 0) {
+                throw new EOFException("Tar stream ends in the middle of an entry");
+            }
+            out.write(buffer, 0, read);
+            remaining -= read;
+        }
+    }
+
+    private static void skipData(InputStream in, long length, byte[] buffer)
+            throws IOException {
+        long remaining = length;
+        while (remaining > 0) {
+            int read = in.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+            if (read < 0) {
+                throw new EOFException("Tar stream ends in the middle of an entry");
+            }
+            remaining -= read;
+        }
+    }
+}
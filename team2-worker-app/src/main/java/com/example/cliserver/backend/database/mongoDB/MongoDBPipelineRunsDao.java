@@ -1,14 +1,19 @@
 package com.example.cliserver.backend.database.mongoDB;
 
 import static com.example.cliserver.backend.utils.Constants.ALLOWS_FAILURE_FIELD;
+import static com.example.cliserver.backend.utils.Constants.ARTIFACTS_LOCATION_FIELD;
 import static com.example.cliserver.backend.utils.Constants.BRANCH_FIELD;
 import static com.example.cliserver.backend.utils.Constants.COMMIT_FIELD;
+import static com.example.cliserver.backend.utils.Constants.CONCURRENCY_GROUP_FIELD;
 import static com.example.cliserver.backend.utils.Constants.COMPLETION_TIME_FIELD;
 import static com.example.cliserver.backend.utils.Constants.FILE_NAME_FIELD;
 import static com.example.cliserver.backend.utils.Constants.IS_LOCAL_FIELD;
 import static com.example.cliserver.backend.utils.Constants.JOBS_FIELD;
 import static com.example.cliserver.backend.utils.Constants.JOB_NAME_FIELD;
 import static com.example.cliserver.backend.utils.Constants.JOB_STATUS_FIELD;
+import static com.example.cliserver.backend.utils.Constants.LEASE_EXPIRES_AT_FIELD;
+import static com.example.cliserver.backend.utils.Constants.MATRIX_PARENT_FIELD;
+import static com.example.cliserver.backend.utils.Constants.MATRIX_VALUES_FIELD;
 import static com.example.cliserver.backend.utils.Constants.PIPELINE_NAME_FIELD;
 import static com.example.cliserver.backend.utils.Constants.PIPELINE_STATUS_FIELD;
 import static com.example.cliserver.backend.utils.Constants.REPO_FIELD;
@@ -17,6 +22,7 @@ import static com.example.cliserver.backend.utils.Constants.STAGES_FIELD;
 import static com.example.cliserver.backend.utils.Constants.STAGE_NAME_FIELD;
 import static com.example.cliserver.backend.utils.Constants.STAGE_STATUS_FIELD;
 import static com.example.cliserver.backend.utils.Constants.START_TIME_FIELD;
+import static com.example.cliserver.backend.utils.Constants.WORKER_ID_FIELD;
 
 import com.example.cliserver.backend.model.PipelineRun;
 import com.example.cliserver.backend.model.Status;
@@ -32,8 +38,10 @@ import com.mongodb.client.model.Filters;
 import com.mongodb.client.model.Projections;
 import com.mongodb.client.model.ReplaceOptions;
 import com.mongodb.client.model.Sorts;
+import com.mongodb.client.model.Updates;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
@@ -198,6 +206,10 @@ public class MongoDBPipelineRunsDao implements PipelineRunsDao {
                         Projections.computed(JOB_NAME_FIELD, "$stages.jobs.jobName"),
                         Projections.computed(JOB_STATUS_FIELD, "$stages.jobs.jobStatus"),
                         Projections.computed(ALLOWS_FAILURE_FIELD, "$stages.jobs.allowsFailure"),
+                        Projections.computed(MATRIX_PARENT_FIELD, "$stages.jobs.matrixParent"),
+                        Projections.computed(MATRIX_VALUES_FIELD, "$stages.jobs.matrixValues"),
+                        Projections.computed(ARTIFACTS_LOCATION_FIELD,
+                                "$stages.jobs.artifactsLocation"),
                         Projections.computed(START_TIME_FIELD, "$stages.jobs.startTime"),
                         Projections.computed(COMPLETION_TIME_FIELD, "$stages.jobs.completionTime")
                 ))
@@ -236,13 +248,19 @@ public class MongoDBPipelineRunsDao implements PipelineRunsDao {
                 Aggregates.unwind("$stages"),
                 Aggregates.match(Filters.eq("stages.stageName", stageName)),
                 Aggregates.unwind("$stages.jobs"),
-                Aggregates.match(Filters.eq("stages.jobs.jobName", jobName)),
+                // The job of a matrix job is reported with all the jobs it was expanded into
+                Aggregates.match(Filters.or(Filters.eq("stages.jobs.jobName", jobName),
+                        Filters.eq("stages.jobs.matrixParent", jobName))),
                 Aggregates.project(Projections.fields(
                         Projections.include(PIPELINE_NAME_FIELD, RUN_NUMBER_FIELD, COMMIT_FIELD),
                         Projections.computed(STAGE_NAME_FIELD, "$stages.stageName"),
                         Projections.computed(JOB_NAME_FIELD, "$stages.jobs.jobName"),
                         Projections.computed(JOB_STATUS_FIELD, "$stages.jobs.jobStatus"),
                         Projections.computed(ALLOWS_FAILURE_FIELD, "$stages.jobs.allowsFailure"),
+                        Projections.computed(MATRIX_PARENT_FIELD, "$stages.jobs.matrixParent"),
+                        Projections.computed(MATRIX_VALUES_FIELD, "$stages.jobs.matrixValues"),
+                        Projections.computed(ARTIFACTS_LOCATION_FIELD,
+                                "$stages.jobs.artifactsLocation"),
                         Projections.computed(START_TIME_FIELD, "$stages.jobs.startTime"),
                         Projections.computed(COMPLETION_TIME_FIELD, "$stages.jobs.completionTime")
                 ))
@@ -426,43 +444,168 @@ public class MongoDBPipelineRunsDao implements PipelineRunsDao {
                     .append(RUN_NUMBER_FIELD, pipelineRun.getRunNumber())
                     .append(REPO_FIELD, pipelineRun.getRepo());
 
-            Document pipelineRunDocument = new Document()
-                    .append(REPO_FIELD, pipelineRun.getRepo())
-                    .append(FILE_NAME_FIELD, pipelineRun.getFileName())
-                    .append(BRANCH_FIELD, pipelineRun.getBranch())
-                    .append(COMMIT_FIELD, pipelineRun.getCommit())
-                    .append(PIPELINE_NAME_FIELD, pipelineRun.getPipelineName())
-                    .append(RUN_NUMBER_FIELD, pipelineRun.getRunNumber())
-                    .append(START_TIME_FIELD, pipelineRun.getStartTime())
-                    .append(COMPLETION_TIME_FIELD, pipelineRun.getCompletionTime())
-                    .append(PIPELINE_STATUS_FIELD, pipelineRun.getPipelineStatus().toString())
-                    .append(IS_LOCAL_FIELD, pipelineRun.isLocal());
-
-            // Add stages to the document
-            List<Document> stagesDocuments = pipelineRun.getStages().stream().map(stage -> {
-                List<Document> jobsDocuments = stage.getJobs().stream().map(job ->
-                        new Document(JOB_NAME_FIELD, job.getName())
-                                .append(JOB_STATUS_FIELD, job.getJobStatus().toString())
-                                .append(ALLOWS_FAILURE_FIELD, job.isAllowFailure())
-                                .append(START_TIME_FIELD, job.getStartTime())
-                                .append(COMPLETION_TIME_FIELD, job.getCompletionTime())
-                ).collect(Collectors.toList());
-
-                return new Document(STAGE_NAME_FIELD, stage.getStageName())
-                        .append(STAGE_STATUS_FIELD, stage.getStageStatus().toString())
-                        .append(START_TIME_FIELD, stage.getStartTime())
-                        .append(COMPLETION_TIME_FIELD, stage.getCompletionTime())
-                        .append(JOBS_FIELD, jobsDocuments);
-            }).collect(Collectors.toList());
-
-            pipelineRunDocument.append(STAGES_FIELD, stagesDocuments);
-
             // Replace the entire document
-            collection.replaceOne(filter, pipelineRunDocument, new ReplaceOptions().upsert(true));
+            collection.replaceOne(filter, toDocument(pipelineRun),
+                    new ReplaceOptions().upsert(true));
         } catch (Exception e) {
             System.err.println(e.getMessage());
         }
     }
+
+    /**
+     * Updates a pipeline run, but only while it is owned by the given worker. Only the fields
+     * of the run are set, so the owner and lease of the run are kept.
+     *
+     * @param pipelineRun the pipeline run object with updated data
+     * @param workerId    the worker that claimed the run
+     * @return true if the run was updated, false if it is owned by another worker
+     */
+    @Override
+    public boolean updateOwnedPipelineRun(PipelineRun pipelineRun, String workerId) {
+        Bson filter = Filters.and(
+                runFilter(pipelineRun.getRepo(), pipelineRun.getPipelineName(),
+                        pipelineRun.getRunNumber()),
+                Filters.eq(WORKER_ID_FIELD, workerId));
+        return collection.updateOne(filter, new Document("$set", toDocument(pipelineRun)))
+                .getMatchedCount() > 0;
+    }
+
+    /**
+     * Converts a pipeline run, with its stages and jobs, to the document it is stored as.
+     *
+     * @param pipelineRun the pipeline run to convert
+     * @return the document of the pipeline run
+     */
+    private static Document toDocument(PipelineRun pipelineRun) {
+        Document pipelineRunDocument = new Document()
+                .append(REPO_FIELD, pipelineRun.getRepo())
+                .append(FILE_NAME_FIELD, pipelineRun.getFileName())
+                .append(BRANCH_FIELD, pipelineRun.getBranch())
+                .append(COMMIT_FIELD, pipelineRun.getCommit())
+                .append(PIPELINE_NAME_FIELD, pipelineRun.getPipelineName())
+                .append(RUN_NUMBER_FIELD, pipelineRun.getRunNumber())
+                .append(START_TIME_FIELD, pipelineRun.getStartTime())
+                .append(COMPLETION_TIME_FIELD, pipelineRun.getCompletionTime())
+                .append(PIPELINE_STATUS_FIELD, pipelineRun.getPipelineStatus().toString())
+                .append(IS_LOCAL_FIELD, pipelineRun.isLocal())
+                .append(CONCURRENCY_GROUP_FIELD, pipelineRun.getConcurrencyGroup());
+
+        // Add stages to the document
+        List<Document> stagesDocuments = pipelineRun.getStages().stream().map(stage -> {
+            List<Document> jobsDocuments = stage.getJobs().stream().map(job ->
+                    new Document(JOB_NAME_FIELD, job.getName())
+                            .append(JOB_STATUS_FIELD, job.getJobStatus().toString())
+                            .append(ALLOWS_FAILURE_FIELD, job.isAllowFailure())
+                            .append(MATRIX_PARENT_FIELD, job.getMatrixParent())
+                            .append(MATRIX_VALUES_FIELD,
+                                    new Document(new LinkedHashMap<>(job.getMatrixValues())))
+                            .append(ARTIFACTS_LOCATION_FIELD, job.getArtifactsLocation())
+                            .append(START_TIME_FIELD, job.getStartTime())
+                            .append(COMPLETION_TIME_FIELD, job.getCompletionTime())
+            ).collect(Collectors.toList());
+
+            return new Document(STAGE_NAME_FIELD, stage.getStageName())
+                    .append(STAGE_STATUS_FIELD, stage.getStageStatus().toString())
+                    .append(START_TIME_FIELD, stage.getStartTime())
+                    .append(COMPLETION_TIME_FIELD, stage.getCompletionTime())
+                    .append(JOBS_FIELD, jobsDocuments);
+        }).collect(Collectors.toList());
+
+        return pipelineRunDocument.append(STAGES_FIELD, stagesDocuments);
+    }
+
+    /**
+     * Creates a filter matching a single pipeline run.
+     *
+     * @param repo         the repository of the pipeline run
+     * @param pipelineName the name of the pipeline
+     * @param runNumber    the run number of the pipeline
+     * @return the filter for the pipeline run
+     */
+    private static Bson runFilter(String repo, String pipelineName, int runNumber) {
+        return Filters.and(
+                Filters.eq(REPO_FIELD, repo),
+                Filters.eq(PIPELINE_NAME_FIELD, pipelineName),
+                Filters.eq(RUN_NUMBER_FIELD, runNumber));
+    }
+
+    /**
+     * Atomically changes the status of a pipeline run, but only if it currently has the
+     * expected status.
+     *
+     * @param repo           the repository of the pipeline run
+     * @param pipelineName   the name of the pipeline
+     * @param runNumber      the run number of the pipeline
+     * @param expectedStatus the status the run must currently have
+     * @param newStatus      the status to set
+     * @return true if the status was changed, false otherwise
+     */
+    @Override
+    public boolean compareAndSetPipelineStatus(String repo, String pipelineName, int runNumber,
+                                               Status expectedStatus, Status newStatus) {
+        Bson filter = Filters.and(
+                Filters.eq(REPO_FIELD, repo),
+                Filters.eq(PIPELINE_NAME_FIELD, pipelineName),
+                Filters.eq(RUN_NUMBER_FIELD, runNumber),
+                Filters.eq(PIPELINE_STATUS_FIELD, expectedStatus.toString()));
+        return collection.updateOne(filter,
+                Updates.set(PIPELINE_STATUS_FIELD, newStatus.toString())).getModifiedCount() > 0;
+    }
+
+    /**
+     * Claims a pipeline run for a worker, setting it running with a lease that expires unless
+     * the worker renews it. A running run is only taken over if its lease has expired, or if
+     * it has none because it was claimed before runs had leases.
+     *
+     * @param repo         the repository of the pipeline run
+     * @param pipelineName the name of the pipeline
+     * @param runNumber    the run number of the pipeline
+     * @param workerId     the worker claiming the run
+     * @param leaseMillis  how long the claim lasts without being renewed
+     * @param takeOver     whether a running run with an expired lease may be claimed
+     * @return true if the run was claimed, false otherwise
+     */
+    @Override
+    public boolean claimPipelineRun(String repo, String pipelineName, int runNumber,
+                                    String workerId, long leaseMillis, boolean takeOver) {
+        long now = System.currentTimeMillis();
+        Bson claimable = Filters.eq(PIPELINE_STATUS_FIELD, Status.PENDING.toString());
+        if (takeOver) {
+            claimable = Filters.or(claimable, Filters.and(
+                    Filters.eq(PIPELINE_STATUS_FIELD, Status.RUNNING.toString()),
+                    Filters.or(
+                            Filters.lt(LEASE_EXPIRES_AT_FIELD, now),
+                            Filters.exists(LEASE_EXPIRES_AT_FIELD, false))));
+        }
+        return collection.updateOne(
+                Filters.and(runFilter(repo, pipelineName, runNumber), claimable),
+                Updates.combine(
+                        Updates.set(PIPELINE_STATUS_FIELD, Status.RUNNING.toString()),
+                        Updates.set(WORKER_ID_FIELD, workerId),
+                        Updates.set(LEASE_EXPIRES_AT_FIELD, now + leaseMillis)))
+                .getModifiedCount() > 0;
+    }
+
+    /**
+     * Extends the lease of a worker on a pipeline run it claimed.
+     *
+     * @param repo         the repository of the pipeline run
+     * @param pipelineName the name of the pipeline
+     * @param runNumber    the run number of the pipeline
+     * @param workerId     the worker that claimed the run
+     * @param leaseMillis  how long the claim lasts from now without being renewed again
+     * @return true if the lease was renewed, false if the run is owned by another worker
+     */
+    @Override
+    public boolean renewPipelineRunLease(String repo, String pipelineName, int runNumber,
+                                         String workerId, long leaseMillis) {
+        return collection.updateOne(
+                Filters.and(runFilter(repo, pipelineName, runNumber),
+                        Filters.eq(WORKER_ID_FIELD, workerId)),
+                Updates.set(LEASE_EXPIRES_AT_FIELD, System.currentTimeMillis() + leaseMillis))
+                .getMatchedCount() > 0;
+    }
+
     @Override
     public void close() throws Exception {
         // Close any resources if needed, e.g., MongoClient
@@ -1,6 +1,7 @@
 package com.example.cliserver.backend.database.mongoDB;
 
 import com.example.cliserver.backend.model.PipelineRun;
+import com.example.cliserver.backend.model.Status;
 import com.mongodb.client.AggregateIterable;
 import com.mongodb.client.FindIterable;
 import org.bson.Document;
@@ -138,6 +139,61 @@ public interface PipelineRunsDao {
      */
     void updatePipelineRun(PipelineRun pipelineRun);
 
+    /**
+     * Atomically changes the status of a pipeline run, but only if it currently has the
+     * expected status. This is used to hand a run over between the server and the workers
+     * without one side overwriting the decision of the other.
+     *
+     * @param repo           The repository of the pipeline run
+     * @param pipelineName   The name of the pipeline
+     * @param runNumber      The run number of the pipeline
+     * @param expectedStatus The status the run must currently have
+     * @param newStatus      The status to set
+     * @return true if the status was changed, false if the run did not have the expected status
+     */
+    boolean compareAndSetPipelineStatus(String repo, String pipelineName, int runNumber,
+                                        Status expectedStatus, Status newStatus);
+
+    /**
+     * Claims a pipeline run for a worker: atomically sets it running, owned by the worker, with
+     * a lease that expires unless the worker renews it. A pending run can always be claimed.
+     * A running run can only be taken over if it is redelivered and the lease of its previous
+     * worker has expired, for example because that worker crashed.
+     *
+     * @param repo         The repository of the pipeline run
+     * @param pipelineName The name of the pipeline
+     * @param runNumber    The run number of the pipeline
+     * @param workerId     The worker claiming the run
+     * @param leaseMillis  How long the claim lasts without being renewed
+     * @param takeOver     Whether a running run with an expired lease may be claimed
+     * @return true if the run was claimed, false otherwise
+     */
+    boolean claimPipelineRun(String repo, String pipelineName, int runNumber, String workerId,
+                             long leaseMillis, boolean takeOver);
+
+    /**
+     * Extends the lease of a worker on a pipeline run it claimed.
+     *
+     * @param repo         The repository of the pipeline run
+     * @param pipelineName The name of the pipeline
+     * @param runNumber    The run number of the pipeline
+     * @param workerId     The worker that claimed the run
+     * @param leaseMillis  How long the claim lasts from now without being renewed again
+     * @return true if the lease was renewed, false if the run is owned by another worker
+     */
+    boolean renewPipelineRunLease(String repo, String pipelineName, int runNumber,
+                                  String workerId, long leaseMillis);
+
+    /**
+     * Updates a pipeline run, but only while it is owned by the given worker, so that a worker
+     * whose run was taken over cannot overwrite the progress of the new owner.
+     *
+     * @param pipelineRun The pipeline run object with updated data
+     * @param workerId    The worker that claimed the run
+     * @return true if the run was updated, false if it is owned by another worker
+     */
+    boolean updateOwnedPipelineRun(PipelineRun pipelineRun, String workerId);
+
     /**
      * Closes any resources associated with this DAO.
      * This method should be called when the DAO is no longer needed to release
@@ -1,31 +1,63 @@
 package com.example.cliserver.backend.messaging;
 
+import static com.example.cliserver.backend.utils.Constants.CANCEL_ACTION;
+import static com.example.cliserver.backend.utils.Constants.CONTROL_ACTION_KEY;
+import static com.example.cliserver.backend.utils.Constants.DEFAULT_ADMIN_PORT;
+import static com.example.cliserver.backend.utils.Constants.DEFAULT_DRAIN_TIMEOUT_SECONDS;
+import static com.example.cliserver.backend.utils.Constants.DEFAULT_METRICS_PORT;
+import static com.example.cliserver.backend.utils.Constants.PIPELINE_CONTROL_EXCHANGE;
+import static com.example.cliserver.backend.utils.Constants.PIPELINE_NAME_FIELD;
 import static com.example.cliserver.backend.utils.Constants.PIPELINE_RUN_JSON_KEY;
 import static com.example.cliserver.backend.utils.Constants.QUEUE_NAME;
+import static com.example.cliserver.backend.utils.Constants.REPO_FIELD;
+import static com.example.cliserver.backend.utils.Constants.RUN_NUMBER_FIELD;
+import static com.example.cliserver.backend.utils.Constants.WORKER_PREFETCH_COUNT;
 
 import com.example.cliserver.backend.database.mongoDB.PipelineRunsDaoFactory;
+import com.example.cliserver.backend.metrics.MetricsServer;
+import com.example.cliserver.backend.metrics.WorkerMetrics;
 import com.example.cliserver.backend.runCommand.PipelineRunner;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rabbitmq.client.BuiltinExchangeType;
 import com.rabbitmq.client.Channel;
 import com.rabbitmq.client.Connection;
 import com.rabbitmq.client.ConnectionFactory;
 import com.rabbitmq.client.DeliverCallback;
 import com.example.cliserver.backend.model.PipelineRun;
+import com.example.cliserver.backend.model.Status;
 import com.example.cliserver.backend.utils.YamlConfigLoader;
 import org.json.JSONObject;
 
+import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * Worker that consumes pipeline execution requests from RabbitMQ and executes them
  * using the existing PipelineRunner.
  */
 public class PipelineConsumer {
+    /**
+     * How long requeued runs get to stop their work and hand back their deliveries.
+     */
+    private static final long REQUEUE_GRACE_MILLIS = 30_000;
+
     private final ConnectionFactory factory;
     private final PipelineRunner pipelineRunner;
+    private final WorkerMetrics metrics;
 
     private final ObjectMapper objectMapper;
 
+    private Connection connection;
+    private Channel channel;
+    private String consumerTag;
+
+    private volatile boolean draining;
+    private volatile boolean requeueRequested;
+    private final CountDownLatch drained = new CountDownLatch(1);
+
     /**
      * Constructs a PipelineConsumer with the specified PipelineRunner.
      *
@@ -34,6 +66,7 @@ public class PipelineConsumer {
         this.pipelineRunner = new PipelineRunner(PipelineRunsDaoFactory.getInstance());
         this.factory = new ConnectionFactory();
         this.objectMapper = new ObjectMapper();
+        this.metrics = new WorkerMetrics(WORKER_PREFETCH_COUNT);
         this.factory.setHost(YamlConfigLoader.getConfigValue("rabbitmq", "host"));
     }
 
@@ -43,11 +76,16 @@ public class PipelineConsumer {
     public void start() {
         try {
 
-            Connection connection = factory.newConnection();
-            Channel channel = connection.createChannel();
+            connection = factory.newConnection();
+            channel = connection.createChannel();
 
             channel.queueDeclare(QUEUE_NAME, true, false, false, null);
-            channel.basicQos(1);
+            channel.basicQos(WORKER_PREFETCH_COUNT);
+
+            // Progress events go out on their own channel so they never block deliveries
+            pipelineRunner.setEventPublisher(new PipelineEventPublisher(connection));
+            startControlConsumer(connection);
+            startMetricsServer();
 
             System.out.println("Pipeline consumer started and waiting for messages...");
 
@@ -65,11 +103,38 @@ public class PipelineConsumer {
                         pipelineRunJson, PipelineRun.class
                     );
 
-                    // Run the pipeline without logging (on worker application)
-                    pipelineRunner.runPipeline(pipelineRun);
+                    metrics.deliveryReceived();
+                    AtomicBoolean started = new AtomicBoolean();
+                    try {
+                        // Run the pipeline without logging (on worker application). A
+                        // redelivered run may have to be taken over from a failed worker.
+                        // The start time is still the time the server queued the run.
+                        System.out.println(pipelineRunner.runPipeline(pipelineRun,
+                                delivery.getEnvelope().isRedeliver(), () -> {
+                                    started.set(true);
+                                    metrics.runStarted(System.currentTimeMillis()
+                                            - pipelineRun.getStartTime());
+                                }));
 
-                    // Acknowledge a message
-                    channel.basicAck(delivery.getEnvelope().getDeliveryTag(), false);
+                        if (requeueRequested
+                                && Status.PENDING.equals(pipelineRun.getPipelineStatus())) {
+                            // The run was interrupted by a drain, so give it to another worker
+                            channel.basicNack(
+                                    delivery.getEnvelope().getDeliveryTag(), false, true);
+                            System.out.println("Returned " + pipelineRun.getPipelineName()
+                                    + " run: " + pipelineRun.getRunNumber() + " to the queue.");
+                        } else {
+                            // Acknowledge a message
+                            channel.basicAck(delivery.getEnvelope().getDeliveryTag(), false);
+                        }
+                    } finally {
+                        // Only settled deliveries leave their slot, so a drain cannot close
+                        // the channel before the delivery is acknowledged or returned
+                        if (started.get()) {
+                            metrics.runFinished();
+                        }
+                        metrics.deliverySettled();
+                    }
                 } catch (Exception e) {
                     System.err.println("Error processing message: " + e.getMessage());
 
@@ -79,13 +144,173 @@ public class PipelineConsumer {
             };
 
             // Start consuming messages
-            channel.basicConsume(QUEUE_NAME, false, deliverCallback, consumerTag -> {});
+            consumerTag = channel.basicConsume(QUEUE_NAME, false, deliverCallback, tag -> {});
 
         } catch (Exception e) {
             System.err.println("Error starting pipeline consumer: " + e.getMessage());
         }
     }
 
+    /**
+     * Starts listening for pipeline control requests on a separate channel, so they are
+     * received while a pipeline is executing on the delivery thread of the job queue.
+     *
+     * @param connection the RabbitMQ connection to listen on
+     * @throws IOException if the control queue cannot be set up
+     */
+    private void startControlConsumer(Connection connection) throws IOException {
+        Channel controlChannel = connection.createChannel();
+        controlChannel.exchangeDeclare(PIPELINE_CONTROL_EXCHANGE, BuiltinExchangeType.FANOUT, true);
+        // Every worker gets its own queue, since only the worker running the pipeline can act
+        String controlQueue = controlChannel.queueDeclare().getQueue();
+        controlChannel.queueBind(controlQueue, PIPELINE_CONTROL_EXCHANGE, "");
+
+        DeliverCallback controlCallback = (consumerTag, delivery) -> {
+            try {
+                JSONObject json = new JSONObject(
+                        new String(delivery.getBody(), StandardCharsets.UTF_8));
+                if (CANCEL_ACTION.equals(json.optString(CONTROL_ACTION_KEY))) {
+                    String pipelineName = json.getString(PIPELINE_NAME_FIELD);
+                    int runNumber = json.getInt(RUN_NUMBER_FIELD);
+                    if (pipelineRunner.cancelPipeline(
+                            json.getString(REPO_FIELD), pipelineName, runNumber)) {
+                        System.out.println("Canceled " + pipelineName + " run: " + runNumber);
+                    }
+                }
+            } catch (Exception e) {
+                System.err.println("Error processing control message: " + e.getMessage());
+            }
+        };
+        controlChannel.basicConsume(controlQueue, true, controlCallback, consumerTag -> {});
+    }
+
+    /**
+     * Starts serving the worker metrics, so the workers can be scaled on their utilization.
+     * The worker keeps consuming pipeline requests if the metrics server cannot be started.
+     */
+    private void startMetricsServer() {
+        String configuredPort = YamlConfigLoader.getConfigValue("metrics", "port");
+        int port = configuredPort != null ? Integer.parseInt(configuredPort) : DEFAULT_METRICS_PORT;
+        String configuredAdminPort = YamlConfigLoader.getConfigValue("worker", "admin-port");
+        int adminPort = configuredAdminPort != null
+                ? Integer.parseInt(configuredAdminPort) : DEFAULT_ADMIN_PORT;
+        try {
+            MetricsServer metricsServer = new MetricsServer(port, metrics);
+            metricsServer.setDrainAction(adminPort, this::drainAndExit);
+            metricsServer.start();
+            System.out.println("Serving worker metrics on port " + port);
+        } catch (IOException e) {
+            System.err.println("Error starting metrics server: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Drains the worker using the configured drain timeout.
+     *
+     * @see #drain(long)
+     */
+    public void drain() {
+        String configuredTimeout =
+                YamlConfigLoader.getConfigValue("worker", "drain-timeout-seconds");
+        long timeoutSeconds = configuredTimeout != null
+                ? Long.parseLong(configuredTimeout) : DEFAULT_DRAIN_TIMEOUT_SECONDS;
+        drain(TimeUnit.SECONDS.toMillis(timeoutSeconds));
+    }
+
+    /**
+     * Drains the worker and then exits, for a drain requested through the admin endpoint. A
+     * drained worker has no connection and takes no more runs, so it must not stay up and be
+     * counted as a live worker. The shutdown hook finds the worker already drained.
+     */
+    public void drainAndExit() {
+        drain();
+        System.out.println("Exiting drained worker.");
+        System.exit(0);
+    }
+
+    /**
+     * Drains the worker before it shuts down, so that no run is lost.
+     * <p>
+     * The consumer is canceled first, so the worker stops taking new runs. The runs in flight
+     * are then given until the timeout to finish. Runs that are still executing after that are
+     * stopped, reset to pending and their deliveries returned to the queue, so another worker
+     * executes them again. Finally, the connection to RabbitMQ is closed.
+     * </p>
+     * <p>
+     * Only the first call drains the worker, later calls wait until it has been drained.
+     * </p>
+     *
+     * @param timeoutMillis how long to wait for the runs in flight to finish
+     */
+    public void drain(long timeoutMillis) {
+        synchronized (this) {
+            if (draining) {
+                awaitDrained(timeoutMillis + REQUEUE_GRACE_MILLIS);
+                return;
+            }
+            draining = true;
+        }
+        metrics.setDraining();
+        System.out.println("Draining worker, no new pipeline runs are accepted.");
+
+        try {
+            if (channel != null && consumerTag != null && channel.isOpen()) {
+                channel.basicCancel(consumerTag);
+            }
+
+            if (!awaitIdle(timeoutMillis)) {
+                requeueRequested = true;
+                int requeued = pipelineRunner.requeueActivePipelines();
+                System.out.println("Drain timeout reached, returning " + requeued
+                        + " pipeline runs to the queue.");
+                if (!awaitIdle(REQUEUE_GRACE_MILLIS)) {
+                    System.err.println("Pipeline runs did not stop in time, their deliveries "
+                            + "are returned to the queue when the connection closes.");
+                }
+            }
+
+            if (connection != null && connection.isOpen()) {
+                connection.close();
+            }
+            System.out.println("Worker drained.");
+        } catch (Exception e) {
+            System.err.println("Error draining worker: " + e.getMessage());
+        } finally {
+            drained.countDown();
+        }
+    }
+
+    /**
+     * Waits until no pipeline run is executing on this worker.
+     *
+     * @param timeoutMillis how long to wait
+     * @return true if the worker is idle, false if the timeout was reached
+     * @throws InterruptedException if the thread is interrupted while waiting
+     */
+    private boolean awaitIdle(long timeoutMillis) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        while (metrics.getInflightRuns() > 0) {
+            if (System.currentTimeMillis() >= deadline) {
+                return false;
+            }
+            Thread.sleep(200);
+        }
+        return true;
+    }
+
+    /**
+     * Waits for a drain started by another thread to complete.
+     *
+     * @param timeoutMillis how long to wait
+     */
+    private void awaitDrained(long timeoutMillis) {
+        try {
+            drained.await(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
     /**
      * Initiates shutdown of the executor service.
      * <p>
@@ -0,0 +1,57 @@
+package com.example.cliserver.backend.messaging;
+
+import static com.example.cliserver.backend.utils.Constants.PIPELINE_EVENTS_EXCHANGE;
+
+import com.example.cliserver.backend.model.PipelineEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rabbitmq.client.BuiltinExchangeType;
+import com.rabbitmq.client.Channel;
+import com.rabbitmq.client.Connection;
+
+import java.io.IOException;
+
+/**
+ * Publishes pipeline progress events to the pipeline events topic exchange.
+ * <p>
+ * Events are routed with the key {@code <repo>.<pipeline>.<run>.<type>} so that subscribers
+ * can bind to a single run, or to every run with {@code #}. Publishing is best effort: a failure
+ * to publish an event is logged and never fails the pipeline run itself.
+ * </p>
+ */
+public final class PipelineEventPublisher {
+    private final Channel channel;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Creates a publisher on its own channel of the given connection and declares the
+     * pipeline events exchange.
+     *
+     * @param connection the RabbitMQ connection to publish on
+     * @throws IOException if the channel cannot be created or the exchange cannot be declared
+     */
+    public PipelineEventPublisher(Connection connection) throws IOException {
+        this.channel = connection.createChannel();
+        this.objectMapper = new ObjectMapper();
+        this.channel.exchangeDeclare(PIPELINE_EVENTS_EXCHANGE, BuiltinExchangeType.TOPIC, true);
+    }
+
+    /**
+     * Publishes a pipeline event. Channels are not thread safe, so publishing is synchronized.
+     *
+     * @param event the event to publish
+     */
+    public synchronized void publish(PipelineEvent event) {
+        try {
+            byte[] body = objectMapper.writeValueAsBytes(event);
+            channel.basicPublish(
+                    PIPELINE_EVENTS_EXCHANGE,
+                    PipelineEvent.routingKey(event.getRepo(), event.getPipelineName(),
+                            event.getRunNumber(), event.getType()),
+                    null,
+                    body
+            );
+        } catch (Exception e) {
+            System.err.println("Failed to publish pipeline event: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.cliserver.backend.metrics;
+
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Serves the metrics of a worker over HTTP at {@code /metrics}, so they can be scraped by
+ * Prometheus and used for scaling the workers. The metrics port is read-only: the admin
+ * endpoints of the worker are served on a separate port that only accepts local connections.
+ */
+public final class MetricsServer {
+    private final HttpServer server;
+    private HttpServer adminServer;
+
+    /**
+     * Creates a metrics server on the given port. The server is not started yet.
+     *
+     * @param port    the port to listen on
+     * @param metrics the metrics of the worker
+     * @throws IOException if the port cannot be bound
+     */
+    public MetricsServer(int port, WorkerMetrics metrics) throws IOException {
+        this.server = HttpServer.create(new InetSocketAddress(port), 0);
+        this.server.createContext("/metrics", exchange -> {
+            byte[] body = metrics.render().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", PrometheusTextFormat.CONTENT_TYPE);
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+    }
+
+    /**
+     * Serves {@code POST /admin/drain}, which makes the worker stop taking new runs. The drain
+     * runs in the background, since it waits for the in-flight runs to finish. The endpoint is
+     * only served on the loopback address, so it cannot be called from outside the host.
+     *
+     * @param adminPort   the port to serve the admin endpoints on
+     * @param drainAction the action that drains the worker
+     * @throws IOException if the port cannot be bound
+     */
+    public void setDrainAction(int adminPort, Runnable drainAction) throws IOException {
+        adminServer = HttpServer.create(
+                new InetSocketAddress(InetAddress.getLoopbackAddress(), adminPort), 0);
+        adminServer.createContext("/admin/drain", exchange -> {
+            if (!"POST".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(405, -1);
+                exchange.close();
+                return;
+            }
+            Thread drainThread = new Thread(drainAction, "worker-drain");
+            drainThread.start();
+            byte[] body = "Draining worker\n".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(202, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+    }
+
+    /**
+     * Starts serving metrics, and the admin endpoints if any, in a background thread.
+     */
+    public void start() {
+        server.start();
+        if (adminServer != null) {
+            adminServer.start();
+        }
+    }
+
+    /**
+     * Stops serving metrics and the admin endpoints.
+     */
+    public void stop() {
+        server.stop(0);
+        if (adminServer != null) {
+            adminServer.stop(0);
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.example.cliserver.backend.metrics;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Tracks the utilization of a worker: how many runs it is executing, how many more it could
+ * take, and how long runs waited in the queue before this worker picked them up.
+ * <p>
+ * This class is thread-safe, so runs can be recorded from the delivery threads while the
+ * metrics are served from the metrics server thread.
+ * </p>
+ */
+public class WorkerMetrics {
+    private final int capacity;
+    private final AtomicInteger inflightRuns = new AtomicInteger();
+    private final AtomicLong startedRuns = new AtomicLong();
+    private final AtomicLong finishedRuns = new AtomicLong();
+    private final AtomicLong waitMillisSum = new AtomicLong();
+    private volatile boolean draining;
+
+    /**
+     * Creates the metrics of a worker.
+     *
+     * @param capacity the number of runs the worker executes at the same time
+     */
+    public WorkerMetrics(int capacity) {
+        this.capacity = capacity;
+    }
+
+    /**
+     * Records that the worker has received a run from the queue. The run takes up a slot until
+     * its delivery is settled, whether the worker executes it or skips it.
+     */
+    public void deliveryReceived() {
+        inflightRuns.incrementAndGet();
+    }
+
+    /**
+     * Records that the delivery of a run was acknowledged, rejected or returned to the queue.
+     */
+    public void deliverySettled() {
+        inflightRuns.decrementAndGet();
+    }
+
+    /**
+     * Records that the worker has claimed a run and started executing it. Runs that are skipped
+     * because they are no longer pending are not counted.
+     *
+     * @param waitMillis the time the run spent queued before it was picked up
+     */
+    public void runStarted(long waitMillis) {
+        startedRuns.incrementAndGet();
+        waitMillisSum.addAndGet(Math.max(0, waitMillis));
+    }
+
+    /**
+     * Records that the worker has finished executing a run it started.
+     */
+    public void runFinished() {
+        finishedRuns.incrementAndGet();
+    }
+
+    /**
+     * Marks the worker as draining, so that it no longer reports free slots.
+     */
+    public void setDraining() {
+        this.draining = true;
+    }
+
+    /**
+     * Gets the number of runs the worker has received and not settled yet.
+     *
+     * @return the number of in-flight runs
+     */
+    public int getInflightRuns() {
+        return inflightRuns.get();
+    }
+
+    /**
+     * Gets the number of additional runs the worker could execute right now.
+     *
+     * @return the number of free slots
+     */
+    public int getFreeSlots() {
+        if (draining) {
+            return 0;
+        }
+        return Math.max(0, capacity - inflightRuns.get());
+    }
+
+    /**
+     * Gets the average time runs waited in the queue before this worker picked them up.
+     *
+     * @return the average wait in milliseconds, or 0 if no run has started yet
+     */
+    public double getAverageWaitMillis() {
+        long started = startedRuns.get();
+        return started == 0 ? 0 : (double) waitMillisSum.get() / started;
+    }
+
+    /**
+     * Renders the metrics in the Prometheus text format.
+     *
+     * @return the rendered metrics
+     */
+    public String render() {
+        Map<String, String> noLabels = Map.of();
+        return new PrometheusTextFormat()
+                .gauge("pipeline_worker_capacity",
+                        "Number of runs the worker executes at the same time", noLabels, capacity)
+                .gauge("pipeline_worker_inflight_runs",
+                        "Number of runs the worker is executing", noLabels, getInflightRuns())
+                .gauge("pipeline_worker_free_slots",
+                        "Number of additional runs the worker can take", noLabels,
+                        getFreeSlots())
+                .gauge("pipeline_worker_draining",
+                        "Whether the worker has stopped taking new runs", noLabels,
+                        draining ? 1 : 0)
+                .family("pipeline_worker_run_wait_seconds", "summary",
+                        "Time runs waited in the queue before the worker picked them up")
+                .sample("pipeline_worker_run_wait_seconds_sum", noLabels,
+                        waitMillisSum.get() / 1000.0)
+                .sample("pipeline_worker_run_wait_seconds_count", noLabels, startedRuns.get())
+                .family("pipeline_worker_runs_finished_total", "counter",
+                        "Number of runs the worker has finished")
+                .sample("pipeline_worker_runs_finished_total", noLabels, finishedRuns.get())
+                .toString();
+    }
+}
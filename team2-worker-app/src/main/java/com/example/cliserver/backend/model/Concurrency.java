@@ -0,0 +1,93 @@
+package com.example.cliserver.backend.model;
+
+import com.fasterxml.jackson.annotation.JsonAlias;
+
+import static com.example.cliserver.backend.utils.PipelineUtils.checkFieldIsString;
+
+/**
+ * Represents the concurrency settings of a pipeline.
+ * <p>
+ * Runs that resolve to the same concurrency group supersede each other: when a newer run is
+ * started, older runs of the group that are still queued are canceled, and if
+ * {@code cancel-in-progress} is set, older runs that are already executing are canceled too.
+ * The group may reference {@code ${repo}}, {@code ${branch}} and {@code ${pipeline}}, which are
+ * replaced with the values of the run, for example {@code ${repo}-${branch}}.
+ * </p>
+ */
+public class Concurrency {
+
+    private String group;
+    private boolean cancelInProgress;
+
+    /**
+     * Constructs a new empty Concurrency.
+     */
+    public Concurrency() {
+    }
+
+    /**
+     * Creates a copy of another Concurrency instance.
+     *
+     * @param concurrency the source Concurrency to copy properties from
+     */
+    public Concurrency(Concurrency concurrency) {
+        this.group = concurrency.group;
+        this.cancelInProgress = concurrency.cancelInProgress;
+    }
+
+    /**
+     * Gets the concurrency group template.
+     *
+     * @return the concurrency group template
+     */
+    public String getGroup() {
+        return group;
+    }
+
+    /**
+     * Sets the concurrency group template.
+     *
+     * <p>Validates that the group is of type String. Throws an
+     * {@link IllegalArgumentException} if the value is not a string.</p>
+     *
+     * @param group the concurrency group template
+     */
+    public void setGroup(Object group) {
+        checkFieldIsString(group, "concurrency.group");
+        this.group = (String) group;
+    }
+
+    /**
+     * Checks whether runs of the group that are already executing are canceled by newer runs.
+     *
+     * @return true if executing runs are canceled, false if only queued runs are
+     */
+    public boolean isCancelInProgress() {
+        return cancelInProgress;
+    }
+
+    /**
+     * Sets whether runs of the group that are already executing are canceled by newer runs.
+     *
+     * @param cancelInProgress true to cancel executing runs, false to only cancel queued runs
+     */
+    @JsonAlias("cancel-in-progress")
+    public void setCancelInProgress(boolean cancelInProgress) {
+        this.cancelInProgress = cancelInProgress;
+    }
+
+    /**
+     * Resolves the concurrency group of a run by replacing the variables of the group template.
+     *
+     * @param repo         the repository of the run
+     * @param branch       the branch of the run, or null for the default branch
+     * @param pipelineName the name of the pipeline
+     * @return the resolved concurrency group
+     */
+    public String resolveGroup(String repo, String branch, String pipelineName) {
+        return group
+                .replace("${repo}", repo == null ? "" : repo)
+                .replace("${branch}", branch == null ? "HEAD" : branch)
+                .replace("${pipeline}", pipelineName == null ? "" : pipelineName);
+    }
+}
@@ -1,5 +1,8 @@
 package com.example.cliserver.backend.model;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 /**
  * Represents a single job in the pipeline.
  */
@@ -20,10 +23,22 @@ public class Job extends ConfigJob{
      */
     public Job(ConfigJob configJob) {
         super(configJob);
+        if (configJob instanceof Job) {
+            Job job = (Job) configJob;
+            this.matrixParent = job.matrixParent;
+            this.matrixValues = job.getMatrixValues();
+            this.artifactsLocation = job.artifactsLocation;
+        }
     }
 
     private Status jobStatus;
 
+    private String matrixParent;
+
+    private Map<String, String> matrixValues = new LinkedHashMap<>();
+
+    private String artifactsLocation;
+
     private long startTime;
 
     private long completionTime;
@@ -81,5 +96,60 @@ public class Job extends ConfigJob{
         this.jobStatus = jobStatus;
     }
 
+    /**
+     * Gets the name of the matrix job this job was expanded from.
+     *
+     * @return the name of the matrix job, or null if this job is not part of a matrix
+     */
+    public String getMatrixParent() {
+        return matrixParent;
+    }
+
+    /**
+     * Sets the name of the matrix job this job was expanded from.
+     *
+     * @param matrixParent the name of the matrix job
+     */
+    public void setMatrixParent(String matrixParent) {
+        this.matrixParent = matrixParent;
+    }
+
+    /**
+     * Gets the values of the matrix variables this job runs with.
+     *
+     * @return the value of every matrix variable, or an empty map if this job is not part of a
+     *         matrix
+     */
+    public Map<String, String> getMatrixValues() {
+        return new LinkedHashMap<>(matrixValues);
+    }
+
+    /**
+     * Sets the values of the matrix variables this job runs with.
+     *
+     * @param matrixValues the value of every matrix variable
+     */
+    public void setMatrixValues(Map<String, String> matrixValues) {
+        this.matrixValues = matrixValues == null ? new LinkedHashMap<>()
+                : new LinkedHashMap<>(matrixValues);
+    }
+
+    /**
+     * Gets where the artifacts of the job are stored.
+     *
+     * @return the bucket and key prefix of the artifacts, as {@code bucket/repo/pipeline/run/job/},
+     *         or null if the job stored no artifacts
+     */
+    public String getArtifactsLocation() {
+        return artifactsLocation;
+    }
 
+    /**
+     * Sets where the artifacts of the job are stored.
+     *
+     * @param artifactsLocation the bucket and key prefix of the artifacts
+     */
+    public void setArtifactsLocation(String artifactsLocation) {
+        this.artifactsLocation = artifactsLocation;
+    }
 }
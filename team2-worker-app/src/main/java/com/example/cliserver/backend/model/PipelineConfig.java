@@ -54,6 +54,7 @@ public class PipelineConfig {
             this.uploadRepo = copy.uploadRepo;
             this.stages = copy.stages;
             this.jobs = copy.jobs;
+            this.concurrency = copy.concurrency;
         }
 
         private String name;
@@ -62,6 +63,7 @@ public class PipelineConfig {
         private String uploadRepo;
         private List<String> stages;
         private List<Job> jobs;
+        private Concurrency concurrency;
 
         /**
          * Gets the name of the pipeline.
@@ -151,6 +153,31 @@ public class PipelineConfig {
             this.uploadRepo = (String) uploadRepo;
         }
 
+        /**
+         * Gets the concurrency settings of the pipeline.
+         *
+         * @return the concurrency settings, or null if runs of the pipeline never supersede
+         *         each other
+         */
+        public Concurrency getConcurrency() {
+            return concurrency == null ? null : new Concurrency(concurrency);
+        }
+
+        /**
+         * Sets the concurrency settings of the pipeline.
+         *
+         * <p>Throws an {@link IllegalArgumentException} if the concurrency group is missing.</p>
+         *
+         * @param concurrency the concurrency settings of the pipeline
+         */
+        public void setConcurrency(Concurrency concurrency) {
+            if (concurrency != null && (concurrency.getGroup() == null
+                    || concurrency.getGroup().isBlank())) {
+                throw new IllegalArgumentException("concurrency must define a group");
+            }
+            this.concurrency = concurrency == null ? null : new Concurrency(concurrency);
+        }
+
         /**
          * Gets the list of stages in the pipeline.
          *
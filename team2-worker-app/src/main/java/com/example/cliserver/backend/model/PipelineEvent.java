@@ -0,0 +1,260 @@
+package com.example.cliserver.backend.model;
+
+/**
+ * Represents a single progress event emitted while a pipeline run is executing.
+ * <p>
+ * Workers publish these events to the pipeline events exchange, and the server relays them
+ * to every client that is following the run.
+ * </p>
+ */
+public class PipelineEvent {
+
+    /**
+     * The kinds of progress events a pipeline run can emit.
+     */
+    public enum Type {
+        /**
+         * The pipeline run has started executing.
+         */
+        PIPELINE_STARTED,
+        /**
+         * A stage has started executing.
+         */
+        STAGE_STARTED,
+        /**
+         * A job has started executing.
+         */
+        JOB_STARTED,
+        /**
+         * A chunk of output was produced by a job.
+         */
+        LOG,
+        /**
+         * A job has finished executing.
+         */
+        JOB_FINISHED,
+        /**
+         * A stage has finished executing.
+         */
+        STAGE_FINISHED,
+        /**
+         * The pipeline run has finished executing.
+         */
+        PIPELINE_FINISHED
+    }
+
+    private Type type;
+    private String repo;
+    private String pipelineName;
+    private int runNumber;
+    private String stageName;
+    private String jobName;
+    private Status status;
+    private String message;
+    private long timestamp;
+
+    /**
+     * Constructs an empty {@code PipelineEvent}.
+     */
+    public PipelineEvent() {
+    }
+
+    /**
+     * Builds the routing key prefix shared by all events of a single pipeline run. Runs of
+     * pipelines with the same name in different repositories have different prefixes.
+     *
+     * @param repo         the repository of the pipeline run
+     * @param pipelineName the name of the pipeline
+     * @param runNumber    the run number of the pipeline
+     * @return the routing key prefix for the run
+     */
+    public static String runRoutingKey(String repo, String pipelineName, int runNumber) {
+        return routingWord(repo) + "." + routingWord(pipelineName) + "." + runNumber;
+    }
+
+    /**
+     * Builds the full routing key for an event of the given type.
+     *
+     * @param repo         the repository of the pipeline run
+     * @param pipelineName the name of the pipeline
+     * @param runNumber    the run number of the pipeline
+     * @param type         the type of the event
+     * @return the routing key for the event
+     */
+    public static String routingKey(String repo, String pipelineName, int runNumber, Type type) {
+        return runRoutingKey(repo, pipelineName, runNumber) + "." + type.name().toLowerCase();
+    }
+
+    /**
+     * Reduces a value to a single word of a routing key.
+     *
+     * @param value the value
+     * @return the word
+     */
+    private static String routingWord(String value) {
+        // Topic routing keys are dot-separated words, so dots and wildcards are not allowed
+        return value == null ? "unknown" : value.replaceAll("[.*#]", "_");
+    }
+
+    /**
+     * Gets the type of the event.
+     *
+     * @return the type of the event
+     */
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * Sets the type of the event.
+     *
+     * @param type the type of the event
+     */
+    public void setType(Type type) {
+        this.type = type;
+    }
+
+    /**
+     * Gets the repository of the pipeline run.
+     *
+     * @return the repository of the pipeline run
+     */
+    public String getRepo() {
+        return repo;
+    }
+
+    /**
+     * Sets the repository of the pipeline run.
+     *
+     * @param repo the repository of the pipeline run
+     */
+    public void setRepo(String repo) {
+        this.repo = repo;
+    }
+
+    /**
+     * Gets the name of the pipeline.
+     *
+     * @return the name of the pipeline
+     */
+    public String getPipelineName() {
+        return pipelineName;
+    }
+
+    /**
+     * Sets the name of the pipeline.
+     *
+     * @param pipelineName the name of the pipeline
+     */
+    public void setPipelineName(String pipelineName) {
+        this.pipelineName = pipelineName;
+    }
+
+    /**
+     * Gets the run number of the pipeline.
+     *
+     * @return the run number of the pipeline
+     */
+    public int getRunNumber() {
+        return runNumber;
+    }
+
+    /**
+     * Sets the run number of the pipeline.
+     *
+     * @param runNumber the run number of the pipeline
+     */
+    public void setRunNumber(int runNumber) {
+        this.runNumber = runNumber;
+    }
+
+    /**
+     * Gets the name of the stage the event belongs to.
+     *
+     * @return the stage name, or null for pipeline level events
+     */
+    public String getStageName() {
+        return stageName;
+    }
+
+    /**
+     * Sets the name of the stage the event belongs to.
+     *
+     * @param stageName the stage name
+     */
+    public void setStageName(String stageName) {
+        this.stageName = stageName;
+    }
+
+    /**
+     * Gets the name of the job the event belongs to.
+     *
+     * @return the job name, or null for stage and pipeline level events
+     */
+    public String getJobName() {
+        return jobName;
+    }
+
+    /**
+     * Sets the name of the job the event belongs to.
+     *
+     * @param jobName the job name
+     */
+    public void setJobName(String jobName) {
+        this.jobName = jobName;
+    }
+
+    /**
+     * Gets the status reported by the event.
+     *
+     * @return the status, or null if the event does not report one
+     */
+    public Status getStatus() {
+        return status;
+    }
+
+    /**
+     * Sets the status reported by the event.
+     *
+     * @param status the status
+     */
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    /**
+     * Gets the message of the event.
+     *
+     * @return the message of the event
+     */
+    public String getMessage() {
+        return message;
+    }
+
+    /**
+     * Sets the message of the event.
+     *
+     * @param message the message of the event
+     */
+    public void setMessage(String message) {
+        this.message = message;
+    }
+
+    /**
+     * Gets the time at which the event was emitted.
+     *
+     * @return the time of the event in milliseconds
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     * Sets the time at which the event was emitted.
+     *
+     * @param timestamp the time of the event in milliseconds
+     */
+    public void setTimestamp(long timestamp) {
+        this.timestamp = timestamp;
+    }
+}
@@ -25,6 +25,7 @@ public class PipelineRun {
     private String registry;
     private String image;
     private String uploadRepo;
+    private String concurrencyGroup;
 
     /**
      * Constructs a {@code PipelineRun} object.
@@ -329,4 +330,22 @@ public class PipelineRun {
     public void setUploadRepo(String uploadRepo) {
         this.uploadRepo = uploadRepo;
     }
+
+    /**
+     * Gets the resolved concurrency group of the pipeline run.
+     *
+     * @return the concurrency group, or null if the run is not part of one
+     */
+    public String getConcurrencyGroup() {
+        return concurrencyGroup;
+    }
+
+    /**
+     * Sets the resolved concurrency group of the pipeline run.
+     *
+     * @param concurrencyGroup the concurrency group of the run
+     */
+    public void setConcurrencyGroup(String concurrencyGroup) {
+        this.concurrencyGroup = concurrencyGroup;
+    }
 }
@@ -1,6 +1,7 @@
 package com.example.cliserver.backend.runCommand;
 
 import com.example.cliserver.backend.model.Job;
+import com.example.cliserver.backend.model.PipelineEvent;
 import com.example.cliserver.backend.utils.YamlConfigLoader;
 import com.github.dockerjava.api.DockerClient;
 import com.github.dockerjava.api.command.CreateContainerResponse;
@@ -17,6 +18,7 @@ import com.github.dockerjava.transport.DockerHttpClient;
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.util.ArrayList;
@@ -78,18 +80,45 @@ public class DockerContainerExecutor {
      * @param execution The pipeline execution context for logging
      * @param dockerRegistry The docker registry to pull the docker image from
      * @param dockerImage The docker image to use to execute the job
+     * @param mountSource The host directory to mount as the workspace of the job
      * @return true if the job executed successfully, false otherwise
      */
+    public boolean executeJobInContainer(Job job, PipelineExecution execution,
+                                         String dockerRegistry, String dockerImage,
+                                         String mountSource) {
+        return executeJobInContainer(job, execution, dockerRegistry, dockerImage, mountSource,
+                null);
+    }
+
+    /**
+     * Executes a job in a Docker container, then lets a collector take the artifacts of the
+     * job out of the container before it is removed. The collector is called when the scripts
+     * succeeded, or failed in a job that allows failure, but not when the job was canceled.
+     *
+     * @param job The job to execute
+     * @param execution The pipeline execution context for logging
+     * @param dockerRegistry The docker registry to pull the docker image from
+     * @param dockerImage The docker image to use to execute the job
+     * @param mountSource The host directory to mount as the workspace of the job
+     * @param artifactCollector Collects the artifacts from the container, or null
+     * @return true if the job executed successfully and its artifacts were collected, false
+     *         otherwise
+     */
     @SuppressFBWarnings("PA_PUBLIC_PRIMITIVE_ATTRIBUTE")
     public boolean executeJobInContainer(Job job, PipelineExecution execution,
-                                         String dockerRegistry, String dockerImage) {
+                                         String dockerRegistry, String dockerImage,
+                                         String mountSource,
+                                         ArtifactCollector artifactCollector) {
         String containerId = null;
         boolean jobSuccess = false;
         final long startTime = System.currentTimeMillis();
 
-        // Initialize a Docker client if not already done
-        if (dockerClient == null) {
-            dockerClient = initializeDockerClient(dockerRegistry);
+        // Initialize a Docker client if not already done. The jobs of a matrix start in
+        // parallel, so only the first of them creates it.
+        synchronized (this) {
+            if (dockerClient == null) {
+                dockerClient = initializeDockerClient(dockerRegistry);
+            }
         }
 
         execution.log("--- Starting job: " + job.getName() + " ---");
@@ -116,28 +145,45 @@ public class DockerContainerExecutor {
             }
 
             // Prepare container configuration
-            containerId = createAndStartContainer(job, execution, dockerImage);
+            containerId = createAndStartContainer(job, execution, dockerImage, mountSource);
             if (containerId == null) {
                 execution.log("Failed to create container");
                 return false;
             }
 
+            // Killing the container ends the running exec, so a cancel does not have to wait
+            // for the exec timeout
+            final String runningContainerId = containerId;
+            execution.setCancelHandler(job.getName(),
+                    () -> killContainer(runningContainerId, execution));
+            if (execution.isJobCancelRequested(job.getName())) {
+                execution.log("Job " + job.getName() + " canceled before its scripts started");
+                return false;
+            }
+
             // Execute each script command in the container
             jobSuccess = executeScriptsInContainer(job, containerId, execution);
 
+            if (artifactCollector != null && (jobSuccess || job.isAllowFailure())
+                    && !execution.isJobCancelRequested(job.getName())) {
+                boolean collected = artifactCollector.collect(containerId);
+                jobSuccess = jobSuccess && collected;
+            }
+
         } catch (Exception e) {
             execution.log("Error during Docker execution: " + e.getMessage());
             jobSuccess = false;
             return false;
         } finally {
+            execution.setCancelHandler(job.getName(), null);
             // Clean up the container
             if (containerId != null) {
                 cleanupContainer(containerId, execution);
             }
 
             long duration = System.currentTimeMillis() - startTime;
-            String status = jobSuccess ?
-                    "succeeded" :
+            String status = jobSuccess ? "succeeded" :
+                    execution.isJobCancelRequested(job.getName()) ? "canceled" :
                     (job.isAllowFailure() ? "failed but allowed" : "failed");
             execution.log("--- Job " + job.getName() + " " +
                     status + " (took " + duration + "ms) ---");
@@ -153,20 +199,19 @@ public class DockerContainerExecutor {
      * @param job       The job configuration
      * @param execution The pipeline execution context for logging
      * @param dockerImage The docker image to create the container from
+     * @param mountSource The host directory to mount as the workspace of the job
      * @return The container ID if successful, null otherwise
      */
     private String createAndStartContainer(Job job, PipelineExecution execution,
-                                           String dockerImage) {
+                                           String dockerImage, String mountSource) {
         try {
-            // Get the project directory to mount in the container
-            String projectDir = System.getenv("PROJECT_DIR");
-            execution.log("Mounting directory: " + projectDir + " to "
+            execution.log("Mounting directory: " + mountSource + " to "
                     + WORKSPACE_MOUNT_PATH + " in container");
 
             // Create volume configuration
             Volume appVolume = new Volume(WORKSPACE_MOUNT_PATH);
             List<Bind> binds = new ArrayList<>();
-            binds.add(new Bind(projectDir, appVolume));
+            binds.add(new Bind(mountSource, appVolume));
 
             // Handle ports if specified
             List<ExposedPort> exposedPorts = new ArrayList<>();
@@ -304,6 +349,8 @@ public class DockerContainerExecutor {
                                     StandardCharsets.UTF_8).trim();
                             if (!output.isEmpty()) {
                                 execution.log(output);
+                                execution.publishEvent(PipelineEvent.Type.LOG,
+                                        job.getStage(), job.getName(), null, output);
                                 outputBuffer.append(output).append("\n");
                             }
                         }
@@ -333,6 +380,35 @@ public class DockerContainerExecutor {
         }
     }
 
+    /**
+     * Opens a path of the workspace of a container as a tar stream, named after the last
+     * component of the path.
+     *
+     * @param containerId The Docker container ID
+     * @param path        The path, relative to the workspace, or empty for the workspace itself
+     * @return the tar stream of the path
+     */
+    public InputStream openArchive(String containerId, String path) {
+        String containerPath = path.isEmpty() ? WORKSPACE_MOUNT_PATH
+                : WORKSPACE_MOUNT_PATH + "/" + path;
+        return dockerClient.copyArchiveFromContainerCmd(containerId, containerPath).exec();
+    }
+
+    /**
+     * Kills a running container so that the exec running in it stops immediately.
+     *
+     * @param containerId The Docker container ID to kill
+     * @param execution   The pipeline execution context for logging
+     */
+    private void killContainer(String containerId, PipelineExecution execution) {
+        try {
+            execution.log("Killing container of canceled job: " + containerId);
+            dockerClient.killContainerCmd(containerId).exec();
+        } catch (Exception e) {
+            execution.log("Error killing container: " + e.getMessage());
+        }
+    }
+
     /**
      * Cleans up a Docker container by stopping and removing it.
      *
@@ -377,4 +453,18 @@ public class DockerContainerExecutor {
             }
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Takes the artifacts of a job out of its container before the container is removed.
+     */
+    @FunctionalInterface
+    public interface ArtifactCollector {
+        /**
+         * Collects the artifacts of a job.
+         *
+         * @param containerId The container of the job, whose scripts have finished
+         * @return true if the artifacts were collected, false otherwise
+         */
+        boolean collect(String containerId);
+    }
+}
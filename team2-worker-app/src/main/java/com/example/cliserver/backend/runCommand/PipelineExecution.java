@@ -1,6 +1,10 @@
 package com.example.cliserver.backend.runCommand;
 
+import com.example.cliserver.backend.messaging.PipelineEventPublisher;
+import com.example.cliserver.backend.model.PipelineEvent;
+import com.example.cliserver.backend.model.PipelineRun;
 import com.example.cliserver.backend.model.Status;
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 
 import java.io.File;
 import java.io.FileOutputStream;
@@ -8,7 +12,11 @@ import java.io.IOException;
 import java.io.OutputStreamWriter;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import static com.example.cliserver.backend.utils.Constants.PIPELINE_LOG_DIRECTORY;
 
@@ -32,6 +40,36 @@ public class PipelineExecution {
      */
     private final List<String> logs = new ArrayList<>();
 
+    /**
+     * Publisher for progress events of this execution, or null if events are not published.
+     */
+    private PipelineEventPublisher eventPublisher;
+    /**
+     * The pipeline run that progress events are reported for.
+     */
+    private PipelineRun pipelineRun;
+
+    /**
+     * Whether cancellation of this execution has been requested.
+     */
+    private volatile boolean cancelRequested;
+    /**
+     * Whether the execution was stopped so that the run can be handed back to the queue.
+     */
+    private volatile boolean requeueRequested;
+    /**
+     * Whether the run was taken over by another worker, so this execution must not report it.
+     */
+    private volatile boolean abandoned;
+    /**
+     * Actions that stop the jobs currently in progress when they are canceled, keyed by job name.
+     */
+    private final Map<String, Runnable> cancelHandlers = new HashMap<>();
+    /**
+     * The jobs that were canceled on their own, while the rest of the execution goes on.
+     */
+    private final Set<String> canceledJobs = new HashSet<>();
+
     /**
      * Creates a new pipeline execution instance.
      * Initializes the execution with a PENDING status and creates the log directory
@@ -118,4 +156,176 @@ public class PipelineExecution {
     public String getPipelineId() {
         return this.pipelineId;
     }
-}
\ No newline at end of file
+
+    /**
+     * Attaches a publisher that receives the progress events of this execution.
+     *
+     * @param eventPublisher the publisher to send progress events to
+     * @param pipelineRun    the pipeline run that the events are reported for
+     */
+    @SuppressFBWarnings("EI_EXPOSE_REP2")
+    public synchronized void attachEventPublisher(PipelineEventPublisher eventPublisher,
+                                                  PipelineRun pipelineRun) {
+        this.eventPublisher = eventPublisher;
+        this.pipelineRun = pipelineRun;
+    }
+
+    /**
+     * Publishes a progress event for this execution. Does nothing if no event publisher
+     * has been attached.
+     *
+     * @param type      the type of the event
+     * @param stageName the stage the event belongs to, or null
+     * @param jobName   the job the event belongs to, or null
+     * @param status    the status reported by the event, or null
+     * @param message   the message of the event, or null
+     */
+    public void publishEvent(PipelineEvent.Type type, String stageName, String jobName,
+                             Status status, String message) {
+        PipelineEventPublisher publisher;
+        PipelineRun run;
+        synchronized (this) {
+            publisher = this.eventPublisher;
+            run = this.pipelineRun;
+        }
+        if (publisher == null || run == null) {
+            return;
+        }
+
+        PipelineEvent event = new PipelineEvent();
+        event.setType(type);
+        event.setRepo(run.getRepo());
+        event.setPipelineName(run.getPipelineName());
+        event.setRunNumber(run.getRunNumber());
+        event.setStageName(stageName);
+        event.setJobName(jobName);
+        event.setStatus(status);
+        event.setMessage(message);
+        event.setTimestamp(System.currentTimeMillis());
+        publisher.publish(event);
+    }
+
+    /**
+     * Gets the pipeline run this execution reports for.
+     *
+     * @return the pipeline run, or null if none has been attached
+     */
+    @SuppressFBWarnings("EI_EXPOSE_REP")
+    public synchronized PipelineRun getPipelineRun() {
+        return pipelineRun;
+    }
+
+    /**
+     * Sets the action that stops a job currently in progress, such as killing its container.
+     * If cancellation of the execution or of the job has already been requested, the action runs
+     * at once.
+     *
+     * @param jobName       the name of the job
+     * @param cancelHandler the action to run on cancellation, or null to clear it
+     */
+    public void setCancelHandler(String jobName, Runnable cancelHandler) {
+        boolean canceled;
+        synchronized (this) {
+            if (cancelHandler == null) {
+                cancelHandlers.remove(jobName);
+            } else {
+                cancelHandlers.put(jobName, cancelHandler);
+            }
+            canceled = cancelRequested || canceledJobs.contains(jobName);
+        }
+        if (cancelHandler != null && canceled) {
+            cancelHandler.run();
+        }
+    }
+
+    /**
+     * Requests cancellation of this execution and stops the jobs currently in progress.
+     */
+    public void cancel() {
+        List<Runnable> handlers;
+        synchronized (this) {
+            cancelRequested = true;
+            handlers = new ArrayList<>(cancelHandlers.values());
+        }
+        log("Cancellation requested.");
+        for (Runnable handler : handlers) {
+            handler.run();
+        }
+    }
+
+    /**
+     * Requests cancellation of a single job, for example the remaining jobs of a matrix after
+     * one of them failed, and stops it if it is in progress. The rest of the execution goes on.
+     *
+     * @param jobName the name of the job
+     */
+    public void cancelJob(String jobName) {
+        Runnable handler;
+        synchronized (this) {
+            canceledJobs.add(jobName);
+            handler = cancelHandlers.get(jobName);
+        }
+        log("Cancellation requested for job: " + jobName);
+        if (handler != null) {
+            handler.run();
+        }
+    }
+
+    /**
+     * Checks whether cancellation of a job, or of the whole execution, has been requested.
+     *
+     * @param jobName the name of the job
+     * @return true if the job has been canceled, else false
+     */
+    public synchronized boolean isJobCancelRequested(String jobName) {
+        return cancelRequested || canceledJobs.contains(jobName);
+    }
+
+    /**
+     * Stops this execution so that the run can be executed again by another worker, for
+     * example because this worker is shutting down. The work in progress is stopped the same
+     * way as on cancellation.
+     */
+    public void requeue() {
+        requeueRequested = true;
+        log("Requeue requested.");
+        cancel();
+    }
+
+    /**
+     * Checks whether this execution was stopped to hand the run back to the queue.
+     *
+     * @return true if the run should be requeued, else false
+     */
+    public boolean isRequeueRequested() {
+        return requeueRequested;
+    }
+
+    /**
+     * Checks whether cancellation of this execution has been requested.
+     *
+     * @return true if the execution has been canceled, else false
+     */
+    public boolean isCancelRequested() {
+        return cancelRequested;
+    }
+
+    /**
+     * Stops this execution because another worker took over the run, for example after this
+     * worker could not renew its claim in time. Nothing more is reported for the run.
+     */
+    public void abandon() {
+        abandoned = true;
+        log("Run taken over by another worker.");
+        cancel();
+    }
+
+    /**
+     * Checks whether this execution was stopped because another worker took over the run.
+     *
+     * @return true if the run was abandoned, else false
+     */
+    public boolean isAbandoned() {
+        return abandoned;
+    }
+}
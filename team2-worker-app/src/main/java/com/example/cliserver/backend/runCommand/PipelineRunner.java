@@ -1,8 +1,15 @@
 package com.example.cliserver.backend.runCommand;
 
+import com.example.cliserver.backend.database.artifactsDB.ArtifactCache;
+import com.example.cliserver.backend.database.artifactsDB.ArtifactManifest;
+import com.example.cliserver.backend.database.artifactsDB.ArtifactsDownloader;
 import com.example.cliserver.backend.database.artifactsDB.ArtifactsUploader;
+import com.example.cliserver.backend.database.artifactsDB.JobCacheStore;
 import com.example.cliserver.backend.database.mongoDB.PipelineRunsDao;
+import com.example.cliserver.backend.messaging.PipelineEventPublisher;
 import com.example.cliserver.backend.model.Job;
+import com.example.cliserver.backend.model.JobCache;
+import com.example.cliserver.backend.model.PipelineEvent;
 import com.example.cliserver.backend.model.PipelineRun;
 import com.example.cliserver.backend.model.Stage;
 import com.example.cliserver.backend.model.Status;
@@ -10,12 +17,26 @@ import com.example.cliserver.backend.utils.Constants;
 import com.example.cliserver.backend.utils.PipelineUtils;
 
 import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 
 /**
@@ -26,8 +47,33 @@ import java.util.concurrent.TimeUnit;
 public class PipelineRunner {
     public final PipelineRunsDao pipelineRunsDao;
     public final ArtifactsUploader uploader;
+    private final ArtifactsDownloader downloader;
+    private final ArtifactCache artifactCache = ArtifactCache.getInstance();
+    private final WorkspaceManager workspaceManager = WorkspaceManager.getInstance();
+    private final JobCacheStore jobCacheStore;
     private final DockerContainerExecutor dockerContainerExecutor = new DockerContainerExecutor();
+    /**
+     * The threads the jobs of matrices run on, shared by every run on this worker.
+     */
     private static final ExecutorService executorService = Executors.newFixedThreadPool(5);
+    /**
+     * The thread that renews the claims of this worker on the runs it executes. The renewal of
+     * a run is removed as soon as the run finishes.
+     */
+    private static final ScheduledThreadPoolExecutor leaseRenewer =
+            new ScheduledThreadPoolExecutor(1, runnable -> {
+                Thread thread = new Thread(runnable, "run-lease-renewer");
+                thread.setDaemon(true);
+                return thread;
+            });
+
+    static {
+        leaseRenewer.setRemoveOnCancelPolicy(true);
+    }
+    /**
+     * The identifier this worker claims pipeline runs with.
+     */
+    private final String workerId = UUID.randomUUID().toString();
 
     /**
      * Constructs a {@code PipelineRunner} object with the specified {@code PipelineRunsDao}.
@@ -43,6 +89,8 @@ public class PipelineRunner {
     public PipelineRunner(PipelineRunsDao pipelineRunsDao) {
         this.pipelineRunsDao = pipelineRunsDao;
         this.uploader = new ArtifactsUploader();
+        this.downloader = new ArtifactsDownloader(artifactCache);
+        this.jobCacheStore = new JobCacheStore(uploader);
     }
 
     /**
@@ -50,6 +98,20 @@ public class PipelineRunner {
      */
     public final Map<String, PipelineExecution> activeExecutions = new ConcurrentHashMap<>();
 
+    /**
+     * Publisher for pipeline progress events, or null if progress events are not published.
+     */
+    private volatile PipelineEventPublisher eventPublisher;
+
+    /**
+     * Sets the publisher that progress events of every subsequent pipeline run are sent to.
+     *
+     * @param eventPublisher the publisher for pipeline progress events
+     */
+    public void setEventPublisher(PipelineEventPublisher eventPublisher) {
+        this.eventPublisher = eventPublisher;
+    }
+
     /**
      * Initiates the execution of a pipeline defined in the specified configuration file. The
      * pipeline execution is started in a new thread to allow for asynchronous processing.
@@ -58,36 +120,198 @@ public class PipelineRunner {
      * @return A status message indicating whether the pipeline was started successfully or any
      * error occurred
      */
-    public String runPipeline(
-            PipelineRun pipelineRunReport
-    ){
+    public String runPipeline(PipelineRun pipelineRunReport) {
+        return runPipeline(pipelineRunReport, false);
+    }
+
+    /**
+     * Initiates the execution of a pipeline run received from the job queue. A redelivered run
+     * may still be running, owned by a worker that lost its connection to the queue or crashed.
+     * It is taken over once the claim of that worker expires, and if the run finishes on that
+     * worker instead, it is skipped.
+     *
+     * @param pipelineRunReport The pipeline run report to update with execution results
+     * @param redelivered       Whether the job queue delivered the run before
+     * @return A status message indicating whether the pipeline was started successfully or any
+     * error occurred
+     */
+    public String runPipeline(PipelineRun pipelineRunReport, boolean redelivered) {
+        return runPipeline(pipelineRunReport, redelivered, () -> { });
+    }
+
+    /**
+     * Initiates the execution of a pipeline run received from the job queue, as
+     * {@link #runPipeline(PipelineRun, boolean)} does, and reports when this worker claimed the
+     * run. A run that is skipped because it is no longer pending is never claimed.
+     *
+     * @param pipelineRunReport The pipeline run report to update with execution results
+     * @param redelivered       Whether the job queue delivered the run before
+     * @param onClaimed         Called once the run is claimed, before it executes
+     * @return A status message indicating whether the pipeline was started successfully or any
+     * error occurred
+     */
+    public String runPipeline(PipelineRun pipelineRunReport, boolean redelivered,
+                              Runnable onClaimed) {
         // Generate pipeline ID based on the file path
         String pipelineId = PipelineUtils.generatePipelineId(pipelineRunReport.getFileName())
                 + "_" + pipelineRunReport.getRunNumber();
-        pipelineRunReport.setStartTime(System.currentTimeMillis());
-        if (activeExecutions.containsKey(pipelineId)) {
-            pipelineRunReport.setPipelineStatus(Status.CANCELED);
-            pipelineRunReport.setCompletionTime(System.currentTimeMillis());
-            updatePipelineRunReport(pipelineRunReport);
+        // The start time stays the time the server queued the run, on the clock of the server,
+        // since the server orders the runs of a concurrency group by it
+
+        // Register the execution before the run is claimed, so that a cancel arriving right
+        // after the claim is not lost. It is honored as soon as the execution starts.
+        PipelineExecution execution = new PipelineExecution(pipelineId);
+        execution.attachEventPublisher(eventPublisher, pipelineRunReport);
+        if (activeExecutions.putIfAbsent(pipelineId, execution) != null) {
             return "Duplicate pipeline execution detected. Using existing execution.";
         }
-        activeExecutions.put(pipelineId, new PipelineExecution(pipelineId));
 
-        PipelineExecution execution = activeExecutions.get(pipelineId);
+        boolean claimed;
+        try {
+            // If the run can not be claimed it was canceled while it was waiting in the queue,
+            // or it was already executed
+            claimed = claimPipelineRun(pipelineRunReport, false)
+                    || redelivered && awaitTakeOver(execution, pipelineRunReport);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            claimed = false;
+        } catch (RuntimeException e) {
+            activeExecutions.remove(pipelineId, execution);
+            throw e;
+        }
+        if (!claimed) {
+            activeExecutions.remove(pipelineId, execution);
+            return "Skipped " + pipelineRunReport.getPipelineName() + " run: "
+                    + pipelineRunReport.getRunNumber() + " as it is no longer pending.";
+        }
+        onClaimed.run();
 
-        executePipeline(execution, pipelineRunReport);
+        // The claim is renewed for as long as the run executes here
+        ScheduledFuture<?> leaseRenewal = leaseRenewer.scheduleWithFixedDelay(
+                () -> renewLease(execution, pipelineRunReport), Constants.RUN_LEASE_RENEW_MILLIS,
+                Constants.RUN_LEASE_RENEW_MILLIS, TimeUnit.MILLISECONDS);
+        try {
+            executePipeline(execution, pipelineRunReport);
+        } finally {
+            leaseRenewal.cancel(false);
+        }
 
         return pipelineRunReport.getPipelineName() + " run: " + pipelineRunReport.getRunNumber();
     }
 
     /**
-     * Creates a new pipeline run report if it doesn't exist, otherwise updates it,
-     * and sets its completion time.
+     * Claims a pipeline run for this worker.
+     *
+     * @param pipelineRun the pipeline run to claim
+     * @param takeOver    whether the run may be taken over from a worker whose claim expired
+     * @return true if the run was claimed, else false
+     */
+    private boolean claimPipelineRun(PipelineRun pipelineRun, boolean takeOver) {
+        return pipelineRunsDao.claimPipelineRun(pipelineRun.getRepo(),
+                pipelineRun.getPipelineName(), pipelineRun.getRunNumber(), workerId,
+                Constants.RUN_LEASE_MILLIS, takeOver);
+    }
+
+    /**
+     * Waits until a redelivered run can be taken over: while the worker that owns it keeps
+     * renewing its claim the run is still executing there, and acknowledging the delivery
+     * would lose the run if that worker fails later on. Stops waiting once the run finished,
+     * or if this worker is asked to hand its runs back to the queue.
+     *
+     * @param execution   the execution registered for the run
+     * @param pipelineRun the redelivered pipeline run
+     * @return true if the run was taken over, false if it does not need to be executed here
+     * @throws InterruptedException if the thread is interrupted while waiting
+     */
+    private boolean awaitTakeOver(PipelineExecution execution, PipelineRun pipelineRun)
+            throws InterruptedException {
+        while (!execution.isRequeueRequested()) {
+            if (claimPipelineRun(pipelineRun, true)) {
+                return true;
+            }
+            if (pipelineRunsDao.findActiveRuns(pipelineRun.getRepo(),
+                    pipelineRun.getPipelineName(), pipelineRun.getRunNumber()).first() == null) {
+                return false;
+            }
+            execution.log("Waiting for the claim of another worker on the run to expire.");
+            Thread.sleep(Constants.RUN_LEASE_RENEW_MILLIS);
+        }
+        return false;
+    }
+
+    /**
+     * Renews the claim on a run executing on this worker. A run whose claim can not be renewed
+     * was taken over by another worker, so it is stopped here.
+     *
+     * @param execution the execution of the run
+     * @param run       the pipeline run
+     */
+    private void renewLease(PipelineExecution execution, PipelineRun run) {
+        if (execution.isAbandoned()) {
+            return;
+        }
+        try {
+            if (!pipelineRunsDao.renewPipelineRunLease(run.getRepo(), run.getPipelineName(),
+                    run.getRunNumber(), workerId, Constants.RUN_LEASE_MILLIS)) {
+                execution.abandon();
+            }
+        } catch (RuntimeException e) {
+            // The claim is kept as long as a later renewal succeeds before it expires
+            execution.log("Failed to renew the claim on the run: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Cancels a pipeline run that is currently executing on this worker. The container of the
+     * running job is killed, and the remaining jobs of the run are marked as canceled.
+     *
+     * @param repo         the repository of the pipeline run
+     * @param pipelineName the name of the pipeline
+     * @param runNumber    the run number of the pipeline
+     * @return true if the run is executing on this worker and was canceled, else false
+     */
+    public boolean cancelPipeline(String repo, String pipelineName, int runNumber) {
+        for (PipelineExecution execution : activeExecutions.values()) {
+            PipelineRun run = execution.getPipelineRun();
+            if (run != null && run.getRunNumber() == runNumber
+                    && Objects.equals(run.getRepo(), repo)
+                    && Objects.equals(run.getPipelineName(), pipelineName)) {
+                execution.cancel();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Stops every pipeline run executing on this worker so that it can be handed back to the
+     * queue. The runs are reset to pending, so the next worker that receives them can claim
+     * them again.
+     *
+     * @return the number of runs that were stopped
+     */
+    public int requeueActivePipelines() {
+        int requeued = 0;
+        for (PipelineExecution execution : activeExecutions.values()) {
+            execution.requeue();
+            requeued++;
+        }
+        return requeued;
+    }
+
+    /**
+     * Updates the pipeline run report, unless another worker took over the run.
      *
      * @param pipelineRun the pipeline run to create or update
      */
     private void updatePipelineRunReport(PipelineRun pipelineRun) {
-        pipelineRunsDao.updatePipelineRun(pipelineRun);
+        // The jobs of a matrix report their progress from several threads
+        synchronized (pipelineRun) {
+            if (!pipelineRunsDao.updateOwnedPipelineRun(pipelineRun, workerId)) {
+                System.err.println("Not updating " + pipelineRun.getPipelineName() + " run: "
+                        + pipelineRun.getRunNumber() + ", it is owned by another worker.");
+            }
+        }
     }
 
     /**
@@ -100,6 +324,7 @@ public class PipelineRunner {
      */
     private void executePipeline(PipelineExecution execution,
                                  PipelineRun pipelineRunReport) {
+        WorkspaceManager.RunWorkspace workspace = null;
         try {
             execution.setStatus(Status.PENDING);
             execution.log("Pipeline transitioned to Pending.");
@@ -115,8 +340,23 @@ public class PipelineRunner {
 
             execution.log("Pipeline transitioned to Running.");
             updatePipelineRunReport(pipelineRunReport);
+            execution.publishEvent(PipelineEvent.Type.PIPELINE_STARTED, null, null,
+                    Status.RUNNING, "Pipeline transitioned to Running.");
+
+            try {
+                // A run canceled before it was claimed is not checked out at all
+                if (!execution.isCancelRequested()) {
+                    workspace = prepareWorkspace(execution, pipelineRunReport);
+                }
+            } catch (IOException e) {
+                execution.log("Failed to prepare workspace: " + e.getMessage());
+                pipelineFailed = true;
+            }
 
             for (Stage stage : allStages) {
+                if (pipelineFailed || execution.isCancelRequested()) {
+                    break;
+                }
                 // Get topologically sorted jobs
                 List<Job> stageJobs = stage.getJobs();
 
@@ -126,33 +366,45 @@ public class PipelineRunner {
                 stage.setStageStatus(Status.RUNNING);
                 stage.setStartTime(System.currentTimeMillis());
                 updatePipelineRunReport(pipelineRunReport);
+                execution.publishEvent(PipelineEvent.Type.STAGE_STARTED, stage.getStageName(),
+                        null, Status.RUNNING, "Stage " + stage.getStageName() + " started");
 
-                // Execute jobs in sorted order
+                // Execute jobs in sorted order. The jobs of a matrix run together, in parallel,
+                // where the first of them comes up: they all have the same dependencies, and any
+                // job that needs the matrix needs all of them, so it comes after the last one.
+                Set<String> startedMatrices = new HashSet<>();
                 for (Job job : stageJobs) {
-                    job.setStartTime(System.currentTimeMillis());
-
-                    job.setJobStatus(Status.RUNNING);
-                    execution.log("Executing job: " + job.getName());
-
-                    updatePipelineRunReport(pipelineRunReport);
-
-                    boolean jobResult =
-                            executeJob(job, execution, dockerRegistry, dockerImage);
-
-                    job.setCompletionTime(System.currentTimeMillis());
-
-                    // Update job status based on an execution result
-                    if (jobResult) {
-                        job.setJobStatus(Status.SUCCESS);
-                    } else {
-                        job.setJobStatus(Status.FAILED);
-                        if (!job.isAllowFailure()) {
-                            pipelineFailed = true;
-                            execution.log(
-                                    "Stage " + stage.getStageName() +
-                                            " failed due to job failure: " + job.getName());
-                            break;  // Stop execution on failure if `allowFailure` is false
+                    if (execution.isCancelRequested()) {
+                        break;
+                    }
+                    String matrixParent = job.getMatrixParent();
+                    boolean jobResult;
+                    if (matrixParent == null) {
+                        jobResult = runJob(job, stage, execution, pipelineRunReport,
+                                dockerRegistry, dockerImage, workspace);
+                    } else if (startedMatrices.add(matrixParent)) {
+                        List<Job> matrixJobs = new ArrayList<>();
+                        for (Job stageJob : stageJobs) {
+                            if (matrixParent.equals(stageJob.getMatrixParent())) {
+                                matrixJobs.add(stageJob);
+                            }
                         }
+                        jobResult = runMatrixJobs(matrixParent, matrixJobs, stage, execution,
+                                pipelineRunReport, dockerRegistry, dockerImage, workspace);
+                    } else {
+                        continue;
+                    }
+
+                    if (execution.isCancelRequested()) {
+                        break;
+                    }
+                    if (!jobResult) {
+                        pipelineFailed = true;
+                        execution.log(
+                                "Stage " + stage.getStageName() +
+                                        " failed due to job failure: "
+                                        + (matrixParent == null ? job.getName() : matrixParent));
+                        break;  // Stop execution on failure if `allowFailure` is false
                     }
                     updatePipelineRunReport(pipelineRunReport);
                 }
@@ -160,26 +412,37 @@ public class PipelineRunner {
                 stage.setStageStatus(calculateStageStatus(stage.getJobs()));
                 stage.setCompletionTime(System.currentTimeMillis());
                 updatePipelineRunReport(pipelineRunReport);
+                execution.publishEvent(PipelineEvent.Type.STAGE_FINISHED, stage.getStageName(),
+                        null, stage.getStageStatus(),
+                        "Stage " + stage.getStageName() + " finished: " + stage.getStageStatus());
 
-                if (pipelineFailed) break;
+                if (pipelineFailed || execution.isCancelRequested()) break;
                 execution.log("Stage " + stage.getStageName() + " completed successfully");
             }
 
-            if (pipelineFailed) {
+            if (execution.isAbandoned()) {
+                // The run is reported by the worker that took it over
+                execution.log("Pipeline stopped, the run was taken over by another worker.");
+                return;
+            } else if (execution.isRequeueRequested()) {
+                // Hand the run back so that the next worker can claim it again
+                execution.setStatus(Status.PENDING);
+                pipelineRunReport.setPipelineStatus(Status.PENDING);
+                execution.log("Pipeline interrupted and returned to the queue.");
+                updatePipelineRunReport(pipelineRunReport);
+                return;
+            } else if (execution.isCancelRequested()) {
+                markRemainingJobsCanceled(allStages);
+                execution.setStatus(Status.CANCELED);
+                pipelineRunReport.setPipelineStatus(Status.CANCELED);
+                execution.log("Pipeline canceled.");
+            } else if (pipelineFailed) {
                 execution.setStatus(Status.FAILED);
                 pipelineRunReport.setPipelineStatus(Status.FAILED);
             } else {
                 execution.setStatus(Status.SUCCESS);
                 pipelineRunReport.setPipelineStatus(Status.SUCCESS);
                 execution.log("Pipeline completed successfully.");
-
-                // Deleting the artifacts for all the jobs,
-                // after the entire pipeline run is successfully completed
-                execution.log("Starting to delete the artifacts for pipeline: " +
-                        pipelineRunReport.getPipelineName());
-                PipelineUtils.deleteFile(new File(Constants.LOCAL_ARTIFACTS_DIRECTORY));
-                execution.log("Deleted the artifacts for pipeline run: " +
-                        pipelineRunReport.getPipelineName());
             }
 
             pipelineRunReport.setCompletionTime(System.currentTimeMillis());
@@ -187,8 +450,378 @@ public class PipelineRunner {
         } catch (Exception e) {
             execution.log("Pipeline execution failed due to exception: " + e.getMessage());
         } finally {
-            activeExecutions.remove(pipelineRunReport.getPipelineName());
+            // The run directory is deleted in the background, after the run is complete
+            if (workspace != null) {
+                workspace.close();
+            }
+            activeExecutions.remove(execution.getPipelineId(), execution);
+            // Always let followers know the run is over, even if it ended with an exception.
+            // A requeued or abandoned run is not over, so its followers keep receiving the
+            // events of the worker that picks it up next.
+            if (!execution.isRequeueRequested() && !execution.isAbandoned()) {
+                execution.publishEvent(PipelineEvent.Type.PIPELINE_FINISHED, null, null,
+                        pipelineRunReport.getPipelineStatus(),
+                        "Pipeline finished: " + pipelineRunReport.getPipelineStatus());
+            }
+        }
+    }
+
+    /**
+     * Runs a single job and records its status.
+     *
+     * @param job               The job to run
+     * @param stage             The stage of the job
+     * @param execution         The execution context for tracking status and logging
+     * @param pipelineRunReport The pipeline run the job belongs to
+     * @param dockerRegistry    The docker registry of the pipeline
+     * @param dockerImage       The docker image of the pipeline
+     * @param workspace         The run directory to run the job in
+     * @return false if the job failed and does not allow failure, else true
+     */
+    private boolean runJob(Job job, Stage stage, PipelineExecution execution,
+                           PipelineRun pipelineRunReport, String dockerRegistry,
+                           String dockerImage, WorkspaceManager.RunWorkspace workspace) {
+        // The jobs of a matrix change their state from several threads while the run is stored
+        synchronized (pipelineRunReport) {
+            job.setStartTime(System.currentTimeMillis());
+            job.setJobStatus(Status.RUNNING);
+        }
+        execution.log("Executing job: " + job.getName());
+
+        updatePipelineRunReport(pipelineRunReport);
+        execution.publishEvent(PipelineEvent.Type.JOB_STARTED, stage.getStageName(),
+                job.getName(), Status.RUNNING, "Job " + job.getName() + " started");
+
+        String artifactsPrefix = ArtifactsUploader.objectPrefix(pipelineRunReport.getRepo(),
+                pipelineRunReport.getPipelineName(), pipelineRunReport.getRunNumber(),
+                job.getName());
+        String artifactsDirectory = workspace.getDirectory().getPath();
+        boolean jobResult = restoreDependencies(job, execution, pipelineRunReport,
+                artifactsDirectory);
+        if (jobResult) {
+            String cacheKey = restoreCache(job, execution, pipelineRunReport.getRepo(),
+                    artifactsDirectory);
+            jobResult = executeJob(job, execution, dockerRegistry, dockerImage, workspace,
+                    artifactsPrefix, isDependedOn(job, pipelineRunReport), pipelineRunReport,
+                    cacheKey);
+        }
+
+        // Update job status based on an execution result
+        Status jobStatus;
+        if (execution.isJobCancelRequested(job.getName())) {
+            jobStatus = Status.CANCELED;
+        } else if (jobResult) {
+            jobStatus = Status.SUCCESS;
+        } else {
+            jobStatus = Status.FAILED;
+        }
+        synchronized (pipelineRunReport) {
+            job.setCompletionTime(System.currentTimeMillis());
+            job.setJobStatus(jobStatus);
         }
+        execution.publishEvent(PipelineEvent.Type.JOB_FINISHED, stage.getStageName(),
+                job.getName(), jobStatus, "Job " + job.getName() + " finished: " + jobStatus);
+        return jobResult || job.isAllowFailure();
+    }
+
+    /**
+     * Restores the artifacts of the jobs a job takes artifacts from into the directory the job
+     * runs in, before the job starts.
+     *
+     * @param job                The job to restore the dependencies of
+     * @param execution          The execution context for tracking status and logging
+     * @param pipelineRunReport  The pipeline run the job belongs to
+     * @param artifactsDirectory The directory the job runs in
+     * @return true if every dependency was restored, false otherwise
+     */
+    private boolean restoreDependencies(Job job, PipelineExecution execution,
+                                        PipelineRun pipelineRunReport,
+                                        String artifactsDirectory) {
+        for (String dependency : job.getDependencies()) {
+            Job upstream = findJob(pipelineRunReport, dependency);
+            if (upstream == null || upstream.getArtifactsLocation() == null) {
+                execution.log("Job " + job.getName() + " takes the artifacts of " + dependency
+                        + ", but it stored no artifacts.");
+                return false;
+            }
+            try {
+                downloader.downloadArtifacts(upstream.getArtifactsLocation(),
+                        new File(artifactsDirectory), execution::log);
+            } catch (Exception e) {
+                execution.log("Failed to restore the artifacts of " + dependency + " for job "
+                        + job.getName() + ": " + e.getMessage());
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Restores the dependency cache of a job into the directory it runs in, before it starts.
+     * A cache that cannot be restored only makes the job slower, so a failure is logged and
+     * the job runs without the cache.
+     *
+     * @param job                The job to restore the cache of
+     * @param execution          The execution context for tracking status and logging
+     * @param repo               The repository of the run, which caches are shared within
+     * @param artifactsDirectory The directory the job runs in
+     * @return the key to save the cache under once the job succeeds, or null if the job has no
+     *         cache or the cache of its exact key was restored
+     */
+    private String restoreCache(Job job, PipelineExecution execution, String repo,
+                                String artifactsDirectory) {
+        JobCache cache = job.getCache();
+        if (cache == null) {
+            return null;
+        }
+        String key = null;
+        try {
+            Path directory = Paths.get(artifactsDirectory);
+            key = JobCacheStore.resolveKey(cache.getKey(), directory);
+            List<String> restoreKeys = new ArrayList<>();
+            for (String restoreKey : cache.getRestoreKeys()) {
+                restoreKeys.add(JobCacheStore.resolveKey(restoreKey, directory));
+            }
+            if (jobCacheStore.restore(repo, key, restoreKeys, directory.toFile(),
+                    execution::log)) {
+                return null;
+            }
+        } catch (Exception e) {
+            execution.log("Failed to restore the cache of job " + job.getName()
+                    + ", running without it: " + e.getMessage());
+        }
+        return key;
+    }
+
+    /**
+     * Checks whether any job of a pipeline run takes the artifacts of a job.
+     *
+     * @param job               The job
+     * @param pipelineRunReport The pipeline run the job belongs to
+     * @return true if another job lists the job in its dependencies
+     */
+    private boolean isDependedOn(Job job, PipelineRun pipelineRunReport) {
+        for (Stage stage : pipelineRunReport.getStages()) {
+            for (Job other : stage.getJobs()) {
+                if (other.getDependencies().contains(job.getName())) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Finds a job of a pipeline run by name.
+     *
+     * @param pipelineRunReport The pipeline run
+     * @param jobName           The name of the job
+     * @return the job, or null if the run has no job with the name
+     */
+    private Job findJob(PipelineRun pipelineRunReport, String jobName) {
+        for (Stage stage : pipelineRunReport.getStages()) {
+            for (Job job : stage.getJobs()) {
+                if (job.getName().equals(jobName)) {
+                    return job;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Runs the jobs of a matrix in parallel, at most as many at a time as the matrix allows.
+     * If the matrix fails fast, the first job that fails cancels the jobs that are still
+     * running, and the jobs that have not started yet are not started at all.
+     *
+     * @param matrixParent      The name of the matrix job
+     * @param matrixJobs        The jobs the matrix job was expanded into
+     * @param stage             The stage of the jobs
+     * @param execution         The execution context for tracking status and logging
+     * @param pipelineRunReport The pipeline run the jobs belong to
+     * @param dockerRegistry    The docker registry of the pipeline
+     * @param dockerImage       The docker image of the pipeline
+     * @param workspace         The run directory the directories of the jobs are linked from
+     * @return false if any job failed and does not allow failure, else true
+     */
+    private boolean runMatrixJobs(String matrixParent, List<Job> matrixJobs, Stage stage,
+                                  PipelineExecution execution, PipelineRun pipelineRunReport,
+                                  String dockerRegistry, String dockerImage,
+                                  WorkspaceManager.RunWorkspace workspace) {
+        int maxParallel = matrixJobs.get(0).getMaxParallel() > 0
+                ? matrixJobs.get(0).getMaxParallel() : Constants.DEFAULT_MATRIX_MAX_PARALLEL;
+        boolean failFast = matrixJobs.get(0).isFailFast();
+        execution.log("Running " + matrixJobs.size() + " jobs of matrix " + matrixParent
+                + ", " + maxParallel + " at a time" + (failFast ? ", failing fast" : ""));
+
+        Semaphore slots = new Semaphore(maxParallel);
+        AtomicBoolean failed = new AtomicBoolean();
+        List<Future<?>> running = new ArrayList<>();
+        for (Job job : matrixJobs) {
+            try {
+                slots.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                failed.set(true);
+                break;
+            }
+            if (execution.isCancelRequested() || (failFast && failed.get())) {
+                slots.release();
+                break;
+            }
+            running.add(executorService.submit(() -> {
+                try {
+                    if (execution.isCancelRequested() || (failFast && failed.get())) {
+                        return;
+                    }
+                    boolean jobResult = runMatrixJob(job, stage, execution,
+                            pipelineRunReport, dockerRegistry, dockerImage, workspace);
+                    if (!jobResult && failed.compareAndSet(false, true) && failFast) {
+                        execution.log("Matrix " + matrixParent + " failed fast due to job "
+                                + "failure: " + job.getName());
+                        synchronized (pipelineRunReport) {
+                            for (Job other : matrixJobs) {
+                                if (Status.RUNNING.equals(other.getJobStatus())) {
+                                    execution.cancelJob(other.getName());
+                                }
+                            }
+                        }
+                    } else if (!jobResult) {
+                        failed.set(true);
+                    }
+                } finally {
+                    slots.release();
+                }
+            }));
+        }
+
+        for (Future<?> job : running) {
+            try {
+                job.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                failed.set(true);
+            } catch (ExecutionException e) {
+                execution.log("Matrix job of " + matrixParent + " failed due to exception: "
+                        + e.getCause().getMessage());
+                failed.set(true);
+            }
+        }
+
+        // The jobs that were never started because the matrix failed fast
+        if (failed.get() && !execution.isCancelRequested()) {
+            for (Job job : matrixJobs) {
+                boolean neverStarted;
+                synchronized (pipelineRunReport) {
+                    neverStarted = Status.PENDING.equals(job.getJobStatus());
+                    if (neverStarted) {
+                        job.setJobStatus(Status.CANCELED);
+                    }
+                }
+                if (neverStarted) {
+                    execution.publishEvent(PipelineEvent.Type.JOB_FINISHED,
+                            stage.getStageName(), job.getName(), Status.CANCELED,
+                            "Job " + job.getName() + " finished: " + Status.CANCELED);
+                }
+            }
+        }
+        return !failed.get();
+    }
+
+    /**
+     * Runs a single job of a matrix in a directory of its own, copied from the run directory,
+     * since the other jobs of the matrix run at the same time. Once the job succeeds, the files
+     * it created or changed are merged back into the run directory for the later jobs.
+     *
+     * @param job               The job to run
+     * @param stage             The stage of the job
+     * @param execution         The execution context for tracking status and logging
+     * @param pipelineRunReport The pipeline run the job belongs to
+     * @param dockerRegistry    The docker registry of the pipeline
+     * @param dockerImage       The docker image of the pipeline
+     * @param workspace         The run directory to copy the directory of the job from
+     * @return false if the job failed and does not allow failure, else true
+     */
+    private boolean runMatrixJob(Job job, Stage stage, PipelineExecution execution,
+                                 PipelineRun pipelineRunReport, String dockerRegistry,
+                                 String dockerImage, WorkspaceManager.RunWorkspace workspace) {
+        WorkspaceManager.RunWorkspace jobWorkspace;
+        try {
+            jobWorkspace = workspaceManager.createJobWorkspace(workspace);
+        } catch (IOException e) {
+            execution.log("Failed to prepare workspace for job " + job.getName() + ": "
+                    + e.getMessage());
+            synchronized (pipelineRunReport) {
+                job.setJobStatus(Status.FAILED);
+            }
+            updatePipelineRunReport(pipelineRunReport);
+            execution.publishEvent(PipelineEvent.Type.JOB_FINISHED, stage.getStageName(),
+                    job.getName(), Status.FAILED,
+                    "Job " + job.getName() + " finished: " + Status.FAILED);
+            return job.isAllowFailure();
+        }
+        try (jobWorkspace) {
+            boolean jobResult = runJob(job, stage, execution, pipelineRunReport,
+                    dockerRegistry, dockerImage, jobWorkspace);
+            if (jobResult && Status.SUCCESS.equals(job.getJobStatus())) {
+                try {
+                    workspaceManager.mergeJobWorkspace(jobWorkspace, workspace);
+                } catch (IOException e) {
+                    execution.log("Failed to copy the files of job " + job.getName()
+                            + " back into the run directory: " + e.getMessage());
+                    return false;
+                }
+            }
+            return jobResult;
+        }
+    }
+
+    /**
+     * Prepares the directory of a run. Every run gets a directory of its own, so concurrent runs
+     * never share files. For a remote repository the commit is resolved first and stored on the
+     * run, so every job of the run executes the same commit. The commit is checked out from the
+     * mirror cache of this node unless another run already did, and the run directory is linked
+     * from that checkout. A run of the local repository starts from an empty directory.
+     *
+     * @param execution         The execution context for logging
+     * @param pipelineRunReport The pipeline run to prepare the directory of
+     * @return the workspace of the run, which must be closed when the run has finished
+     * @throws IOException if the directory cannot be created, or the commit cannot be resolved
+     *                     or checked out
+     */
+    private WorkspaceManager.RunWorkspace prepareWorkspace(PipelineExecution execution,
+                                                           PipelineRun pipelineRunReport)
+            throws IOException {
+        if (!isRemoteRepo(pipelineRunReport.getRepo())) {
+            WorkspaceManager.RunWorkspace workspace = workspaceManager.createRunWorkspace();
+            execution.log("Using workspace " + workspace.getDirectory());
+            return workspace;
+        }
+        String commit = workspaceManager.resolveCommit(pipelineRunReport.getRepo(),
+                pipelineRunReport.getBranch(), pipelineRunReport.getCommit());
+        pipelineRunReport.setCommit(commit);
+        WorkspaceManager.Workspace checkout =
+                workspaceManager.acquire(pipelineRunReport.getRepo(), commit);
+        try {
+            WorkspaceManager.RunWorkspace workspace =
+                    workspaceManager.createRunWorkspace(checkout);
+            execution.log("Using workspace " + workspace.getDirectory() + " for commit "
+                    + commit);
+            return workspace;
+        } catch (IOException | RuntimeException e) {
+            checkout.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Checks whether a run belongs to a remote repository.
+     *
+     * @param repo the repository of the run
+     * @return true if the repository is remote, else false
+     */
+    private boolean isRemoteRepo(String repo) {
+        return repo != null && !repo.isEmpty() && !Constants.LOCAL_REPO.equals(repo);
     }
 
     /**
@@ -212,6 +845,13 @@ public class PipelineRunner {
             return Status.FAILED;
         }
 
+        // Check for canceled jobs
+        boolean anyCanceled = jobs.stream().anyMatch(job ->
+                Status.CANCELED.equals(job.getJobStatus()));
+        if (anyCanceled) {
+            return Status.CANCELED;
+        }
+
         // Check if any job is running
         boolean anyRunning = jobs.stream().anyMatch(job ->
                 Status.RUNNING.equals(job.getJobStatus()));
@@ -231,6 +871,32 @@ public class PipelineRunner {
         return Status.RUNNING;
     }
 
+    /**
+     * Marks every job that has not run yet as canceled, and updates the status of the stages
+     * that have not finished accordingly.
+     *
+     * @param stages the stages of the canceled pipeline run
+     */
+    private void markRemainingJobsCanceled(List<Stage> stages) {
+        long now = System.currentTimeMillis();
+        for (Stage stage : stages) {
+            boolean changed = false;
+            for (Job job : stage.getJobs()) {
+                if (Status.PENDING.equals(job.getJobStatus())
+                        || Status.RUNNING.equals(job.getJobStatus())) {
+                    job.setJobStatus(Status.CANCELED);
+                    changed = true;
+                }
+            }
+            if (changed) {
+                stage.setStageStatus(Status.CANCELED);
+                if (stage.getCompletionTime() == 0) {
+                    stage.setCompletionTime(now);
+                }
+            }
+        }
+    }
+
     /**
      * Logs the dependencies for all jobs in the given stage.
      * <p>
@@ -266,18 +932,39 @@ public class PipelineRunner {
      * @param execution The execution context for tracking status and logging
      * @param dockerImage The docker image to use to execute the job
      * @param dockerRegistry The docker registry to pull the docker image from
+     * @param workspace The run directory to run the job in
+     * @param artifactsPrefix The key prefix to store the artifacts of the job under
+     * @param cacheArtifacts Whether to keep the artifacts in the node cache for the jobs that
+     *                       take them
+     * @param pipelineRunReport The pipeline run the job belongs to, whose repository caches
+     *                          are shared within
+     * @param cacheKey The key to save the cache of the job under once it succeeds, or null to
+     *                 not save it
      * @return true if the job executed successfully, false if any command failed
      */
     private boolean executeJob(Job job, PipelineExecution execution,
-                               String dockerRegistry, String dockerImage) {
+                               String dockerRegistry, String dockerImage,
+                               WorkspaceManager.RunWorkspace workspace,
+                               String artifactsPrefix, boolean cacheArtifacts,
+                               PipelineRun pipelineRunReport, String cacheKey) {
         long startTime = System.currentTimeMillis();
 
         execution.log("Starting job: " + job.getName() + " at " + startTime);
         String registry = job.getRegistry() == null ? dockerRegistry : job.getRegistry();
         String image = job.getImage() == null ? dockerImage : job.getImage();
 
+        String projectDir = System.getenv("PROJECT_DIR");
+        String mountSource = workspace.getHostPath(projectDir);
+        String artifactsDirectory = workspace.getDirectory().getPath();
+
+        // In archive mode the artifacts are streamed out of the container before it is removed
+        boolean archiveArtifacts = job.getArtifactsArchive() != null
+                && !job.getArtifacts().isEmpty();
         boolean jobSuccess = dockerContainerExecutor.executeJobInContainer(job, execution,
-                registry, image);
+                registry, image, mountSource, archiveArtifacts
+                        ? containerId -> uploadArtifactsArchive(job, execution, containerId,
+                                artifactsPrefix, pipelineRunReport)
+                        : null);
         long endTime = System.currentTimeMillis();
 
         if (!jobSuccess) {
@@ -285,9 +972,10 @@ public class PipelineRunner {
                     " (took " + (endTime - startTime) + "ms)");
 
             // If the job allows failure, still upload artifacts
-            if (job.isAllowFailure()) {
+            if (job.isAllowFailure() && !archiveArtifacts) {
                 execution.log("Job " + job.getName() + " allows failure, uploading artifacts.");
-                uploadArtifacts(job, execution);
+                uploadArtifacts(job, execution, artifactsDirectory, artifactsPrefix,
+                        cacheArtifacts, pipelineRunReport);
                 return true;
             }
             return false;
@@ -296,31 +984,50 @@ public class PipelineRunner {
         execution.log("Job " + job.getName() + " completed successfully at " + endTime +
                 " (took " + (endTime - startTime) + "ms)");
 
+        if (cacheKey != null) {
+            saveCache(job, execution, pipelineRunReport.getRepo(), cacheKey,
+                    artifactsDirectory);
+        }
+
         // Upload Artifacts
-        if (job.getArtifacts() != null && !job.getArtifacts().isEmpty()) {
-            return uploadArtifacts(job, execution);
+        if (!archiveArtifacts && job.getArtifacts() != null && !job.getArtifacts().isEmpty()) {
+            return uploadArtifacts(job, execution, artifactsDirectory, artifactsPrefix,
+                    cacheArtifacts, pipelineRunReport);
         }
         return true;
     }
 
     /**
      * Helper function to upload artifacts associated with a job to a MinIO bucket.
-     * If the upload is successful, it logs the success message and returns true.
+     * If the upload is successful, it logs the success message, records where the artifacts
+     * are stored on the job and returns true.
      * If an error occurs, it logs the failure message and returns false.
 
      * @param job        The job whose artifacts need to be uploaded.
      * @param execution  The pipeline execution instance for logging purposes.
+     * @param artifactsDirectory The directory the artifact paths of the job are relative to.
+     * @param artifactsPrefix The key prefix to store the artifacts under.
+     * @param cacheArtifacts Whether to also keep the uploaded files in the node cache.
+     * @param pipelineRunReport The pipeline run the job belongs to.
      * @return           {@code true} if all artifacts are uploaded successfully,
      *                   {@code false} otherwise.
      */
-    private boolean uploadArtifacts(Job job, PipelineExecution execution) {
+    private boolean uploadArtifacts(Job job, PipelineExecution execution,
+                                    String artifactsDirectory, String artifactsPrefix,
+                                    boolean cacheArtifacts, PipelineRun pipelineRunReport) {
         execution.log("Starting to upload artifacts for job: " + job.getName());
         try {
-            String bucketName = "artifacts-" + System.currentTimeMillis() % 100000;
-            execution.log("Created bucket " + bucketName
-                    + " to upload artifacts for job: " + job.getName());
-            this.uploader.uploadArtifacts(bucketName, job.getArtifacts());
-            execution.log("Successfully uploaded artifacts for job: " + job.getName());
+            ArtifactManifest manifest = this.uploader.uploadArtifacts(artifactsPrefix,
+                    artifactsDirectory, job.getArtifacts(), execution::log);
+            String artifactsLocation = this.uploader.getBucket() + "/" + artifactsPrefix;
+            synchronized (pipelineRunReport) {
+                job.setArtifactsLocation(artifactsLocation);
+            }
+            execution.log("Successfully uploaded artifacts for job " + job.getName() + " to "
+                    + artifactsLocation);
+            if (cacheArtifacts) {
+                cacheArtifacts(manifest, artifactsDirectory, execution);
+            }
             return true;
         } catch (Exception e) {
             execution.log("Failed to upload artifacts for job " +
@@ -329,6 +1036,82 @@ public class PipelineRunner {
         }
     }
 
+    /**
+     * Saves the dependency cache of a job that succeeded. A cache that cannot be saved does
+     * not fail the job, so a failure is only logged.
+     *
+     * @param job                The job whose cache is saved.
+     * @param execution          The pipeline execution instance for logging purposes.
+     * @param repo               The repository of the run.
+     * @param cacheKey           The resolved key to save the cache under.
+     * @param artifactsDirectory The directory the job ran in.
+     */
+    private void saveCache(Job job, PipelineExecution execution, String repo, String cacheKey,
+                           String artifactsDirectory) {
+        try {
+            jobCacheStore.save(repo, cacheKey, job.getCache().getPaths(),
+                    new File(artifactsDirectory), execution::log);
+        } catch (Exception e) {
+            execution.log("Failed to save the cache of job " + job.getName() + ": "
+                    + e.getMessage());
+        }
+    }
+
+    /**
+     * Keeps the uploaded files of a job in the node cache, so that the jobs that take its
+     * artifacts on this node copy them instead of downloading them. A file that cannot be
+     * cached is only logged, since it can still be downloaded.
+     *
+     * @param manifest           The manifest of the uploaded files.
+     * @param artifactsDirectory The directory the paths of the manifest are relative to.
+     * @param execution          The pipeline execution instance for logging purposes.
+     */
+    private void cacheArtifacts(ArtifactManifest manifest, String artifactsDirectory,
+                                PipelineExecution execution) {
+        for (ArtifactManifest.Entry entry : manifest.getFiles()) {
+            Path file = Paths.get(artifactsDirectory).resolve(entry.getPath());
+            try {
+                artifactCache.put(entry.getDigest(), file);
+            } catch (IOException e) {
+                execution.log("Failed to cache artifact " + entry.getPath() + ": "
+                        + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Uploads the artifacts of a job as a single compressed archive, streamed out of the
+     * container of the job.
+     *
+     * @param job         The job whose artifacts need to be uploaded.
+     * @param execution   The pipeline execution instance for logging purposes.
+     * @param containerId The container of the job.
+     * @param artifactsPrefix The key prefix to store the archive under.
+     * @param pipelineRunReport The pipeline run the job belongs to.
+     * @return {@code true} if the archive was uploaded, {@code false} otherwise.
+     */
+    private boolean uploadArtifactsArchive(Job job, PipelineExecution execution,
+                                           String containerId, String artifactsPrefix,
+                                           PipelineRun pipelineRunReport) {
+        execution.log("Starting to upload the artifacts archive of job: " + job.getName());
+        try {
+            this.uploader.uploadArchive(artifactsPrefix, job.getArtifacts(),
+                    path -> dockerContainerExecutor.openArchive(containerId, path),
+                    execution::log);
+            String artifactsLocation = this.uploader.getBucket() + "/" + artifactsPrefix;
+            synchronized (pipelineRunReport) {
+                job.setArtifactsLocation(artifactsLocation);
+            }
+            execution.log("Successfully uploaded the artifacts archive of job "
+                    + job.getName() + " to " + artifactsLocation);
+            return true;
+        } catch (Exception e) {
+            execution.log("Failed to upload the artifacts archive of job " +
+                    job.getName() + ": " + e.getMessage());
+            return false;
+        }
+    }
+
     /**
      * Initiates shutdown of the executor service.
      * <p>
@@ -338,7 +1121,8 @@ public class PipelineRunner {
      * </p>
      * <p>
      * If the current thread is interrupted while waiting for tasks to terminate, the executor is
-     * forcefully shut down, and the thread's interrupt status is preserved.
+     * forcefully shut down, and the thread's interrupt status is preserved. The threads of the
+     * artifact uploader are stopped afterwards.
      * </p>
      */
     public void shutdownExecutor() {
@@ -351,5 +1135,6 @@ public class PipelineRunner {
             executorService.shutdownNow();
             Thread.currentThread().interrupt();
         }
+        uploader.close();
     }
 }
\ No newline at end of file
@@ -0,0 +1,575 @@
+package com.example.cliserver.backend.runCommand;
+
+import com.example.cliserver.backend.utils.Constants;
+import com.example.cliserver.backend.utils.RepoMirrorCache;
+import com.example.cliserver.backend.utils.YamlConfigLoader;
+import org.apache.commons.io.FileUtils;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.lib.ObjectId;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Manages the checkouts of remote repositories that pipeline jobs run in.
+ * <p>
+ * There is at most one checkout per repository and commit on a node. Its directory is named
+ * after the repository and the commit, so concurrent runs of different commits never share a
+ * checkout, while runs of the same commit reuse it. Every run of the commit holds a reference
+ * to it, and the checkout is deleted when the last reference is released.
+ * </p>
+ * <p>
+ * Jobs do not run in the shared checkout itself. Every run gets its own directory, which is
+ * filled by hard-linking the files of the checkout, so preparing a run takes no network access
+ * and copies no file contents, while build outputs of concurrent runs stay apart. Runs of the
+ * local repository get an empty directory of their own.
+ * </p>
+ * <p>
+ * Run directories and released checkouts are handed to a {@link WorkspaceReclaimer}, which
+ * deletes them in the background.
+ * </p>
+ */
+public class WorkspaceManager {
+    private static final String RUNS_DIRECTORY_NAME = "runs";
+
+    private static WorkspaceManager instance;
+
+    private final File rootDirectory;
+    private final RepoMirrorCache mirrorCache;
+    private final WorkspaceReclaimer reclaimer;
+
+    /**
+     * The checkouts that are in use, keyed by their directory name.
+     */
+    private final Map<String, Entry> entries = new HashMap<>();
+
+    /**
+     * Creates a workspace manager.
+     *
+     * @param rootDirectory the directory the checkouts are created in
+     * @param mirrorCache   the mirror cache the checkouts are taken from
+     * @param reclaimer     the reclaimer released directories are deleted by
+     */
+    public WorkspaceManager(File rootDirectory, RepoMirrorCache mirrorCache,
+                            WorkspaceReclaimer reclaimer) {
+        this.rootDirectory = rootDirectory;
+        this.mirrorCache = mirrorCache;
+        this.reclaimer = reclaimer;
+    }
+
+    /**
+     * Creates a workspace manager that deletes released directories right away, in the
+     * background.
+     *
+     * @param rootDirectory the directory the checkouts are created in
+     * @param mirrorCache   the mirror cache the checkouts are taken from
+     */
+    public WorkspaceManager(File rootDirectory, RepoMirrorCache mirrorCache) {
+        this(rootDirectory, mirrorCache, new WorkspaceReclaimer(
+                new File(rootDirectory, WorkspaceReclaimer.RECLAIM_DIRECTORY_NAME), 0));
+    }
+
+    /**
+     * Returns the shared workspace manager of the worker. Checkouts and run directories left
+     * behind by a previous worker process are swept up and deleted in the background, since
+     * nothing references them anymore.
+     *
+     * @return the workspace manager
+     */
+    public static synchronized WorkspaceManager getInstance() {
+        if (instance == null) {
+            File rootDirectory = new File(Constants.LOCAL_ARTIFACTS_DIRECTORY,
+                    Constants.WORKSPACES_DIRECTORY_NAME);
+            long retainedMegabytes = Constants.DEFAULT_WORKSPACE_RETAINED_MB;
+            try {
+                String configured =
+                        YamlConfigLoader.getConfigValue("worker", "workspace-retained-mb");
+                if (configured != null) {
+                    retainedMegabytes = Long.parseLong(configured);
+                }
+            } catch (RuntimeException e) {
+                System.err.println("Using the default retained workspace size: "
+                        + e.getMessage());
+            }
+            WorkspaceReclaimer reclaimer = new WorkspaceReclaimer(
+                    new File(rootDirectory, WorkspaceReclaimer.RECLAIM_DIRECTORY_NAME),
+                    retainedMegabytes * 1024 * 1024);
+            reclaimer.sweep(rootDirectory);
+            instance = new WorkspaceManager(rootDirectory, RepoMirrorCache.getInstance(),
+                    reclaimer);
+        }
+        return instance;
+    }
+
+    /**
+     * Resolves the commit a run should check out, so that every job of the run uses the same
+     * commit even if the branch moves while the run executes.
+     *
+     * @param repoUrl the URL of the remote repository
+     * @param branch  the branch of the run, or null for the default branch
+     * @param commit  the commit of the run, or null
+     * @return the full hash of the commit
+     * @throws IOException if the repository cannot be fetched, or the branch or commit does not
+     *                     exist
+     */
+    public String resolveCommit(String repoUrl, String branch, String commit)
+            throws IOException {
+        String revision = commit != null ? commit
+                : branch != null ? org.eclipse.jgit.lib.Constants.R_HEADS + branch
+                : org.eclipse.jgit.lib.Constants.HEAD;
+        ObjectId commitId;
+        try {
+            commitId = mirrorCache.readMirror(repoUrl, commit,
+                    repository -> repository.resolve(revision + "^{commit}"));
+        } catch (GitAPIException e) {
+            throw new IOException("Error fetching remote repo: " + repoUrl + ": "
+                    + e.getMessage(), e);
+        }
+        if (commitId == null) {
+            throw new IOException("Invalid " + (commit != null ? "commit hash: " + commit
+                    : "branch name: " + branch));
+        }
+        return commitId.getName();
+    }
+
+    /**
+     * Acquires a reference to the checkout of a commit, checking it out if no one else holds
+     * a reference to it.
+     *
+     * @param repoUrl the URL of the remote repository
+     * @param commit  the full hash of the commit
+     * @return the workspace, which must be closed when it is no longer used
+     * @throws IOException if the commit cannot be checked out
+     */
+    public Workspace acquire(String repoUrl, String commit) throws IOException {
+        String key = getKey(repoUrl, commit);
+        Entry entry;
+        synchronized (this) {
+            entry = entries.computeIfAbsent(key, k -> new Entry(new File(rootDirectory, k)));
+            entry.references++;
+        }
+        try {
+            entry.ensureCheckedOut(repoUrl, commit);
+        } catch (IOException | RuntimeException e) {
+            release(key);
+            throw e;
+        }
+        return new Workspace(key, entry.directory);
+    }
+
+    /**
+     * Creates the directory of a run from the checkout of its commit. Files are hard-linked
+     * from the checkout, and only copied where the file system does not support links.
+     * <p>
+     * Tools that replace files, as compilers and git do, leave the checkout untouched. A job
+     * that modifies a checked out file in place also modifies it for concurrent runs of the
+     * same commit.
+     * </p>
+     *
+     * @param workspace the checkout of the commit of the run; the run directory takes over this
+     *                  reference and releases it when it is closed
+     * @return the directory of the run, which must be closed when the run has finished
+     * @throws IOException if the directory cannot be created
+     */
+    public RunWorkspace createRunWorkspace(Workspace workspace) throws IOException {
+        return new RunWorkspace(workspace, createLinkedRunDirectory(workspace.getDirectory()));
+    }
+
+    /**
+     * Creates the directory of a single job of a run, copied from the directory of the run as
+     * it is when the job starts. Jobs that run in parallel, such as the jobs of a matrix, each
+     * get one. The files are copied rather than linked, so a job that modifies a file in place
+     * never modifies it for the other jobs. What a job produces is brought back into the run
+     * directory by {@link #mergeJobWorkspace}.
+     *
+     * @param runWorkspace the directory of the run the job belongs to
+     * @return the directory of the job, which must be closed when the job has finished
+     * @throws IOException if the directory cannot be created
+     */
+    public RunWorkspace createJobWorkspace(RunWorkspace runWorkspace) throws IOException {
+        Path directory = createRunDirectory();
+        try {
+            copyTree(runWorkspace.getDirectory().toPath(), directory, false);
+        } catch (IOException | RuntimeException e) {
+            FileUtils.deleteQuietly(directory.toFile());
+            throw e;
+        }
+        return new RunWorkspace(null, directory.toFile());
+    }
+
+    /**
+     * Copies the files a job created or changed in its own directory back into the directory
+     * of its run, so later jobs of the run find them as they would after a job that ran in the
+     * run directory itself. Files the job deleted are kept in the run directory. Where jobs of a
+     * matrix write the same file, the copy of the job that is merged last wins.
+     *
+     * @param jobWorkspace the directory of the job, created by {@link #createJobWorkspace}
+     * @param runWorkspace the directory of the run the job belongs to
+     * @throws IOException if a file cannot be copied
+     */
+    public void mergeJobWorkspace(RunWorkspace jobWorkspace, RunWorkspace runWorkspace)
+            throws IOException {
+        // Jobs of a matrix finish at the same time and must not merge into the same files
+        synchronized (runWorkspace) {
+            copyTree(jobWorkspace.getDirectory().toPath(), runWorkspace.getDirectory().toPath(),
+                    true);
+        }
+    }
+
+    /**
+     * Creates an empty directory for a run of the local repository, which has no checkout.
+     *
+     * @return the directory of the run, which must be closed when the run has finished
+     * @throws IOException if the directory cannot be created
+     */
+    public RunWorkspace createRunWorkspace() throws IOException {
+        return new RunWorkspace(null, createRunDirectory().toFile());
+    }
+
+    /**
+     * Creates a new, uniquely named directory for a run, linked from another directory.
+     *
+     * @param source the directory to link the files of the run directory from
+     * @return the run directory
+     * @throws IOException if the directory cannot be created
+     */
+    private File createLinkedRunDirectory(File source) throws IOException {
+        Path directory = createRunDirectory();
+        try {
+            linkTree(source.toPath(), directory);
+        } catch (IOException | RuntimeException e) {
+            FileUtils.deleteQuietly(directory.toFile());
+            throw e;
+        }
+        return directory.toFile();
+    }
+
+    /**
+     * Creates a new, uniquely named directory for a run.
+     *
+     * @return the directory
+     * @throws IOException if the directory cannot be created
+     */
+    private Path createRunDirectory() throws IOException {
+        Path runsDirectory = new File(rootDirectory, RUNS_DIRECTORY_NAME).toPath();
+        Files.createDirectories(runsDirectory);
+        return Files.createTempDirectory(runsDirectory, "run-");
+    }
+
+    /**
+     * Recreates a directory tree by hard-linking its files.
+     *
+     * @param source the directory to link from
+     * @param target the directory to link into
+     * @throws IOException if a file cannot be linked or copied
+     */
+    private static void linkTree(Path source, Path target) throws IOException {
+        Files.walkFileTree(source, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs)
+                    throws IOException {
+                Files.createDirectories(target.resolve(source.relativize(dir)));
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs)
+                    throws IOException {
+                Path link = target.resolve(source.relativize(file));
+                if (attrs.isRegularFile()) {
+                    try {
+                        Files.createLink(link, file);
+                        return FileVisitResult.CONTINUE;
+                    } catch (IOException | UnsupportedOperationException e) {
+                        // Falls back to a copy, e.g. when the directories are on different
+                        // file systems
+                    }
+                }
+                Files.copy(file, link, StandardCopyOption.COPY_ATTRIBUTES,
+                        LinkOption.NOFOLLOW_LINKS);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    /**
+     * Copies a directory tree. Symbolic links are copied as links, and the target is never
+     * written through one: a directory of the target that is a symbolic link is skipped.
+     *
+     * @param source      the directory to copy from
+     * @param target      the directory to copy into
+     * @param changedOnly whether to only copy the files that are missing from the target or
+     *                    differ from it in size or modification time
+     * @throws IOException if a file cannot be copied
+     */
+    private static void copyTree(Path source, Path target, boolean changedOnly)
+            throws IOException {
+        Files.walkFileTree(source, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs)
+                    throws IOException {
+                Path copy = target.resolve(source.relativize(dir));
+                if (Files.isSymbolicLink(copy)) {
+                    return FileVisitResult.SKIP_SUBTREE;
+                }
+                Files.createDirectories(copy);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs)
+                    throws IOException {
+                Path copy = target.resolve(source.relativize(file));
+                if (changedOnly && isUnchanged(copy, attrs)) {
+                    return FileVisitResult.CONTINUE;
+                }
+                // Replacing removes the old file first, so a file linked from the checkout
+                // is replaced rather than modified
+                Files.copy(file, copy, StandardCopyOption.REPLACE_EXISTING,
+                        StandardCopyOption.COPY_ATTRIBUTES, LinkOption.NOFOLLOW_LINKS);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    /**
+     * Checks whether a file is the same as the file it was copied from, judging by its size
+     * and modification time, which a copy keeps.
+     *
+     * @param copy  the copied file
+     * @param attrs the attributes of the file it was copied from
+     * @return true if the copy exists and has the same size and modification time
+     * @throws IOException if the attributes of the copy cannot be read
+     */
+    private static boolean isUnchanged(Path copy, BasicFileAttributes attrs)
+            throws IOException {
+        if (!attrs.isRegularFile() || !Files.isRegularFile(copy, LinkOption.NOFOLLOW_LINKS)) {
+            return false;
+        }
+        BasicFileAttributes copyAttrs = Files.readAttributes(copy, BasicFileAttributes.class,
+                LinkOption.NOFOLLOW_LINKS);
+        return copyAttrs.size() == attrs.size()
+                && copyAttrs.lastModifiedTime().equals(attrs.lastModifiedTime());
+    }
+
+    /**
+     * Acquires another reference to a checkout that is already referenced.
+     *
+     * @param key the key of the checkout
+     * @return the workspace, which must be closed when it is no longer used
+     */
+    private synchronized Workspace retain(String key) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            throw new IllegalStateException("Workspace is no longer in use: " + key);
+        }
+        entry.references++;
+        return new Workspace(key, entry.directory);
+    }
+
+    /**
+     * Releases a reference to a checkout, and reclaims the checkout if it was the last one.
+     *
+     * @param key the key of the checkout
+     */
+    private synchronized void release(String key) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            return;
+        }
+        entry.references--;
+        if (entry.references == 0) {
+            entries.remove(key);
+            reclaimer.reclaim(entry.directory);
+        }
+    }
+
+    /**
+     * Gets the number of references to the checkout of a commit.
+     *
+     * @param repoUrl the URL of the remote repository
+     * @param commit  the full hash of the commit
+     * @return the number of references, 0 if the commit is not checked out
+     */
+    public synchronized int getReferenceCount(String repoUrl, String commit) {
+        Entry entry = entries.get(getKey(repoUrl, commit));
+        return entry == null ? 0 : entry.references;
+    }
+
+    /**
+     * Gets the name of the directory of a checkout, which is derived from the repository and
+     * the commit only.
+     *
+     * @param repoUrl the URL of the remote repository
+     * @param commit  the full hash of the commit
+     * @return the key of the checkout
+     */
+    static String getKey(String repoUrl, String commit) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-1")
+                    .digest((repoUrl + "\n" + commit).getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder();
+            for (byte b : digest) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-1 is not available", e);
+        }
+    }
+
+    /**
+     * A checkout and the number of references to it.
+     */
+    private final class Entry {
+        private final File directory;
+        private int references;
+        private boolean checkedOut;
+
+        private Entry(File directory) {
+            this.directory = directory;
+        }
+
+        /**
+         * Checks out the commit, unless that has already been done. Concurrent users of the
+         * same checkout wait for the first one to finish it.
+         *
+         * @param repoUrl the URL of the remote repository
+         * @param commit  the full hash of the commit
+         * @throws IOException if the commit cannot be checked out
+         */
+        private synchronized void ensureCheckedOut(String repoUrl, String commit)
+                throws IOException {
+            if (checkedOut) {
+                return;
+            }
+            FileUtils.deleteQuietly(directory);
+            try (Git git = mirrorCache.cloneFromMirror(repoUrl, commit, directory)) {
+                git.checkout().setName(commit).call();
+            } catch (GitAPIException e) {
+                FileUtils.deleteQuietly(directory);
+                throw new IOException("Error checking out commit " + commit + " of "
+                        + repoUrl + ": " + e.getMessage(), e);
+            }
+            checkedOut = true;
+        }
+    }
+
+    /**
+     * A reference to the checkout of a commit. Closing it releases the reference.
+     */
+    public final class Workspace implements AutoCloseable {
+        private final String key;
+        private final File directory;
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        private Workspace(String key, File directory) {
+            this.key = key;
+            this.directory = directory;
+        }
+
+        /**
+         * Gets the directory of the checkout on this node.
+         *
+         * @return the directory of the checkout
+         */
+        public File getDirectory() {
+            return directory;
+        }
+
+        /**
+         * Gets the path of the checkout on the Docker host, for mounting it into job
+         * containers. The local artifacts directory of the worker is mounted from the
+         * {@code PROJECT_DIR} of the host.
+         *
+         * @param projectDir the {@code PROJECT_DIR} of the host
+         * @return the path of the checkout on the host
+         */
+        public String getHostPath(String projectDir) {
+            return projectDir + "/" + Constants.WORKSPACES_DIRECTORY_NAME + "/" + key;
+        }
+
+        /**
+         * Acquires another reference to this checkout.
+         *
+         * @return the new reference, which must be closed when it is no longer used
+         */
+        public Workspace retain() {
+            return WorkspaceManager.this.retain(key);
+        }
+
+        /**
+         * Releases this reference. Releasing it more than once has no effect.
+         */
+        @Override
+        public void close() {
+            if (closed.compareAndSet(false, true)) {
+                release(key);
+            }
+        }
+    }
+
+    /**
+     * The directory of a single run, linked from the checkout of its commit, if it has one.
+     * Closing it reclaims the directory and releases the checkout.
+     */
+    public final class RunWorkspace implements AutoCloseable {
+        private final Workspace workspace;
+        private final File directory;
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        private RunWorkspace(Workspace workspace, File directory) {
+            this.workspace = workspace;
+            this.directory = directory;
+        }
+
+        /**
+         * Gets the directory of the run on this node.
+         *
+         * @return the directory of the run
+         */
+        public File getDirectory() {
+            return directory;
+        }
+
+        /**
+         * Gets the path of the run directory on the Docker host, for mounting it into job
+         * containers.
+         *
+         * @param projectDir the {@code PROJECT_DIR} of the host
+         * @return the path of the run directory on the host
+         */
+        public String getHostPath(String projectDir) {
+            return projectDir + "/" + Constants.WORKSPACES_DIRECTORY_NAME + "/"
+                    + RUNS_DIRECTORY_NAME + "/" + directory.getName();
+        }
+
+        /**
+         * Hands the run directory to the reclaimer and releases the checkout it was linked
+         * from. Closing it more than once has no effect.
+         */
+        @Override
+        public void close() {
+            if (closed.compareAndSet(false, true)) {
+                reclaimer.reclaimRun(directory);
+                if (workspace != null) {
+                    workspace.close();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,194 @@
+package com.example.cliserver.backend.runCommand;
+
+import org.apache.commons.io.FileUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Deletes the directories of finished runs and released checkouts in the background.
+ * <p>
+ * A directory is first renamed into the reclaim directory, which takes no time however large
+ * its tree is. Its path is free again at once, and a run is marked complete without waiting for
+ * its files to be deleted. A single background thread then deletes the renamed directories.
+ * </p>
+ * <p>
+ * The directories of finished runs are kept in the reclaim directory, for inspection, while
+ * they take up no more than the retained size, and the oldest are deleted first once they take
+ * up more. Directories found in the workspaces directory when the worker starts were left behind
+ * by a worker process that crashed or was killed, and are swept up and deleted.
+ * </p>
+ */
+public class WorkspaceReclaimer {
+    /**
+     * The name of the directory, in the workspaces directory, that directories are renamed into
+     * until they are deleted.
+     */
+    static final String RECLAIM_DIRECTORY_NAME = ".reclaim";
+
+    private final File reclaimDirectory;
+    private final long retainedBytes;
+    private final AtomicLong sequence = new AtomicLong();
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "workspace-reclaimer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * The directories of finished runs that are kept, oldest first. Only used on the reclaimer
+     * thread.
+     */
+    private final Deque<RetainedRun> retainedRuns = new ArrayDeque<>();
+    private long retainedRunBytes;
+
+    /**
+     * Creates a workspace reclaimer.
+     *
+     * @param reclaimDirectory the directory directories are renamed into until they are deleted;
+     *                         it must be on the same file system as the directories reclaimed
+     * @param retainedBytes    the size the directories of finished runs may take up before the
+     *                         oldest are deleted, 0 to delete them right away
+     */
+    public WorkspaceReclaimer(File reclaimDirectory, long retainedBytes) {
+        this.reclaimDirectory = reclaimDirectory;
+        this.retainedBytes = retainedBytes;
+    }
+
+    /**
+     * Sweeps up everything in a workspaces directory that was left behind by a previous worker
+     * process, including directories it had not finished deleting, and deletes it in the
+     * background. Must be called before the workspaces directory is used.
+     *
+     * @param rootDirectory the workspaces directory
+     */
+    public void sweep(File rootDirectory) {
+        File[] orphans = rootDirectory.listFiles(file -> !file.equals(reclaimDirectory));
+        if (orphans != null) {
+            for (File orphan : orphans) {
+                moveAside(orphan);
+            }
+        }
+        File[] swept = reclaimDirectory.listFiles();
+        if (swept == null || swept.length == 0) {
+            return;
+        }
+        System.out.println("Sweeping " + swept.length + " workspaces left behind by a previous"
+                + " worker process");
+        executor.execute(() -> {
+            for (File directory : swept) {
+                delete(directory);
+            }
+        });
+    }
+
+    /**
+     * Deletes a directory in the background. Its path is free again when this method returns.
+     *
+     * @param directory the directory to delete
+     */
+    public void reclaim(File directory) {
+        File moved = moveAside(directory);
+        if (moved != null) {
+            executor.execute(() -> delete(moved));
+        }
+    }
+
+    /**
+     * Deletes the directory of a finished run in the background, once the directories of newer
+     * runs take up the retained size. Its path is free again when this method returns.
+     *
+     * @param directory the directory of the run
+     */
+    public void reclaimRun(File directory) {
+        if (retainedBytes <= 0) {
+            reclaim(directory);
+            return;
+        }
+        File moved = moveAside(directory);
+        if (moved == null) {
+            return;
+        }
+        executor.execute(() -> {
+            long size = FileUtils.sizeOfDirectory(moved);
+            retainedRuns.addLast(new RetainedRun(moved, size));
+            retainedRunBytes += size;
+            while (retainedRunBytes > retainedBytes && !retainedRuns.isEmpty()) {
+                RetainedRun oldest = retainedRuns.removeFirst();
+                retainedRunBytes -= oldest.size;
+                delete(oldest.directory);
+            }
+        });
+    }
+
+    /**
+     * Waits until the directories reclaimed so far have been dealt with.
+     *
+     * @throws InterruptedException if the thread is interrupted while waiting
+     */
+    void awaitIdle() throws InterruptedException {
+        try {
+            executor.submit(() -> { }).get();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * Renames a directory into the reclaim directory. A directory that cannot be renamed is
+     * deleted in place instead, so that its path is always free afterwards.
+     *
+     * @param directory the directory to move
+     * @return the new location of the directory, or null if it was deleted or does not exist
+     */
+    private File moveAside(File directory) {
+        if (!directory.exists()) {
+            return null;
+        }
+        File target = new File(reclaimDirectory, System.currentTimeMillis() + "-"
+                + sequence.incrementAndGet() + "-" + directory.getName());
+        try {
+            Files.createDirectories(reclaimDirectory.toPath());
+            Files.move(directory.toPath(), target.toPath());
+            return target;
+        } catch (IOException | UnsupportedOperationException e) {
+            System.err.println("Error moving aside workspace " + directory + ", deleting it in"
+                    + " place: " + e.getMessage());
+            FileUtils.deleteQuietly(directory);
+            return null;
+        }
+    }
+
+    /**
+     * Deletes a directory, logging instead of failing if it cannot be deleted.
+     *
+     * @param directory the directory to delete
+     */
+    private static void delete(File directory) {
+        try {
+            FileUtils.forceDelete(directory);
+        } catch (IOException e) {
+            System.err.println("Error deleting workspace " + directory + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * The directory of a finished run that is kept, and its size.
+     */
+    private static final class RetainedRun {
+        private final File directory;
+        private final long size;
+
+        private RetainedRun(File directory, long size) {
+            this.directory = directory;
+            this.size = size;
+        }
+    }
+}
@@ -69,22 +69,16 @@ public class ConfigurationValidator {
                                          String commit) {
         ValidationResult result;
         if (isRemoteRepo(repo)) {
-            String localDir = GitUtils.getRepoDirectoryFromURL(repo);
-            GitUtils.cloneRemoteRepo(localDir, repo, branch, commit);
-            String directoryName = localDir + Constants.DIRECTORY;
-
-            System.out.println("\n\n");
-            System.out.println("Repo: " + repo);
-            System.out.println("localDir: " + localDir);
-            System.out.println("directoryName: " + directoryName);
-            System.out.println("localDirName + filename, dir: " + localDir
-                + filename + ", " + directoryName);
-            System.out.println("\n\n");
-
-            result = validateYamlInDirectory(localDir + filename,
-                    directoryName);
-            GitUtils.cleanUpRemoteDirectory(repo);
-            System.out.println("\n\n");
+            // Each validation gets its own worktree, so validations of other branches of the
+            // same repo can run at the same time
+            try (RepoWorktree worktree = RepoWorktree.create(repo, branch, commit)) {
+                String localDir = worktree.getDirectory().getPath() + File.separator;
+                result = validateYamlInDirectory(localDir + filename,
+                        localDir + Constants.DIRECTORY);
+            } catch (IOException e) {
+                result = new ValidationResult(false, "Error in file " + filename + ": "
+                        + e.getMessage());
+            }
         } else {
             result = validateYamlInDirectory(filename, Constants.DIRECTORY);
         }
@@ -19,6 +19,27 @@ public class Constants {
      */
     public static final String REMOTE_DIRECTORY = "remote/";
 
+    /**
+     * The directory where the bare mirrors of remote repositories are cached when the
+     * MIRROR_CACHE_DIR environment variable is not set, relative to the working directory.
+     */
+    public static final String MIRROR_CACHE_DIRECTORY = REMOTE_DIRECTORY + ".mirrors/";
+
+    /**
+     * The environment variable that names the directory the repository mirrors are cached in.
+     */
+    public static final String MIRROR_CACHE_DIR_VARIABLE = "MIRROR_CACHE_DIR";
+
+    /**
+     * The directory the per-request worktrees of remote repositories are created in.
+     */
+    public static final String WORKTREE_DIRECTORY = REMOTE_DIRECTORY + ".worktrees/";
+
+    /**
+     * The size in megabytes the repository mirrors may take up when none is configured.
+     */
+    public static final long DEFAULT_MIRROR_CACHE_MAX_MB = 2048;
+
     /**
      * The field name for the repository in the MongoDB document.
      */
@@ -86,10 +107,36 @@ public class Constants {
      * The field name for the 'allows failure' flag in the MongoDB document.
      */
     public static final String ALLOWS_FAILURE_FIELD = "allowsFailure";
+    /**
+     * The field name for the name of the matrix job a job was expanded from in the MongoDB
+     * document.
+     */
+    public static final String MATRIX_PARENT_FIELD = "matrixParent";
+    /**
+     * The field name for the values of the matrix variables of a job in the MongoDB document.
+     */
+    public static final String MATRIX_VALUES_FIELD = "matrixValues";
+    /**
+     * The field name for the location of the artifacts of a job in the MongoDB document.
+     */
+    public static final String ARTIFACTS_LOCATION_FIELD = "artifactsLocation";
     /**
      * The field name for the 'is local' flag in the MongoDB document.
      */
     public static final String IS_LOCAL_FIELD = "isLocal";
+    /**
+     * The field name for the concurrency group in the MongoDB document.
+     */
+    public static final String CONCURRENCY_GROUP_FIELD = "concurrencyGroup";
+    /**
+     * The field name for the worker that claimed the pipeline run in the MongoDB document.
+     */
+    public static final String WORKER_ID_FIELD = "workerId";
+    /**
+     * The field name for the time the claim of the worker on the pipeline run expires, unless
+     * it is renewed, in the MongoDB document.
+     */
+    public static final String LEASE_EXPIRES_AT_FIELD = "leaseExpiresAt";
     /**
      * The repo name used for the local working directory
      */
@@ -100,11 +147,64 @@ public class Constants {
      */
     public static final String QUEUE_NAME = "pipeline-jobs";
 
+    /**
+     * The number of pipeline runs a worker executes at the same time
+     */
+    public static final int WORKER_PREFETCH_COUNT = 1;
+
+    /**
+     * The port the worker serves its metrics on when none is configured
+     */
+    public static final int DEFAULT_METRICS_PORT = 9100;
+
+    /**
+     * The port the worker serves its admin endpoints on, to local clients only, when none is
+     * configured
+     */
+    public static final int DEFAULT_ADMIN_PORT = 9101;
+
+    /**
+     * How long a draining worker waits for its in-flight runs when none is configured
+     */
+    public static final int DEFAULT_DRAIN_TIMEOUT_SECONDS = 300;
+
+    /**
+     * How long a worker owns a run it claimed without renewing the claim. A redelivered run
+     * is only taken over once the claim of its previous worker has expired.
+     */
+    public static final long RUN_LEASE_MILLIS = 60_000;
+
+    /**
+     * How often a worker renews the claims on the runs it executes, and how often a worker
+     * checks whether a redelivered run can be taken over
+     */
+    public static final long RUN_LEASE_RENEW_MILLIS = 20_000;
+
     /**
      * Key used for storing and retrieving pipeline run JSON in messages.
      */
     public static final String PIPELINE_RUN_JSON_KEY = "pipelineRun";
 
+    /**
+     * The topic exchange that workers publish pipeline progress events to
+     */
+    public static final String PIPELINE_EVENTS_EXCHANGE = "pipeline-events";
+
+    /**
+     * The fanout exchange that the server publishes run control requests to, such as cancel
+     */
+    public static final String PIPELINE_CONTROL_EXCHANGE = "pipeline-control";
+
+    /**
+     * Key for the requested action in a pipeline control message.
+     */
+    public static final String CONTROL_ACTION_KEY = "action";
+
+    /**
+     * Control action requesting that a running pipeline is canceled.
+     */
+    public static final String CANCEL_ACTION = "cancel";
+
     /**
      * The format field for displaying reports
      */
@@ -134,6 +234,132 @@ public class Constants {
      */
     public static final String WORKSPACE_MOUNT_PATH = "/app";
 
+    /**
+     * The directory under the local artifacts directory where repository checkouts and the
+     * directories of runs are kept
+     */
+    public static final String WORKSPACES_DIRECTORY_NAME = "workspaces";
+
+    /**
+     * The size in megabytes the directories of finished runs may take up, for inspection, before
+     * the oldest are deleted, when none is configured
+     */
+    public static final long DEFAULT_WORKSPACE_RETAINED_MB = 0;
+
+    /**
+     * The number of jobs of a matrix that run at the same time when the job sets no limit
+     */
+    public static final int DEFAULT_MATRIX_MAX_PARALLEL = 4;
+
+    /**
+     * The number of artifact files uploaded at the same time when the configuration sets none
+     */
+    public static final int DEFAULT_ARTIFACT_UPLOAD_THREADS = 8;
+
+    /**
+     * The number of seconds an idle artifact upload thread is kept before it exits
+     */
+    public static final long ARTIFACT_UPLOAD_THREAD_IDLE_SECONDS = 60;
+
+    /**
+     * The number of megabytes of artifact files being uploaded at any time when the
+     * configuration sets none
+     */
+    public static final long DEFAULT_ARTIFACT_UPLOAD_MAX_IN_FLIGHT_MB = 64;
+
+    /**
+     * The size from which an artifact file is uploaded in parts of ARTIFACT_UPLOAD_PART_SIZE
+     */
+    public static final long ARTIFACT_MULTIPART_THRESHOLD = 16L * 1024 * 1024;
+
+    /**
+     * The size of the parts of large artifact files, well above the minimum of 5 MB so that
+     * large files take fewer requests
+     */
+    public static final long ARTIFACT_UPLOAD_PART_SIZE = 16L * 1024 * 1024;
+
+    /**
+     * The bucket all artifacts are stored in when the configuration sets none
+     */
+    public static final String DEFAULT_ARTIFACT_BUCKET = "artifacts";
+
+    /**
+     * The prefix of the keys artifact files are stored under once per SHA-256 digest of their
+     * contents, followed by the digest. Key segments made from runs never start with a dot, so
+     * the blobs cannot clash with the artifacts of a run.
+     */
+    public static final String ARTIFACT_BLOB_PREFIX = ".blobs/sha256/";
+
+    /**
+     * The name of the object that lists the files of an artifact upload
+     */
+    public static final String ARTIFACT_MANIFEST_NAME = "manifest.json";
+
+    /**
+     * The number of digests the uploader remembers as stored
+     */
+    public static final int ARTIFACT_BLOB_INDEX_SIZE = 100_000;
+
+    /**
+     * The time in milliseconds the uploader trusts a digest it remembers as stored before it
+     * checks MinIO again. Together with {@link #ARTIFACT_BLOB_REFRESH_MILLIS} it must stay below
+     * the grace period after which the server collects unreferenced files.
+     */
+    public static final long ARTIFACT_BLOB_INDEX_TTL_MILLIS = 60L * 60 * 1000;
+
+    /**
+     * The age in milliseconds after which a stored artifact file is uploaded again instead of
+     * reused, which renews it so that the server does not collect it while it is referenced.
+     */
+    public static final long ARTIFACT_BLOB_REFRESH_MILLIS = 12L * 60 * 60 * 1000;
+
+    /**
+     * The directory artifact files are cached in on this node, once per digest. It is kept
+     * apart from the local artifacts directory, whose run directories are deleted after runs.
+     */
+    public static final String ARTIFACT_CACHE_DIRECTORY = "artifact_cache/";
+
+    /**
+     * The size in megabytes the artifact cache may take up when none is configured
+     */
+    public static final long DEFAULT_ARTIFACT_CACHE_MAX_MB = 1024;
+
+    /**
+     * The number of artifact files restored for a job at the same time
+     */
+    public static final int ARTIFACT_DOWNLOAD_THREADS = 8;
+
+    /**
+     * The compression of jobs that upload their artifacts as a single archive
+     */
+    public static final String ARTIFACTS_ARCHIVE_GZIP = "gzip";
+
+    /**
+     * The name of the object the artifacts of a job are uploaded as in archive mode
+     */
+    public static final String ARTIFACT_ARCHIVE_NAME = "artifacts.tar.gz";
+
+    /**
+     * The number of bytes of an artifact archive buffered between compressing and uploading
+     */
+    public static final int ARTIFACT_ARCHIVE_PIPE_SIZE = 1024 * 1024;
+
+    /**
+     * The key prefix, in the artifacts bucket, job caches are stored under, per repository
+     */
+    public static final String JOB_CACHE_PREFIX = ".caches/";
+
+    /**
+     * The directory the job cache archives restored or saved on this node are kept in
+     */
+    public static final String JOB_CACHE_DIRECTORY = "job_cache/";
+
+    /**
+     * The size in megabytes the job cache archives on this node may take up when none is
+     * configured
+     */
+    public static final long DEFAULT_JOB_CACHE_MAX_MB = 2048;
+
     /**
      * Directory where pipeline execution logs are stored.
      */
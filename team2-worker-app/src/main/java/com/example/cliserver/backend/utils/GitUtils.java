@@ -42,7 +42,8 @@ public class GitUtils {
     }
 
     /**
-     * Clone a remote repository to a local directory
+     * Clone a remote repository to a local directory. The clone is taken from the local mirror
+     * of the repository, which only fetches what changed on the remote since its last use.
      *
      * @param remoteRepoUrl The URL of the remote repository
      * @param branch The branch to checkout for the given repo
@@ -53,16 +54,15 @@ public class GitUtils {
     private static void cloneRepository(String remoteRepoUrl, String localDir,
                                         String branch, String commitHash)
             throws GitAPIException {
-        try {
-            Git git = Git.cloneRepository()
-                    .setURI(remoteRepoUrl)
-                    .setDirectory(new File(localDir))
-                    .call();
+        // A branch must be fetched to find its latest commit, a bare commit may already be there
+        try (Git git = RepoMirrorCache.getInstance().cloneFromMirror(remoteRepoUrl,
+                branch == null ? commitHash : null, new File(localDir))) {
             if (branch != null) {
                 if (branchExists(git, branch)) {
                     git.checkout().setName(Constants.REMOTE_BRANCH_PREFIX + branch).call();
                 } else {
-                    cleanUpRemoteDirectory(remoteRepoUrl);
+                    // Only this clone is removed, other requests may use the same repo
+                    FileUtils.deleteQuietly(new File(localDir));
                     throw new IOException("Invalid branch name: " + branch);
                 }
             }
@@ -70,7 +70,7 @@ public class GitUtils {
                 if (commitExists(git, commitHash)) {
                     git.checkout().setAllPaths(true).setStartPoint(commitHash).call();
                 } else {
-                    cleanUpRemoteDirectory(remoteRepoUrl);
+                    FileUtils.deleteQuietly(new File(localDir));
                     throw new IOException("Invalid commit hash: " + commitHash);
                 }
             }
@@ -136,7 +136,9 @@ public class GitUtils {
     }
 
     /**
-     * Extracts the repository directory name from the given URL.
+     * Extracts the repository directory name from the given URL. Every request for the same
+     * repository maps to this directory, so requests that may run concurrently should check
+     * out into a {@link RepoWorktree} instead.
      * The URL must follow the format "https://github.com/user/repo.git".
      *
      * @param repoPath The URL of the Git repository
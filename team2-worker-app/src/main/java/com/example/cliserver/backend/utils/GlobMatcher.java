@@ -0,0 +1,363 @@
+package com.example.cliserver.backend.utils;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.NotDirectoryException;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Matches relative paths against a set of glob patterns, and finds the files under a directory
+ * that match them in a single walk.
+ * <p>
+ * Patterns are split at {@code /} into segments. A segment may use {@code *} and {@code ?},
+ * which never match a {@code /}, character classes such as {@code [a-z]} or {@code [!0-9]}, and
+ * alternatives such as {@code {xml,json}}. A segment that is exactly {@code **} matches any
+ * number of directories, including none. A pattern starting with {@code !} is negated: files it
+ * matches are excluded even if another pattern matches them, and a directory it matches is
+ * skipped with everything under it.
+ * </p>
+ * <p>
+ * The patterns are compiled into a trie of segments, so patterns with a common prefix share
+ * their nodes, and the walk follows the trie: a directory is only entered if some pattern can
+ * still match below it, and a directory whose children can only match literal segments is not
+ * listed at all, its children are looked up by name. Walking {@code build/**}{@code /reports/*.xml}
+ * therefore never lists the base directory, and the time of a walk depends on the directories the
+ * patterns can reach rather than on the size of the tree. Compiled patterns are cached.
+ * </p>
+ */
+public final class GlobMatcher {
+    private static final int CACHE_SIZE = 256;
+    private static final Map<List<String>, GlobMatcher> CACHE =
+            new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<List<String>, GlobMatcher> eldest) {
+                    return size() > CACHE_SIZE;
+                }
+            };
+
+    private final Node root = new Node();
+
+    private GlobMatcher(List<String> patterns) {
+        for (String pattern : patterns) {
+            boolean exclude = pattern.startsWith("!");
+            String path = exclude ? pattern.substring(1) : pattern;
+            Node node = root;
+            for (String segment : path.split("/")) {
+                if (segment.isEmpty() || segment.equals(".")) {
+                    continue;
+                }
+                node = node.child(segment);
+            }
+            if (node == root) {
+                throw new IllegalArgumentException("Glob pattern matches no path: " + pattern);
+            }
+            if (exclude) {
+                node.exclude = true;
+            } else {
+                node.include = true;
+            }
+        }
+    }
+
+    /**
+     * Compiles glob patterns into a matcher, or returns the cached matcher of the same patterns.
+     *
+     * @param patterns the patterns, relative paths with {@code /} separators, negated with a
+     *                 leading {@code !}
+     * @return the matcher
+     * @throws IllegalArgumentException if a pattern is empty
+     */
+    public static GlobMatcher compile(List<String> patterns) {
+        List<String> key = List.copyOf(patterns);
+        synchronized (CACHE) {
+            GlobMatcher matcher = CACHE.get(key);
+            if (matcher == null) {
+                matcher = new GlobMatcher(key);
+                CACHE.put(key, matcher);
+            }
+            return matcher;
+        }
+    }
+
+    /**
+     * Checks if a path contains glob syntax.
+     *
+     * @param path the path
+     * @return true if the path contains {@code *}, {@code ?}, {@code [} or {@code {}
+     */
+    public static boolean isGlob(String path) {
+        for (int i = 0; i < path.length(); i++) {
+            char c = path.charAt(i);
+            if (c == '*' || c == '?' || c == '[' || c == '{') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks if a relative path is matched by a pattern and not excluded by a negated one.
+     *
+     * @param path the path, with {@code /} separators
+     * @return true if the path matches
+     */
+    public boolean matches(String path) {
+        Set<Node> states = closure(Collections.singleton(root));
+        for (String segment : path.split("/")) {
+            if (segment.isEmpty() || segment.equals(".")) {
+                continue;
+            }
+            if (isExcluded(states)) {
+                return false;
+            }
+            states = step(states, segment);
+            if (states.isEmpty()) {
+                return false;
+            }
+        }
+        return isIncluded(states);
+    }
+
+    /**
+     * Finds the regular files under a directory whose paths, relative to the directory, match.
+     * Symbolic links to directories are not followed.
+     *
+     * @param base the directory to walk
+     * @return the matching files, sorted
+     * @throws IOException if a directory cannot be listed
+     */
+    public List<Path> walk(Path base) throws IOException {
+        List<Path> matches = new ArrayList<>();
+        Deque<Map.Entry<Path, Set<Node>>> pending = new ArrayDeque<>();
+        pending.push(Map.entry(base, closure(Collections.singleton(root))));
+        while (!pending.isEmpty()) {
+            Map.Entry<Path, Set<Node>> entry = pending.pop();
+            Path directory = entry.getKey();
+            Set<Node> states = entry.getValue();
+            for (Path child : children(directory, states)) {
+                Path name = child.getFileName();
+                if (name == null) {
+                    continue;
+                }
+                Set<Node> next = step(states, name.toString());
+                if (next.isEmpty() || isExcluded(next)) {
+                    continue;
+                }
+                if (Files.isDirectory(child, LinkOption.NOFOLLOW_LINKS)) {
+                    if (canDescend(next)) {
+                        pending.push(Map.entry(child, next));
+                    }
+                } else if (isIncluded(next) && Files.isRegularFile(child)) {
+                    matches.add(child);
+                }
+            }
+        }
+        Collections.sort(matches);
+        return matches;
+    }
+
+    /**
+     * Gets the children of a directory that the states can match: the literal children by name
+     * if no state has a wildcard child, otherwise every entry of the directory.
+     */
+    private static List<Path> children(Path directory, Set<Node> states) throws IOException {
+        Set<String> literals = new LinkedHashSet<>();
+        boolean listAll = false;
+        for (Node node : states) {
+            if (!node.globs.isEmpty() || node.recursive) {
+                listAll = true;
+                break;
+            }
+            literals.addAll(node.literals.keySet());
+        }
+        List<Path> children = new ArrayList<>();
+        if (!listAll) {
+            for (String literal : literals) {
+                Path child = directory.resolve(literal);
+                if (Files.exists(child, LinkOption.NOFOLLOW_LINKS)) {
+                    children.add(child);
+                }
+            }
+            return children;
+        }
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(directory)) {
+            for (Path child : entries) {
+                children.add(child);
+            }
+        } catch (NoSuchFileException | NotDirectoryException e) {
+            // Nothing to match below a path that is gone or is a file
+        }
+        return children;
+    }
+
+    private static Set<Node> step(Set<Node> states, String name) {
+        Set<Node> next = new LinkedHashSet<>();
+        for (Node node : states) {
+            Node literal = node.literals.get(name);
+            if (literal != null) {
+                next.add(literal);
+            }
+            for (Map.Entry<Pattern, Node> glob : node.globs.entrySet()) {
+                if (glob.getKey().matcher(name).matches()) {
+                    next.add(glob.getValue());
+                }
+            }
+            if (node.recursive) {
+                // The ** consumes this name too; the node it was reached from does not
+                next.add(node);
+            }
+        }
+        return closure(next);
+    }
+
+    /**
+     * Adds the {@code **} nodes that can be reached without consuming a name, as a {@code **}
+     * also matches no directory at all.
+     */
+    private static Set<Node> closure(Set<Node> states) {
+        Set<Node> closed = new LinkedHashSet<>(states);
+        Deque<Node> pending = new ArrayDeque<>(states);
+        while (!pending.isEmpty()) {
+            Node node = pending.pop();
+            if (node.anyDepth != null && closed.add(node.anyDepth)) {
+                pending.push(node.anyDepth);
+            }
+        }
+        return closed;
+    }
+
+    private static boolean isIncluded(Set<Node> states) {
+        boolean included = false;
+        for (Node node : states) {
+            if (node.exclude) {
+                return false;
+            }
+            included |= node.include;
+        }
+        return included;
+    }
+
+    private static boolean isExcluded(Set<Node> states) {
+        for (Node node : states) {
+            if (node.exclude) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean canDescend(Set<Node> states) {
+        for (Node node : states) {
+            if (!node.literals.isEmpty() || !node.globs.isEmpty() || node.recursive) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Compiles a glob segment into a regular expression.
+     *
+     * @param segment the segment
+     * @return the regular expression
+     */
+    private static Pattern compileSegment(String segment) {
+        StringBuilder regex = new StringBuilder();
+        boolean inGroup = false;
+        for (int i = 0; i < segment.length(); i++) {
+            char c = segment.charAt(i);
+            switch (c) {
+                case '*':
+                    regex.append("[^/]*");
+                    break;
+                case '?':
+                    regex.append("[^/]");
+                    break;
+                case '[': {
+                    int end = segment.indexOf(']', i + 2);
+                    if (end < 0) {
+                        regex.append("\\[");
+                        break;
+                    }
+                    String set = segment.substring(i + 1, end);
+                    if (set.startsWith("!")) {
+                        set = "^" + set.substring(1);
+                    }
+                    regex.append('[').append(set.replace("\\", "\\\\").replace("[", "\\["))
+                            .append(']');
+                    i = end;
+                    break;
+                }
+                case '{':
+                    regex.append("(?:");
+                    inGroup = true;
+                    break;
+                case '}':
+                    regex.append(inGroup ? ")" : "\\}");
+                    inGroup = false;
+                    break;
+                case ',':
+                    regex.append(inGroup ? "|" : ",");
+                    break;
+                default:
+                    regex.append(Pattern.quote(String.valueOf(c)));
+            }
+        }
+        if (inGroup) {
+            throw new IllegalArgumentException("Unclosed '{' in glob segment: " + segment);
+        }
+        return Pattern.compile(regex.toString());
+    }
+
+    /**
+     * A node of the segment trie: the state of having matched the segments on its path.
+     */
+    private static final class Node {
+        private final Map<String, Node> literals = new HashMap<>();
+        private final Map<Pattern, Node> globs = new LinkedHashMap<>();
+        private final Map<String, Node> globsBySource = new HashMap<>();
+        /**
+         * The {@code **} child, which matches any number of directories.
+         */
+        private Node anyDepth;
+        /**
+         * Whether this node is a {@code **}, which stays matched for every name below it. The
+         * segments after the {@code **} are its children.
+         */
+        private boolean recursive;
+        private boolean include;
+        private boolean exclude;
+
+        private Node child(String segment) {
+            if (segment.equals("**")) {
+                if (anyDepth == null) {
+                    anyDepth = new Node();
+                    anyDepth.recursive = true;
+                }
+                return anyDepth;
+            }
+            if (!isGlob(segment)) {
+                return literals.computeIfAbsent(segment, name -> new Node());
+            }
+            return globsBySource.computeIfAbsent(segment, source -> {
+                Node node = new Node();
+                globs.put(compileSegment(source), node);
+                return node;
+            });
+        }
+    }
+}
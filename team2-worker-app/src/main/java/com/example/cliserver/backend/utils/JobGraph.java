@@ -0,0 +1,245 @@
+package com.example.cliserver.backend.utils;
+
+import com.example.cliserver.backend.model.Job;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The dependency graph of a list of jobs.
+ * <p>
+ * Job names are interned to integer ids, the position of the job in the list, and the edges are
+ * stored in primitive arrays, so graphs of many thousands of jobs stay compact. Sorting and cycle
+ * detection are iterative and take time linear in the number of jobs and dependencies, so long
+ * chains of {@code needs} cannot overflow the stack.
+ * </p>
+ * <p>
+ * Dependencies on jobs that are not part of the list are ignored, so the graph of the jobs of
+ * one stage only orders the jobs within that stage.
+ * </p>
+ */
+public final class JobGraph {
+    private final List<Job> jobs;
+    private final Map<String, Integer> ids;
+
+    /**
+     * The dependencies of job {@code i} are
+     * {@code dependencies[dependencyOffsets[i]..dependencyOffsets[i + 1])}.
+     */
+    private final int[] dependencyOffsets;
+    private final int[] dependencies;
+
+    /**
+     * The jobs that depend on job {@code i} are
+     * {@code dependents[dependentOffsets[i]..dependentOffsets[i + 1])}.
+     */
+    private final int[] dependentOffsets;
+    private final int[] dependents;
+
+    /**
+     * Builds the dependency graph of a list of jobs.
+     *
+     * @param jobs the jobs, whose names must be unique
+     * @throws IllegalArgumentException if two jobs have the same name
+     */
+    public JobGraph(List<Job> jobs) {
+        this.jobs = new ArrayList<>(jobs);
+        int size = this.jobs.size();
+        this.ids = new HashMap<>(size * 2);
+        for (int id = 0; id < size; id++) {
+            String name = this.jobs.get(id).getName();
+            if (ids.putIfAbsent(name, id) != null) {
+                throw new IllegalArgumentException("Job names must be unique. Name '"
+                        + name + "' is duplicated.");
+            }
+        }
+
+        // Dependencies in compressed rows, counting the dependents of every job on the way
+        dependencyOffsets = new int[size + 1];
+        int[] buffer = new int[Math.max(16, size)];
+        int edges = 0;
+        int[] dependentCounts = new int[size];
+        for (int id = 0; id < size; id++) {
+            dependencyOffsets[id] = edges;
+            List<String> needs = this.jobs.get(id).getNeeds();
+            if (needs == null) {
+                continue;
+            }
+            for (String need : needs) {
+                Integer dependency = ids.get(need);
+                if (dependency == null) {
+                    continue;
+                }
+                if (edges == buffer.length) {
+                    buffer = Arrays.copyOf(buffer, buffer.length * 2);
+                }
+                buffer[edges++] = dependency;
+                dependentCounts[dependency]++;
+            }
+        }
+        dependencyOffsets[size] = edges;
+        dependencies = Arrays.copyOf(buffer, edges);
+
+        // The same edges reversed, from every job to the jobs that need it
+        dependentOffsets = new int[size + 1];
+        for (int id = 0; id < size; id++) {
+            dependentOffsets[id + 1] = dependentOffsets[id] + dependentCounts[id];
+        }
+        dependents = new int[edges];
+        int[] next = Arrays.copyOf(dependentOffsets, size);
+        for (int id = 0; id < size; id++) {
+            for (int e = dependencyOffsets[id]; e < dependencyOffsets[id + 1]; e++) {
+                dependents[next[dependencies[e]]++] = id;
+            }
+        }
+    }
+
+    /**
+     * Gets the number of jobs in the graph.
+     *
+     * @return the number of jobs
+     */
+    public int size() {
+        return jobs.size();
+    }
+
+    /**
+     * Gets the id of a job.
+     *
+     * @param name the name of the job
+     * @return the id of the job, or -1 if it is not part of the graph
+     */
+    public int getId(String name) {
+        Integer id = ids.get(name);
+        return id == null ? -1 : id;
+    }
+
+    /**
+     * Gets a job by its id.
+     *
+     * @param id the id of the job
+     * @return the job
+     */
+    public Job getJob(int id) {
+        return jobs.get(id);
+    }
+
+    /**
+     * Sorts the jobs so that every job comes after the jobs it needs, with Kahn's algorithm.
+     * Jobs that do not depend on each other keep the order they were declared in as far as
+     * possible.
+     *
+     * @return the ids of the jobs in execution order, or null if the dependencies form a cycle
+     */
+    public int[] topologicalOrder() {
+        int[] order = new int[size()];
+        return sort(new int[size()], order) == order.length ? order : null;
+    }
+
+    /**
+     * Runs Kahn's algorithm as far as it gets.
+     *
+     * @param remaining filled with the number of unsorted dependencies of every job, which is
+     *                  still positive afterwards for the jobs that could not be sorted
+     * @param order     filled with the ids of the sorted jobs
+     * @return the number of jobs that could be sorted
+     */
+    private int sort(int[] remaining, int[] order) {
+        int head = 0;
+        int tail = 0;
+        for (int id = 0; id < remaining.length; id++) {
+            remaining[id] = dependencyOffsets[id + 1] - dependencyOffsets[id];
+            if (remaining[id] == 0) {
+                order[tail++] = id;
+            }
+        }
+        while (head < tail) {
+            int id = order[head++];
+            for (int e = dependentOffsets[id]; e < dependentOffsets[id + 1]; e++) {
+                int dependent = dependents[e];
+                if (--remaining[dependent] == 0) {
+                    order[tail++] = dependent;
+                }
+            }
+        }
+        return tail;
+    }
+
+    /**
+     * Gets the jobs sorted so that every job comes after the jobs it needs.
+     *
+     * @return the sorted jobs
+     * @throws IllegalArgumentException if the dependencies form a cycle
+     */
+    public List<Job> getSortedJobs() {
+        int[] order = topologicalOrder();
+        if (order == null) {
+            throw new IllegalArgumentException("Cycle detected in jobs: "
+                    + formatCycle(findCycle()));
+        }
+        List<Job> sorted = new ArrayList<>(order.length);
+        for (int id : order) {
+            sorted.add(jobs.get(id));
+        }
+        return sorted;
+    }
+
+    /**
+     * Finds a cycle in the dependencies. Jobs that cannot be sorted are either on a cycle or
+     * need a job that is, so following their dependencies among themselves must run into one.
+     *
+     * @return the names of the jobs on the cycle, each needing the next and the last needing the
+     *         first, or an empty list if there is no cycle
+     */
+    public List<String> findCycle() {
+        int size = size();
+        int[] remaining = new int[size];
+        if (sort(remaining, new int[size]) == size) {
+            return Collections.emptyList();
+        }
+
+        int start = 0;
+        while (remaining[start] == 0) {
+            start++;
+        }
+        // Walk unsorted dependencies until a job repeats; the walk from there is the cycle
+        int[] positionInPath = new int[size];
+        Arrays.fill(positionInPath, -1);
+        int[] path = new int[size];
+        int length = 0;
+        int current = start;
+        while (positionInPath[current] < 0) {
+            positionInPath[current] = length;
+            path[length++] = current;
+            int next = -1;
+            for (int e = dependencyOffsets[current]; e < dependencyOffsets[current + 1]; e++) {
+                if (remaining[dependencies[e]] > 0) {
+                    next = dependencies[e];
+                    break;
+                }
+            }
+            current = next;
+        }
+        List<String> cycle = new ArrayList<>();
+        for (int i = positionInPath[current]; i < length; i++) {
+            cycle.add(jobs.get(path[i]).getName());
+        }
+        return cycle;
+    }
+
+    /**
+     * Formats a cycle as a path that ends where it started.
+     *
+     * @param cycle the names of the jobs on the cycle
+     * @return the cycle, e.g. {@code a -> b -> a}
+     */
+    public static String formatCycle(List<String> cycle) {
+        if (cycle.isEmpty()) {
+            return "";
+        }
+        return String.join(" -> ", cycle) + " -> " + cycle.get(0);
+    }
+}
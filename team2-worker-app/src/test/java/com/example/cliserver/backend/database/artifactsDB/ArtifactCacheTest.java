@@ -0,0 +1,87 @@
+package com.example.cliserver.backend.database.artifactsDB;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ArtifactCacheTest {
+
+    @TempDir
+    Path tempDir;
+
+    private Path file(String name, String content) throws IOException {
+        return Files.writeString(tempDir.resolve(name), content);
+    }
+
+    @Test
+    void testPutAndCopyTo() throws IOException {
+        ArtifactCache cache = new ArtifactCache(tempDir.resolve("cache").toFile(), 100);
+        Path target = tempDir.resolve("restored.txt");
+
+        assertFalse(cache.copyTo("a", target));
+        cache.put("a", file("a.txt", "contents"));
+
+        assertTrue(cache.copyTo("a", target));
+        assertEquals("contents", Files.readString(target));
+        assertEquals(8, cache.getTotalBytes());
+    }
+
+    @Test
+    void testPut_evictsLeastRecentlyUsed() throws IOException {
+        File directory = tempDir.resolve("cache").toFile();
+        ArtifactCache cache = new ArtifactCache(directory, 10);
+        cache.put("a", file("a.txt", "aaaa"));
+        cache.put("b", file("b.txt", "bbbb"));
+        // Using a makes b the least recently used
+        assertTrue(cache.copyTo("a", tempDir.resolve("restored.txt")));
+
+        cache.put("c", file("c.txt", "cccc"));
+
+        assertTrue(new File(directory, "a").exists());
+        assertFalse(new File(directory, "b").exists());
+        assertFalse(cache.copyTo("b", tempDir.resolve("restored.txt")));
+        assertEquals(8, cache.getTotalBytes());
+    }
+
+    @Test
+    void testPut_skipsFilesLargerThanTheCache() throws IOException {
+        ArtifactCache cache = new ArtifactCache(tempDir.resolve("cache").toFile(), 4);
+
+        cache.put("a", file("a.txt", "too large"));
+
+        assertFalse(cache.copyTo("a", tempDir.resolve("restored.txt")));
+        assertEquals(0, cache.getTotalBytes());
+    }
+
+    @Test
+    void testConstructor_indexesExistingFilesAndDropsPartialOnes() throws IOException {
+        Path directory = Files.createDirectories(tempDir.resolve("cache"));
+        Files.writeString(directory.resolve("a"), "cached");
+        Files.writeString(directory.resolve("b123.part"), "partial");
+
+        ArtifactCache cache = new ArtifactCache(directory.toFile(), 100);
+
+        assertEquals(6, cache.getTotalBytes());
+        assertFalse(Files.exists(directory.resolve("b123.part")));
+        assertTrue(cache.copyTo("a", tempDir.resolve("restored.txt")));
+    }
+
+    @Test
+    void testCopyTo_forgetsFilesDeletedFromTheDisk() throws IOException {
+        File directory = tempDir.resolve("cache").toFile();
+        ArtifactCache cache = new ArtifactCache(directory, 100);
+        cache.put("a", file("a.txt", "contents"));
+
+        assertTrue(new File(directory, "a").delete());
+
+        assertFalse(cache.copyTo("a", tempDir.resolve("restored.txt")));
+        assertEquals(0, cache.getTotalBytes());
+    }
+}
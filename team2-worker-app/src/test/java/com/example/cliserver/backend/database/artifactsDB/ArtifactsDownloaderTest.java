@@ -0,0 +1,124 @@
+package com.example.cliserver.backend.database.artifactsDB;
+
+import com.example.cliserver.backend.utils.Constants;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.minio.GetObjectArgs;
+import io.minio.GetObjectResponse;
+import io.minio.MinioClient;
+import okhttp3.Headers;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class ArtifactsDownloaderTest {
+    private static final String LOCATION = "artifacts/local/pipe/1/build/";
+
+    @TempDir
+    Path tempDir;
+    private MinioClient mockMinio;
+    private ArtifactCache cache;
+    private ArtifactsDownloader downloader;
+    private final Map<String, byte[]> objects = new HashMap<>();
+    private final List<String> downloads = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        mockMinio = mock(MinioClient.class);
+        cache = new ArtifactCache(tempDir.resolve("cache").toFile(), 1024);
+        downloader = new ArtifactsDownloader(mockMinio, cache);
+        when(mockMinio.getObject(any())).thenAnswer(invocation -> {
+            GetObjectArgs args = invocation.getArgument(0);
+            byte[] contents = objects.get(args.object());
+            if (contents == null) {
+                throw new IOException("No such object: " + args.object());
+            }
+            downloads.add(args.object());
+            return new GetObjectResponse(Headers.of(), args.bucket(), null, args.object(),
+                    new ByteArrayInputStream(contents));
+        });
+    }
+
+    /**
+     * Stores a file the way the uploader does and returns its manifest entry.
+     */
+    private ArtifactManifest.Entry store(String path, String content) throws IOException {
+        Path file = Files.writeString(tempDir.resolve("source.txt"), content);
+        String digest = ArtifactsUploader.sha256(file.toFile());
+        objects.put(Constants.ARTIFACT_BLOB_PREFIX + digest,
+                content.getBytes(StandardCharsets.UTF_8));
+        return new ArtifactManifest.Entry(path, digest, content.length());
+    }
+
+    private void storeManifest(ArtifactManifest.Entry... entries) throws IOException {
+        ArtifactManifest manifest = new ArtifactManifest();
+        manifest.setFiles(List.of(entries));
+        objects.put("local/pipe/1/build/" + Constants.ARTIFACT_MANIFEST_NAME,
+                new ObjectMapper().writeValueAsBytes(manifest));
+    }
+
+    @Test
+    void testDownloadArtifacts_restoresFilesAndCachesThem() throws Exception {
+        ArtifactManifest.Entry jar = store("target/app.jar", "jar");
+        storeManifest(jar, store("reports/a.xml", "<a/>"));
+        Path workspace = tempDir.resolve("workspace");
+
+        int restored = downloader.downloadArtifacts(LOCATION, workspace.toFile(), message -> { });
+
+        assertEquals(2, restored);
+        assertEquals("jar", Files.readString(workspace.resolve("target/app.jar")));
+        assertEquals("<a/>", Files.readString(workspace.resolve("reports/a.xml")));
+        assertTrue(cache.copyTo(jar.getDigest(), tempDir.resolve("cached.jar")));
+    }
+
+    @Test
+    void testDownloadArtifacts_usesTheCacheBeforeMinio() throws Exception {
+        ArtifactManifest.Entry jar = store("target/app.jar", "jar");
+        storeManifest(jar);
+        cache.put(jar.getDigest(), tempDir.resolve("source.txt"));
+        Path workspace = tempDir.resolve("workspace");
+
+        downloader.downloadArtifacts(LOCATION, workspace.toFile(), message -> { });
+
+        assertEquals("jar", Files.readString(workspace.resolve("target/app.jar")));
+        assertEquals(List.of("local/pipe/1/build/" + Constants.ARTIFACT_MANIFEST_NAME),
+                downloads);
+    }
+
+    @Test
+    void testDownloadArtifacts_corruptBlobFails() throws Exception {
+        ArtifactManifest.Entry jar = store("target/app.jar", "jar");
+        storeManifest(jar);
+        objects.put(Constants.ARTIFACT_BLOB_PREFIX + jar.getDigest(),
+                "corrupt".getBytes(StandardCharsets.UTF_8));
+        Path workspace = tempDir.resolve("workspace");
+
+        assertThrows(IOException.class, () ->
+                downloader.downloadArtifacts(LOCATION, workspace.toFile(), message -> { }));
+        assertFalse(Files.exists(workspace.resolve("target/app.jar")));
+        assertFalse(cache.copyTo(jar.getDigest(), tempDir.resolve("cached.jar")));
+    }
+
+    @Test
+    void testDownloadArtifacts_rejectsPathsOutsideTheWorkspace() throws Exception {
+        storeManifest(store("../escaped.txt", "escaped"));
+        Path workspace = tempDir.resolve("workspace");
+
+        assertThrows(IOException.class, () ->
+                downloader.downloadArtifacts(LOCATION, workspace.toFile(), message -> { }));
+        assertFalse(Files.exists(tempDir.resolve("escaped.txt")));
+    }
+}
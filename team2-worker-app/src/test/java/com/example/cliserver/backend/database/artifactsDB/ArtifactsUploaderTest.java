@@ -1,20 +1,34 @@
 package com.example.cliserver.backend.database.artifactsDB;
 
 import com.example.cliserver.backend.utils.Constants;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.minio.MinioClient;
+import io.minio.PutObjectArgs;
+import io.minio.StatObjectResponse;
 import io.minio.UploadObjectArgs;
 import io.minio.errors.*;
+import io.minio.messages.ErrorResponse;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.security.InvalidKeyException;
 import java.security.NoSuchAlgorithmException;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -36,19 +50,38 @@ class ArtifactsUploaderTest {
         uploader.setMinioClient(mockMinio);
     }
 
+    private void stubNoBlobsStored() throws Exception {
+        when(mockMinio.statObject(any())).thenThrow(new ErrorResponseException(
+                new ErrorResponse("NoSuchKey", "Object does not exist",
+                        Constants.DEFAULT_ARTIFACT_BUCKET, null, null, null, null), null, null));
+    }
+
+    private File createFile(File dir, String name, String content) throws IOException {
+        File file = new File(dir, name);
+        Files.writeString(file.toPath(), content);
+        return file;
+    }
+
     @Test
     void testUploadSingleFile() throws Exception {
-        File file = new File(tempDir.toFile(), "single.txt");
-        assertTrue(file.createNewFile());
+        File file = createFile(tempDir.toFile(), "single.txt", "single");
         file.deleteOnExit();
 
         when(mockMinio.bucketExists(any())).thenReturn(true);
+        stubNoBlobsStored();
 
-        uploader.uploadArtifacts("test-bucket", List.of("single.txt"));
+        uploader.uploadArtifacts("local/pipe/1/build/", List.of("single.txt"));
 
+        String blob = Constants.ARTIFACT_BLOB_PREFIX + ArtifactsUploader.sha256(file);
         verify(mockMinio).uploadObject(argThat(args ->
                 args instanceof UploadObjectArgs &&
-                        (args).object().equals("single.txt")
+                        args.bucket().equals(uploader.getBucket()) &&
+                        (args).object().equals(blob)
+        ));
+        verify(mockMinio).putObject(argThat(args ->
+                args.bucket().equals(uploader.getBucket()) &&
+                        args.object().equals(
+                                "local/pipe/1/build/" + Constants.ARTIFACT_MANIFEST_NAME)
         ));
     }
 
@@ -86,6 +119,7 @@ class ArtifactsUploaderTest {
 
         doThrow(new RuntimeException("Upload failed")).when(mockMinio).uploadObject(any());
         when(mockMinio.bucketExists(any())).thenReturn(true);
+        stubNoBlobsStored();
 
         IOException ex = assertThrows(IOException.class, () ->
                 uploader.uploadArtifacts("bucket", List.of("errorFile.txt"))
@@ -102,19 +136,18 @@ class ArtifactsUploaderTest {
         File dir = new File(tempDir.toFile(), "uploadDir");
         assertTrue(dir.mkdirs());
 
-        File file1 = new File(dir, "fileA.txt");
-        File file2 = new File(dir, "fileB.txt");
-        assertTrue(file1.createNewFile());
-        assertTrue(file2.createNewFile());
+        File file1 = createFile(dir, "fileA.txt", "A");
+        File file2 = createFile(dir, "fileB.txt", "B");
         file1.deleteOnExit();
         file2.deleteOnExit();
 
         when(mockMinio.bucketExists(any())).thenReturn(false);
         doNothing().when(mockMinio).makeBucket(any());
+        stubNoBlobsStored();
 
         uploader.uploadArtifacts("test-bucket", List.of("uploadDir"));
 
-        verify(mockMinio).makeBucket(any());
+        verify(mockMinio).makeBucket(argThat(args -> args.bucket().equals(uploader.getBucket())));
         verify(mockMinio, times(2)).uploadObject(any());
     }
 
@@ -123,13 +156,9 @@ class ArtifactsUploaderTest {
         File wildcardDir = new File(tempDir.toFile(), "wild");
         assertTrue(wildcardDir.mkdirs());
 
-        File file1 = new File(wildcardDir, "a.txt");
-        File file2 = new File(wildcardDir, "b.txt");
-        File file3 = new File(wildcardDir, "not_included.md");
-
-        assertTrue(file1.createNewFile());
-        assertTrue(file2.createNewFile());
-        assertTrue(file3.createNewFile());
+        File file1 = createFile(wildcardDir, "a.txt", "a");
+        File file2 = createFile(wildcardDir, "b.txt", "b");
+        File file3 = createFile(wildcardDir, "not_included.md", "md");
 
         file1.deleteOnExit();
         file2.deleteOnExit();
@@ -137,6 +166,7 @@ class ArtifactsUploaderTest {
 
         Constants.LOCAL_ARTIFACTS_DIRECTORY = tempDir.toString();
         when(mockMinio.bucketExists(any())).thenReturn(true);
+        stubNoBlobsStored();
 
         uploader.uploadArtifacts("test-bucket", List.of("wild/*.txt"));
 
@@ -151,16 +181,17 @@ class ArtifactsUploaderTest {
         file.deleteOnExit();
 
         when(mockMinio.bucketExists(any())).thenReturn(false);
+        stubNoBlobsStored();
 
-        uploader.uploadArtifacts("new-bucket", List.of("createBucket.txt"));
+        uploader.uploadArtifacts("local/pipe/1/build", List.of("createBucket.txt"));
 
         verify(mockMinio).makeBucket(argThat(args ->
-                args != null && args.bucket().equals("new-bucket")
+                args != null && args.bucket().equals(uploader.getBucket())
         ));
 
         verify(mockMinio).uploadObject(argThat(args ->
                 args instanceof UploadObjectArgs &&
-                        (args).object().equals("createBucket.txt")
+                        (args).object().startsWith(Constants.ARTIFACT_BLOB_PREFIX)
         ));
     }
 
@@ -185,6 +216,7 @@ class ArtifactsUploaderTest {
         file.deleteOnExit();
 
         when(mockMinio.bucketExists(any())).thenReturn(true);
+        stubNoBlobsStored();
         doThrow(new RuntimeException("Upload failed")).when(mockMinio).uploadObject(any());
 
         IOException ex = assertThrows(IOException.class, () ->
@@ -203,6 +235,7 @@ class ArtifactsUploaderTest {
 
         Constants.LOCAL_ARTIFACTS_DIRECTORY = tempDir.toString();
         when(mockMinio.bucketExists(any())).thenReturn(true);
+        stubNoBlobsStored();
 
         doThrow(new RuntimeException("Upload failed")).when(mockMinio).uploadObject(any());
 
@@ -231,4 +264,209 @@ class ArtifactsUploaderTest {
 
         assertTrue(ex.getMessage().contains("File or directory not found"));
     }
-}
\ No newline at end of file
+
+    @Test
+    void testUploadDirectory_manyFilesInParallelReportsProgress() throws Exception {
+        File dir = new File(tempDir.toFile(), "classes");
+        assertTrue(dir.mkdirs());
+        for (int i = 0; i < 40; i++) {
+            createFile(dir, "Class" + i + ".class", "class " + i);
+        }
+        uploader = new ArtifactsUploader(mockMinio, "artifacts", 4, 1024 * 1024);
+        when(mockMinio.bucketExists(any())).thenReturn(true);
+        stubNoBlobsStored();
+        List<String> progress = Collections.synchronizedList(new ArrayList<>());
+
+        uploader.uploadArtifacts("bucket", tempDir.toString(), List.of("classes"),
+                progress::add);
+
+        verify(mockMinio, times(40)).uploadObject(any());
+        assertEquals(41, progress.size());
+        assertTrue(progress.stream().anyMatch(message -> message.contains(", 40/40)")));
+        assertEquals("Uploaded 40 of 40 artifact files (310 bytes), the others were already "
+                + "stored", progress.get(40));
+    }
+
+    @Test
+    void testUploadDirectory_callsShareTheThreadsOfTheUploaderUntilClosed() throws Exception {
+        File dir = new File(tempDir.toFile(), "classes");
+        assertTrue(dir.mkdirs());
+        for (int i = 0; i < 10; i++) {
+            createFile(dir, "Class" + i + ".class", "class " + i);
+        }
+        uploader = new ArtifactsUploader(mockMinio, "artifacts", 2, 1024 * 1024);
+        when(mockMinio.bucketExists(any())).thenReturn(true);
+        stubNoBlobsStored();
+        Set<String> threads = ConcurrentHashMap.newKeySet();
+        Consumer<String> progress = message -> threads.add(Thread.currentThread().getName()
+                + "@" + System.identityHashCode(Thread.currentThread()));
+
+        uploader.uploadArtifacts("first", tempDir.toString(), List.of("classes"), progress);
+        uploader.uploadArtifacts("second", tempDir.toString(), List.of("classes"), progress);
+        uploader.close();
+
+        threads.removeIf(thread -> !thread.startsWith("artifact-upload@"));
+        assertFalse(threads.isEmpty());
+        assertTrue(threads.size() <= 2, "Uploads should reuse the threads of the uploader");
+        IOException ex = assertThrows(IOException.class, () ->
+                uploader.uploadArtifacts("third", List.of("classes")));
+        assertEquals("The artifact uploader is closed", ex.getMessage());
+    }
+
+    @Test
+    void testUploadDirectory_failureWritesNoManifest() throws Exception {
+        File dir = new File(tempDir.toFile(), "partial");
+        assertTrue(dir.mkdirs());
+        createFile(dir, "a.txt", "a");
+        String b = Constants.ARTIFACT_BLOB_PREFIX
+                + ArtifactsUploader.sha256(createFile(dir, "b.txt", "b"));
+        String c = Constants.ARTIFACT_BLOB_PREFIX
+                + ArtifactsUploader.sha256(createFile(dir, "c.txt", "c"));
+        uploader = new ArtifactsUploader(mockMinio, "artifacts", 1, 1024 * 1024);
+        when(mockMinio.bucketExists(any())).thenReturn(true);
+        stubNoBlobsStored();
+        doThrow(new RuntimeException("Upload failed")).when(mockMinio)
+                .uploadObject(argThat(args -> args.object().equals(b)));
+
+        IOException ex = assertThrows(IOException.class, () ->
+                uploader.uploadArtifacts("bucket", List.of("partial")));
+
+        assertTrue(ex.getCause().getMessage().contains("b.txt"));
+        verify(mockMinio, never()).uploadObject(argThat(args -> args.object().equals(c)));
+        verify(mockMinio, never()).putObject(any());
+    }
+
+    @Test
+    void testUploadArtifacts_writesManifestOfPathsAndDigests() throws Exception {
+        File dir = new File(tempDir.toFile(), "lib");
+        assertTrue(dir.mkdirs());
+        File jar = createFile(dir, "dependency.jar", "jar contents");
+        when(mockMinio.bucketExists(any())).thenReturn(true);
+        stubNoBlobsStored();
+        List<byte[]> manifests = new ArrayList<>();
+        when(mockMinio.putObject(any())).thenAnswer(invocation -> {
+            PutObjectArgs args = invocation.getArgument(0);
+            manifests.add(args.stream().readAllBytes());
+            return null;
+        });
+
+        uploader.uploadArtifacts("bucket", List.of("lib"));
+
+        ArtifactManifest manifest = new ObjectMapper().readValue(manifests.get(0),
+                ArtifactManifest.class);
+        assertEquals(1, manifest.getFiles().size());
+        ArtifactManifest.Entry entry = manifest.getFiles().get(0);
+        assertEquals("lib/dependency.jar", entry.getPath());
+        assertEquals(ArtifactsUploader.sha256(jar), entry.getDigest());
+        assertEquals(12, entry.getSize());
+    }
+
+    @Test
+    void testUploadArtifacts_storedContentsNotUploadedAgain() throws Exception {
+        createFile(tempDir.toFile(), "unchanged.jar", "same bytes");
+        when(mockMinio.bucketExists(any())).thenReturn(true);
+        stubNoBlobsStored();
+
+        uploader.uploadArtifacts("local/pipe/1/build/", List.of("unchanged.jar"));
+        uploader.uploadArtifacts("local/pipe/2/build/", List.of("unchanged.jar"));
+
+        verify(mockMinio, times(1)).bucketExists(any());
+        verify(mockMinio, times(1)).uploadObject(any());
+        verify(mockMinio, times(1)).statObject(any());
+        verify(mockMinio, times(2)).putObject(any());
+    }
+
+    @Test
+    void testUploadArtifacts_blobStoredByAnotherWorkerNotUploaded() throws Exception {
+        createFile(tempDir.toFile(), "vendored.js", "vendored");
+        when(mockMinio.bucketExists(any())).thenReturn(true);
+
+        uploader.uploadArtifacts("bucket", List.of("vendored.js"));
+
+        verify(mockMinio).statObject(any());
+        verify(mockMinio, never()).uploadObject(any());
+        verify(mockMinio).putObject(any());
+    }
+
+    @Test
+    void testUploadArtifacts_blobStoredLongAgoUploadedAgain() throws Exception {
+        createFile(tempDir.toFile(), "old.jar", "old bytes");
+        when(mockMinio.bucketExists(any())).thenReturn(true);
+        StatObjectResponse stat = mock(StatObjectResponse.class);
+        when(stat.lastModified()).thenReturn(ZonedDateTime.now().minusDays(2));
+        when(mockMinio.statObject(any())).thenReturn(stat);
+
+        uploader.uploadArtifacts("local/pipe/1/build/", List.of("old.jar"));
+        uploader.uploadArtifacts("local/pipe/2/build/", List.of("old.jar"));
+
+        // The renewed file is remembered, so it is only uploaded once
+        verify(mockMinio, times(1)).uploadObject(any());
+        verify(mockMinio, times(2)).putObject(any());
+    }
+
+    @Test
+    void testUploader_invalidLimits() {
+        assertThrows(IllegalArgumentException.class, () ->
+                new ArtifactsUploader(mockMinio, "artifacts", 0, 1024 * 1024));
+        assertThrows(IllegalArgumentException.class, () ->
+                new ArtifactsUploader(mockMinio, " ", 4, 1024 * 1024));
+    }
+
+    private ByteArrayOutputStream stubArchiveUpload() throws Exception {
+        ByteArrayOutputStream uploaded = new ByteArrayOutputStream();
+        when(mockMinio.bucketExists(any())).thenReturn(true);
+        when(mockMinio.putObject(any())).thenAnswer(invocation -> {
+            PutObjectArgs args = invocation.getArgument(0);
+            args.stream().transferTo(uploaded);
+            return null;
+        });
+        return uploaded;
+    }
+
+    @Test
+    void testUploadArchive_combinesPathsIntoOneGzipTar() throws Exception {
+        ByteArrayOutputStream uploaded = stubArchiveUpload();
+        Map<String, byte[]> container = Map.of(
+                "target", TarStreamsTest.tar(
+                        TarStreamsTest.entry("target/", '5', ""),
+                        TarStreamsTest.entry("target/app.jar", '0', "jar"),
+                        TarStreamsTest.entry("target/app.log", '0', "log")),
+                "reports", TarStreamsTest.tar(
+                        TarStreamsTest.entry("reports/a.xml", '0', "<a/>")));
+        List<String> progress = Collections.synchronizedList(new ArrayList<>());
+
+        uploader.uploadArchive("local/pipe/1/test/", List.of("target/*.jar", "reports"),
+                path -> new ByteArrayInputStream(container.get(path)), progress::add);
+
+        verify(mockMinio).putObject(argThat(args ->
+                args.bucket().equals(uploader.getBucket()) &&
+                        args.object().equals(
+                                "local/pipe/1/test/" + Constants.ARTIFACT_ARCHIVE_NAME)));
+        byte[] tar = new GZIPInputStream(
+                new ByteArrayInputStream(uploaded.toByteArray())).readAllBytes();
+        assertEquals(List.of("target/app.jar", "reports/a.xml"), TarStreamsTest.names(tar));
+        assertTrue(progress.contains("Archived artifact target/*.jar (1 files)"));
+        assertTrue(progress.contains("Archived artifact reports (1 files)"));
+    }
+
+    @Test
+    void testUploadArchive_missingPathFailsUpload() throws Exception {
+        stubArchiveUpload();
+        byte[] empty = TarStreamsTest.tar();
+
+        IOException exception = assertThrows(IOException.class, () ->
+                uploader.uploadArchive("local/pipe/1/test/", List.of("missing"),
+                        path -> new ByteArrayInputStream(empty), message -> { }));
+
+        assertTrue(exception.getMessage().contains("File or directory not found: missing"));
+    }
+
+    @Test
+    void testObjectPrefix() {
+        assertEquals("github.com_org_repo/build/7/unit_tests/",
+                ArtifactsUploader.objectPrefix("https://github.com/org/repo.git", "build", 7,
+                        "unit tests"));
+        assertEquals("local/_.blobs/1/_/",
+                ArtifactsUploader.objectPrefix("local", ".blobs", 1, null));
+    }
+}
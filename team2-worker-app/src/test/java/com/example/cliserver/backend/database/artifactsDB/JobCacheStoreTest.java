@@ -0,0 +1,167 @@
+package com.example.cliserver.backend.database.artifactsDB;
+
+import com.example.cliserver.backend.utils.Constants;
+import io.minio.GetObjectArgs;
+import io.minio.GetObjectResponse;
+import io.minio.MinioClient;
+import io.minio.Result;
+import io.minio.UploadObjectArgs;
+import io.minio.errors.ErrorResponseException;
+import io.minio.messages.ErrorResponse;
+import io.minio.messages.Item;
+import okhttp3.Headers;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.ZonedDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class JobCacheStoreTest {
+    @TempDir
+    Path tempDir;
+    private MinioClient mockMinio;
+    private JobCacheStore store;
+    private final Map<String, byte[]> objects = new HashMap<>();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        mockMinio = mock(MinioClient.class);
+        when(mockMinio.bucketExists(any())).thenReturn(true);
+        when(mockMinio.uploadObject(any())).thenAnswer(invocation -> {
+            UploadObjectArgs args = invocation.getArgument(0);
+            objects.put(args.object(), Files.readAllBytes(Paths.get(args.filename())));
+            return null;
+        });
+        when(mockMinio.getObject(any())).thenAnswer(invocation -> {
+            GetObjectArgs args = invocation.getArgument(0);
+            byte[] contents = objects.get(args.object());
+            if (contents == null) {
+                throw new ErrorResponseException(new ErrorResponse("NoSuchKey",
+                        "Object does not exist", args.bucket(), args.object(), null, null,
+                        null), null, null);
+            }
+            return new GetObjectResponse(Headers.of(), args.bucket(), null, args.object(),
+                    new ByteArrayInputStream(contents));
+        });
+        store = newStore("cache");
+    }
+
+    private JobCacheStore newStore(String localDirectory) {
+        return new JobCacheStore(
+                new ArtifactsUploader(mockMinio, Constants.DEFAULT_ARTIFACT_BUCKET, 1, 1024),
+                new ArtifactCache(tempDir.resolve(localDirectory).toFile(), 1024 * 1024));
+    }
+
+    private Path workspace(String name) throws Exception {
+        Path workspace = Files.createDirectories(tempDir.resolve(name));
+        Files.writeString(workspace.resolve("pom.xml"), "<project/>");
+        Files.createDirectories(workspace.resolve(".m2/repository/org/lib"));
+        Files.writeString(workspace.resolve(".m2/repository/org/lib/lib-1.0.jar"), "jar");
+        return workspace;
+    }
+
+    @Test
+    void testResolveKey() throws Exception {
+        Path workspace = workspace("workspace");
+        String template = "maven-${{ hashFiles('pom.xml', '.m2') }}";
+
+        String key = JobCacheStore.resolveKey(template, workspace);
+        assertTrue(key.matches("maven-[0-9a-f]{64}"));
+        assertEquals(key, JobCacheStore.resolveKey(template, workspace));
+
+        Files.writeString(workspace.resolve("pom.xml"), "<project><changed/></project>");
+        assertNotEquals(key, JobCacheStore.resolveKey(template, workspace));
+        assertEquals("maven-", JobCacheStore.resolveKey("maven-${{ hashFiles('missing') }}",
+                workspace));
+    }
+
+    @Test
+    void testSaveAndRestore_exactKeyFromTheNodeCopy() throws Exception {
+        store.save("https://github.com/org/app.git", "maven-1", List.of(".m2/repository"),
+                workspace("build").toFile(), message -> { });
+        assertTrue(objects.containsKey(".caches/github.com_org_app/maven-1.tar.gz"));
+
+        Path restored = tempDir.resolve("restored");
+        assertTrue(store.restore("https://github.com/org/app.git", "maven-1", List.of(),
+                restored.toFile(), message -> { }));
+
+        assertEquals("jar",
+                Files.readString(restored.resolve(".m2/repository/org/lib/lib-1.0.jar")));
+        verify(mockMinio, never()).getObject(any());
+    }
+
+    @Test
+    void testRestore_fallsBackToTheNewestCacheOfARestoreKey() throws Exception {
+        store.save("repo", "maven-old", List.of(".m2"), workspace("old").toFile(),
+                message -> { });
+        Files.writeString(tempDir.resolve("old/.m2/repository/org/lib/lib-1.0.jar"), "new jar");
+        store.save("repo", "maven-new", List.of(".m2"), tempDir.resolve("old").toFile(),
+                message -> { });
+        Item oldItem = mock(Item.class);
+        when(oldItem.objectName()).thenReturn(".caches/repo/maven-old.tar.gz");
+        when(oldItem.lastModified()).thenReturn(ZonedDateTime.now().minusDays(1));
+        Item newItem = mock(Item.class);
+        when(newItem.objectName()).thenReturn(".caches/repo/maven-new.tar.gz");
+        when(newItem.lastModified()).thenReturn(ZonedDateTime.now());
+        when(mockMinio.listObjects(any())).thenReturn(
+                List.of(new Result<>(oldItem), new Result<>(newItem)));
+
+        // A store on another node has no local copies
+        Path restored = tempDir.resolve("restored");
+        assertFalse(newStore("other-node").restore("repo", "maven-missing",
+                List.of("maven-"), restored.toFile(), message -> { }));
+
+        assertEquals("new jar",
+                Files.readString(restored.resolve(".m2/repository/org/lib/lib-1.0.jar")));
+    }
+
+    @Test
+    void testRestore_missReturnsFalse() throws Exception {
+        when(mockMinio.listObjects(any())).thenReturn(List.of());
+
+        assertFalse(store.restore("repo", "maven-1", List.of("maven-"),
+                tempDir.resolve("restored").toFile(), message -> { }));
+        assertFalse(Files.exists(tempDir.resolve("restored")));
+    }
+
+    @Test
+    void testSave_skipsSymbolicLinks() throws Exception {
+        Path workspace = workspace("build");
+        Path secret = Files.writeString(tempDir.resolve("secret.txt"), "secret");
+        Files.createSymbolicLink(workspace.resolve(".m2/repository/org/lib/secret.txt"), secret);
+        Files.createSymbolicLink(workspace.resolve("host"), tempDir);
+
+        store.save("repo", "maven-1", List.of(".m2"), workspace.toFile(), message -> { });
+        assertThrows(IOException.class, () -> store.save("repo", "maven-2",
+                List.of("host/secret.txt"), workspace.toFile(), message -> { }));
+
+        Path restored = tempDir.resolve("restored");
+        assertTrue(store.restore("repo", "maven-1", List.of(), restored.toFile(),
+                message -> { }));
+        assertTrue(Files.exists(restored.resolve(".m2/repository/org/lib/lib-1.0.jar")));
+        assertFalse(Files.exists(restored.resolve(".m2/repository/org/lib/secret.txt"),
+                LinkOption.NOFOLLOW_LINKS));
+        assertFalse(objects.containsKey(".caches/repo/maven-2.tar.gz"));
+    }
+
+    @Test
+    void testSave_nothingToSave() throws Exception {
+        store.save("repo", "maven-1", List.of("missing"), workspace("build").toFile(),
+                message -> { });
+
+        verify(mockMinio, never()).uploadObject(any());
+    }
+}
@@ -0,0 +1,144 @@
+package com.example.cliserver.backend.database.artifactsDB;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class TarStreamsTest {
+
+    @TempDir
+    Path tempDir;
+
+    /**
+     * Builds a tar entry: a ustar header followed by the padded contents.
+     */
+    static byte[] entry(String name, char type, String content) {
+        byte[] data = content.getBytes(StandardCharsets.UTF_8);
+        byte[] header = new byte[512];
+        byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+        System.arraycopy(nameBytes, 0, header, 0, Math.min(100, nameBytes.length));
+        byte[] size = String.format("%011o", data.length).getBytes(StandardCharsets.US_ASCII);
+        System.arraycopy(size, 0, header, 124, size.length);
+        header[156] = (byte) type;
+        System.arraycopy("ustar".getBytes(StandardCharsets.US_ASCII), 0, header, 257, 5);
+        byte[] entry = new byte[512 + (data.length + 511) / 512 * 512];
+        System.arraycopy(header, 0, entry, 0, 512);
+        System.arraycopy(data, 0, entry, 512, data.length);
+        return entry;
+    }
+
+    static byte[] tar(byte[]... entries) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (byte[] entry : entries) {
+            out.write(entry);
+        }
+        TarStreams.finish(out);
+        return out.toByteArray();
+    }
+
+    static List<String> names(byte[] tar) throws IOException {
+        List<String> names = new ArrayList<>();
+        TarStreams.copyEntries(new ByteArrayInputStream(tar), new ByteArrayOutputStream(),
+                name -> names.add(name) && false);
+        return names;
+    }
+
+    @Test
+    void testCopyEntries_combinesArchivesWithOneEndMarker() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        assertEquals(1, TarStreams.copyEntries(new ByteArrayInputStream(tar(
+                entry("target/", '5', ""), entry("target/app.jar", '0', "jar"))),
+                out, name -> true));
+        assertEquals(1, TarStreams.copyEntries(new ByteArrayInputStream(tar(
+                entry("reports/a.xml", '0', "<a/>"))), out, name -> true));
+        TarStreams.finish(out);
+
+        byte[] combined = out.toByteArray();
+        assertEquals(Arrays.asList("target/", "target/app.jar", "reports/a.xml"),
+                names(combined));
+        assertEquals(5 * 512 + 1024, combined.length);
+    }
+
+    @Test
+    void testCopyEntries_filtersByFullPaxName() throws IOException {
+        String longName = "reports/" + "nested/".repeat(20) + "result.xml";
+        byte[] pax = entry("PaxHeader", 'x',
+                (longName.length() + 10) + " path=" + longName + "\n");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        int copied = TarStreams.copyEntries(new ByteArrayInputStream(tar(pax,
+                entry("truncated", '0', "kept"), entry("reports/b.txt", '0', "dropped"))),
+                out, name -> name.endsWith(".xml"));
+        TarStreams.finish(out);
+
+        assertEquals(1, copied);
+        assertEquals(List.of(longName), names(out.toByteArray()));
+    }
+
+    @Test
+    void testCopyEntries_truncatedArchive() {
+        byte[] entry = entry("target/app.jar", '0', "jar contents");
+        byte[] truncated = Arrays.copyOf(entry, 600);
+
+        assertThrows(EOFException.class, () -> TarStreams.copyEntries(
+                new ByteArrayInputStream(truncated), new ByteArrayOutputStream(), name -> true));
+    }
+
+    @Test
+    void testWriteFile_extractsWithLongNamesAndExecutableBit() throws IOException {
+        String longName = "repository/" + "org/example/".repeat(10) + "lib-1.0.jar";
+        Path jar = Files.writeString(tempDir.resolve("lib.jar"), "jar");
+        Path script = Files.writeString(tempDir.resolve("run.sh"), "#!/bin/sh");
+        assertTrue(script.toFile().setExecutable(true));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        TarStreams.writeFile(out, longName, jar);
+        TarStreams.writeFile(out, "bin/run.sh", script);
+        TarStreams.finish(out);
+        byte[] tar = out.toByteArray();
+
+        assertEquals(List.of(longName, "bin/run.sh"), names(tar));
+        Path target = tempDir.resolve("target");
+        assertEquals(2, TarStreams.extractEntries(new ByteArrayInputStream(tar), target));
+        assertEquals("jar", Files.readString(target.resolve(longName)));
+        assertTrue(Files.isExecutable(target.resolve("bin/run.sh")));
+        assertFalse(Files.isExecutable(target.resolve(longName)));
+    }
+
+    @Test
+    void testExtractEntries_rejectsEntriesOutsideTheDirectory() throws IOException {
+        byte[] tar = tar(entry("../escaped.txt", '0', "escaped"));
+        Path target = tempDir.resolve("target");
+
+        assertThrows(IOException.class, () ->
+                TarStreams.extractEntries(new ByteArrayInputStream(tar), target));
+        assertFalse(Files.exists(tempDir.resolve("escaped.txt")));
+    }
+
+    @Test
+    void testExtractEntries_refusesToWriteThroughSymbolicLinks() throws IOException {
+        Path outside = Files.createDirectories(tempDir.resolve("outside"));
+        Path target = Files.createDirectories(tempDir.resolve("target"));
+        Files.createSymbolicLink(target.resolve("link"), outside);
+        byte[] tar = tar(entry("link/escaped.txt", '0', "escaped"));
+
+        assertThrows(IOException.class, () ->
+                TarStreams.extractEntries(new ByteArrayInputStream(tar), target));
+        assertFalse(Files.exists(outside.resolve("escaped.txt")));
+    }
+}
@@ -2,6 +2,7 @@ package com.example.cliserver.backend.database.mongoDB;
 
 import com.example.cliserver.backend.model.PipelineRun;
 import com.mongodb.client.*;
+import com.mongodb.client.result.UpdateResult;
 import org.bson.Document;
 import org.bson.conversions.Bson;
 import org.junit.jupiter.api.BeforeEach;
@@ -68,4 +69,32 @@ class MongoDBPipelineRunsDaoTest {
 
         verify(mockCollection).replaceOne((Bson) any(), any(), any());
     }
+
+    @Test
+    void testClaimPipelineRun_shouldReportWhetherTheRunWasClaimed() {
+        UpdateResult claimed = mock(UpdateResult.class);
+        when(claimed.getModifiedCount()).thenReturn(1L);
+        UpdateResult notClaimed = mock(UpdateResult.class);
+        when(mockCollection.updateOne(any(Bson.class), any(Bson.class)))
+                .thenReturn(claimed, notClaimed);
+
+        assertTrue(dao.claimPipelineRun("repo", "pipe", 1, "worker-1", 60_000, false));
+        assertFalse(dao.claimPipelineRun("repo", "pipe", 1, "worker-2", 60_000, true));
+        verify(mockCollection, times(2)).updateOne(any(Bson.class), any(Bson.class));
+    }
+
+    @Test
+    void testUpdateOwnedPipelineRun_shouldNotReplaceTheDocument() {
+        PipelineRun run = new PipelineRun();
+        run.setPipelineName("pipe");
+        run.setRunNumber(1);
+        run.setRepo("repo");
+        run.setPipelineStatus(com.example.cliserver.backend.model.Status.RUNNING);
+        UpdateResult notMatched = mock(UpdateResult.class);
+        when(mockCollection.updateOne(any(Bson.class), any(Bson.class))).thenReturn(notMatched);
+
+        // The run was taken over by another worker
+        assertFalse(dao.updateOwnedPipelineRun(run, "worker-1"));
+        verify(mockCollection, never()).replaceOne((Bson) any(), any(), any());
+    }
 }
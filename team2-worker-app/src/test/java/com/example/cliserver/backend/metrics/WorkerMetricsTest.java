@@ -0,0 +1,73 @@
+package com.example.cliserver.backend.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+public class WorkerMetricsTest {
+
+    @Test
+    public void testFreeSlotsFollowInflightRuns() {
+        WorkerMetrics metrics = new WorkerMetrics(2);
+        assertEquals(2, metrics.getFreeSlots());
+
+        metrics.deliveryReceived();
+        metrics.runStarted(1000);
+        metrics.deliveryReceived();
+        metrics.runStarted(3000);
+        assertEquals(2, metrics.getInflightRuns());
+        assertEquals(0, metrics.getFreeSlots());
+
+        metrics.runFinished();
+        metrics.deliverySettled();
+        assertEquals(1, metrics.getInflightRuns());
+        assertEquals(1, metrics.getFreeSlots());
+        assertEquals(2000.0, metrics.getAverageWaitMillis());
+    }
+
+    @Test
+    public void testSkippedDeliveryIsNotCountedAsRun() {
+        WorkerMetrics metrics = new WorkerMetrics(1);
+        metrics.deliveryReceived();
+        assertEquals(0, metrics.getFreeSlots());
+        metrics.deliverySettled();
+
+        assertEquals(1, metrics.getFreeSlots());
+        String rendered = metrics.render();
+        assertTrue(rendered.contains("pipeline_worker_run_wait_seconds_count 0\n"));
+        assertTrue(rendered.contains("pipeline_worker_runs_finished_total 0\n"));
+    }
+
+    @Test
+    public void testNegativeWaitIsClamped() {
+        WorkerMetrics metrics = new WorkerMetrics(1);
+        metrics.runStarted(-500);
+        assertEquals(0.0, metrics.getAverageWaitMillis());
+    }
+
+    @Test
+    public void testDrainingWorkerHasNoFreeSlots() {
+        WorkerMetrics metrics = new WorkerMetrics(1);
+        metrics.setDraining();
+
+        assertEquals(0, metrics.getFreeSlots());
+        assertTrue(metrics.render().contains("pipeline_worker_draining 1\n"));
+    }
+
+    @Test
+    public void testRender() {
+        WorkerMetrics metrics = new WorkerMetrics(1);
+        metrics.deliveryReceived();
+        metrics.runStarted(1500);
+
+        String rendered = metrics.render();
+
+        assertTrue(rendered.contains("pipeline_worker_capacity 1\n"));
+        assertTrue(rendered.contains("pipeline_worker_inflight_runs 1\n"));
+        assertTrue(rendered.contains("pipeline_worker_free_slots 0\n"));
+        assertTrue(rendered.contains("pipeline_worker_run_wait_seconds_sum 1.5\n"));
+        assertTrue(rendered.contains("pipeline_worker_run_wait_seconds_count 1\n"));
+        assertTrue(rendered.contains("pipeline_worker_runs_finished_total 0\n"));
+    }
+}
@@ -0,0 +1,236 @@
+package com.example.cliserver.backend.runCommand;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.example.cliserver.backend.utils.RepoMirrorCache;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class WorkspaceManagerTest {
+
+    @TempDir
+    Path tempDir;
+
+    private Git remote;
+    private String remoteUri;
+    private RevCommit firstCommit;
+    private RevCommit secondCommit;
+    private WorkspaceReclaimer reclaimer;
+    private WorkspaceManager workspaceManager;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        remote = Git.init().setDirectory(tempDir.resolve("remote").toFile())
+                .setInitialBranch("main").call();
+        remoteUri = remote.getRepository().getWorkTree().toURI().toString();
+        firstCommit = commitFile("build.sh", "echo first");
+        secondCommit = commitFile("build.sh", "echo second");
+        File rootDirectory = tempDir.resolve("workspaces").toFile();
+        reclaimer = new WorkspaceReclaimer(
+                new File(rootDirectory, WorkspaceReclaimer.RECLAIM_DIRECTORY_NAME), 0);
+        workspaceManager = new WorkspaceManager(rootDirectory,
+                new RepoMirrorCache(tempDir.resolve("mirrors").toFile(), Long.MAX_VALUE),
+                reclaimer);
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        remote.close();
+        // Let the background deletions finish before the temporary directory is deleted
+        reclaimer.awaitIdle();
+    }
+
+    private RevCommit commitFile(String name, String content) throws Exception {
+        Files.write(remote.getRepository().getWorkTree().toPath().resolve(name),
+                content.getBytes(StandardCharsets.UTF_8));
+        remote.add().addFilepattern(name).call();
+        return remote.commit().setMessage("Update " + name).call();
+    }
+
+    private String readBuildScript(WorkspaceManager.Workspace workspace) throws IOException {
+        return Files.readString(new File(workspace.getDirectory(), "build.sh").toPath());
+    }
+
+    @Test
+    void testAcquire_checksOutTheCommit() throws IOException {
+        try (WorkspaceManager.Workspace workspace =
+                     workspaceManager.acquire(remoteUri, firstCommit.getName())) {
+            assertEquals("echo first", readBuildScript(workspace));
+        }
+    }
+
+    @Test
+    void testAcquire_sameCommitSharesCheckout() throws IOException {
+        try (WorkspaceManager.Workspace first =
+                     workspaceManager.acquire(remoteUri, secondCommit.getName());
+             WorkspaceManager.Workspace second =
+                     workspaceManager.acquire(remoteUri, secondCommit.getName())) {
+            assertEquals(first.getDirectory(), second.getDirectory());
+            assertEquals(2, workspaceManager.getReferenceCount(remoteUri,
+                    secondCommit.getName()));
+        }
+    }
+
+    @Test
+    void testAcquire_differentCommitsDoNotShareCheckout() throws IOException {
+        try (WorkspaceManager.Workspace first =
+                     workspaceManager.acquire(remoteUri, firstCommit.getName());
+             WorkspaceManager.Workspace second =
+                     workspaceManager.acquire(remoteUri, secondCommit.getName())) {
+            assertNotEquals(first.getDirectory(), second.getDirectory());
+            assertEquals("echo first", readBuildScript(first));
+            assertEquals("echo second", readBuildScript(second));
+        }
+    }
+
+    @Test
+    void testRelease_deletesCheckoutWithLastReference() throws IOException {
+        WorkspaceManager.Workspace workspace =
+                workspaceManager.acquire(remoteUri, firstCommit.getName());
+        WorkspaceManager.Workspace jobWorkspace = workspace.retain();
+        File directory = workspace.getDirectory();
+
+        workspace.close();
+        workspace.close();
+        assertTrue(directory.exists(), "Checkout should be kept while a job uses it");
+        assertEquals(1, workspaceManager.getReferenceCount(remoteUri, firstCommit.getName()));
+
+        jobWorkspace.close();
+        assertFalse(directory.exists(), "Checkout should be deleted with the last reference");
+        assertEquals(0, workspaceManager.getReferenceCount(remoteUri, firstCommit.getName()));
+    }
+
+    @Test
+    void testResolveCommit() throws IOException {
+        assertEquals(secondCommit.getName(),
+                workspaceManager.resolveCommit(remoteUri, "main", null));
+        assertEquals(secondCommit.getName(),
+                workspaceManager.resolveCommit(remoteUri, null, null));
+        assertEquals(firstCommit.getName(),
+                workspaceManager.resolveCommit(remoteUri, "main", firstCommit.getName()));
+        assertThrows(IOException.class,
+                () -> workspaceManager.resolveCommit(remoteUri, "nonexistent", null));
+    }
+
+    @Test
+    void testCreateRunWorkspace_linksCheckoutIntoSeparateRunDirectories() throws IOException {
+        WorkspaceManager.Workspace checkout =
+                workspaceManager.acquire(remoteUri, secondCommit.getName());
+        WorkspaceManager.RunWorkspace firstRun =
+                workspaceManager.createRunWorkspace(checkout.retain());
+        WorkspaceManager.RunWorkspace secondRun =
+                workspaceManager.createRunWorkspace(checkout.retain());
+        checkout.close();
+
+        Path checkedOut = new File(checkout.getDirectory(), "build.sh").toPath();
+        Path linked = new File(firstRun.getDirectory(), "build.sh").toPath();
+        assertNotEquals(firstRun.getDirectory(), secondRun.getDirectory());
+        assertTrue(Files.isSameFile(checkedOut, linked), "Files should be hard-linked");
+
+        Files.writeString(firstRun.getDirectory().toPath().resolve("output.txt"), "built");
+        assertFalse(new File(secondRun.getDirectory(), "output.txt").exists(),
+                "Build outputs should not be shared between runs");
+
+        firstRun.close();
+        assertFalse(firstRun.getDirectory().exists());
+        assertEquals(1, workspaceManager.getReferenceCount(remoteUri, secondCommit.getName()));
+        assertEquals("echo second",
+                Files.readString(new File(secondRun.getDirectory(), "build.sh").toPath()));
+
+        secondRun.close();
+        assertFalse(checkout.getDirectory().exists(),
+                "Checkout should be deleted with the last run");
+    }
+
+    @Test
+    void testCreateRunWorkspace_givesLocalRunsAnEmptyDirectoryOfTheirOwn() throws IOException {
+        WorkspaceManager.RunWorkspace firstRun = workspaceManager.createRunWorkspace();
+        WorkspaceManager.RunWorkspace secondRun = workspaceManager.createRunWorkspace();
+
+        assertNotEquals(firstRun.getDirectory(), secondRun.getDirectory());
+        assertEquals(0, firstRun.getDirectory().list().length);
+        assertTrue(firstRun.getHostPath("/host").endsWith("/" + firstRun.getDirectory().getName()));
+
+        firstRun.close();
+        secondRun.close();
+        assertFalse(firstRun.getDirectory().exists());
+        assertFalse(secondRun.getDirectory().exists());
+    }
+
+    @Test
+    void testCreateJobWorkspace_copiesRunDirectoryWithoutSharingJobOutputs() throws IOException {
+        WorkspaceManager.RunWorkspace run = workspaceManager.createRunWorkspace(
+                workspaceManager.acquire(remoteUri, secondCommit.getName()));
+        Files.writeString(run.getDirectory().toPath().resolve("compiled.txt"), "compiled");
+        WorkspaceManager.RunWorkspace firstJob = workspaceManager.createJobWorkspace(run);
+        WorkspaceManager.RunWorkspace secondJob = workspaceManager.createJobWorkspace(run);
+
+        assertNotEquals(firstJob.getDirectory(), secondJob.getDirectory());
+        assertFalse(Files.isSameFile(run.getDirectory().toPath().resolve("build.sh"),
+                firstJob.getDirectory().toPath().resolve("build.sh")),
+                "Files of the run should be copied");
+        // Written in place, as a job that opens a checked out file for writing does
+        try (FileWriter writer = new FileWriter(new File(firstJob.getDirectory(), "build.sh"),
+                true)) {
+            writer.write(" changed");
+        }
+        Files.writeString(firstJob.getDirectory().toPath().resolve("output.txt"), "tested");
+        assertEquals("echo second",
+                Files.readString(new File(secondJob.getDirectory(), "build.sh").toPath()));
+        assertFalse(new File(secondJob.getDirectory(), "output.txt").exists(),
+                "Outputs should not be shared between the jobs of a matrix");
+        assertFalse(new File(run.getDirectory(), "output.txt").exists());
+
+        firstJob.close();
+        secondJob.close();
+        assertFalse(firstJob.getDirectory().exists());
+        assertTrue(run.getDirectory().exists(), "Run directory should outlive its jobs");
+        assertEquals("echo second",
+                Files.readString(new File(run.getDirectory(), "build.sh").toPath()));
+        run.close();
+    }
+
+    @Test
+    void testMergeJobWorkspace_copiesCreatedAndChangedFilesBackIntoTheRun() throws IOException {
+        WorkspaceManager.Workspace checkout =
+                workspaceManager.acquire(remoteUri, secondCommit.getName());
+        WorkspaceManager.RunWorkspace run = workspaceManager.createRunWorkspace(checkout);
+        Path outside = Files.createDirectories(tempDir.resolve("outside"));
+        Files.createSymbolicLink(run.getDirectory().toPath().resolve("reports"), outside);
+        WorkspaceManager.RunWorkspace job = workspaceManager.createJobWorkspace(run);
+        Path jobDirectory = job.getDirectory().toPath();
+        Files.writeString(jobDirectory.resolve("build.sh"), "echo changed");
+        Files.createDirectories(jobDirectory.resolve("target"));
+        Files.writeString(jobDirectory.resolve("target/app.jar"), "jar");
+        Files.delete(jobDirectory.resolve("reports"));
+        Files.createDirectories(jobDirectory.resolve("reports"));
+        Files.writeString(jobDirectory.resolve("reports/result.xml"), "<result/>");
+
+        workspaceManager.mergeJobWorkspace(job, run);
+
+        Path runDirectory = run.getDirectory().toPath();
+        assertEquals("echo changed", Files.readString(runDirectory.resolve("build.sh")));
+        assertEquals("jar", Files.readString(runDirectory.resolve("target/app.jar")));
+        assertFalse(Files.exists(outside.resolve("result.xml")),
+                "Merging should never write through a symbolic link of the run");
+        assertEquals("echo second", Files.readString(
+                new File(checkout.getDirectory(), "build.sh").toPath()),
+                "The checkout the run is linked from should be left untouched");
+        job.close();
+        run.close();
+    }
+}
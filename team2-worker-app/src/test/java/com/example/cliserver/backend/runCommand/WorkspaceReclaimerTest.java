@@ -0,0 +1,84 @@
+package com.example.cliserver.backend.runCommand;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class WorkspaceReclaimerTest {
+
+    @TempDir
+    Path tempDir;
+
+    private File reclaimDirectory;
+
+    @BeforeEach
+    void setUp() {
+        reclaimDirectory = tempDir.resolve(WorkspaceReclaimer.RECLAIM_DIRECTORY_NAME).toFile();
+    }
+
+    private File createDirectory(String name, int bytes) throws IOException {
+        Path directory = Files.createDirectories(tempDir.resolve(name));
+        Files.createDirectories(directory.resolve("build"));
+        Files.write(directory.resolve("build/output.bin"), new byte[bytes]);
+        return directory.toFile();
+    }
+
+    private String[] reclaimed() {
+        String[] names = reclaimDirectory.list();
+        return names == null ? new String[0] : names;
+    }
+
+    @Test
+    void testReclaim_freesThePathAtOnceAndDeletesInTheBackground() throws Exception {
+        WorkspaceReclaimer reclaimer = new WorkspaceReclaimer(reclaimDirectory, 0);
+        File directory = createDirectory("run-1", 10);
+
+        reclaimer.reclaim(directory);
+        assertFalse(directory.exists(), "The path should be free when reclaim returns");
+
+        reclaimer.awaitIdle();
+        assertEquals(0, reclaimed().length);
+    }
+
+    @Test
+    void testReclaimRun_keepsNewestRunsWithinTheRetainedSize() throws Exception {
+        WorkspaceReclaimer reclaimer = new WorkspaceReclaimer(reclaimDirectory, 250);
+
+        reclaimer.reclaimRun(createDirectory("run-1", 100));
+        reclaimer.reclaimRun(createDirectory("run-2", 100));
+        reclaimer.awaitIdle();
+        assertEquals(2, reclaimed().length);
+
+        reclaimer.reclaimRun(createDirectory("run-3", 100));
+        reclaimer.awaitIdle();
+        String[] kept = reclaimed();
+        assertEquals(2, kept.length);
+        for (String name : kept) {
+            assertFalse(name.endsWith("-run-1"), "The oldest run should be deleted first");
+        }
+    }
+
+    @Test
+    void testSweep_deletesEverythingLeftBehindByAPreviousProcess() throws Exception {
+        File orphanRun = createDirectory("runs/run-crashed", 10);
+        File orphanCheckout = createDirectory("0123abcd", 10);
+        Files.createDirectories(reclaimDirectory.toPath().resolve("1-2-run-half-deleted"));
+        WorkspaceReclaimer reclaimer = new WorkspaceReclaimer(reclaimDirectory, Long.MAX_VALUE);
+
+        reclaimer.sweep(tempDir.toFile());
+        assertFalse(orphanRun.exists());
+        assertFalse(orphanCheckout.exists());
+
+        reclaimer.awaitIdle();
+        assertEquals(0, reclaimed().length);
+        assertTrue(reclaimDirectory.exists());
+    }
+}
@@ -0,0 +1,135 @@
+package com.example.cliserver.backend.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class GlobMatcherTest {
+
+    @TempDir
+    Path tempDir;
+
+    private void createFiles(String... names) throws Exception {
+        for (String name : names) {
+            Path file = tempDir.resolve(name);
+            Files.createDirectories(file.getParent());
+            Files.writeString(file, name);
+        }
+    }
+
+    private List<String> walk(String... patterns) throws Exception {
+        List<String> names = new ArrayList<>();
+        for (Path path : GlobMatcher.compile(List.of(patterns)).walk(tempDir)) {
+            names.add(tempDir.relativize(path).toString().replace('\\', '/'));
+        }
+        return names;
+    }
+
+    @Test
+    void testMatches_segmentWildcards() {
+        GlobMatcher matcher = GlobMatcher.compile(List.of("dist/*.{jar,war}", "logs/run-?.[lt]og"));
+
+        assertTrue(matcher.matches("dist/app.jar"));
+        assertTrue(matcher.matches("dist/app.war"));
+        assertFalse(matcher.matches("dist/app.zip"));
+        assertFalse(matcher.matches("dist/lib/app.jar"));
+        assertTrue(matcher.matches("logs/run-1.log"));
+        assertFalse(matcher.matches("logs/run-10.log"));
+        assertFalse(matcher.matches("dist"));
+    }
+
+    @Test
+    void testMatches_doubleStarMatchesAnyNumberOfDirectories() {
+        GlobMatcher matcher = GlobMatcher.compile(List.of("build/**/reports/*.xml"));
+
+        assertTrue(matcher.matches("build/reports/a.xml"));
+        assertTrue(matcher.matches("build/x/y/reports/a.xml"));
+        assertFalse(matcher.matches("build/reports/sub/a.xml"));
+        assertFalse(matcher.matches("other/reports/a.xml"));
+    }
+
+    @Test
+    void testMatches_negationExcludesFilesAndDirectories() {
+        GlobMatcher matcher = GlobMatcher.compile(
+                List.of("out/**", "!out/**/*.tmp", "!out/cache"));
+
+        assertTrue(matcher.matches("out/a.txt"));
+        assertTrue(matcher.matches("out/x/b.txt"));
+        assertFalse(matcher.matches("out/x/b.tmp"));
+        assertFalse(matcher.matches("out/cache/c.txt"));
+    }
+
+    @Test
+    void testMatches_doubleStarDoesNotLetSiblingLiteralsMatchAtAnyDepth() {
+        GlobMatcher matcher = GlobMatcher.compile(List.of("a/**/b", "a/c"));
+
+        assertTrue(matcher.matches("a/b"));
+        assertTrue(matcher.matches("a/x/y/b"));
+        assertTrue(matcher.matches("a/c"));
+        assertFalse(matcher.matches("a/x/c"));
+    }
+
+    @Test
+    void testMatches_negationAfterDoubleStarOnlyExcludesItsOwnPath() {
+        GlobMatcher matcher = GlobMatcher.compile(List.of("**", "!target/foo.txt"));
+
+        assertFalse(matcher.matches("target/foo.txt"));
+        assertTrue(matcher.matches("target/bar.txt"));
+        assertTrue(matcher.matches("a/target/foo.txt"));
+        assertTrue(matcher.matches("a/b/target/foo.txt"));
+    }
+
+    @Test
+    void testWalk_severalPatternsInOneWalk() throws Exception {
+        createFiles("build/reports/a.xml", "build/m1/reports/b.xml", "build/m1/reports/b.txt",
+                "build/m1/classes/C.class", "dist/app.jar", "src/Main.java");
+
+        assertEquals(List.of("build/m1/reports/b.xml", "build/reports/a.xml", "dist/app.jar"),
+                walk("build/**/reports/*.xml", "dist/*.jar"));
+        assertEquals(List.of("build/reports/a.xml"),
+                walk("build/**/reports/*.xml", "!build/m1"));
+        assertEquals(List.of(), walk("missing/**/*.xml"));
+    }
+
+    @Test
+    void testWalk_doubleStarWithLiteralsAndExclusions() throws Exception {
+        createFiles("a/c", "a/b", "a/x/b", "a/x/c", "target/foo.txt", "lib/target/foo.txt");
+
+        assertEquals(List.of("a/b", "a/c", "a/x/b"), walk("a/**/b", "a/c"));
+        assertEquals(List.of("a/b", "a/c", "a/x/b", "a/x/c", "lib/target/foo.txt"),
+                walk("**", "!target/foo.txt"));
+        assertEquals(List.of("a/x/b", "a/x/c"), walk("a/**", "!a/b", "!a/c"));
+    }
+
+    @Test
+    void testWalk_prunesDirectoriesThatCannotMatch() throws Exception {
+        createFiles("build/reports/a.xml", "node_modules/lib/index.js");
+        Path unreadable = tempDir.resolve("node_modules");
+        // A pruned directory is never listed, so it does not matter that it cannot be
+        assertTrue(unreadable.toFile().setReadable(false));
+        try {
+            assertEquals(List.of("build/reports/a.xml"), walk("build/reports/*.xml"));
+            assertEquals(List.of("build/reports/a.xml"), walk("**/*.xml", "!node_modules"));
+        } finally {
+            unreadable.toFile().setReadable(true);
+        }
+    }
+
+    @Test
+    void testCompile_cachesPatterns() {
+        assertSame(GlobMatcher.compile(List.of("a/*.txt", "!a/b.txt")),
+                GlobMatcher.compile(new ArrayList<>(List.of("a/*.txt", "!a/b.txt"))));
+        assertThrows(IllegalArgumentException.class, () -> GlobMatcher.compile(List.of("/")));
+        assertThrows(IllegalArgumentException.class,
+                () -> GlobMatcher.compile(List.of("a/{b,c")));
+    }
+}